@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan(basePackages = {"com.authsystem"})
 @EnableMongoRepositories(basePackages = {"com.authsystem.repository"})
+@EnableScheduling
 public class AuthSystemApplication {
     public static void main(String[] args) {
         SpringApplication.run(AuthSystemApplication.class, args);
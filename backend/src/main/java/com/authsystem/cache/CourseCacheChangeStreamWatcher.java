@@ -0,0 +1,112 @@
+package com.authsystem.cache;
+
+import com.authsystem.model.Course;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Propagates course cache invalidations between instances through a MongoDB change stream
+ * Every instance watches the courses collection and publishes a local CourseChangedEvent for
+ * each insert, update, replace or delete - including $inc counter updates made by other instances.
+ * Requires a replica set (MongoDB Atlas always is); enable with course.cache.change-stream.enabled=true
+ */
+@Component
+@ConditionalOnProperty(name = "course.cache.change-stream.enabled", havingValue = "true")
+public class CourseCacheChangeStreamWatcher implements SmartLifecycle {
+
+    private static final long RETRY_DELAY_MS = 5000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private volatile boolean running;
+    private volatile Thread worker;
+    private BsonDocument resumeToken;
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::watchLoop, "course-cache-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+        System.out.println("👀 Watching courses change stream for cache invalidation");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor()) {
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change == null) {
+                        continue;
+                    }
+                    resumeToken = change.getResumeToken();
+                    eventPublisher.publishEvent(toEvent(change));
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                System.err.println("⚠️ Course change stream interrupted: " + e.getMessage() + " - retrying");
+                // Anything could have changed while disconnected
+                eventPublisher.publishEvent(new CourseChangedEvent(null, true));
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+        var stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Course.class)).watch();
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private CourseChangedEvent toEvent(ChangeStreamDocument<Document> change) {
+        BsonDocument key = change.getDocumentKey();
+        BsonValue id = key != null ? key.get("_id") : null;
+        if (id == null) {
+            // drop, rename or invalidate events affect the whole collection
+            return new CourseChangedEvent(null, true);
+        }
+        if (id.isObjectId()) {
+            return new CourseChangedEvent(id.asObjectId().getValue().toHexString(), true);
+        }
+        if (id.isString()) {
+            return new CourseChangedEvent(id.asString().getValue(), true);
+        }
+        return new CourseChangedEvent(null, true);
+    }
+}
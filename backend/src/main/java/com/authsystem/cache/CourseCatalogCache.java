@@ -0,0 +1,108 @@
+package com.authsystem.cache;
+
+import com.authsystem.dto.CourseDetailsDTO;
+import com.authsystem.dto.CourseSummaryDTO;
+import com.authsystem.repository.CourseRepository;
+import com.authsystem.service.CourseDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Course Catalog Cache - Read-through cache for the student-facing catalog
+ * Caches /api/courses/published, /api/courses/published/details and /api/courses/{id}/details.
+ * Entries are dropped on CourseChangedEvent; the TTL only bounds staleness if an event is missed.
+ * Every entry remembers the ETag it was built under: an entry older than the ETag being served
+ * (another instance's write whose event has not arrived yet) is rebuilt, never sent under the newer tag.
+ * Cached objects are shared between requests and must not be mutated by callers.
+ */
+@Service
+public class CourseCatalogCache {
+
+    private static final String PUBLISHED_KEY = "PUBLISHED";
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CourseDetailsService courseDetailsService;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${course.cache.max-details:1000}")
+    private int maxDetails;
+
+    @Value("${course.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private ReadThroughCache<String, Versioned<CourseDetailsDTO>> detailsCache;
+    private ReadThroughCache<String, Versioned<List<CourseSummaryDTO>>> publishedCache;
+    private ReadThroughCache<String, Versioned<List<CourseDetailsDTO>>> publishedDetailsCache;
+
+    /**
+     * A cached body and the content_versions ETag read before it was built
+     */
+    private record Versioned<T>(String etag, T value) {}
+
+    @PostConstruct
+    void init() {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        detailsCache = new ReadThroughCache<>("course.details", maxDetails, ttl);
+        publishedCache = new ReadThroughCache<>("course.published", 1, ttl);
+        publishedDetailsCache = new ReadThroughCache<>("course.published.details", 1, ttl);
+
+        if (meterRegistry != null) {
+            detailsCache.bindTo(meterRegistry);
+            publishedCache.bindTo(meterRegistry);
+            publishedDetailsCache.bindTo(meterRegistry);
+        }
+    }
+
+    /**
+     * @param etag the course's current ETag, read before calling so the body is never older than it
+     */
+    public CourseDetailsDTO getCourseDetails(String courseId, String etag) {
+        return get(detailsCache, courseId, etag, courseDetailsService::getCourseDetailsWithCounts);
+    }
+
+    public List<CourseSummaryDTO> getPublishedCourses(String etag) {
+        return get(publishedCache, PUBLISHED_KEY, etag, key -> List.copyOf(courseRepository.findSummariesByStatus("PUBLISHED")));
+    }
+
+    public List<CourseDetailsDTO> getPublishedCoursesWithDetails(String etag) {
+        return get(publishedDetailsCache, PUBLISHED_KEY, etag, key -> List.copyOf(courseDetailsService.getPublishedCoursesWithCounts()));
+    }
+
+    private static <T> T get(ReadThroughCache<String, Versioned<T>> cache, String key, String etag, Function<String, T> loader) {
+        Versioned<T> cached = cache.get(key, k -> new Versioned<>(etag, loader.apply(k)));
+        if (Objects.equals(cached.etag(), etag)) {
+            return cached.value();
+        }
+        // Built under another version: this request loads its own copy, the next one caches under the current tag
+        cache.invalidate(key);
+        return loader.apply(key);
+    }
+
+    /**
+     * Any course change can move it in or out of the published lists, so both lists are dropped
+     */
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (event.courseId() == null) {
+            detailsCache.invalidateAll();
+        } else {
+            detailsCache.invalidate(event.courseId());
+        }
+        publishedCache.invalidateAll();
+        publishedDetailsCache.invalidateAll();
+    }
+}
@@ -0,0 +1,40 @@
+package com.authsystem.cache;
+
+import com.authsystem.model.Course;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns repository saves and deletes of Course documents into CourseChangedEvents
+ * Covers publish, update, delete and subcontent-toggle in CourseController and CourseService
+ * Runs after CourseSubcontentListener, so the event is only published once the subcontents are written
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CourseChangePublisher extends AbstractMongoEventListener<Course> {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Course> event) {
+        eventPublisher.publishEvent(new CourseChangedEvent(event.getSource().getId()));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Course> event) {
+        Document filter = event.getDocument();
+        Object id = filter != null ? filter.get("_id") : null;
+        // Deletes by arbitrary criteria (e.g. deleteAll) do not carry a single id
+        eventPublisher.publishEvent(id instanceof String || id instanceof org.bson.types.ObjectId
+            ? new CourseChangedEvent(id.toString())
+            : CourseChangedEvent.all());
+    }
+}
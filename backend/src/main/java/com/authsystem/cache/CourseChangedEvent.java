@@ -0,0 +1,17 @@
+package com.authsystem.cache;
+
+/**
+ * Published whenever a course document (or anything shown in its details) changes
+ * A null courseId means "some or all courses changed" and clears every cached entry.
+ * Remote events come from the change stream and describe writes another instance already handled.
+ */
+public record CourseChangedEvent(String courseId, boolean remote) {
+
+    public CourseChangedEvent(String courseId) {
+        this(courseId, false);
+    }
+
+    public static CourseChangedEvent all() {
+        return new CourseChangedEvent(null);
+    }
+}
@@ -0,0 +1,33 @@
+package com.authsystem.cache;
+
+import com.authsystem.model.QuizAttempt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns saves and deletes of QuizAttempt documents into QuizAttemptRecordedEvents
+ */
+@Component
+public class QuizAttemptChangePublisher extends AbstractMongoEventListener<QuizAttempt> {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<QuizAttempt> event) {
+        String email = event.getSource().getStudentEmail();
+        eventPublisher.publishEvent(email != null
+            ? new QuizAttemptRecordedEvent(email)
+            : QuizAttemptRecordedEvent.all());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<QuizAttempt> event) {
+        // Delete filters carry an id or arbitrary criteria, never the student - drop everything
+        eventPublisher.publishEvent(QuizAttemptRecordedEvent.all());
+    }
+}
@@ -0,0 +1,12 @@
+package com.authsystem.cache;
+
+/**
+ * Published whenever a quiz attempt is recorded (or removed) for a student
+ * A null studentEmail means "attempts of some or all students changed".
+ */
+public record QuizAttemptRecordedEvent(String studentEmail) {
+
+    public static QuizAttemptRecordedEvent all() {
+        return new QuizAttemptRecordedEvent(null);
+    }
+}
@@ -0,0 +1,197 @@
+package com.authsystem.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * ReadThroughCache - Small in-process LRU cache with TTL and stampede protection
+ * - Size-bounded: least recently used entries are evicted past maxSize
+ * - Single-flight: concurrent misses on one key share a single loader call
+ * - Invalidation-safe: a load that overlaps an invalidation of its key (or of the whole cache) is
+ *   returned but not stored; invalidating one key leaves loads of other keys alone
+ */
+public class ReadThroughCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+    private final Map<K, Load<V>> inFlight = new ConcurrentHashMap<>();
+    // Bumped by invalidateAll only; invalidate(key) marks the key's own in-flight load stale
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ReadThroughCache(String name, int maxSize, Duration ttl) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > ReadThroughCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return the cached value for key, loading it with loader on a miss
+     * Loader exceptions propagate to every caller waiting on the same key and are not cached
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        CacheEntry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired()) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.value;
+        }
+        misses.incrementAndGet();
+
+        Load<V> mine = new Load<>(generation.get());
+        Load<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing.future);
+        }
+
+        try {
+            V value = loader.apply(key);
+            if (value != null) {
+                synchronized (entries) {
+                    if (!mine.stale && generation.get() == mine.generation) {
+                        entries.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis));
+                    }
+                }
+            }
+            mine.future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            Load<V> load = inFlight.get(key);
+            if (load != null) {
+                load.stale = true;
+            }
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Publish cache.gets{result=hit|miss}, cache.evictions and cache.size for this cache
+     */
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+            .tag("cache", name).tag("result", "hit")
+            .description("Cache lookups that returned a cached value")
+            .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+            .tag("cache", name).tag("result", "miss")
+            .description("Cache lookups that went to the loader")
+            .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+            .tag("cache", name)
+            .description("Entries evicted because the cache was full")
+            .register(registry);
+        Gauge.builder("cache.size", this, ReadThroughCache::size)
+            .tag("cache", name)
+            .description("Number of cached entries")
+            .register(registry);
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A loader call in progress; stale once its key was invalidated while it ran
+     */
+    private static final class Load<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private final long generation;
+        // Guarded by entries
+        private boolean stale;
+
+        private Load(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private CacheEntry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
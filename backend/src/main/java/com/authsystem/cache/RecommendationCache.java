@@ -0,0 +1,58 @@
+package com.authsystem.cache;
+
+import com.authsystem.service.StudentRecommendationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Recommendation Cache - Read-through cache for /api/recommendations/student/{email}
+ * A student's entry is dropped as soon as one of their quiz attempts is recorded;
+ * the TTL bounds staleness from topic and material changes, which do not invalidate.
+ * Cached maps are shared between requests and are returned unmodifiable.
+ */
+@Service
+public class RecommendationCache {
+
+    @Autowired
+    private StudentRecommendationService recommendationService;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${recommendations.cache.max-students:5000}")
+    private int maxStudents;
+
+    @Value("${recommendations.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private ReadThroughCache<String, Map<String, Object>> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new ReadThroughCache<>("recommendations.student", maxStudents, Duration.ofSeconds(ttlSeconds));
+        if (meterRegistry != null) {
+            cache.bindTo(meterRegistry);
+        }
+    }
+
+    public Map<String, Object> getRecommendations(String email) {
+        return cache.get(email, key -> Collections.unmodifiableMap(recommendationService.getRecommendations(key)));
+    }
+
+    @EventListener
+    public void onQuizAttemptRecorded(QuizAttemptRecordedEvent event) {
+        if (event.studentEmail() == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(event.studentEmail());
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.authsystem.controller;
 
 import com.authsystem.model.DifficultyLevel;
+import com.authsystem.model.LearningEvent;
 import com.authsystem.model.StudentPerformance;
 import com.authsystem.service.AdaptiveLearningService;
+import com.authsystem.service.LearningEventLog;
+import com.authsystem.service.LearningEventProjector;
+import com.authsystem.service.StudentPerformanceProjection;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +20,7 @@ import java.util.Optional;
 /**
  * Adaptive Learning Controller
  * Handles all adaptive learning endpoints
+ * Writes are appended to the learning event log; profiles are built by StudentPerformanceProjection
  */
 @RestController
 @RequestMapping("/api/adaptive")
@@ -25,6 +30,12 @@ public class AdaptiveLearningController {
     @Autowired
     private AdaptiveLearningService adaptiveService;
     
+    @Autowired
+    private LearningEventLog eventLog;
+    
+    @Autowired
+    private LearningEventProjector projector;
+    
     /**
      * Record quiz attempt and get updated adaptive profile
      */
@@ -42,9 +53,9 @@ public class AdaptiveLearningController {
             
             DifficultyLevel difficulty = DifficultyLevel.fromString(difficultyStr);
             
-            StudentPerformance performance = adaptiveService.recordQuizAttempt(
-                studentEmail, courseId, topicName, score, totalQuestions, difficulty, timeSpent, quizId
-            );
+            long seq = eventLog.append(LearningEvent.quizAttempt(LearningEvent.Source.ADAPTIVE, studentEmail, courseId,
+                topicName, quizId, score, totalQuestions, timeSpent, difficulty.name(), null));
+            StudentPerformance performance = projectedPerformance(studentEmail, courseId, seq);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -77,9 +88,8 @@ public class AdaptiveLearningController {
             String topicName = (String) request.get("topicName");
             double percentage = ((Number) request.get("percentage")).doubleValue();
             
-            StudentPerformance performance = adaptiveService.updateCompletionPercentage(
-                studentEmail, courseId, topicName, percentage
-            );
+            long seq = eventLog.append(LearningEvent.topicCompletion(studentEmail, courseId, topicName, percentage));
+            StudentPerformance performance = projectedPerformance(studentEmail, courseId, seq);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -286,7 +296,8 @@ public class AdaptiveLearningController {
             @RequestParam String studentEmail,
             @RequestParam String courseId) {
         try {
-            adaptiveService.resetPerformance(studentEmail, courseId);
+            long seq = eventLog.append(LearningEvent.performanceReset(studentEmail, courseId));
+            projector.awaitProjected(StudentPerformanceProjection.NAME, seq);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -300,4 +311,13 @@ public class AdaptiveLearningController {
             ));
         }
     }
+    
+    /**
+     * Read the profile once the projection has applied the event (or the wait timed out)
+     */
+    private StudentPerformance projectedPerformance(String studentEmail, String courseId, long seq) {
+        projector.awaitProjected(StudentPerformanceProjection.NAME, seq);
+        return adaptiveService.getPerformance(studentEmail, courseId)
+            .orElseGet(() -> new StudentPerformance(studentEmail, courseId));
+    }
 }
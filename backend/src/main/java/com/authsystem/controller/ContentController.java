@@ -2,7 +2,14 @@ package com.authsystem.controller;
 
 import com.authsystem.model.*;
 import com.authsystem.repository.*;
+import com.authsystem.search.ContentSearchIndex;
+import com.authsystem.search.InvertedIndex;
+import com.authsystem.service.ContentStatsService;
+import com.authsystem.service.ContentVersionService;
+import com.authsystem.service.SubjectContentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -32,6 +39,18 @@ public class ContentController {
     
     @Autowired
     private MCQRepository mcqRepository;
+    
+    @Autowired
+    private ContentVersionService contentVersionService;
+
+    @Autowired
+    private ContentSearchIndex contentSearchIndex;
+
+    @Autowired
+    private ContentStatsService contentStatsService;
+
+    @Autowired
+    private SubjectContentService subjectContentService;
 
     /**
      * GET /api/content/subject/{id}/complete
@@ -39,55 +58,24 @@ public class ContentController {
      * Returns Subject with nested Topics, each containing Videos, PDFs, and MCQs
      */
     @GetMapping("/subject/{id}/complete")
-    public ResponseEntity<?> getCompleteSubjectContent(@PathVariable String id) {
+    public ResponseEntity<?> getCompleteSubjectContent(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            // Get subject
-            Optional<Subject> subjectOptional = subjectRepository.findById(id);
-            if (!subjectOptional.isPresent()) {
-                return ResponseEntity.notFound().build();
+            // Cheap version check before loading the tree - a match answers 304 with no content queries
+            String etag = contentVersionService.subjectContentETag(id);
+            CacheControl revalidate = CacheControl.noCache().cachePrivate();
+            if (contentVersionService.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(revalidate).build();
             }
             
-            Subject subject = subjectOptional.get();
-            
-            // Get all topics for this subject (ordered)
-            List<Topic> topics = topicRepository.findBySubjectIdOrderByOrderIndexAsc(id);
-            
-            // Build hierarchical structure
-            Map<String, Object> result = new HashMap<>();
-            result.put("subject", subject);
-            
-            List<Map<String, Object>> topicsWithContent = new ArrayList<>();
-            
-            for (Topic topic : topics) {
-                Map<String, Object> topicData = new HashMap<>();
-                topicData.put("topic", topic);
-                
-                // Get all content for this topic
-                List<Video> videos = videoRepository.findByTopicIdOrderByOrderIndexAsc(topic.getId());
-                List<PDF> pdfs = pdfRepository.findByTopicIdOrderByOrderIndexAsc(topic.getId());
-                List<MCQ> mcqs = mcqRepository.findByTopicId(topic.getId());
-                
-                topicData.put("videos", videos);
-                topicData.put("pdfs", pdfs);
-                topicData.put("mcqs", mcqs);
-                
-                // Add counts
-                topicData.put("videoCount", videos.size());
-                topicData.put("pdfCount", pdfs.size());
-                topicData.put("mcqCount", mcqs.size());
-                
-                topicsWithContent.add(topicData);
+            // Batched tree load - query count does not grow with the number of topics
+            Optional<Map<String, Object>> result = subjectContentService.getCompleteSubjectContent(id);
+            if (!result.isPresent()) {
+                return ResponseEntity.notFound().build();
             }
             
-            result.put("topics", topicsWithContent);
-            result.put("topicCount", topics.size());
-            
-            // Calculate total content counts
-            result.put("totalVideos", videoRepository.countBySubjectId(id));
-            result.put("totalPDFs", pdfRepository.countBySubjectId(id));
-            result.put("totalMCQs", mcqRepository.countBySubjectId(id));
-            
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok().eTag(etag).cacheControl(revalidate).body(result.get());
             
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -242,49 +230,8 @@ public class ContentController {
     @GetMapping("/instructor/{email}")
     public ResponseEntity<?> getContentByInstructor(@PathVariable String email) {
         try {
-            // Get subjects by instructor
-            List<Subject> subjects = subjectRepository.findByInstructorEmail(email);
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("instructorEmail", email);
-            result.put("subjects", subjects);
-            
-            // Get all topics under these subjects
-            List<Map<String, Object>> subjectsWithContent = new ArrayList<>();
-            
-            int totalTopics = 0;
-            int totalVideos = 0;
-            int totalPDFs = 0;
-            int totalMCQs = 0;
-            
-            for (Subject subject : subjects) {
-                Map<String, Object> subjectData = new HashMap<>();
-                subjectData.put("subject", subject);
-                
-                List<Topic> topics = topicRepository.findBySubjectIdOrderByOrderIndexAsc(subject.getId());
-                Long videoCount = videoRepository.countBySubjectId(subject.getId());
-                Long pdfCount = pdfRepository.countBySubjectId(subject.getId());
-                Long mcqCount = mcqRepository.countBySubjectId(subject.getId());
-                
-                subjectData.put("topicCount", topics.size());
-                subjectData.put("videoCount", videoCount);
-                subjectData.put("pdfCount", pdfCount);
-                subjectData.put("mcqCount", mcqCount);
-                
-                totalTopics += topics.size();
-                totalVideos += videoCount;
-                totalPDFs += pdfCount;
-                totalMCQs += mcqCount;
-                
-                subjectsWithContent.add(subjectData);
-            }
-            
-            result.put("subjectsWithStats", subjectsWithContent);
-            result.put("totalSubjects", subjects.size());
-            result.put("totalTopics", totalTopics);
-            result.put("totalVideos", totalVideos);
-            result.put("totalPDFs", totalPDFs);
-            result.put("totalMCQs", totalMCQs);
+            // Per-subject counts come from one grouped aggregation per collection
+            Map<String, Object> result = subjectContentService.getContentByInstructor(email);
             
             return ResponseEntity.ok(result);
             
@@ -297,10 +244,23 @@ public class ContentController {
     /**
      * GET /api/content/search
      * Search across all content types
+     * Ranked, paginated and faceted from the in-memory content index;
+     * types (comma-separated: subject,topic,video,pdf,mcq) and difficulty narrow the results
      */
     @GetMapping("/search")
-    public ResponseEntity<?> searchContent(@RequestParam String query) {
+    public ResponseEntity<?> searchContent(
+            @RequestParam String query,
+            @RequestParam(required = false) String types,
+            @RequestParam(required = false) String difficulty,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
+            if (contentSearchIndex.isReady()) {
+                return ResponseEntity.ok(indexedSearch(query, types, difficulty, Math.max(page, 0),
+                    Math.max(1, Math.min(size, 100))));
+            }
+            
+            // Index still building - fall back to scanning every collection
             String searchQuery = query.toLowerCase();
             
             // Search subjects by title
@@ -354,6 +314,57 @@ public class ContentController {
         }
     }
 
+    private Map<String, Object> indexedSearch(String query, String types, String difficulty, int page, int size) {
+        Set<String> typeFilter = new HashSet<>();
+        if (types != null) {
+            for (String type : types.split(",")) {
+                if (!type.isBlank()) {
+                    typeFilter.add(type.trim().toLowerCase());
+                }
+            }
+        }
+        
+        ContentSearchIndex.Result found = contentSearchIndex.search(query, typeFilter, difficulty, page, size);
+        
+        List<Map<String, Object>> results = new ArrayList<>();
+        Map<String, List<Object>> byType = new LinkedHashMap<>();
+        for (String type : found.typeCounts().keySet()) {
+            byType.put(type, new ArrayList<>());
+        }
+        for (InvertedIndex.Hit<ContentSearchIndex.Item> hit : found.hits()) {
+            ContentSearchIndex.Item item = hit.document();
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("type", item.type());
+            entry.put("id", item.id());
+            entry.put("difficulty", item.difficulty());
+            entry.put("score", hit.score());
+            entry.put("item", item.content());
+            results.add(entry);
+            byType.get(item.type()).add(item.content());
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("query", query);
+        result.put("results", results);
+        result.put("total", found.total());
+        result.put("page", page);
+        result.put("size", size);
+        result.put("facets", Map.of("type", found.typeCounts(), "difficulty", found.difficultyCounts()));
+        
+        // Same keys as before: this page's hits per type, and total matches per type
+        result.put("subjects", byType.get(ContentSearchIndex.SUBJECT));
+        result.put("topics", byType.get(ContentSearchIndex.TOPIC));
+        result.put("videos", byType.get(ContentSearchIndex.VIDEO));
+        result.put("pdfs", byType.get(ContentSearchIndex.PDF_TYPE));
+        result.put("mcqs", byType.get(ContentSearchIndex.MCQ_TYPE));
+        result.put("subjectCount", found.typeCounts().get(ContentSearchIndex.SUBJECT));
+        result.put("topicCount", found.typeCounts().get(ContentSearchIndex.TOPIC));
+        result.put("videoCount", found.typeCounts().get(ContentSearchIndex.VIDEO));
+        result.put("pdfCount", found.typeCounts().get(ContentSearchIndex.PDF_TYPE));
+        result.put("mcqCount", found.typeCounts().get(ContentSearchIndex.MCQ_TYPE));
+        return result;
+    }
+
     /**
      * GET /api/content/stats
      * Get global content statistics
@@ -361,33 +372,8 @@ public class ContentController {
     @GetMapping("/stats")
     public ResponseEntity<?> getGlobalStats() {
         try {
-            Map<String, Object> stats = new HashMap<>();
-            
-            // Total counts
-            stats.put("totalSubjects", subjectRepository.count());
-            stats.put("totalTopics", topicRepository.count());
-            stats.put("totalVideos", videoRepository.count());
-            stats.put("totalPDFs", pdfRepository.count());
-            stats.put("totalMCQs", mcqRepository.count());
-            
-            // By difficulty
-            Map<String, Object> byDifficulty = new HashMap<>();
-            for (String level : Arrays.asList("BEGINNER", "INTERMEDIATE", "ADVANCED")) {
-                Map<String, Object> diffStats = new HashMap<>();
-                diffStats.put("subjects", subjectRepository.findByDifficulty(level).size());
-                diffStats.put("topics", topicRepository.findByDifficulty(level).size());
-                diffStats.put("videos", videoRepository.findByDifficulty(level).size());
-                diffStats.put("pdfs", pdfRepository.findByDifficulty(level).size());
-                diffStats.put("mcqs", mcqRepository.findByDifficulty(level).size());
-                byDifficulty.put(level, diffStats);
-            }
-            stats.put("byDifficulty", byDifficulty);
-            
-            // By status
-            Map<String, Long> byStatus = new HashMap<>();
-            byStatus.put("DRAFT", subjectRepository.findByStatus("DRAFT").stream().count());
-            byStatus.put("PUBLISHED", subjectRepository.findByStatus("PUBLISHED").stream().count());
-            stats.put("subjectsByStatus", byStatus);
+            // Served from the background-refreshed snapshot (one $facet aggregation per collection)
+            Map<String, Object> stats = contentStatsService.getGlobalStats();
             
             return ResponseEntity.ok(stats);
             
@@ -0,0 +1,135 @@
+package com.authsystem.controller;
+
+import com.authsystem.model.Course;
+import com.authsystem.repository.CourseRepository;
+import com.authsystem.service.CourseAnalyticsService;
+import com.authsystem.service.CourseExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Course Analytics Controller
+ * Quiz analytics of a course for its instructor, answered from the pre-aggregated analytics cube,
+ * and streamed gradebook exports
+ */
+@RestController
+@RequestMapping("/api/instructor/courses")
+@CrossOrigin(origins = "http://localhost:4200")
+public class CourseAnalyticsController {
+
+    @Autowired
+    private CourseAnalyticsService analyticsService;
+
+    @Autowired
+    private CourseExportService exportService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    // e.g. ?groupBy=topic,week&difficulty=HARD&from=2026-09-01 ; groupBy= (empty) for the course totals only
+    // Instructors and admins (SecurityConfig); instructors only for their own courses
+    @GetMapping("/{courseId}/analytics")
+    public ResponseEntity<?> getCourseAnalytics(@PathVariable String courseId,
+                                                @RequestParam(defaultValue = "topic") String groupBy,
+                                                @RequestParam(required = false) String topic,
+                                                @RequestParam(required = false) String difficulty,
+                                                @RequestParam(required = false) String from,
+                                                @RequestParam(required = false) String to,
+                                                Authentication authentication) {
+        ResponseEntity<?> denied = checkInstructor(courseId, authentication);
+        if (denied != null) {
+            return denied;
+        }
+        try {
+            List<String> dimensions = Arrays.stream(groupBy.split(","))
+                .map(String::trim)
+                .filter(dimension -> !dimension.isEmpty())
+                .distinct()
+                .toList();
+            return ResponseEntity.ok(analyticsService.analytics(courseId, dimensions, blankToNull(topic),
+                blankToNull(difficulty), date(from), date(to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            System.err.println("❌ Error reading analytics of course " + courseId + ": " + e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to read course analytics: " + e.getMessage()));
+        }
+    }
+
+    // Whole-course gradebook: ?data=progress (one row per student) or attempts (one row per quiz attempt),
+    // ?format=csv or ndjson, ?gzip=true for a .gz download
+    @GetMapping("/{courseId}/export")
+    public ResponseEntity<?> exportCourse(@PathVariable String courseId,
+                                          @RequestParam(defaultValue = "progress") String data,
+                                          @RequestParam(defaultValue = "csv") String format,
+                                          @RequestParam(defaultValue = "false") boolean gzip,
+                                          Authentication authentication) {
+        ResponseEntity<?> denied = checkInstructor(courseId, authentication);
+        if (denied != null) {
+            return denied;
+        }
+        CourseExportService.Dataset dataset;
+        CourseExportService.Format exportFormat;
+        try {
+            dataset = CourseExportService.Dataset.valueOf(data.toUpperCase());
+            exportFormat = CourseExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Expected data=progress|attempts and format=csv|ndjson"));
+        }
+
+        String fileName = "course-" + courseId.replaceAll("[^A-Za-z0-9_-]", "_") + "-" + dataset.name().toLowerCase()
+            + (exportFormat == CourseExportService.Format.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+            : exportFormat == CourseExportService.Format.CSV ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+            : MediaType.parseMediaType("application/x-ndjson");
+        StreamingResponseBody body = out -> exportService.export(courseId, dataset, exportFormat, gzip, out);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+            .contentType(contentType)
+            .body(body);
+    }
+
+    /**
+     * @return the error response if the course does not exist or the caller is neither an admin nor
+     *         its instructor (a course without an instructor is admins only), else null
+     */
+    private ResponseEntity<?> checkInstructor(String courseId, Authentication authentication) {
+        Course course = courseRepository.findById(courseId).orElse(null);
+        if (course == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Course not found"));
+        }
+        // JwtFilter grants roles as ROLE_<role>
+        boolean admin = authentication.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        if (!admin && !authentication.getName().equals(course.getInstructorEmail())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not the instructor of this course"));
+        }
+        return null;
+    }
+
+    private static LocalDate date(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date '" + value + "', expected yyyy-MM-dd");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
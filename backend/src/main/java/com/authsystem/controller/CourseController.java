@@ -1,10 +1,17 @@
 package com.authsystem.controller;
 
+import com.authsystem.cache.CourseCatalogCache;
+import com.authsystem.search.CourseSearchIndex;
+import com.authsystem.search.CourseSuggestService;
 import com.authsystem.service.CloudStorageService;
 import com.authsystem.service.CourseService;
 import com.authsystem.service.CourseDetailsService;
+import com.authsystem.service.CourseSubcontentStore;
+import com.authsystem.service.CourseUpdateService;
+import com.authsystem.service.ContentVersionService;
 import com.authsystem.dto.CourseDetailsDTO;
 import com.authsystem.dto.CourseCreationResponse;
+import com.authsystem.dto.CourseSummaryDTO;
 import com.authsystem.model.Course;
 import com.authsystem.model.SubContent;
 import com.authsystem.model.TopicSubcontent;
@@ -16,6 +23,9 @@ import com.authsystem.repository.EnrollmentRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -50,6 +60,24 @@ public class CourseController {
     @Autowired
     private CourseService courseService;
 
+    @Autowired
+    private CourseUpdateService courseUpdateService;
+
+    @Autowired
+    private CourseSubcontentStore courseSubcontentStore;
+    
+    @Autowired
+    private CourseCatalogCache courseCatalogCache;
+    
+    @Autowired
+    private ContentVersionService contentVersionService;
+    
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+    
+    @Autowired
+    private CourseSuggestService courseSuggestService;
+
     @PostMapping("/create")
     @PreAuthorize("hasAuthority('INSTRUCTOR')")
     public ResponseEntity<?> createCourse(@RequestBody Course course) {
@@ -62,6 +90,8 @@ public class CourseController {
             
             course.setCreatedAt(LocalDateTime.now());
             course.setUpdatedAt(LocalDateTime.now());
+            // A new course starts at the first version whatever the request said
+            course.setVersion(null);
             
             // Log topicSubcontents info
             System.out.println("📝 Creating course: " + course.getTitle());
@@ -747,6 +777,8 @@ public class CourseController {
                         "course", updatedCourse
                     ));
                     
+                } catch (OptimisticLockingFailureException e) {
+                    throw e;
                 } catch (Exception e) {
                     System.err.println("⚠️ Failed to parse topicSubcontents: " + e.getMessage());
                     e.printStackTrace();
@@ -763,6 +795,9 @@ public class CourseController {
                 "course", updatedCourse
             ));
             
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Course was modified by someone else, reload and retry", "details", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to update course: " + e.getMessage()));
@@ -770,23 +805,22 @@ public class CourseController {
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<Course>> getAllCourses() {
-        List<Course> courses = courseRepository.findAll();
+    public ResponseEntity<List<CourseSummaryDTO>> getAllCourses() {
+        List<CourseSummaryDTO> courses = courseRepository.findAllSummaries();
         System.out.println("📚 Total courses in DB: " + courses.size());
-        for (Course course : courses) {
-            System.out.println("  - " + course.getTitle() + " | Status: " + course.getStatus() + " | ID: " + course.getId());
-        }
         return ResponseEntity.ok(courses);
     }
 
     @GetMapping("/published")
-    public ResponseEntity<List<Course>> getPublishedCourses() {
-        List<Course> courses = courseRepository.findByStatus("PUBLISHED");
-        System.out.println("📚 Found " + courses.size() + " published courses");
-        for (Course course : courses) {
-            System.out.println("  - " + course.getTitle() + " (status: " + course.getStatus() + ")");
+    public ResponseEntity<List<CourseSummaryDTO>> getPublishedCourses(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = contentVersionService.catalogETag();
+        if (contentVersionService.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
         }
-        return ResponseEntity.ok(courses);
+        List<CourseSummaryDTO> courses = courseCatalogCache.getPublishedCourses(etag);
+        System.out.println("📚 Returning " + courses.size() + " published courses");
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(courses);
     }
 
     @GetMapping("/{id}")
@@ -812,65 +846,55 @@ public class CourseController {
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Subcontents of a single topic - lets pages load a course topic by topic
+     * GET /api/courses/{id}/topics/{topicName}/subcontents
+     */
+    @GetMapping("/{id}/topics/{topicName}/subcontents")
+    public ResponseEntity<?> getTopicSubcontents(@PathVariable String id, @PathVariable String topicName) {
+        List<TopicSubcontent> subcontents = courseSubcontentStore.loadTopic(id, topicName);
+        if (subcontents.isEmpty() && !courseRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Course not found"));
+        }
+        return ResponseEntity.ok(subcontents);
+    }
+
     @GetMapping("/instructor/{email}")
     @PreAuthorize("hasAuthority('INSTRUCTOR')")
-    public ResponseEntity<List<Course>> getCoursesByInstructor(@PathVariable String email) {
-        List<Course> courses = courseRepository.findByInstructorEmail(email);
+    public ResponseEntity<List<CourseSummaryDTO>> getCoursesByInstructor(@PathVariable String email) {
+        List<CourseSummaryDTO> courses = courseRepository.findSummariesByInstructorEmail(email);
         return ResponseEntity.ok(courses);
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Course>> getCoursesByStatus(@PathVariable String status) {
-        List<Course> courses = courseRepository.findByStatus(status);
+    public ResponseEntity<List<CourseSummaryDTO>> getCoursesByStatus(@PathVariable String status) {
+        List<CourseSummaryDTO> courses = courseRepository.findSummariesByStatus(status);
         return ResponseEntity.ok(courses);
     }
 
     @GetMapping("/difficulty/{difficulty}")
-    public ResponseEntity<List<Course>> getCoursesByDifficulty(@PathVariable String difficulty) {
-        List<Course> courses = courseRepository.findByDifficulty(difficulty);
+    public ResponseEntity<List<CourseSummaryDTO>> getCoursesByDifficulty(@PathVariable String difficulty) {
+        List<CourseSummaryDTO> courses = courseRepository.findSummariesByDifficulty(difficulty);
         return ResponseEntity.ok(courses);
     }
 
+    /**
+     * Partial update - only the provided (non-null) fields are $set; the rest of the course,
+     * including topicSubcontents, is never rewritten. Send the "version" last read to reject
+     * the update (409) when someone else changed the course in the meantime.
+     */
     @PutMapping("/update/{id}")
     @PreAuthorize("hasAuthority('INSTRUCTOR')")
     public ResponseEntity<?> updateCourse(@PathVariable String id, @RequestBody Course courseDetails) {
-        Optional<Course> courseOptional = courseRepository.findById(id);
-        if (courseOptional.isPresent()) {
-            Course course = courseOptional.get();
-            
-            // Only update fields that are provided (not null)
-            if (courseDetails.getTitle() != null) {
-                course.setTitle(courseDetails.getTitle());
-            }
-            if (courseDetails.getDescription() != null) {
-                course.setDescription(courseDetails.getDescription());
-            }
-            if (courseDetails.getSubjects() != null) {
-                course.setSubjects(courseDetails.getSubjects());
-            }
-            if (courseDetails.getTopics() != null) {
-                course.setTopics(courseDetails.getTopics());
-            }
-            if (courseDetails.getDifficulty() != null) {
-                course.setDifficulty(courseDetails.getDifficulty());
-            }
-            if (courseDetails.getThumbnail() != null) {
-                course.setThumbnail(courseDetails.getThumbnail());
-            }
-            if (courseDetails.getStatus() != null) {
-                course.setStatus(courseDetails.getStatus());
-            }
-            // CRITICAL: Preserve topicSubcontents - only update if explicitly provided
-            if (courseDetails.getTopicSubcontents() != null) {
-                course.setTopicSubcontents(courseDetails.getTopicSubcontents());
-            }
-            
-            course.setUpdatedAt(LocalDateTime.now());
-            
-            Course updatedCourse = courseRepository.save(course);
-            return ResponseEntity.ok(updatedCourse);
+        try {
+            return ResponseEntity.ok(courseUpdateService.applyChanges(id, courseDetails));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Course was modified by someone else, reload and retry", "details", e.getMessage()));
         }
-        return ResponseEntity.notFound().build();
     }
 
     @DeleteMapping("/delete/{id}")
@@ -905,62 +929,37 @@ public class CourseController {
 
     @PatchMapping("/{id}/publish")
     @PreAuthorize("hasAuthority('INSTRUCTOR')")
-    public ResponseEntity<?> publishCourse(@PathVariable String id) {
-        Optional<Course> courseOptional = courseRepository.findById(id);
-        if (courseOptional.isPresent()) {
-            Course course = courseOptional.get();
-            
-            System.out.println("📢 Publishing course: " + course.getTitle());
-            System.out.println("  📚 Topics: " + (course.getTopics() != null ? course.getTopics().size() : 0));
-            System.out.println("  📚 Subjects: " + (course.getSubjects() != null ? course.getSubjects().size() : 0));
-            System.out.println("  🎯 TopicSubcontents: " + (course.getTopicSubcontents() != null ? course.getTopicSubcontents().size() : 0));
-            
-            // Enhanced validation with detailed logging
-            if (course.getTopicSubcontents() != null && !course.getTopicSubcontents().isEmpty()) {
-                System.out.println("  ✅ TopicSubcontents structure:");
-                
-                for (Map.Entry<String, List<TopicSubcontent>> entry : course.getTopicSubcontents().entrySet()) {
-                    String topicName = entry.getKey();
-                    List<TopicSubcontent> subcontents = entry.getValue();
-                    System.out.println("    📖 Topic: '" + topicName + "' → " + (subcontents != null ? subcontents.size() : 0) + " subcontents");
-                    
-                    if (subcontents != null) {
-                        for (int i = 0; i < subcontents.size(); i++) {
-                            TopicSubcontent sc = subcontents.get(i);
-                            System.out.println("      📝 Subcontent #" + (i+1) + ": " + sc.getName());
-                            System.out.println("         Description: " + (sc.getDescription() != null && !sc.getDescription().isEmpty() ? "✅" : "❌"));
-                            System.out.println("         Videos: " + (sc.getVideoUrls() != null ? sc.getVideoUrls().size() : 0));
-                            System.out.println("         PDFs: " + (sc.getPdfUrls() != null ? sc.getPdfUrls().size() : 0));
-                            System.out.println("         MCQs: " + sc.getMcqCount());
-                        }
-                    }
-                }
-            } else if (course.getTopics() == null || course.getTopics().isEmpty()) {
-                System.out.println("  ⚠️ WARNING: No topics found!");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body("Cannot publish course without topics. Please add at least one topic.");
-            } else {
-                System.out.println("  ℹ️ Course has topics but no subcontents yet - allowing publish for draft mode");
-            }
-            
+    public ResponseEntity<?> publishCourse(
+            @PathVariable String id,
+            @RequestParam(required = false) Long expectedVersion
+    ) {
+        try {
             // Only update status and timestamp - NEVER overwrite other fields
-            course.setStatus("PUBLISHED");
-            course.setUpdatedAt(LocalDateTime.now());
-            courseRepository.save(course);
+            long version = courseUpdateService.publish(id, expectedVersion);
             
-            System.out.println("  ✅ Course published successfully with all nested data preserved");
+            System.out.println("📢 Course published: " + id + " (version " + version + ")");
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Course published successfully",
-                "courseId", course.getId()
+                "courseId", id,
+                "version", version
             ));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("success", false, "message", "Course not found"));
+        } catch (IllegalStateException e) {
+            System.out.println("  ⚠️ WARNING: No topics found!");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("success", false, "message", "Course was modified by someone else, reload and retry"));
         }
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(Map.of("success", false, "message", "Course not found"));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchCourses(@RequestParam String query) {
+    public ResponseEntity<?> searchCourses(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
             if (query == null || query.trim().isEmpty()) {
                 return ResponseEntity.ok(Map.of(
@@ -971,10 +970,17 @@ public class CourseController {
             }
             
             String searchQuery = query.trim().toLowerCase();
-            System.out.println("🔍 Searching for: " + searchQuery);
+            
+            // Ranked, prefix-matching lookup in the in-memory index once it has been built
+            if (courseSearchIndex.isReady()) {
+                return ResponseEntity.ok(courseSearchIndex.search(searchQuery, Math.max(1, Math.min(limit, 200))));
+            }
+            
+            System.out.println("🔍 Search index not ready yet, scanning courses for: " + searchQuery);
             
             // Search in courses
             List<Course> allCourses = courseRepository.findAll();
+            courseSubcontentStore.hydrate(allCourses);
             List<Map<String, Object>> matchingCourses = new ArrayList<>();
             List<Map<String, Object>> matchingTopics = new ArrayList<>();
             
@@ -1077,6 +1083,17 @@ public class CourseController {
         }
     }
     
+    /**
+     * Typeahead suggestions for course titles, topics and subcontent names
+     * Served from an in-memory prefix trie - no database access per keystroke
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @RequestParam(required = false, defaultValue = "") String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(courseSuggestService.suggest(q, limit));
+    }
+    
     // ============================================
     // NEW ENDPOINTS FOR COURSE DETAILS WITH COUNTS
     // ============================================
@@ -1086,44 +1103,32 @@ public class CourseController {
      * Used by both instructor and student panels
      */
     @GetMapping("/{id}/details")
-    public ResponseEntity<?> getCourseDetails(@PathVariable String id) {
+    public ResponseEntity<?> getCourseDetails(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            System.out.println("\n📊 ========== GET COURSE DETAILS ==========");
-            System.out.println("  📋 Course ID: " + id);
-            
-            // First, get the raw course from DB to debug
-            Optional<Course> courseOpt = courseRepository.findById(id);
-            if (courseOpt.isPresent()) {
-                Course rawCourse = courseOpt.get();
-                System.out.println("  ✅ Course found: " + rawCourse.getTitle());
-                System.out.println("  📚 Topics list size: " + (rawCourse.getTopics() != null ? rawCourse.getTopics().size() : 0));
-                System.out.println("  📦 TopicSubcontents map size: " + (rawCourse.getTopicSubcontents() != null ? rawCourse.getTopicSubcontents().size() : 0));
-                
-                if (rawCourse.getTopicSubcontents() != null && !rawCourse.getTopicSubcontents().isEmpty()) {
-                    System.out.println("  🔍 TopicSubcontents details:");
-                    rawCourse.getTopicSubcontents().forEach((topicName, subcontents) -> {
-                        System.out.println("    📖 Topic: '" + topicName + "' → " + (subcontents != null ? subcontents.size() : 0) + " subcontents");
-                        if (subcontents != null) {
-                            subcontents.forEach(sc -> {
-                                int videos = (sc.getVideoUrls() != null ? sc.getVideoUrls().size() : 0);
-                                int pdfs = (sc.getPdfUrls() != null ? sc.getPdfUrls().size() : 0);
-                                System.out.println("      ├─ " + sc.getName() + " (Videos: " + videos + ", PDFs: " + pdfs + ")");
-                            });
-                        }
-                    });
-                } else {
-                    System.out.println("  ⚠️ WARNING: TopicSubcontents is NULL or EMPTY!");
-                    System.out.println("  💡 This means the course was created without subcontent data");
+            // Version lookup first so the body served is never older than its ETag
+            String etag = contentVersionService.courseDetailsETag(id);
+            if (etag == null) {
+                // No version yet: an unknown course, or a legacy one not seeded at startup; a read never writes one
+                if (!courseRepository.existsById(id)) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Course not found with ID: " + id));
                 }
-            } else {
-                System.out.println("  ❌ Course not found!");
+                return ResponseEntity.ok().cacheControl(REVALIDATE).body(courseDetailsService.getCourseDetailsWithCounts(id));
+            }
+            if (contentVersionService.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
             }
             
-            CourseDetailsDTO courseDetails = courseDetailsService.getCourseDetailsWithCounts(id);
-            System.out.println("  ✅ Returning course details DTO");
-            System.out.println("=========================================\n");
-            return ResponseEntity.ok(courseDetails);
+            System.out.println("📊 GET COURSE DETAILS - Course ID: " + id);
+            
+            CourseDetailsDTO courseDetails = courseCatalogCache.getCourseDetails(id, etag);
+            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(courseDetails);
         } catch (Exception e) {
+            if (!courseRepository.existsById(id)) {
+                // Deleted since its version was read
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Course not found with ID: " + id));
+            }
             System.err.println("❌ Error fetching course details: " + e.getMessage());
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -1135,11 +1140,16 @@ public class CourseController {
      * Get all published courses with content counts for students
      */
     @GetMapping("/published/details")
-    public ResponseEntity<?> getPublishedCoursesWithDetails() {
+    public ResponseEntity<?> getPublishedCoursesWithDetails(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<CourseDetailsDTO> courses = courseDetailsService.getPublishedCoursesWithCounts();
+            String etag = contentVersionService.catalogETag();
+            if (contentVersionService.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            List<CourseDetailsDTO> courses = courseCatalogCache.getPublishedCoursesWithDetails(etag);
             System.out.println("📚 Returning " + courses.size() + " published courses with details");
-            return ResponseEntity.ok(courses);
+            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(courses);
         } catch (Exception e) {
             System.err.println("❌ Error fetching published courses: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -1167,6 +1177,7 @@ public class CourseController {
     /**
      * Toggle publish status of a specific subcontent
      * PATCH /api/courses/{courseId}/topics/{topicName}/subcontents/{subcontentIndex}/publish
+     * Writes only that subcontent's published flag; pass expectedVersion for a 409 on stale edits
      */
     @PatchMapping("/{courseId}/topics/{topicName}/subcontents/{subcontentIndex}/publish")
     @PreAuthorize("hasAuthority('INSTRUCTOR')")
@@ -1174,48 +1185,33 @@ public class CourseController {
             @PathVariable String courseId,
             @PathVariable String topicName,
             @PathVariable int subcontentIndex,
-            @RequestParam boolean published
+            @RequestParam boolean published,
+            @RequestParam(required = false) Long expectedVersion
     ) {
         try {
-            Optional<Course> courseOpt = courseRepository.findById(courseId);
-            if (courseOpt.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Course not found"));
-            }
-            
-            Course course = courseOpt.get();
-            Map<String, List<TopicSubcontent>> topicSubcontents = course.getTopicSubcontents();
-            
-            if (topicSubcontents == null || !topicSubcontents.containsKey(topicName)) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Topic not found: " + topicName));
-            }
-            
-            List<TopicSubcontent> subcontents = topicSubcontents.get(topicName);
-            if (subcontentIndex < 0 || subcontentIndex >= subcontents.size()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Subcontent index out of bounds: " + subcontentIndex));
-            }
-            
-            TopicSubcontent subcontent = subcontents.get(subcontentIndex);
-            subcontent.setPublished(published);
-            
-            course.setUpdatedAt(LocalDateTime.now());
-            courseRepository.save(course);
+            CourseUpdateService.SubcontentPublishResult result = courseUpdateService.setSubcontentPublished(
+                    courseId, topicName, subcontentIndex, published, expectedVersion);
             
             System.out.println("✅ Toggled subcontent publish status:");
             System.out.println("   Course: " + courseId);
             System.out.println("   Topic: " + topicName);
-            System.out.println("   Subcontent[" + subcontentIndex + "]: " + subcontent.getName());
+            System.out.println("   Subcontent[" + subcontentIndex + "]: " + result.subcontentName());
             System.out.println("   Published: " + published);
             
-            return ResponseEntity.ok(Map.of(
-                "success", true,
-                "message", "Subcontent publish status updated",
-                "published", published,
-                "subcontentName", subcontent.getName()
-            ));
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Subcontent publish status updated");
+            response.put("published", published);
+            response.put("subcontentName", result.subcontentName());
+            response.put("version", result.version());
+            return ResponseEntity.ok(response);
             
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Course was modified by someone else, reload and retry"));
         } catch (Exception e) {
             System.err.println("❌ Error toggling subcontent publish: " + e.getMessage());
             e.printStackTrace();
@@ -1224,6 +1220,13 @@ public class CourseController {
         }
     }
 
+    // Browsers may store catalog responses but must revalidate them with If-None-Match
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
     private record TopicFileKey(String topicName, int subcontentIndex) {}
 
     private TopicFileKey parseTopicFileKey(String paramName, String prefix) {
@@ -1,9 +1,8 @@
 package com.authsystem.controller;
 
 import com.authsystem.model.Enrollment;
-import com.authsystem.model.Course;
 import com.authsystem.repository.EnrollmentRepository;
-import com.authsystem.repository.CourseRepository;
+import com.authsystem.service.CourseUpdateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -22,7 +21,7 @@ public class EnrollmentController {
     private EnrollmentRepository enrollmentRepository;
 
     @Autowired
-    private CourseRepository courseRepository;
+    private CourseUpdateService courseUpdateService;
 
     @PostMapping("/enroll")
     @PreAuthorize("hasAuthority('STUDENT')")
@@ -39,12 +38,7 @@ public class EnrollmentController {
             enrollment.setStatus("ACTIVE");
             Enrollment saved = enrollmentRepository.save(enrollment);
 
-            Optional<Course> courseOpt = courseRepository.findById(enrollment.getCourseId());
-            if (courseOpt.isPresent()) {
-                Course course = courseOpt.get();
-                course.setEnrolledStudents(course.getEnrolledStudents() + 1);
-                courseRepository.save(course);
-            }
+            courseUpdateService.adjustEnrolledStudents(enrollment.getCourseId(), 1);
 
             return ResponseEntity.ok(saved);
         } catch (Exception e) {
@@ -93,13 +87,7 @@ public class EnrollmentController {
             Optional<Enrollment> enrollmentOpt = enrollmentRepository.findById(id);
             if (enrollmentOpt.isPresent()) {
                 Enrollment enrollment = enrollmentOpt.get();
-                
-                Optional<Course> courseOpt = courseRepository.findById(enrollment.getCourseId());
-                if (courseOpt.isPresent()) {
-                    Course course = courseOpt.get();
-                    course.setEnrolledStudents(Math.max(0, course.getEnrolledStudents() - 1));
-                    courseRepository.save(course);
-                }
+                courseUpdateService.adjustEnrolledStudents(enrollment.getCourseId(), -1);
                 
                 enrollmentRepository.deleteById(id);
                 return ResponseEntity.ok("Unenrolled successfully");
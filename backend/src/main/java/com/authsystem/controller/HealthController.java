@@ -2,11 +2,17 @@ package com.authsystem.controller;
 
 import com.authsystem.model.User;
 import com.authsystem.repository.UserRepository;
+import com.authsystem.service.KeysetPaginationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +28,9 @@ public class HealthController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private KeysetPaginationService keysetPaginationService;
+
     @GetMapping("/mongodb")
     public ResponseEntity<?> checkMongoConnection() {
         Map<String, Object> response = new HashMap<>();
@@ -48,15 +57,26 @@ public class HealthController {
         }
     }
 
+    // Keyset pages (?cursor=&limit=), NDJSON stream (?format=ndjson), or the
+    // { totalUsers, users } body with users streamed from a cursor
     @GetMapping("/users")
-    public ResponseEntity<?> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            List<User> users = userRepository.findAll();
-            Map<String, Object> response = new HashMap<>();
-            response.put("totalUsers", users.size());
-            response.put("users", users);
-            
-            return ResponseEntity.ok(response);
+            if (cursor != null || limit != null || keysetPaginationService.wantsNdjson(format, accept)) {
+                return keysetPaginationService.list(User.class, cursor, limit, format, accept);
+            }
+
+            long totalUsers = userRepository.count();
+            StreamingResponseBody body = out -> {
+                out.write(("{\"totalUsers\":" + totalUsers + ",\"users\":").getBytes(StandardCharsets.UTF_8));
+                keysetPaginationService.writeDocuments(User.class, new Query(), out, true);
+                out.write('}');
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -0,0 +1,75 @@
+package com.authsystem.controller;
+
+import com.authsystem.service.LeaderboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Leaderboard Controller
+ * Course and global rankings by quiz score, served from the in-memory boards of LeaderboardService
+ */
+@RestController
+@RequestMapping("/api/leaderboards")
+@CrossOrigin(origins = "http://localhost:4200")
+public class LeaderboardController {
+
+    static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private LeaderboardService leaderboards;
+
+    // Top students of a course, or the page starting at offset
+    @GetMapping("/courses/{courseId}")
+    public ResponseEntity<?> getCourseLeaderboard(@PathVariable String courseId,
+                                                  @RequestParam(defaultValue = "0") long offset,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(page(leaderboards.courseStandings(courseId, Math.max(0, offset), clamp(limit))));
+    }
+
+    // A student's rank and score in a course
+    @GetMapping("/courses/{courseId}/students/{email}")
+    public ResponseEntity<?> getCourseStanding(@PathVariable String courseId, @PathVariable String email) {
+        return standing(leaderboards.courseStanding(courseId, email), leaderboards.courseStandings(courseId, 0, 0).total());
+    }
+
+    // Top students across all courses (sum of their course scores)
+    @GetMapping("/global")
+    public ResponseEntity<?> getGlobalLeaderboard(@RequestParam(defaultValue = "0") long offset,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(page(leaderboards.globalStandings(Math.max(0, offset), clamp(limit))));
+    }
+
+    @GetMapping("/global/students/{email}")
+    public ResponseEntity<?> getGlobalStanding(@PathVariable String email) {
+        return standing(leaderboards.globalStanding(email), leaderboards.globalStandings(0, 0).total());
+    }
+
+    private Map<String, Object> page(LeaderboardService.Page page) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("total", page.total());
+        response.put("standings", page.standings());
+        response.put("loading", leaderboards.isLoading());
+        return response;
+    }
+
+    private ResponseEntity<?> standing(LeaderboardService.Standing standing, long total) {
+        if (standing == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No quiz score recorded yet"));
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("rank", standing.rank());
+        response.put("score", standing.score());
+        response.put("total", total);
+        response.put("loading", leaderboards.isLoading());
+        return ResponseEntity.ok(response);
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,31 @@
+package com.authsystem.controller;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.service.LearningEventLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Learning Event Controller
+ * A student's activity history from the learning event log
+ * Projection status and rebuilds are admin operations - see ProjectionAdminController
+ */
+@RestController
+@RequestMapping("/api/learning-events")
+@CrossOrigin(origins = "http://localhost:4200")
+public class LearningEventController {
+
+    @Autowired
+    private LearningEventLog eventLog;
+
+    // Events of a student in a course, oldest first, optionally only those after a sequence number
+    @GetMapping("/student/{email}/course/{courseId}")
+    public ResponseEntity<?> getStudentEvents(@PathVariable String email, @PathVariable String courseId,
+                                              @RequestParam(defaultValue = "0") long after) {
+        List<LearningEvent> events = eventLog.readStream(email, courseId, after);
+        return ResponseEntity.ok(events);
+    }
+}
@@ -4,12 +4,21 @@ import com.authsystem.model.MCQ;
 import com.authsystem.model.Topic;
 import com.authsystem.repository.MCQRepository;
 import com.authsystem.repository.TopicRepository;
+import com.authsystem.service.BulkContentService;
+import com.authsystem.service.CourseContentCountService;
+import com.authsystem.service.KeysetPaginationService;
+import com.authsystem.service.MCQImportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -24,9 +33,21 @@ public class MCQController {
 
     @Autowired
     private MCQRepository mcqRepository;
+
+    @Autowired
+    private KeysetPaginationService keysetPaginationService;
     
     @Autowired
     private TopicRepository topicRepository;
+    
+    @Autowired
+    private CourseContentCountService courseContentCountService;
+
+    @Autowired
+    private BulkContentService bulkContentService;
+
+    @Autowired
+    private MCQImportService mcqImportService;
 
     /**
      * DELETE /api/mcqs/all
@@ -38,6 +59,7 @@ public class MCQController {
         try {
             System.out.println("🗑️ Deleting all MCQs...");
             mcqRepository.deleteAll();
+            courseContentCountService.resetAllMcqCounts();
             System.out.println("✅ All MCQs deleted successfully");
             return ResponseEntity.ok().body("All MCQs deleted successfully");
         } catch (Exception e) {
@@ -125,6 +147,7 @@ public class MCQController {
             }
             
             MCQ savedMCQ = mcqRepository.save(mcq);
+            courseContentCountService.incrementMcqCount(savedMCQ.getCourseId(), savedMCQ.getTopicName(), 1);
             System.out.println("✅ MCQ saved successfully - ID: " + savedMCQ.getId() + ", CourseId: " + savedMCQ.getCourseId());
             return ResponseEntity.status(HttpStatus.CREATED).body(savedMCQ);
             
@@ -144,76 +167,86 @@ public class MCQController {
     public ResponseEntity<?> createBulkMCQs(@RequestBody Map<String, Object> request) {
         try {
             String topicId = (String) request.get("topicId");
-            List<Map<String, Object>> mcqDataList = (List<Map<String, Object>>) request.get("mcqs");
+            String courseId = (String) request.get("courseId");
+            List<?> mcqDataList = (List<?>) request.get("mcqs");
             
             if (topicId == null || mcqDataList == null || mcqDataList.isEmpty()) {
                 return ResponseEntity.badRequest().body("Topic ID and MCQ data are required");
             }
             
-            // Verify topic exists
-            Optional<Topic> topicOptional = topicRepository.findById(topicId);
-            if (!topicOptional.isPresent()) {
-                return ResponseEntity.badRequest().body("Topic not found");
-            }
-            
-            Topic topic = topicOptional.get();
-            List<MCQ> createdMCQs = new ArrayList<>();
-            
-            for (Map<String, Object> mcqData : mcqDataList) {
-                MCQ mcq = new MCQ();
-                mcq.setTopicId(topicId);
-                mcq.setSubjectId(topic.getSubjectId());
-                mcq.setTopicName(topic.getName());
-                mcq.setDifficulty(topic.getDifficulty());
-                
-                mcq.setQuestion((String) mcqData.get("question"));
-                mcq.setOptions((List<String>) mcqData.get("options"));
-                mcq.setCorrectAnswerIndex((Integer) mcqData.get("correctAnswerIndex"));
-                mcq.setExplanation((String) mcqData.get("explanation"));
-                
-                Integer points = (Integer) mcqData.get("points");
-                mcq.setPoints(points != null ? points : 10);
-                
-                mcq.setCreatedAt(LocalDateTime.now());
-                mcq.setUpdatedAt(LocalDateTime.now());
-                
-                MCQ savedMCQ = mcqRepository.save(mcq);
-                createdMCQs.add(savedMCQ);
-            }
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdMCQs);
-            
+            // Invalid items are reported by index; the valid ones are still created
+            BulkContentService.Result<MCQ> result = bulkContentService.createMcqs(topicId, courseId, mcqDataList);
+            Map<String, Object> response = new HashMap<>();
+            response.put("created", result.created());
+            response.put("failed", result.failed());
+            response.put("createdCount", result.created().size());
+            response.put("failedCount", result.failed().size());
+            return ResponseEntity.status(result.created().isEmpty() ? HttpStatus.BAD_REQUEST : HttpStatus.CREATED)
+                .body(response);
+            
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error creating MCQs: " + e.getMessage());
         }
     }
 
+    /**
+     * POST /api/mcqs/import
+     * Import a CSV or JSON question bank file into a topic (multipart: file, topicId, optional courseId, format)
+     * Streams NDJSON progress lines while importing; the last line has type "done"
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasAuthority('INSTRUCTOR')")
+    public ResponseEntity<?> importMCQs(@RequestParam("file") MultipartFile file,
+                                        @RequestParam String topicId,
+                                        @RequestParam(required = false) String courseId,
+                                        @RequestParam(required = false) String format) {
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is required");
+        }
+        Optional<Topic> topicOptional = topicRepository.findById(topicId);
+        if (!topicOptional.isPresent()) {
+            return ResponseEntity.badRequest().body("Topic not found");
+        }
+
+        // Without a format parameter the file extension decides
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+        String formatName = format != null && !format.isBlank() ? format
+            : fileName.endsWith(".csv") ? "csv" : fileName.endsWith(".json") ? "json" : "";
+        MCQImportService.Format importFormat;
+        try {
+            importFormat = MCQImportService.Format.valueOf(formatName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Expected a .csv or .json file, or format=csv|json");
+        }
+
+        Topic topic = topicOptional.get();
+        StreamingResponseBody body = out -> {
+            try (InputStream in = file.getInputStream()) {
+                mcqImportService.importMcqs(topic, courseId, importFormat, in, out);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
     /**
      * GET /api/mcqs/all
      * Get all MCQs
+     * Modes: keyset pages (?cursor=&limit=), NDJSON stream (?format=ndjson), or the full JSON array streamed from a cursor
      */
     @GetMapping("/all")
-    public ResponseEntity<?> getAllMCQs() {
+    public ResponseEntity<?> getAllMCQs(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            System.out.println("GET /api/mcqs/all called");
-            
-            // Check if repository is null
-            if (mcqRepository == null) {
-                System.err.println("ERROR: MCQRepository is null!");
-                return ResponseEntity.ok(new ArrayList<MCQ>());
-            }
-            
-            System.out.println("Calling mcqRepository.findAll()...");
-            List<MCQ> mcqs = mcqRepository.findAll();
-            System.out.println("Found " + (mcqs != null ? mcqs.size() : "null") + " MCQs");
-            
-            if (mcqs == null) {
-                System.out.println("MCQ list was null, returning empty list");
-                return ResponseEntity.ok(new ArrayList<MCQ>());
-            }
-            
-            return ResponseEntity.ok(mcqs);
+            System.out.println("GET /api/mcqs/all called (cursor=" + cursor + ", limit=" + limit + ", format=" + format + ")");
+            return keysetPaginationService.list(MCQ.class, cursor, limit, format, accept);
         } catch (Exception e) {
             System.err.println("EXCEPTION in getAllMCQs: " + e.getClass().getName() + " - " + e.getMessage());
             e.printStackTrace();
@@ -379,6 +412,7 @@ public class MCQController {
             }
             
             mcqRepository.deleteById(id);
+            courseContentCountService.incrementMcqCount(mcq.get().getCourseId(), mcq.get().getTopicName(), -1);
             return ResponseEntity.ok("MCQ deleted successfully");
             
         } catch (Exception e) {
@@ -0,0 +1,47 @@
+package com.authsystem.controller;
+
+import com.authsystem.service.LearningEventProjector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Projection Admin Controller
+ * Status and rebuilds of the read models built from the learning event log
+ * Under /api/admin/**, which SecurityConfig restricts to ROLE_ADMIN: a rebuild replaces a whole
+ * collection (student_progress, student_performance, quiz_attempts)
+ */
+@RestController
+@RequestMapping("/api/admin/projections")
+@CrossOrigin(origins = "http://localhost:4200")
+public class ProjectionAdminController {
+
+    @Autowired
+    private LearningEventProjector projector;
+
+    // Checkpoint, lag and latest snapshot of every projection
+    @GetMapping
+    public ResponseEntity<?> getProjections() {
+        return ResponseEntity.ok(projector.status());
+    }
+
+    // Rebuild a read model from its latest snapshot and the events after it (course_analytics: from the log, in parallel per course)
+    @PostMapping("/{name}/rebuild")
+    public ResponseEntity<?> rebuild(@PathVariable String name) {
+        try {
+            int replayed = projector.rebuild(name);
+            return ResponseEntity.ok(Map.of(
+                "message", "Projection rebuilt",
+                "name", name,
+                "replayedEvents", replayed
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            System.err.println("❌ Error rebuilding projection " + name + ": " + e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to rebuild projection: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.authsystem.controller;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.service.QuizResultIngest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Quiz Result Controller
+ * One endpoint for a finished quiz: validated once here, then recorded for the progress page,
+ * the adaptive engine and the recommendations alike (see QuizResultIngest)
+ */
+@RestController
+@RequestMapping("/api/quiz-results")
+@CrossOrigin(origins = "http://localhost:4200")
+public class QuizResultController {
+
+    static final int MAX_QUESTIONS = 1000;
+    private static final Pattern SUBMISSION_ID = Pattern.compile("[A-Za-z0-9-]{8,64}");
+
+    @Autowired
+    private QuizResultIngest ingest;
+
+    @Value("${quiz.results.ack-timeout-ms:3000}")
+    private long ackTimeoutMs;
+
+    // Record a finished quiz of the caller; answered once it is in the learning event log, read models follow shortly
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestBody Map<String, Object> request, Authentication authentication) {
+        List<String> errors = new ArrayList<>();
+        String email = text(request, "studentEmail", errors);
+        String courseId = text(request, "courseId", errors);
+        String topicName = text(request, "topicName", errors);
+        Integer score = integer(request, "score", errors);
+        Integer totalQuestions = integer(request, "totalQuestions", errors);
+        Object seconds = request.containsKey("timeSpentSeconds") ? request.get("timeSpentSeconds") : request.get("timeSpent");
+        long timeSpentSeconds = seconds instanceof Number number ? number.longValue() : 0;
+
+        if (totalQuestions != null && (totalQuestions <= 0 || totalQuestions > MAX_QUESTIONS)) {
+            errors.add("totalQuestions must be between 1 and " + MAX_QUESTIONS);
+        }
+        if (score != null && totalQuestions != null && (score < 0 || score > totalQuestions)) {
+            errors.add("score must be between 0 and totalQuestions");
+        }
+        Object submissionId = request.get("submissionId");
+        if (submissionId != null && !(submissionId instanceof String id && SUBMISSION_ID.matcher(id).matches())) {
+            errors.add("submissionId must be 8 to 64 letters, digits or dashes");
+        }
+        if (seconds != null && !(seconds instanceof Number)) {
+            errors.add("timeSpentSeconds must be a number");
+        } else if (timeSpentSeconds < 0) {
+            errors.add("timeSpentSeconds must not be negative");
+        }
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid quiz result", "details", errors));
+        }
+        if (authentication == null || !email.equals(authentication.getName())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You can only record your own quiz results"));
+        }
+
+        String difficulty = String.valueOf(request.getOrDefault("difficulty", "INTERMEDIATE")).toUpperCase();
+        String quizId = request.get("quizId") instanceof String id && !id.isBlank() ? id : null;
+        String quizType = String.valueOf(request.getOrDefault("quizType", "AI_QUIZ".equals(quizId) ? "ai" : "normal"));
+        LearningEvent event = LearningEvent.quizAttempt(LearningEvent.Source.INGEST, email, courseId, topicName, quizId,
+            score, totalQuestions, timeSpentSeconds, difficulty, quizType);
+        // The client resends the same id when it retries, so the result is only counted once
+        event.setSubmissionId((String) submissionId);
+
+        CompletableFuture<Long> appended = ingest.submit(event);
+        if (appended == null) {
+            return retryLater("Too many quiz results are being recorded right now");
+        }
+        try {
+            long seq = appended.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Quiz result recorded");
+            response.put("status", "recorded");
+            response.put("resultId", seq);
+            response.put("submissionId", submissionId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (TimeoutException e) {
+            // Still queued and the writer keeps retrying: not an error, the result is on its way
+            return pending(email, submissionId);
+        } catch (ExecutionException e) {
+            System.err.println("❌ Quiz result of " + email + " not recorded: " + e.getMessage());
+            return retryLater("Quiz result could not be recorded yet");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return pending(email, submissionId);
+        }
+    }
+
+    // Queue depth and counters of the ingest stage
+    // Admins only (SecurityConfig)
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(ingest.stats());
+    }
+
+    private static ResponseEntity<?> pending(String email, Object submissionId) {
+        System.err.println("⚠️ Quiz result of " + email + " not confirmed within the ack timeout, still queued");
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Quiz result is being recorded");
+        response.put("status", "pending");
+        response.put("submissionId", submissionId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    private static ResponseEntity<?> retryLater(String message) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(Map.of("error", message));
+    }
+
+    private static String text(Map<String, Object> request, String field, List<String> errors) {
+        Object value = request.get(field);
+        if (!(value instanceof String text) || text.isBlank()) {
+            errors.add(field + " is required");
+            return null;
+        }
+        return text.trim();
+    }
+
+    private static Integer integer(Map<String, Object> request, String field, List<String> errors) {
+        Object value = request.get(field);
+        if (!(value instanceof Integer number)) {
+            errors.add(field + " must be a whole number");
+            return null;
+        }
+        return number;
+    }
+}
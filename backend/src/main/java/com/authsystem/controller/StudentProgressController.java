@@ -1,13 +1,21 @@
 package com.authsystem.controller;
 
+import com.authsystem.model.LearningEvent;
 import com.authsystem.model.StudentProgress;
 import com.authsystem.repository.StudentProgressRepository;
+import com.authsystem.search.StudentNoteSearchIndex;
+import com.authsystem.service.LearningEventLog;
+import com.authsystem.service.LearningEventProjector;
+import com.authsystem.service.ProgressTelemetryBuffer;
+import com.authsystem.service.StudentNoteStore;
+import com.authsystem.service.StudentProgressProjection;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @RestController
@@ -18,6 +26,21 @@ public class StudentProgressController {
     @Autowired
     private StudentProgressRepository progressRepository;
 
+    @Autowired
+    private LearningEventLog eventLog;
+
+    @Autowired
+    private LearningEventProjector projector;
+
+    @Autowired
+    private ProgressTelemetryBuffer telemetryBuffer;
+
+    @Autowired
+    private StudentNoteStore noteStore;
+
+    @Autowired
+    private StudentNoteSearchIndex noteSearchIndex;
+
     // Get progress for a student in a specific course
     @GetMapping("/student/{email}/course/{courseId}")
     public ResponseEntity<?> getProgress(@PathVariable String email, @PathVariable String courseId) {
@@ -27,7 +50,7 @@ public class StudentProgressController {
         
         if (progress.isPresent()) {
             System.out.println("✅ Progress found: " + progress.get().getOverallScore() + "% score");
-            return ResponseEntity.ok(progress.get());
+            return ResponseEntity.ok(telemetryBuffer.withPending(progress.get()));
         } else {
             System.out.println("❌ No progress found, creating new...");
             // Create new progress entry
@@ -35,11 +58,11 @@ public class StudentProgressController {
             newProgress.setStudentEmail(email);
             newProgress.setCourseId(courseId);
             StudentProgress saved = progressRepository.save(newProgress);
-            return ResponseEntity.ok(saved);
+            return ResponseEntity.ok(telemetryBuffer.withPending(saved));
         }
     }
 
-    // Record video watch time
+    // Record video watch time - buffered and written in the background, answers with a small ack
     @PostMapping("/video-watch")
     public ResponseEntity<?> recordVideoWatch(@RequestBody Map<String, Object> request) {
         String email = (String) request.get("studentEmail");
@@ -50,29 +73,12 @@ public class StudentProgressController {
 
         System.out.println("🎥 Recording video watch - " + timeSpentSeconds + "s for " + videoTitle);
 
-        StudentProgress progress = getOrCreateProgress(email, courseId);
-        
-        // Add time spent
-        int minutesToAdd = timeSpentSeconds / 60;
-        progress.setTotalTimeSpentMinutes(progress.getTotalTimeSpentMinutes() + minutesToAdd);
-        
-        // Update topic mastery
-        updateTopicMastery(progress, topicName, timeSpentSeconds, false);
-        
-        // Add activity log
-        addActivity(progress, "VIDEO", videoTitle, "Watched video for " + minutesToAdd + " minutes");
+        telemetryBuffer.recordMediaTime(email, courseId, topicName, timeSpentSeconds, "VIDEO", videoTitle);
         
-        // Update last activity
-        progress.setLastActivityDate(LocalDateTime.now());
-        progress.setUpdatedAt(LocalDateTime.now());
-        
-        StudentProgress saved = progressRepository.save(progress);
-        System.out.println("✅ Total time spent: " + saved.getTotalTimeSpentMinutes() + " minutes");
-        
-        return ResponseEntity.ok(saved);
+        return ResponseEntity.accepted().body(telemetryAck(email, courseId, timeSpentSeconds));
     }
 
-    // Record PDF view time
+    // Record PDF view time - buffered like video watch time
     @PostMapping("/pdf-view")
     public ResponseEntity<?> recordPdfView(@RequestBody Map<String, Object> request) {
         String email = (String) request.get("studentEmail");
@@ -83,23 +89,8 @@ public class StudentProgressController {
 
         System.out.println("📄 Recording PDF view - " + timeSpentSeconds + "s for " + pdfTitle);
 
-        StudentProgress progress = getOrCreateProgress(email, courseId);
-        
-        // Add time spent
-        int minutesToAdd = timeSpentSeconds / 60;
-        progress.setTotalTimeSpentMinutes(progress.getTotalTimeSpentMinutes() + minutesToAdd);
-        
-        // Update topic mastery
-        updateTopicMastery(progress, topicName, timeSpentSeconds, false);
-        
-        // Add activity log
-        addActivity(progress, "PDF", pdfTitle, "Viewed PDF for " + minutesToAdd + " minutes");
-        
-        progress.setLastActivityDate(LocalDateTime.now());
-        progress.setUpdatedAt(LocalDateTime.now());
-        
-        StudentProgress saved = progressRepository.save(progress);
-        return ResponseEntity.ok(saved);
+        telemetryBuffer.recordMediaTime(email, courseId, topicName, timeSpentSeconds, "PDF", pdfTitle);
+        return ResponseEntity.accepted().body(telemetryAck(email, courseId, timeSpentSeconds));
     }
 
     // Record quiz attempt
@@ -116,78 +107,13 @@ public class StudentProgressController {
 
         System.out.println("📝 Recording " + quizType + " quiz attempt - Score: " + score + "/" + totalQuestions + " for topic: " + topicName);
 
-        StudentProgress progress = getOrCreateProgress(email, courseId);
-        
-        // Calculate percentage
-        double percentage = (score * 100.0) / totalQuestions;
-        boolean passed = percentage >= 60; // 60% passing threshold
-        
-        // Create quiz attempt record
-        StudentProgress.QuizAttempt attempt = new StudentProgress.QuizAttempt();
-        attempt.setQuizId(topicName + "_" + System.currentTimeMillis());
-        attempt.setQuizTitle(topicName + " Quiz");
-        attempt.setScore(score);
-        attempt.setTotalQuestions(totalQuestions);
-        attempt.setDifficulty(difficulty);
-        attempt.setQuizType(quizType);
-        attempt.setAttemptedAt(LocalDateTime.now());
-        attempt.setPassed(passed);
-        
-        progress.getQuizAttempts().add(attempt);
-        
-        // Update quiz count
-        if (passed) {
-            progress.setQuizzesPassed(progress.getQuizzesPassed() + 1);
-        }
-        
-        // Update overall performance
-        StudentProgress.OverallPerformance overall = progress.getOverallPerformance();
-        overall.setTotalQuizzes(overall.getTotalQuizzes() + 1);
-        
-        // Recalculate average score
-        double totalScore = 0;
-        for (StudentProgress.QuizAttempt qa : progress.getQuizAttempts()) {
-            totalScore += (qa.getScore() * 100.0) / qa.getTotalQuestions();
-        }
-        overall.setAverageScore(totalScore / progress.getQuizAttempts().size());
-        
-        // Update performance level
-        if (overall.getAverageScore() >= 90) {
-            overall.setPerformanceLevel("EXCELLENT");
-        } else if (overall.getAverageScore() >= 75) {
-            overall.setPerformanceLevel("GOOD");
-        } else if (overall.getAverageScore() >= 60) {
-            overall.setPerformanceLevel("AVERAGE");
-        } else {
-            overall.setPerformanceLevel("NEEDS_IMPROVEMENT");
-        }
-        
-        // Add time spent
-        int minutesToAdd = timeSpentSeconds / 60;
-        progress.setTotalTimeSpentMinutes(progress.getTotalTimeSpentMinutes() + minutesToAdd);
-        overall.setTotalTimeSpent(overall.getTotalTimeSpent() + timeSpentSeconds);
-        
-        // Update topic mastery with quiz results
-        updateTopicMastery(progress, topicName, timeSpentSeconds, true, score, totalQuestions);
-        
-        // Calculate overall score (average of all quizzes)
-        progress.setOverallScore(overall.getAverageScore());
-        
-        // Update level based on performance
-        updateStudentLevel(progress);
-        
-        // Add activity log
-        String resultText = passed ? "Passed ✅" : "Needs retry ⚠️";
-        addActivity(progress, "QUIZ", topicName + " Quiz", 
-            "Scored " + score + "/" + totalQuestions + " (" + Math.round(percentage) + "%) - " + resultText);
-        
-        progress.setLastActivityDate(LocalDateTime.now());
-        progress.setUpdatedAt(LocalDateTime.now());
-        
-        StudentProgress saved = progressRepository.save(progress);
+        // Appended to the learning log; the projection keeps running sums - no loop over earlier attempts
+        long seq = eventLog.append(LearningEvent.quizAttempt(LearningEvent.Source.PROGRESS, email, courseId, topicName,
+            null, score, totalQuestions, timeSpentSeconds, difficulty, quizType));
+        StudentProgress saved = projectedProgress(email, courseId, seq);
         System.out.println("✅ Quiz recorded - Overall Score: " + saved.getOverallScore() + "%, Level: " + saved.getCurrentLevel());
         
-        return ResponseEntity.ok(saved);
+        return ResponseEntity.ok(telemetryBuffer.withPending(saved));
     }
 
     // Mark lesson/topic as completed
@@ -201,173 +127,82 @@ public class StudentProgressController {
 
         System.out.println("✓ Marking lesson complete: " + lessonTitle);
 
-        StudentProgress progress = getOrCreateProgress(email, courseId);
-        
-        // Check if lesson already completed
-        boolean alreadyCompleted = progress.getLessonProgressList().stream()
-            .anyMatch(lp -> lp.getLessonId().equals(lessonId) && lp.isCompleted());
-        
-        if (!alreadyCompleted) {
-            StudentProgress.LessonProgress lessonProgress = new StudentProgress.LessonProgress();
-            lessonProgress.setLessonId(lessonId);
-            lessonProgress.setLessonTitle(lessonTitle);
-            lessonProgress.setCompleted(true);
-            lessonProgress.setTimeSpentMinutes(timeSpentMinutes);
-            lessonProgress.setCompletedAt(LocalDateTime.now());
-            
-            progress.getLessonProgressList().add(lessonProgress);
-            progress.setLessonsCompleted(progress.getLessonsCompleted() + 1);
-            
-            addActivity(progress, "LESSON", lessonTitle, "Completed lesson");
-        }
-        
-        progress.setLastActivityDate(LocalDateTime.now());
-        progress.setUpdatedAt(LocalDateTime.now());
-        
-        StudentProgress saved = progressRepository.save(progress);
-        return ResponseEntity.ok(saved);
+        // The projection completes the lesson only if it is not in lessonProgressList yet
+        long seq = eventLog.append(LearningEvent.lessonComplete(email, courseId, lessonId, lessonTitle, timeSpentMinutes));
+        return ResponseEntity.ok(telemetryBuffer.withPending(projectedProgress(email, courseId, seq)));
     }
 
     // Get all progress for a student (across all courses)
     @GetMapping("/student/{email}")
     public ResponseEntity<?> getAllProgress(@PathVariable String email) {
         List<StudentProgress> progressList = progressRepository.findByStudentEmail(email);
+        progressList.forEach(telemetryBuffer::withPending);
         return ResponseEntity.ok(progressList);
     }
 
     // Helper methods
-    private StudentProgress getOrCreateProgress(String email, String courseId) {
-        Optional<StudentProgress> existing = progressRepository.findByStudentEmailAndCourseId(email, courseId);
-        
-        if (existing.isPresent()) {
-            return existing.get();
-        } else {
-            StudentProgress newProgress = new StudentProgress();
-            newProgress.setStudentEmail(email);
-            newProgress.setCourseId(courseId);
-            return progressRepository.save(newProgress);
-        }
-    }
-
-    private void updateTopicMastery(StudentProgress progress, String topicName, int timeSpentSeconds, boolean isQuiz) {
-        Map<String, StudentProgress.TopicMastery> topicMastery = progress.getTopicMastery();
-        
-        StudentProgress.TopicMastery mastery = topicMastery.computeIfAbsent(topicName, k -> new StudentProgress.TopicMastery());
-        
-        if (isQuiz) {
-            mastery.setTotalAttempts(mastery.getTotalAttempts() + 1);
-        }
-        
-        mastery.setTimeSpent(mastery.getTimeSpent() + timeSpentSeconds);
-        mastery.setLastAttemptDate(LocalDateTime.now());
-        
-        topicMastery.put(topicName, mastery);
-    }
-
-    private void updateTopicMastery(StudentProgress progress, String topicName, int timeSpentSeconds, 
-                                   boolean isQuiz, int score, int totalQuestions) {
-        Map<String, StudentProgress.TopicMastery> topicMastery = progress.getTopicMastery();
-        
-        StudentProgress.TopicMastery mastery = topicMastery.computeIfAbsent(topicName, k -> new StudentProgress.TopicMastery());
-        
-        if (isQuiz) {
-            mastery.setTotalAttempts(mastery.getTotalAttempts() + 1);
-            mastery.setCorrectAnswers(mastery.getCorrectAnswers() + score);
-            
-            // Calculate average score
-            double percentage = (score * 100.0) / totalQuestions;
-            if (mastery.getTotalAttempts() == 1) {
-                mastery.setAverageScore(percentage);
-            } else {
-                // Running average
-                mastery.setAverageScore(
-                    (mastery.getAverageScore() * (mastery.getTotalAttempts() - 1) + percentage) / mastery.getTotalAttempts()
-                );
-            }
-            
-            // Determine difficulty based on performance
-            if (mastery.getAverageScore() >= 80) {
-                mastery.setDifficulty("HARD");
-            } else if (mastery.getAverageScore() >= 60) {
-                mastery.setDifficulty("MEDIUM");
-            } else {
-                mastery.setDifficulty("EASY");
-            }
-        }
-        
-        mastery.setTimeSpent(mastery.getTimeSpent() + timeSpentSeconds);
-        mastery.setLastAttemptDate(LocalDateTime.now());
-        
-        topicMastery.put(topicName, mastery);
+    private Map<String, Object> telemetryAck(String email, String courseId, int timeSpentSeconds) {
+        Map<String, Object> ack = new HashMap<>();
+        ack.put("status", "accepted");
+        ack.put("studentEmail", email);
+        ack.put("courseId", courseId);
+        ack.put("timeSpentSeconds", timeSpentSeconds);
+        return ack;
     }
 
-    private void updateStudentLevel(StudentProgress progress) {
-        double score = progress.getOverallScore();
-        int quizzesPassed = progress.getQuizzesPassed();
-        
-        if (score >= 90 && quizzesPassed >= 10) {
-            progress.setCurrentLevel("MASTERY");
-        } else if (score >= 75 && quizzesPassed >= 5) {
-            progress.setCurrentLevel("ADVANCED");
-        } else if (score >= 60 && quizzesPassed >= 3) {
-            progress.setCurrentLevel("INTERMEDIATE");
-        } else {
-            progress.setCurrentLevel("BEGINNER");
-        }
-    }
-
-    private void addActivity(StudentProgress progress, String type, String title, String description) {
-        StudentProgress.ActivityLog activity = new StudentProgress.ActivityLog(type, title, description);
-        
-        List<StudentProgress.ActivityLog> activities = progress.getRecentActivities();
-        activities.add(0, activity); // Add to beginning
-        
-        // Keep only last 20 activities
-        if (activities.size() > 20) {
-            activities = activities.subList(0, 20);
-            progress.setRecentActivities(activities);
-        }
+    // Read the progress once the projection has applied the event (or the wait timed out)
+    private StudentProgress projectedProgress(String email, String courseId, long seq) {
+        projector.awaitProjected(StudentProgressProjection.NAME, seq);
+        return progressRepository.findByStudentEmailAndCourseId(email, courseId).orElseGet(() -> {
+            StudentProgress pending = new StudentProgress();
+            pending.setStudentEmail(email);
+            pending.setCourseId(courseId);
+            return pending;
+        });
     }
 
     // Save notes for a specific topic and subtopic
+    // Either the full "notes", or a delta against "baseRevision": "offset", "removed" characters and "inserted" text.
+    // 409 when the stored notes moved on from baseRevision - the client then sends its full text.
     @PostMapping("/notes/save")
-    public ResponseEntity<?> saveNotes(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> saveNotes(@RequestBody Map<String, Object> request) {
         try {
-            String email = request.get("studentEmail");
-            String courseId = request.get("courseId");
-            String topicName = request.get("topicName");
-            String subtopicName = request.get("subtopicName");
-            String notes = request.get("notes");
-
-            System.out.println("📝 Saving notes for " + email + " - Topic: " + topicName + ", Subtopic: " + subtopicName);
+            String email = (String) request.get("studentEmail");
+            String courseId = (String) request.get("courseId");
+            String topicName = (String) request.get("topicName");
+            String subtopicName = (String) request.get("subtopicName");
+            Number baseRevision = (Number) request.get("baseRevision");
 
-            StudentProgress progress = getOrCreateProgress(email, courseId);
-            
-            // Initialize notes map if null
-            if (progress.getNotes() == null) {
-                progress.setNotes(new HashMap<>());
-            }
-            
-            // Get or create topic notes map
-            Map<String, String> topicNotes = progress.getNotes().get(topicName);
-            if (topicNotes == null) {
-                topicNotes = new HashMap<>();
-                progress.getNotes().put(topicName, topicNotes);
+            long revision;
+            if (request.containsKey("offset")) {
+                System.out.println("📝 Saving notes delta for " + email + " - Topic: " + topicName + ", Subtopic: " + subtopicName);
+                revision = noteStore.applyDelta(email, courseId, topicName, subtopicName,
+                    baseRevision != null ? baseRevision.longValue() : 0L,
+                    ((Number) request.get("offset")).intValue(),
+                    ((Number) request.getOrDefault("removed", 0)).intValue(),
+                    (String) request.get("inserted"));
+            } else {
+                System.out.println("📝 Saving notes for " + email + " - Topic: " + topicName + ", Subtopic: " + subtopicName);
+                revision = noteStore.save(email, courseId, topicName, subtopicName, (String) request.get("notes"),
+                    baseRevision != null ? baseRevision.longValue() : null);
             }
             
-            // Save subtopic notes
-            topicNotes.put(subtopicName, notes);
-            
-            progress.setUpdatedAt(LocalDateTime.now());
-            StudentProgress saved = progressRepository.save(progress);
-            
             System.out.println("✅ Notes saved successfully!");
             
             return ResponseEntity.ok(Map.of(
                 "message", "Notes saved successfully",
-                "notes", notes
+                "revision", revision
             ));
             
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "Notes were changed elsewhere, send the full text",
+                "details", e.getMessage()
+            ));
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid notes update: " + e.getMessage()
+            ));
         } catch (Exception e) {
             System.err.println("❌ Error saving notes: " + e.getMessage());
             e.printStackTrace();
@@ -377,7 +212,7 @@ public class StudentProgressController {
         }
     }
 
-    // Get notes for a specific topic and subtopic
+    // Get notes for a specific topic and subtopic - reads only that subtopic's notes document
     @GetMapping("/notes/{email}/{courseId}/{topicName}/{subtopicName}")
     public ResponseEntity<?> getNotes(
             @PathVariable String email,
@@ -387,29 +222,13 @@ public class StudentProgressController {
         try {
             System.out.println("📖 Loading notes for " + email + " - Topic: " + topicName + ", Subtopic: " + subtopicName);
 
-            Optional<StudentProgress> progressOpt = progressRepository.findByStudentEmailAndCourseId(email, courseId);
-            
-            if (progressOpt.isPresent()) {
-                StudentProgress progress = progressOpt.get();
-                
-                if (progress.getNotes() != null && 
-                    progress.getNotes().containsKey(topicName) &&
-                    progress.getNotes().get(topicName).containsKey(subtopicName)) {
-                    
-                    String notes = progress.getNotes().get(topicName).get(subtopicName);
-                    System.out.println("✅ Notes found: " + notes.length() + " characters");
-                    
-                    return ResponseEntity.ok(Map.of(
-                        "notes", notes,
-                        "topicName", topicName,
-                        "subtopicName", subtopicName
-                    ));
-                }
-            }
-            
-            System.out.println("⚠️ No notes found, returning empty");
+            StudentNoteStore.Note note = noteStore.read(email, courseId, topicName, subtopicName);
+            System.out.println(note.text().isEmpty() ? "⚠️ No notes found, returning empty"
+                : "✅ Notes found: " + note.text().length() + " characters");
+
             return ResponseEntity.ok(Map.of(
-                "notes", "",
+                "notes", note.text(),
+                "revision", note.revision(),
                 "topicName", topicName,
                 "subtopicName", subtopicName
             ));
@@ -421,4 +240,44 @@ public class StudentProgressController {
             ));
         }
     }
+
+    // Search a student's own notes across all their courses (or one, with courseId), best matches first
+    @GetMapping("/notes/search/{email}")
+    public ResponseEntity<?> searchNotes(
+            @PathVariable String email,
+            @RequestParam("q") String query,
+            @RequestParam(required = false) String courseId,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        if (authentication == null || !email.equals(authentication.getName())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You can only search your own notes"));
+        }
+        try {
+            long start = System.nanoTime();
+            StudentNoteSearchIndex.Page page = noteSearchIndex.search(email, query, courseId, Math.min(Math.max(limit, 1), 100));
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (StudentNoteSearchIndex.Result result : page.results()) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("courseId", result.courseId());
+                item.put("topicName", result.topicName());
+                item.put("subtopicName", result.subtopicName());
+                item.put("snippet", result.snippet());
+                item.put("highlights", result.highlights());
+                item.put("score", result.score());
+                item.put("updatedAt", result.updatedAt());
+                results.add(item);
+            }
+            return ResponseEntity.ok(Map.of(
+                "query", query,
+                "total", page.total(),
+                "results", results,
+                "tookMs", (System.nanoTime() - start) / 1_000_000
+            ));
+        } catch (Exception e) {
+            System.err.println("❌ Error searching notes: " + e.getMessage());
+            return ResponseEntity.status(500).body(Map.of(
+                "error", "Failed to search notes: " + e.getMessage()
+            ));
+        }
+    }
 }
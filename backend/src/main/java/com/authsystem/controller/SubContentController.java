@@ -2,7 +2,9 @@ package com.authsystem.controller;
 
 import com.authsystem.model.SubContent;
 import com.authsystem.repository.SubContentRepository;
+import com.authsystem.service.KeysetPaginationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +21,9 @@ public class SubContentController {
     @Autowired
     private SubContentRepository subContentRepository;
 
+    @Autowired
+    private KeysetPaginationService keysetPaginationService;
+
     @PostMapping("/create")
     @PreAuthorize("hasAuthority('INSTRUCTOR')")
     public ResponseEntity<?> createSubContent(@RequestBody SubContent subContent) {
@@ -94,9 +99,13 @@ public class SubContentController {
         }
     }
 
+    // Keyset pages (?cursor=&limit=), NDJSON stream (?format=ndjson), or the full JSON array streamed from a cursor
     @GetMapping("/all")
-    public ResponseEntity<List<SubContent>> getAllContent() {
-        List<SubContent> contents = subContentRepository.findAll();
-        return ResponseEntity.ok(contents);
+    public ResponseEntity<?> getAllContent(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return keysetPaginationService.list(SubContent.class, cursor, limit, format, accept);
     }
 }
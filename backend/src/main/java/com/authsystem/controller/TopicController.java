@@ -4,8 +4,11 @@ import com.authsystem.model.Topic;
 import com.authsystem.model.Subject;
 import com.authsystem.repository.TopicRepository;
 import com.authsystem.repository.SubjectRepository;
+import com.authsystem.service.BulkContentService;
+import com.authsystem.service.KeysetPaginationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -24,10 +27,16 @@ public class TopicController {
 
     @Autowired
     private TopicRepository topicRepository;
+
+    @Autowired
+    private KeysetPaginationService keysetPaginationService;
     
     @Autowired
     private SubjectRepository subjectRepository;
 
+    @Autowired
+    private BulkContentService bulkContentService;
+
     /**
      * POST /api/topics/create
      * Create a new topic under a subject
@@ -98,39 +107,24 @@ public class TopicController {
     public ResponseEntity<?> createBulkTopics(@RequestBody Map<String, Object> request) {
         try {
             String subjectId = (String) request.get("subjectId");
-            List<String> topicNames = (List<String>) request.get("topicNames");
+            List<?> topicNames = (List<?>) request.get("topicNames");
             
             if (subjectId == null || topicNames == null || topicNames.isEmpty()) {
                 return ResponseEntity.badRequest().body("Subject ID and topic names are required");
             }
             
-            // Verify subject exists
-            Optional<Subject> subjectOptional = subjectRepository.findById(subjectId);
-            if (!subjectOptional.isPresent()) {
-                return ResponseEntity.badRequest().body("Subject not found");
-            }
-            
-            Subject subject = subjectOptional.get();
-            List<Topic> createdTopics = new ArrayList<>();
-            
-            int orderIndex = topicRepository.countBySubjectId(subjectId).intValue() + 1;
-            
-            for (String name : topicNames) {
-                Topic topic = new Topic();
-                topic.setSubjectId(subjectId);
-                topic.setName(name);
-                topic.setDifficulty(subject.getDifficulty());
-                topic.setActive(true);
-                topic.setOrderIndex(orderIndex++);
-                topic.setCreatedAt(LocalDateTime.now());
-                topic.setUpdatedAt(LocalDateTime.now());
-                
-                Topic savedTopic = topicRepository.save(topic);
-                createdTopics.add(savedTopic);
-            }
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdTopics);
+            // Blank and duplicate names are reported by index; the others are still created
+            BulkContentService.Result<Topic> result = bulkContentService.createTopics(subjectId, topicNames);
+            Map<String, Object> response = new HashMap<>();
+            response.put("created", result.created());
+            response.put("failed", result.failed());
+            response.put("createdCount", result.created().size());
+            response.put("failedCount", result.failed().size());
+            return ResponseEntity.status(result.created().isEmpty() ? HttpStatus.BAD_REQUEST : HttpStatus.CREATED)
+                .body(response);
             
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error creating topics: " + e.getMessage());
@@ -140,12 +134,16 @@ public class TopicController {
     /**
      * GET /api/topics/all
      * Get all topics
+     * Modes: keyset pages (?cursor=&limit=), NDJSON stream (?format=ndjson), or the full JSON array streamed from a cursor
      */
     @GetMapping("/all")
-    public ResponseEntity<List<Topic>> getAllTopics() {
+    public ResponseEntity<?> getAllTopics(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            List<Topic> topics = topicRepository.findAll();
-            return ResponseEntity.ok(topics);
+            return keysetPaginationService.list(Topic.class, cursor, limit, format, accept);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
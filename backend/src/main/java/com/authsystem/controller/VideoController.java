@@ -7,8 +7,10 @@ import com.authsystem.repository.VideoRepository;
 import com.authsystem.repository.TopicRepository;
 import com.authsystem.repository.SubjectRepository;
 import com.authsystem.service.impl.CloudinaryStorageService;
+import com.authsystem.service.KeysetPaginationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -28,6 +30,9 @@ public class VideoController {
 
     @Autowired
     private VideoRepository videoRepository;
+
+    @Autowired
+    private KeysetPaginationService keysetPaginationService;
     
     @Autowired
     private TopicRepository topicRepository;
@@ -185,12 +190,16 @@ public class VideoController {
     /**
      * GET /api/videos/all
      * Get all videos
+     * Modes: keyset pages (?cursor=&limit=), NDJSON stream (?format=ndjson), or the full JSON array streamed from a cursor
      */
     @GetMapping("/all")
-    public ResponseEntity<List<Video>> getAllVideos() {
+    public ResponseEntity<?> getAllVideos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            List<Video> videos = videoRepository.findAll();
-            return ResponseEntity.ok(videos);
+            return keysetPaginationService.list(Video.class, cursor, limit, format, accept);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -0,0 +1,79 @@
+package com.authsystem.dto;
+
+import com.authsystem.model.CourseContentCounts;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Course Summary DTO - Card-sized view of a course for list endpoints
+ * Loaded with a Mongo field projection, so topicSubcontents (URLs, file names,
+ * embedded MCQ questions) is never read from disk or sent over the wire.
+ * The full document stays available on GET /api/courses/{id}.
+ */
+public class CourseSummaryDTO {
+    
+    private String id;
+    private String title;
+    private String description;
+    private String instructorEmail;
+    private String instructorName;
+    private List<String> subjects;
+    private List<String> topics;
+    private String difficulty;
+    private String thumbnail;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private int enrolledStudents;
+    private double averageRating;
+    
+    // Maintained totals (per-topic MCQ breakdown is left out of the projection)
+    private CourseContentCounts contentCounts;
+    
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    
+    public String getInstructorEmail() { return instructorEmail; }
+    public void setInstructorEmail(String instructorEmail) { this.instructorEmail = instructorEmail; }
+    
+    public String getInstructorName() { return instructorName; }
+    public void setInstructorName(String instructorName) { this.instructorName = instructorName; }
+    
+    public List<String> getSubjects() { return subjects; }
+    public void setSubjects(List<String> subjects) { this.subjects = subjects; }
+    
+    public List<String> getTopics() { return topics; }
+    public void setTopics(List<String> topics) { this.topics = topics; }
+    
+    public String getDifficulty() { return difficulty; }
+    public void setDifficulty(String difficulty) { this.difficulty = difficulty; }
+    
+    public String getThumbnail() { return thumbnail; }
+    public void setThumbnail(String thumbnail) { this.thumbnail = thumbnail; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public int getEnrolledStudents() { return enrolledStudents; }
+    public void setEnrolledStudents(int enrolledStudents) { this.enrolledStudents = enrolledStudents; }
+    
+    public double getAverageRating() { return averageRating; }
+    public void setAverageRating(double averageRating) { this.averageRating = averageRating; }
+    
+    public CourseContentCounts getContentCounts() { return contentCounts; }
+    public void setContentCounts(CourseContentCounts contentCounts) { this.contentCounts = contentCounts; }
+}
@@ -0,0 +1,31 @@
+package com.authsystem.dto;
+
+import java.util.List;
+
+/**
+ * Cursor Page DTO - One page of a keyset-paginated list
+ * nextCursor is opaque to clients: pass it back as ?cursor= to get the following page
+ */
+public class CursorPage<T> {
+    
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int limit;
+    
+    public CursorPage(List<T> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.limit = limit;
+    }
+    
+    // Getters
+    public List<T> getItems() { return items; }
+    
+    public String getNextCursor() { return nextCursor; }
+    
+    public boolean isHasMore() { return hasMore; }
+    
+    public int getLimit() { return limit; }
+}
@@ -0,0 +1,57 @@
+package com.authsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+/**
+ * ContentVersion Model - Monotonic version counter for a cacheable read scope
+ * Keys look like "course:<id>", "subject:<id>" or "catalog"; the stamp is random per
+ * document so ETags never repeat if a version document is dropped and recreated
+ */
+@Document(collection = "content_versions")
+public class ContentVersion {
+
+    @Id
+    private String id;
+
+    private long version;
+    private String stamp;
+    private LocalDateTime updatedAt;
+
+    public ContentVersion() {
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getStamp() {
+        return stamp;
+    }
+
+    public void setStamp(String stamp) {
+        this.stamp = stamp;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,12 +1,16 @@
 package com.authsystem.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Course Model - Main course entity
@@ -38,10 +42,17 @@ public class Course {
     private List<String> topics;
     
     // Map of topic names to their subcontents (with videos, PDFs, thumbnails, MCQs, descriptions)
-    // Using @Field annotation to ensure MongoDB serializes this properly
-    @org.springframework.data.mongodb.core.mapping.Field("topicSubcontents")
+    // Stored in the course_subcontents collection, not in this document - see CourseSubcontentStore.
+    // Loaded on first access, so course reads that never touch it never fetch it.
+    @Transient
     private Map<String, List<TopicSubcontent>> topicSubcontents;
     
+    @Transient
+    private boolean topicSubcontentsLoaded;
+    
+    @Transient
+    private Supplier<Map<String, List<TopicSubcontent>>> topicSubcontentsLoader;
+    
     @Indexed
     private String difficulty; // BEGINNER, INTERMEDIATE, ADVANCED
     
@@ -54,6 +65,17 @@ public class Course {
     private LocalDateTime updatedAt;
     private int enrolledStudents;
     private double averageRating;
+    
+    // Maintained counters - see CourseContentCountService
+    private CourseContentCounts contentCounts;
+    
+    // Incremented on every write; whole saves only apply to the version they loaded - see CourseUpdateService
+    @Version
+    private Long version;
+    
+    // Generation of course_subcontents readers use; only moved forward once a set is completely written
+    @JsonIgnore
+    private Long subcontentGeneration;
 
     public Course() {
         this.createdAt = LocalDateTime.now();
@@ -122,11 +144,33 @@ public class Course {
     }
 
     public Map<String, List<TopicSubcontent>> getTopicSubcontents() {
+        if (!topicSubcontentsLoaded && topicSubcontentsLoader != null) {
+            topicSubcontents = topicSubcontentsLoader.get();
+            topicSubcontentsLoaded = true;
+            topicSubcontentsLoader = null;
+        }
         return topicSubcontents;
     }
 
     public void setTopicSubcontents(Map<String, List<TopicSubcontent>> topicSubcontents) {
         this.topicSubcontents = topicSubcontents;
+        this.topicSubcontentsLoaded = true;
+        this.topicSubcontentsLoader = null;
+    }
+
+    /**
+     * True once topicSubcontents was set or loaded - only then does a save write it back
+     */
+    public boolean hasTopicSubcontentsLoaded() {
+        return topicSubcontentsLoaded;
+    }
+
+    /**
+     * Defer loading topicSubcontents until getTopicSubcontents() is first called
+     */
+    public void loadTopicSubcontentsWith(Supplier<Map<String, List<TopicSubcontent>>> loader) {
+        this.topicSubcontentsLoaded = false;
+        this.topicSubcontentsLoader = loader;
     }
 
     public String getDifficulty() {
@@ -184,4 +228,28 @@ public class Course {
     public void setAverageRating(double averageRating) {
         this.averageRating = averageRating;
     }
+
+    public CourseContentCounts getContentCounts() {
+        return contentCounts;
+    }
+
+    public void setContentCounts(CourseContentCounts contentCounts) {
+        this.contentCounts = contentCounts;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getSubcontentGeneration() {
+        return subcontentGeneration;
+    }
+
+    public void setSubcontentGeneration(Long subcontentGeneration) {
+        this.subcontentGeneration = subcontentGeneration;
+    }
 }
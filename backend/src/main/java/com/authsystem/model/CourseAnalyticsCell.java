@@ -0,0 +1,67 @@
+package com.authsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * CourseAnalyticsCell Model - One cell of the instructor analytics cube
+ * Totals of the quiz attempts in a course for one topic, difficulty and day. Cells only hold
+ * sums and counts, so any slice or roll-up (per topic, per week, whole course) is their sum.
+ * Written by CourseAnalyticsProjection with $inc; seq is the last learning event counted.
+ */
+@Document(collection = "course_analytics")
+public class CourseAnalyticsCell {
+
+    @Id
+    private String id;             // courseId, topic, difficulty and day joined by \0
+
+    private String courseId;
+    private String topic;
+    private String difficulty;     // EASY, MEDIUM, HARD
+    private String day;            // yyyy-MM-dd, sorts like the date
+
+    private long attempts;
+    private long questions;
+    private long correctAnswers;
+    private double scoreSum;       // sum of the attempts' percentages
+    private long secondsSpent;
+
+    private long seq;
+
+    public CourseAnalyticsCell() {
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getCourseId() { return courseId; }
+    public void setCourseId(String courseId) { this.courseId = courseId; }
+
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+
+    public String getDifficulty() { return difficulty; }
+    public void setDifficulty(String difficulty) { this.difficulty = difficulty; }
+
+    public String getDay() { return day; }
+    public void setDay(String day) { this.day = day; }
+
+    public long getAttempts() { return attempts; }
+    public void setAttempts(long attempts) { this.attempts = attempts; }
+
+    public long getQuestions() { return questions; }
+    public void setQuestions(long questions) { this.questions = questions; }
+
+    public long getCorrectAnswers() { return correctAnswers; }
+    public void setCorrectAnswers(long correctAnswers) { this.correctAnswers = correctAnswers; }
+
+    public double getScoreSum() { return scoreSum; }
+    public void setScoreSum(double scoreSum) { this.scoreSum = scoreSum; }
+
+    public long getSecondsSpent() { return secondsSpent; }
+    public void setSecondsSpent(long secondsSpent) { this.secondsSpent = secondsSpent; }
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+}
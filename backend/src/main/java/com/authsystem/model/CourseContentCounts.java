@@ -0,0 +1,76 @@
+package com.authsystem.model;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CourseContentCounts Model - Content counters embedded in a Course document
+ * Media counts are written together with topicSubcontents, MCQ counts are
+ * maintained with atomic $inc updates so detail pages never scan the mcqs collection
+ */
+public class CourseContentCounts {
+
+    private int totalSubtopics;
+    private int totalVideos;
+    private int totalPdfs;
+    private int totalMcqs;
+
+    // topicName → number of MCQs in the mcqs collection for this course and topic
+    private Map<String, Integer> mcqCountsByTopic;
+
+    private LocalDateTime reconciledAt;
+
+    public CourseContentCounts() {
+        this.mcqCountsByTopic = new HashMap<>();
+    }
+
+    // Getters and Setters
+    public int getTotalSubtopics() {
+        return totalSubtopics;
+    }
+
+    public void setTotalSubtopics(int totalSubtopics) {
+        this.totalSubtopics = totalSubtopics;
+    }
+
+    public int getTotalVideos() {
+        return totalVideos;
+    }
+
+    public void setTotalVideos(int totalVideos) {
+        this.totalVideos = totalVideos;
+    }
+
+    public int getTotalPdfs() {
+        return totalPdfs;
+    }
+
+    public void setTotalPdfs(int totalPdfs) {
+        this.totalPdfs = totalPdfs;
+    }
+
+    public int getTotalMcqs() {
+        return totalMcqs;
+    }
+
+    public void setTotalMcqs(int totalMcqs) {
+        this.totalMcqs = totalMcqs;
+    }
+
+    public Map<String, Integer> getMcqCountsByTopic() {
+        return mcqCountsByTopic;
+    }
+
+    public void setMcqCountsByTopic(Map<String, Integer> mcqCountsByTopic) {
+        this.mcqCountsByTopic = mcqCountsByTopic;
+    }
+
+    public LocalDateTime getReconciledAt() {
+        return reconciledAt;
+    }
+
+    public void setReconciledAt(LocalDateTime reconciledAt) {
+        this.reconciledAt = reconciledAt;
+    }
+}
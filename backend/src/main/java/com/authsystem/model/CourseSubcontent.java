@@ -0,0 +1,147 @@
+package com.authsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+/**
+ * CourseSubcontent Model - One subcontent of a course topic, stored on its own
+ * Replaces the topicSubcontents map that used to be embedded in the course document.
+ * Relationships:
+ * - Many subcontents belong to one course (courseId), grouped by topic and ordered by order
+ * - topicOrder keeps the position of the topic within the course
+ * generation comes from the course version that wrote the set; a new set is written next to the old one
+ * and readers only use the generation committed on the course (Course.subcontentGeneration),
+ * so they never see a partly written set and a stale writer can never mix old subcontents in.
+ */
+@Document(collection = "course_subcontents")
+@CompoundIndex(name = "course_topic_order_generation", def = "{ 'courseId': 1, 'topic': 1, 'order': 1, 'generation': 1 }", unique = true)
+public class CourseSubcontent {
+
+    @Id
+    private String id;
+
+    private String courseId;
+    private String topic;
+    private int order;
+    private int topicOrder;
+    private long generation;
+
+    private String name;
+    private String description;
+    private List<String> videoUrls;
+    private List<String> videoFileNames;
+    private List<String> pdfUrls;
+    private List<String> pdfFileNames;
+    private String thumbnailUrl;
+    private String thumbnailFileName;
+    private int mcqCount;
+    private List<MCQQuestion> mcqQuestions;
+    private boolean published;
+
+    public CourseSubcontent() {
+    }
+
+    public static CourseSubcontent from(String courseId, String topic, int order, long generation, TopicSubcontent subcontent) {
+        CourseSubcontent doc = new CourseSubcontent();
+        doc.courseId = courseId;
+        doc.topic = topic;
+        doc.order = order;
+        doc.generation = generation;
+        doc.name = subcontent.getName();
+        doc.description = subcontent.getDescription();
+        doc.videoUrls = subcontent.getVideoUrls();
+        doc.videoFileNames = subcontent.getVideoFileNames();
+        doc.pdfUrls = subcontent.getPdfUrls();
+        doc.pdfFileNames = subcontent.getPdfFileNames();
+        doc.thumbnailUrl = subcontent.getThumbnailUrl();
+        doc.thumbnailFileName = subcontent.getThumbnailFileName();
+        doc.mcqCount = subcontent.getMcqCount();
+        doc.mcqQuestions = subcontent.getMcqQuestions();
+        doc.published = subcontent.isPublished();
+        return doc;
+    }
+
+    /**
+     * The embedded shape served by the course API
+     */
+    public TopicSubcontent toTopicSubcontent() {
+        TopicSubcontent subcontent = new TopicSubcontent();
+        subcontent.setName(name);
+        subcontent.setDescription(description != null ? description : "");
+        if (videoUrls != null) {
+            subcontent.setVideoUrls(videoUrls);
+        }
+        if (videoFileNames != null) {
+            subcontent.setVideoFileNames(videoFileNames);
+        }
+        if (pdfUrls != null) {
+            subcontent.setPdfUrls(pdfUrls);
+        }
+        if (pdfFileNames != null) {
+            subcontent.setPdfFileNames(pdfFileNames);
+        }
+        subcontent.setThumbnailUrl(thumbnailUrl);
+        subcontent.setThumbnailFileName(thumbnailFileName);
+        subcontent.setMcqCount(mcqCount);
+        if (mcqQuestions != null) {
+            subcontent.setMcqQuestions(mcqQuestions);
+        }
+        subcontent.setPublished(published);
+        return subcontent;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getCourseId() { return courseId; }
+    public void setCourseId(String courseId) { this.courseId = courseId; }
+
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+
+    public int getOrder() { return order; }
+    public void setOrder(int order) { this.order = order; }
+
+    public int getTopicOrder() { return topicOrder; }
+    public void setTopicOrder(int topicOrder) { this.topicOrder = topicOrder; }
+
+    public long getGeneration() { return generation; }
+    public void setGeneration(long generation) { this.generation = generation; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public List<String> getVideoUrls() { return videoUrls; }
+    public void setVideoUrls(List<String> videoUrls) { this.videoUrls = videoUrls; }
+
+    public List<String> getVideoFileNames() { return videoFileNames; }
+    public void setVideoFileNames(List<String> videoFileNames) { this.videoFileNames = videoFileNames; }
+
+    public List<String> getPdfUrls() { return pdfUrls; }
+    public void setPdfUrls(List<String> pdfUrls) { this.pdfUrls = pdfUrls; }
+
+    public List<String> getPdfFileNames() { return pdfFileNames; }
+    public void setPdfFileNames(List<String> pdfFileNames) { this.pdfFileNames = pdfFileNames; }
+
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+
+    public String getThumbnailFileName() { return thumbnailFileName; }
+    public void setThumbnailFileName(String thumbnailFileName) { this.thumbnailFileName = thumbnailFileName; }
+
+    public int getMcqCount() { return mcqCount; }
+    public void setMcqCount(int mcqCount) { this.mcqCount = mcqCount; }
+
+    public List<MCQQuestion> getMcqQuestions() { return mcqQuestions; }
+    public void setMcqQuestions(List<MCQQuestion> mcqQuestions) { this.mcqQuestions = mcqQuestions; }
+
+    public boolean isPublished() { return published; }
+    public void setPublished(boolean published) { this.published = published; }
+}
@@ -0,0 +1,292 @@
+package com.authsystem.model;
+
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Learning Event - One immutable entry of the learning_events log
+ * Stored with its own compact BSON encoding instead of the mapping converter: the log sequence is
+ * the _id, keys are one or two letters, type and source are small ints, absent values are omitted
+ * and no _class is written. A quiz attempt takes about half of its mapped size.
+ */
+public class LearningEvent {
+
+    public static final String COLLECTION = "learning_events";
+
+    // Field keys of the stored document
+    public static final String SEQ = "_id";
+    public static final String STUDENT = "s";
+    public static final String COURSE = "c";
+    public static final String TYPE = "t";
+    static final String SOURCE = "o";
+    public static final String RECORDED_AT = "at";
+    static final String TOPIC = "tp";
+    static final String SUBTOPIC = "st";
+    static final String ITEM_ID = "i";
+    static final String TITLE = "ti";
+    static final String SCORE = "sc";
+    static final String TOTAL = "of";
+    static final String SECONDS = "sec";
+    static final String DIFFICULTY = "d";
+    static final String QUIZ_TYPE = "qt";
+    static final String PERCENTAGE = "pc";
+    static final String TEXT = "x";
+    public static final String SUBMISSION = "sid";
+
+    public enum Type {
+        QUIZ_ATTEMPT(1),
+        VIDEO_WATCH(2),
+        PDF_VIEW(3),
+        LESSON_COMPLETE(4),
+        NOTE_SAVED(5),          // no longer appended, notes are saved to student_notes
+        TOPIC_COMPLETION(6),
+        PERFORMANCE_RESET(7);
+
+        private final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+
+        public int getCode() { return code; }
+
+        public static Type fromCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown learning event type " + code);
+        }
+    }
+
+    /**
+     * Which tracker recorded a quiz attempt - the progress page and the adaptive engine keep
+     * separate read models; the older endpoints report a quiz to each of them separately, while
+     * a result ingested through /api/quiz-results is applied to every read model
+     */
+    public enum Source {
+        PROGRESS(0),
+        ADAPTIVE(1),
+        INGEST(2);
+
+        private final int code;
+
+        Source(int code) {
+            this.code = code;
+        }
+
+        public static Source fromCode(int code) {
+            for (Source source : values()) {
+                if (source.code == code) {
+                    return source;
+                }
+            }
+            return PROGRESS;
+        }
+    }
+
+    private long seq;
+    private Type type;
+    private Source source = Source.PROGRESS;
+    private String studentEmail;
+    private String courseId;
+    private LocalDateTime recordedAt;
+    private String topicName;
+    private String subtopicName;
+    private String itemId;     // quiz id or lesson id
+    private String title;      // video, PDF or lesson title
+    private int score;
+    private int totalQuestions;
+    private long seconds;      // time spent; minutes for lessons are stored as seconds too
+    private String difficulty;
+    private String quizType;
+    private double percentage; // topic completion
+    private String text;       // note text
+    private String submissionId; // client-generated id of a quiz submission, the same on every retry
+
+    public LearningEvent() {
+    }
+
+    private LearningEvent(Type type, String studentEmail, String courseId) {
+        this.type = type;
+        this.studentEmail = studentEmail;
+        this.courseId = courseId;
+        this.recordedAt = LocalDateTime.now();
+    }
+
+    public static LearningEvent quizAttempt(Source source, String email, String courseId, String topicName, String quizId,
+                                            int score, int totalQuestions, long timeSpentSeconds,
+                                            String difficulty, String quizType) {
+        LearningEvent event = new LearningEvent(Type.QUIZ_ATTEMPT, email, courseId);
+        event.source = source;
+        event.topicName = topicName;
+        event.itemId = quizId;
+        event.score = score;
+        event.totalQuestions = totalQuestions;
+        event.seconds = timeSpentSeconds;
+        event.difficulty = difficulty;
+        event.quizType = quizType;
+        return event;
+    }
+
+    /**
+     * @param activityType "VIDEO" or "PDF"
+     */
+    public static LearningEvent mediaTime(String activityType, String email, String courseId, String topicName,
+                                          String title, long seconds) {
+        LearningEvent event = new LearningEvent("PDF".equals(activityType) ? Type.PDF_VIEW : Type.VIDEO_WATCH, email, courseId);
+        event.topicName = topicName;
+        event.title = title;
+        event.seconds = seconds;
+        return event;
+    }
+
+    public static LearningEvent lessonComplete(String email, String courseId, String lessonId, String lessonTitle,
+                                               int timeSpentMinutes) {
+        LearningEvent event = new LearningEvent(Type.LESSON_COMPLETE, email, courseId);
+        event.itemId = lessonId;
+        event.title = lessonTitle;
+        event.seconds = timeSpentMinutes * 60L;
+        return event;
+    }
+
+    public static LearningEvent noteSaved(String email, String courseId, String topicName, String subtopicName, String text) {
+        LearningEvent event = new LearningEvent(Type.NOTE_SAVED, email, courseId);
+        event.topicName = topicName;
+        event.subtopicName = subtopicName;
+        event.text = text;
+        return event;
+    }
+
+    public static LearningEvent topicCompletion(String email, String courseId, String topicName, double percentage) {
+        LearningEvent event = new LearningEvent(Type.TOPIC_COMPLETION, email, courseId);
+        event.topicName = topicName;
+        event.percentage = percentage;
+        return event;
+    }
+
+    public static LearningEvent performanceReset(String email, String courseId) {
+        return new LearningEvent(Type.PERFORMANCE_RESET, email, courseId);
+    }
+
+    public Document toBson() {
+        Document doc = new Document(SEQ, seq)
+            .append(TYPE, type.code)
+            .append(STUDENT, studentEmail)
+            .append(COURSE, courseId)
+            .append(RECORDED_AT, Date.from(recordedAt.atZone(ZoneId.systemDefault()).toInstant()));
+        if (source != Source.PROGRESS) {
+            doc.append(SOURCE, source.code);
+        }
+        putIfPresent(doc, TOPIC, topicName);
+        putIfPresent(doc, SUBTOPIC, subtopicName);
+        putIfPresent(doc, ITEM_ID, itemId);
+        putIfPresent(doc, TITLE, title);
+        if (type == Type.QUIZ_ATTEMPT) {
+            doc.append(SCORE, score).append(TOTAL, totalQuestions);
+        }
+        if (seconds != 0) {
+            // int32 unless it does not fit
+            doc.append(SECONDS, seconds <= Integer.MAX_VALUE ? (Object) (int) seconds : (Object) seconds);
+        }
+        putIfPresent(doc, DIFFICULTY, difficulty);
+        putIfPresent(doc, QUIZ_TYPE, quizType);
+        if (type == Type.TOPIC_COMPLETION) {
+            doc.append(PERCENTAGE, percentage);
+        }
+        putIfPresent(doc, TEXT, text);
+        putIfPresent(doc, SUBMISSION, submissionId);
+        return doc;
+    }
+
+    public static LearningEvent fromBson(Document doc) {
+        LearningEvent event = new LearningEvent();
+        event.seq = ((Number) doc.get(SEQ)).longValue();
+        event.type = Type.fromCode(doc.getInteger(TYPE));
+        event.source = Source.fromCode(doc.getInteger(SOURCE, Source.PROGRESS.code));
+        event.studentEmail = doc.getString(STUDENT);
+        event.courseId = doc.getString(COURSE);
+        Date recorded = doc.getDate(RECORDED_AT);
+        event.recordedAt = recorded != null ? LocalDateTime.ofInstant(recorded.toInstant(), ZoneId.systemDefault()) : null;
+        event.topicName = doc.getString(TOPIC);
+        event.subtopicName = doc.getString(SUBTOPIC);
+        event.itemId = doc.getString(ITEM_ID);
+        event.title = doc.getString(TITLE);
+        event.score = doc.getInteger(SCORE, 0);
+        event.totalQuestions = doc.getInteger(TOTAL, 0);
+        Number seconds = doc.get(SECONDS, Number.class);
+        event.seconds = seconds != null ? seconds.longValue() : 0;
+        event.difficulty = doc.getString(DIFFICULTY);
+        event.quizType = doc.getString(QUIZ_TYPE);
+        Number percentage = doc.get(PERCENTAGE, Number.class);
+        event.percentage = percentage != null ? percentage.doubleValue() : 0;
+        event.text = doc.getString(TEXT);
+        event.submissionId = doc.getString(SUBMISSION);
+        return event;
+    }
+
+    private static void putIfPresent(Document doc, String key, String value) {
+        if (value != null) {
+            doc.append(key, value);
+        }
+    }
+
+    // Getters and Setters
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public Source getSource() { return source; }
+    public void setSource(Source source) { this.source = source; }
+
+    public String getStudentEmail() { return studentEmail; }
+    public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; }
+
+    public String getCourseId() { return courseId; }
+    public void setCourseId(String courseId) { this.courseId = courseId; }
+
+    public LocalDateTime getRecordedAt() { return recordedAt; }
+    public void setRecordedAt(LocalDateTime recordedAt) { this.recordedAt = recordedAt; }
+
+    public String getTopicName() { return topicName; }
+    public void setTopicName(String topicName) { this.topicName = topicName; }
+
+    public String getSubtopicName() { return subtopicName; }
+    public void setSubtopicName(String subtopicName) { this.subtopicName = subtopicName; }
+
+    public String getItemId() { return itemId; }
+    public void setItemId(String itemId) { this.itemId = itemId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+
+    public int getTotalQuestions() { return totalQuestions; }
+    public void setTotalQuestions(int totalQuestions) { this.totalQuestions = totalQuestions; }
+
+    public long getSeconds() { return seconds; }
+    public void setSeconds(long seconds) { this.seconds = seconds; }
+
+    public String getDifficulty() { return difficulty; }
+    public void setDifficulty(String difficulty) { this.difficulty = difficulty; }
+
+    public String getQuizType() { return quizType; }
+    public void setQuizType(String quizType) { this.quizType = quizType; }
+
+    public double getPercentage() { return percentage; }
+    public void setPercentage(double percentage) { this.percentage = percentage; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getSubmissionId() { return submissionId; }
+    public void setSubmissionId(String submissionId) { this.submissionId = submissionId; }
+}
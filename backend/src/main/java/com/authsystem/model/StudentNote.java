@@ -0,0 +1,70 @@
+package com.authsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * StudentNote Model - A student's notes for one subtopic of a course, stored on its own
+ * Replaces the notes map that used to be embedded in the student_progress document.
+ * Large bodies are kept deflate-compressed in compressedText instead of text; length is the
+ * length of the plain text. revision goes up by one on every save, so delta saves can check
+ * they were made against the text that is stored.
+ */
+@Document(collection = "student_notes")
+@CompoundIndex(name = "student_course_topic_subtopic",
+               def = "{ 'studentEmail': 1, 'courseId': 1, 'topicName': 1, 'subtopicName': 1 }", unique = true)
+@CompoundIndex(name = "student_updated", def = "{ 'studentEmail': 1, 'updatedAt': 1 }")
+public class StudentNote {
+
+    @Id
+    private String id;
+
+    private String studentEmail;
+    private String courseId;
+    private String topicName;
+    private String subtopicName;
+
+    private String text;
+    private byte[] compressedText;
+    private int length;
+    private long revision;
+
+    private LocalDateTime updatedAt;
+
+    public StudentNote() {
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getStudentEmail() { return studentEmail; }
+    public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; }
+
+    public String getCourseId() { return courseId; }
+    public void setCourseId(String courseId) { this.courseId = courseId; }
+
+    public String getTopicName() { return topicName; }
+    public void setTopicName(String topicName) { this.topicName = topicName; }
+
+    public String getSubtopicName() { return subtopicName; }
+    public void setSubtopicName(String subtopicName) { this.subtopicName = subtopicName; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public byte[] getCompressedText() { return compressedText; }
+    public void setCompressedText(byte[] compressedText) { this.compressedText = compressedText; }
+
+    public int getLength() { return length; }
+    public void setLength(int length) { this.length = length; }
+
+    public long getRevision() { return revision; }
+    public void setRevision(long revision) { this.revision = revision; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -44,6 +44,9 @@ public class StudentPerformance {
     private LocalDateTime updatedAt;
     private LocalDateTime lastQuizDate;
     
+    // Sequence number of the last learning event applied to this profile
+    private long lastEventSeq;
+    
     // Nested class for Quiz Attempts
     public static class QuizAttempt {
         private String quizId;
@@ -183,4 +186,7 @@ public class StudentPerformance {
     
     public LocalDateTime getLastQuizDate() { return lastQuizDate; }
     public void setLastQuizDate(LocalDateTime lastQuizDate) { this.lastQuizDate = lastQuizDate; }
+    
+    public long getLastEventSeq() { return lastEventSeq; }
+    public void setLastEventSeq(long lastEventSeq) { this.lastEventSeq = lastEventSeq; }
 }
@@ -12,8 +12,8 @@ import java.util.List;
 import java.util.Map;
 
 @Document(collection = "student_progress")
-// REMOVED CompoundIndex to prevent MongoDB duplicate key errors
-// @CompoundIndex(def = "{'studentEmail': 1, 'courseId': 1}", unique = false)
+// One document per student and course; created by StudentProgressService (auto-index-creation is off)
+@CompoundIndex(name = "student_course", def = "{'studentEmail': 1, 'courseId': 1}", unique = true)
 public class StudentProgress {
     
     @Id
@@ -43,12 +43,12 @@ public class StudentProgress {
     private List<QuizAttempt> quizAttempts;
     private List<ActivityLog> recentActivities;
     
-    // Student notes by topic and subtopic
-    private Map<String, Map<String, String>> notes; // topicName -> subtopicName -> notes
-    
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
+    // Sequence number of the last learning event applied to this document
+    private long projectedSeq;
+    
     public StudentProgress() {
         this.topicMastery = new HashMap<>();
         this.overallPerformance = new OverallPerformance();
@@ -61,7 +61,6 @@ public class StudentProgress {
         this.lessonProgressList = new ArrayList<>();
         this.quizAttempts = new ArrayList<>();
         this.recentActivities = new ArrayList<>();
-        this.notes = new HashMap<>();
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
@@ -71,6 +70,8 @@ public class StudentProgress {
         private int totalAttempts;
         private int correctAnswers;
         private double averageScore;
+        private double scoreSum; // sum of attempt percentages, averageScore = scoreSum / scoredAttempts
+        private int scoredAttempts;
         private long timeSpent; // in seconds
         private LocalDateTime lastAttemptDate;
         private String difficulty; // EASY, MEDIUM, HARD
@@ -97,6 +98,12 @@ public class StudentProgress {
         public double getAverageScore() { return averageScore; }
         public void setAverageScore(double averageScore) { this.averageScore = averageScore; }
         
+        public double getScoreSum() { return scoreSum; }
+        public void setScoreSum(double scoreSum) { this.scoreSum = scoreSum; }
+        
+        public int getScoredAttempts() { return scoredAttempts; }
+        public void setScoredAttempts(int scoredAttempts) { this.scoredAttempts = scoredAttempts; }
+        
         public long getTimeSpent() { return timeSpent; }
         public void setTimeSpent(long timeSpent) { this.timeSpent = timeSpent; }
         
@@ -117,6 +124,8 @@ public class StudentProgress {
     public static class OverallPerformance {
         private int totalQuizzes;
         private double averageScore;
+        private double scoreSum; // sum of quiz percentages, averageScore = scoreSum / scoredQuizzes
+        private int scoredQuizzes;
         private long totalTimeSpent;
         private String performanceLevel; // EXCELLENT, GOOD, AVERAGE, NEEDS_IMPROVEMENT
         private LocalDateTime lastActivityDate;
@@ -135,6 +144,12 @@ public class StudentProgress {
         public double getAverageScore() { return averageScore; }
         public void setAverageScore(double averageScore) { this.averageScore = averageScore; }
         
+        public double getScoreSum() { return scoreSum; }
+        public void setScoreSum(double scoreSum) { this.scoreSum = scoreSum; }
+        
+        public int getScoredQuizzes() { return scoredQuizzes; }
+        public void setScoredQuizzes(int scoredQuizzes) { this.scoredQuizzes = scoredQuizzes; }
+        
         public long getTotalTimeSpent() { return totalTimeSpent; }
         public void setTotalTimeSpent(long totalTimeSpent) { this.totalTimeSpent = totalTimeSpent; }
         
@@ -277,12 +292,12 @@ public class StudentProgress {
     public OverallPerformance getOverallPerformance() { return overallPerformance; }
     public void setOverallPerformance(OverallPerformance overallPerformance) { this.overallPerformance = overallPerformance; }
     
-    public Map<String, Map<String, String>> getNotes() { return notes; }
-    public void setNotes(Map<String, Map<String, String>> notes) { this.notes = notes; }
-    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public long getProjectedSeq() { return projectedSeq; }
+    public void setProjectedSeq(long projectedSeq) { this.projectedSeq = projectedSeq; }
 }
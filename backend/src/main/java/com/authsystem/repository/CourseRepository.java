@@ -1,14 +1,37 @@
 package com.authsystem.repository;
 
+import com.authsystem.dto.CourseSummaryDTO;
 import com.authsystem.model.Course;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
 public interface CourseRepository extends MongoRepository<Course, String> {
+    
+    // Fields read for list/card views - everything except topicSubcontents and per-topic MCQ counts
+    String SUMMARY_FIELDS = "{ 'title': 1, 'description': 1, 'instructorEmail': 1, 'instructorName': 1, "
+            + "'subjects': 1, 'topics': 1, 'difficulty': 1, 'thumbnail': 1, 'status': 1, "
+            + "'createdAt': 1, 'updatedAt': 1, 'enrolledStudents': 1, 'averageRating': 1, "
+            + "'contentCounts.totalSubtopics': 1, 'contentCounts.totalVideos': 1, "
+            + "'contentCounts.totalPdfs': 1, 'contentCounts.totalMcqs': 1 }";
+    
     List<Course> findByInstructorEmail(String instructorEmail);
     List<Course> findByStatus(String status);
     List<Course> findByDifficulty(String difficulty);
     List<Course> findBySubjectsContaining(String subject);
+    
+    // Projected summaries for list endpoints
+    @Query(value = "{}", fields = SUMMARY_FIELDS)
+    List<CourseSummaryDTO> findAllSummaries();
+    
+    @Query(value = "{ 'instructorEmail': ?0 }", fields = SUMMARY_FIELDS)
+    List<CourseSummaryDTO> findSummariesByInstructorEmail(String instructorEmail);
+    
+    @Query(value = "{ 'status': ?0 }", fields = SUMMARY_FIELDS)
+    List<CourseSummaryDTO> findSummariesByStatus(String status);
+    
+    @Query(value = "{ 'difficulty': ?0 }", fields = SUMMARY_FIELDS)
+    List<CourseSummaryDTO> findSummariesByDifficulty(String difficulty);
 }
@@ -3,6 +3,7 @@ package com.authsystem.repository;
 import com.authsystem.model.MCQ;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -19,6 +20,7 @@ public interface MCQRepository extends MongoRepository<MCQ, String> {
     // New methods using topicId
     List<MCQ> findByTopicId(String topicId);
     List<MCQ> findByTopicIdAndDifficulty(String topicId, String difficulty);
+    List<MCQ> findByTopicIdIn(Collection<String> topicIds);
     
     // New methods using subjectId
     List<MCQ> findBySubjectId(String subjectId);
@@ -3,6 +3,7 @@ package com.authsystem.repository;
 import com.authsystem.model.PDF;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -36,6 +37,9 @@ public interface PDFRepository extends MongoRepository<PDF, String> {
     // Find PDFs ordered by orderIndex
     List<PDF> findByTopicIdOrderByOrderIndexAsc(String topicId);
     
+    // Batch fetch for several topics at once, ordered by index (group by topicId in memory)
+    List<PDF> findByTopicIdInOrderByOrderIndexAsc(Collection<String> topicIds);
+    
     // Find PDFs by topic and difficulty, ordered by index
     List<PDF> findByTopicIdAndDifficultyOrderByOrderIndexAsc(String topicId, String difficulty);
     
@@ -4,6 +4,7 @@ import com.authsystem.model.Topic;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,6 +34,11 @@ public interface TopicRepository extends MongoRepository<Topic, String> {
      */
     List<Topic> findByName(String name);
     
+    /**
+     * Find topics for several names at once
+     */
+    List<Topic> findByNameIn(Collection<String> names);
+    
     /**
      * Find topics by difficulty level
      */
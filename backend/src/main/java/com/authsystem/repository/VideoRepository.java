@@ -3,6 +3,7 @@ package com.authsystem.repository;
 import com.authsystem.model.Video;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -36,6 +37,9 @@ public interface VideoRepository extends MongoRepository<Video, String> {
     // Find videos ordered by orderIndex
     List<Video> findByTopicIdOrderByOrderIndexAsc(String topicId);
     
+    // Batch fetch for several topics at once, ordered by index (group by topicId in memory)
+    List<Video> findByTopicIdInOrderByOrderIndexAsc(Collection<String> topicIds);
+    
     // Find videos by topic and difficulty, ordered by index
     List<Video> findByTopicIdAndDifficultyOrderByOrderIndexAsc(String topicId, String difficulty);
     
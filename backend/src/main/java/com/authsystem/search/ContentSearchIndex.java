@@ -0,0 +1,311 @@
+package com.authsystem.search;
+
+import com.authsystem.model.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Content Search Index - One in-memory index over subjects, topics, videos, PDFs and MCQs
+ * behind GET /api/content/search
+ * - Stores the entities themselves, so a search never touches Mongo
+ * - Kept current by ContentSearchListener from repository save and delete events
+ * - Built at startup and rebuilt on a long interval as a safety net for writes that bypass events;
+ *   a first build that fails (database not reachable yet) is retried with exponential backoff
+ */
+@Service
+public class ContentSearchIndex {
+
+    public static final String SUBJECT = "subject";
+    public static final String TOPIC = "topic";
+    public static final String VIDEO = "video";
+    public static final String PDF_TYPE = "pdf";
+    public static final String MCQ_TYPE = "mcq";
+
+    // Indexed types in response order, with the entity class behind each
+    static final Map<String, Class<?>> TYPES = new LinkedHashMap<>();
+    static {
+        TYPES.put(SUBJECT, Subject.class);
+        TYPES.put(TOPIC, Topic.class);
+        TYPES.put(VIDEO, Video.class);
+        TYPES.put(PDF_TYPE, PDF.class);
+        TYPES.put(MCQ_TYPE, MCQ.class);
+    }
+
+    static final float TITLE_WEIGHT = 3f;
+    static final float QUESTION_WEIGHT = 2f;
+    static final float DESCRIPTION_WEIGHT = 1f;
+    static final float DETAIL_WEIGHT = 0.5f;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${content.search.first-build-retry-ms:1000}")
+    private long firstBuildRetryMs;
+
+    @Value("${content.search.first-build-max-retry-ms:60000}")
+    private long firstBuildMaxRetryMs;
+
+    private volatile InvertedIndex<String, Item> index = new InvertedIndex<>();
+    private volatile boolean ready;
+
+    // Changes made while a rebuild is reading Mongo, replayed onto the new index before it is swapped in;
+    // swapLock orders every write against the swap so none is lost or replayed out of order
+    private final Object swapLock = new Object();
+    private final Map<String, Optional<Object>> changesDuringRebuild = new HashMap<>();
+    private boolean rebuilding;
+    private volatile boolean rebuildAgain;
+
+    /**
+     * One indexed entity
+     */
+    public record Item(String type, String id, String difficulty, Object content) {
+    }
+
+    /**
+     * A page of ranked results plus counts per type and per difficulty
+     * Type counts ignore the type filter and difficulty counts ignore the difficulty filter,
+     * so clients can show how many results each filter value would give
+     */
+    public record Result(List<InvertedIndex.Hit<Item>> hits, int total,
+                         Map<String, Integer> typeCounts, Map<String, Integer> difficultyCounts) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @param types       type names to include (null or empty = all)
+     * @param difficulty  difficulty to include (null = all)
+     */
+    public Result search(String query, Set<String> types, String difficulty, int page, int size) {
+        List<String> tokens = SearchTokenizer.tokenizeQuery(query);
+        Map<String, Integer> typeCounts = new LinkedHashMap<>();
+        Map<String, Integer> difficultyCounts = new TreeMap<>();
+        for (String type : TYPES.keySet()) {
+            typeCounts.put(type, 0);
+        }
+
+        InvertedIndex.TopHits<Item> top = new InvertedIndex.TopHits<>(page * size + size);
+        index.match(tokens, (item, score) -> {
+            boolean typeMatches = types == null || types.isEmpty() || types.contains(item.type());
+            boolean difficultyMatches = difficulty == null || difficulty.equalsIgnoreCase(item.difficulty());
+            if (difficultyMatches) {
+                typeCounts.merge(item.type(), 1, Integer::sum);
+            }
+            if (typeMatches) {
+                difficultyCounts.merge(item.difficulty() != null ? item.difficulty() : "UNSPECIFIED", 1, Integer::sum);
+            }
+            if (typeMatches && difficultyMatches) {
+                top.collect(item, score);
+            }
+        });
+
+        return new Result(top.results(page * size), top.getTotal(), typeCounts, difficultyCounts);
+    }
+
+    /**
+     * Index (or re-index) one saved entity; ignores types this index does not cover
+     */
+    public void put(Object entity) {
+        Item item = toItem(entity);
+        if (item == null) {
+            return;
+        }
+        String key = key(item.type(), item.id());
+        Map<String, Float> terms = terms(entity);
+        synchronized (swapLock) {
+            if (rebuilding) {
+                changesDuringRebuild.put(key, Optional.of(entity));
+            }
+            index.put(key, item, terms);
+        }
+    }
+
+    public void remove(Class<?> entityType, String id) {
+        String type = typeOf(entityType);
+        if (type == null || id == null) {
+            return;
+        }
+        String key = key(type, id);
+        synchronized (swapLock) {
+            if (rebuilding) {
+                changesDuringRebuild.put(key, Optional.empty());
+            }
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Drop every entity of one type (after deleteAll); the next rebuild restores anything still stored
+     */
+    public void removeAll(Class<?> entityType) {
+        String type = typeOf(entityType);
+        if (type == null) {
+            return;
+        }
+        String prefix = type + ":";
+        synchronized (swapLock) {
+            if (rebuilding) {
+                changesDuringRebuild.keySet().removeIf(key -> key.startsWith(prefix));
+                // The rebuild may already have read some of them; it is discarded and redone
+                rebuildAgain = true;
+            }
+            index.removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    public static boolean isIndexed(Class<?> entityType) {
+        return typeOf(entityType) != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread thread = new Thread(this::buildFirst, "content-search-indexer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Build until it succeeds once, waiting first-build-retry-ms after a failure and twice as long
+     * after every further one, at most first-build-max-retry-ms; the scheduled rebuild takes over from there
+     */
+    void buildFirst() {
+        long delay = firstBuildRetryMs;
+        while (true) {
+            rebuild();
+            if (ready) {
+                return;
+            }
+            System.err.println("⚠️ Content search is unavailable until the index is built, retrying in " + delay + "ms");
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            delay = Math.min(delay * 2, firstBuildMaxRetryMs);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${content.search.rebuild-interval-ms:21600000}",
+               fixedDelayString = "${content.search.rebuild-interval-ms:21600000}")
+    public synchronized void rebuild() {
+        do {
+            rebuildOnce();
+        } while (rebuildAgain);
+    }
+
+    private void rebuildOnce() {
+        long start = System.currentTimeMillis();
+        InvertedIndex<String, Item> next = new InvertedIndex<>();
+        synchronized (swapLock) {
+            changesDuringRebuild.clear();
+            rebuildAgain = false;
+            rebuilding = true;
+        }
+        try {
+            for (Class<?> type : TYPES.values()) {
+                try (Stream<?> stream = mongoTemplate.stream(new Query(), type)) {
+                    stream.forEach(entity -> {
+                        Item item = toItem(entity);
+                        if (item != null) {
+                            next.put(key(item.type(), item.id()), item, terms(entity));
+                        }
+                    });
+                }
+            }
+
+            synchronized (swapLock) {
+                if (rebuildAgain) {
+                    return;
+                }
+                // Writes made during the build win over what the build read
+                for (Map.Entry<String, Optional<Object>> change : changesDuringRebuild.entrySet()) {
+                    if (change.getValue().isPresent()) {
+                        Object entity = change.getValue().get();
+                        next.put(change.getKey(), toItem(entity), terms(entity));
+                    } else {
+                        next.remove(change.getKey());
+                    }
+                }
+                index = next;
+                ready = true;
+            }
+            System.out.println("🔎 Content search index built: " + next.size() + " items, "
+                + next.termCount() + " terms in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            System.err.println("❌ Content search index rebuild failed: " + e.getMessage());
+            rebuildAgain = false;
+        } finally {
+            synchronized (swapLock) {
+                rebuilding = false;
+                changesDuringRebuild.clear();
+            }
+        }
+    }
+
+    static Item toItem(Object entity) {
+        if (entity instanceof Subject s) {
+            return new Item(SUBJECT, s.getId(), s.getDifficulty(), s);
+        } else if (entity instanceof Topic t) {
+            return new Item(TOPIC, t.getId(), t.getDifficulty(), t);
+        } else if (entity instanceof Video v) {
+            return new Item(VIDEO, v.getId(), v.getDifficulty(), v);
+        } else if (entity instanceof PDF p) {
+            return new Item(PDF_TYPE, p.getId(), p.getDifficulty(), p);
+        } else if (entity instanceof MCQ m) {
+            return new Item(MCQ_TYPE, m.getId(), m.getDifficulty(), m);
+        }
+        return null;
+    }
+
+    static Map<String, Float> terms(Object entity) {
+        Map<String, Float> terms = new HashMap<>();
+        if (entity instanceof Subject s) {
+            SearchTokenizer.addField(terms, s.getTitle(), TITLE_WEIGHT);
+            SearchTokenizer.addField(terms, s.getDescription(), DESCRIPTION_WEIGHT);
+            SearchTokenizer.addField(terms, s.getCategory(), DETAIL_WEIGHT);
+        } else if (entity instanceof Topic t) {
+            SearchTokenizer.addField(terms, t.getName(), TITLE_WEIGHT);
+            SearchTokenizer.addField(terms, t.getDescription(), DESCRIPTION_WEIGHT);
+        } else if (entity instanceof Video v) {
+            SearchTokenizer.addField(terms, v.getTitle(), TITLE_WEIGHT);
+            SearchTokenizer.addField(terms, v.getDescription(), DESCRIPTION_WEIGHT);
+        } else if (entity instanceof PDF p) {
+            SearchTokenizer.addField(terms, p.getTitle(), TITLE_WEIGHT);
+            SearchTokenizer.addField(terms, p.getDescription(), DESCRIPTION_WEIGHT);
+        } else if (entity instanceof MCQ m) {
+            SearchTokenizer.addField(terms, m.getQuestion(), QUESTION_WEIGHT);
+            SearchTokenizer.addField(terms, m.getTopicName(), DESCRIPTION_WEIGHT);
+            SearchTokenizer.addField(terms, m.getExplanation(), DETAIL_WEIGHT);
+        }
+        return terms;
+    }
+
+    private static String typeOf(Class<?> entityType) {
+        for (Map.Entry<String, Class<?>> e : TYPES.entrySet()) {
+            if (e.getValue() == entityType) {
+                return e.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static String key(String type, String id) {
+        return type + ":" + id;
+    }
+}
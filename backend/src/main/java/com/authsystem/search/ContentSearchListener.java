@@ -0,0 +1,90 @@
+package com.authsystem.search;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeDeleteEvent;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Keeps ContentSearchIndex current from repository saves and deletes of subjects, topics, videos, PDFs and MCQs
+ * Deletes only carry the filter, so the ids it matches are resolved before the delete and
+ * removed from the index once it has completed
+ */
+@Component
+public class ContentSearchListener extends AbstractMongoEventListener<Object> {
+
+    // Empty entry = ids could not be listed (deleteAll or an unresolvable filter): drop the whole type
+    private final ThreadLocal<Deque<Optional<List<String>>>> pendingDeletes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Autowired
+    private ContentSearchIndex contentSearchIndex;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        try {
+            contentSearchIndex.put(event.getSource());
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to index " + event.getSource().getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onBeforeDelete(BeforeDeleteEvent<Object> event) {
+        if (!ContentSearchIndex.isIndexed(event.getType())) {
+            return;
+        }
+
+        Document filter = event.getDocument();
+        Optional<List<String>> ids;
+        if (filter == null || filter.isEmpty()) {
+            ids = Optional.empty();
+        } else if (filter.size() == 1 && filter.get("_id") != null && !(filter.get("_id") instanceof Document)) {
+            ids = Optional.of(Collections.singletonList(filter.get("_id").toString()));
+        } else {
+            List<String> matched = new ArrayList<>();
+            try {
+                for (Object id : mongoTemplate.findDistinct(new BasicQuery(filter), "_id",
+                        event.getCollectionName(), Object.class)) {
+                    matched.add(id.toString());
+                }
+                ids = Optional.of(matched);
+            } catch (Exception e) {
+                ids = Optional.empty();
+            }
+        }
+        pendingDeletes.get().push(ids);
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if (!ContentSearchIndex.isIndexed(event.getType())) {
+            return;
+        }
+        Deque<Optional<List<String>>> pending = pendingDeletes.get();
+        if (pending.isEmpty()) {
+            return;
+        }
+        Optional<List<String>> ids = pending.pop();
+        if (pending.isEmpty()) {
+            pendingDeletes.remove();
+        }
+
+        if (ids.isEmpty()) {
+            contentSearchIndex.removeAll(event.getType());
+            return;
+        }
+        for (String id : ids.get()) {
+            contentSearchIndex.remove(event.getType(), id);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.authsystem.search;
+
+import com.authsystem.model.Course;
+import com.authsystem.model.TopicSubcontent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the course search index stores per hit - enough to render a result without reading Mongo
+ */
+public class CourseSearchDocument {
+
+    public static final String COURSE = "course";
+    public static final String TOPIC = "topic";
+    public static final String SUBCONTENT = "subcontent";
+
+    private final String type;
+    private final String courseId;
+    private final String courseTitle;
+    private final String name;
+    private final String description;
+    private final String topicName;
+
+    // Course-only fields
+    private final String difficulty;
+    private final String instructorName;
+    private final String thumbnail;
+    private final List<String> subjects;
+    private final String status;
+
+    // Subcontent-only fields
+    private final int videoCount;
+    private final int pdfCount;
+
+    private CourseSearchDocument(String type, Course course, String name, String description, String topicName,
+                                 int videoCount, int pdfCount) {
+        this.type = type;
+        this.courseId = course.getId();
+        this.courseTitle = course.getTitle();
+        this.name = name;
+        this.description = description;
+        this.topicName = topicName;
+        boolean isCourse = COURSE.equals(type);
+        this.difficulty = isCourse ? course.getDifficulty() : null;
+        this.instructorName = isCourse ? course.getInstructorName() : null;
+        this.thumbnail = isCourse ? course.getThumbnail() : null;
+        this.subjects = isCourse && course.getSubjects() != null ? List.copyOf(course.getSubjects()) : null;
+        this.status = isCourse ? course.getStatus() : null;
+        this.videoCount = videoCount;
+        this.pdfCount = pdfCount;
+    }
+
+    public static CourseSearchDocument course(Course course) {
+        return new CourseSearchDocument(COURSE, course, course.getTitle(), course.getDescription(), null, 0, 0);
+    }
+
+    public static CourseSearchDocument topic(Course course, String topicName) {
+        return new CourseSearchDocument(TOPIC, course, topicName, null, null, 0, 0);
+    }
+
+    public static CourseSearchDocument subcontent(Course course, String topicName, TopicSubcontent subcontent) {
+        return new CourseSearchDocument(SUBCONTENT, course, subcontent.getName(), subcontent.getDescription(), topicName,
+            subcontent.getVideoUrls() != null ? subcontent.getVideoUrls().size() : 0,
+            subcontent.getPdfUrls() != null ? subcontent.getPdfUrls().size() : 0);
+    }
+
+    /**
+     * Same keys the scan-based /search endpoint returned for each result type
+     */
+    public Map<String, Object> toResult() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("type", type);
+        if (COURSE.equals(type)) {
+            result.put("id", courseId);
+            result.put("title", name);
+            result.put("description", description);
+            result.put("difficulty", difficulty);
+            result.put("instructorName", instructorName);
+            result.put("thumbnail", thumbnail);
+            result.put("subjects", subjects);
+            result.put("status", status);
+            return result;
+        }
+        result.put("name", name);
+        result.put("courseId", courseId);
+        result.put("courseTitle", courseTitle);
+        if (SUBCONTENT.equals(type)) {
+            result.put("description", description);
+            result.put("topicName", topicName);
+            result.put("videoCount", videoCount);
+            result.put("pdfCount", pdfCount);
+        }
+        return result;
+    }
+
+    public String getType() { return type; }
+    public String getCourseId() { return courseId; }
+    public String getCourseTitle() { return courseTitle; }
+    public String getName() { return name; }
+    public String getTopicName() { return topicName; }
+}
@@ -0,0 +1,245 @@
+package com.authsystem.search;
+
+import com.authsystem.cache.CourseChangedEvent;
+import com.authsystem.model.Course;
+import com.authsystem.model.TopicSubcontent;
+import com.authsystem.repository.CourseRepository;
+import com.authsystem.service.CourseSubcontentStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Course Search Index - In-memory inverted index behind GET /api/courses/search
+ * - Indexes courses (title, subjects, topics, description, nested content), topics and subcontents
+ * - Rebuilt at startup (tokenization runs in parallel per batch), then kept current from CourseChangedEvents
+ * - All index writes run on one background thread, so course saves never wait for tokenization
+ */
+@Service
+public class CourseSearchIndex {
+
+    static final float TITLE_WEIGHT = 3f;
+    static final float NAME_WEIGHT = 2f;
+    static final float DESCRIPTION_WEIGHT = 1f;
+    static final float NESTED_WEIGHT = 0.5f;
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CourseSubcontentStore courseSubcontentStore;
+
+    private volatile Snapshot snapshot = new Snapshot(new InvertedIndex<>(), new HashMap<>());
+    private volatile boolean ready;
+
+    private final Set<String> pendingCourseIds = ConcurrentHashMap.newKeySet();
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "course-search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Index plus the document keys owned by each course (needed to drop a course's topics and subcontents)
+     */
+    private record Snapshot(InvertedIndex<String, CourseSearchDocument> index, Map<String, List<String>> keysByCourse) {
+    }
+
+    /**
+     * @return false until the startup build has finished - callers should fall back to a scan
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return snapshot.index().size();
+    }
+
+    /**
+     * Search courses and their topics/subcontents; each list is ranked by relevance and cut at limit
+     * Response shape matches the original /search endpoint: { courses, topics, totalResults }
+     */
+    public Map<String, Object> search(String query, int limit) {
+        List<String> tokens = SearchTokenizer.tokenizeQuery(query);
+        InvertedIndex.TopHits<CourseSearchDocument> courseHits = new InvertedIndex.TopHits<>(limit);
+        InvertedIndex.TopHits<CourseSearchDocument> topicHits = new InvertedIndex.TopHits<>(limit);
+
+        snapshot.index().match(tokens, (document, score) -> {
+            if (CourseSearchDocument.COURSE.equals(document.getType())) {
+                courseHits.collect(document, score);
+            } else {
+                topicHits.collect(document, score);
+            }
+        });
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("courses", toResults(courseHits.results(0)));
+        results.put("topics", toResults(topicHits.results(0)));
+        results.put("totalResults", courseHits.getTotal() + topicHits.getTotal());
+        return results;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        indexer.submit(this::rebuild);
+    }
+
+    /**
+     * Remote events are handled too: another instance's write still changes what this instance should find
+     */
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (event.courseId() == null) {
+            indexer.submit(this::rebuild);
+        } else if (pendingCourseIds.add(event.courseId())) {
+            // Several changes to one course before the indexer gets to it collapse into one reindex
+            indexer.submit(() -> {
+                pendingCourseIds.remove(event.courseId());
+                reindex(event.courseId());
+            });
+        }
+    }
+
+    /**
+     * Build a fresh index from every course and swap it in; readers keep using the old one meanwhile
+     */
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        InvertedIndex<String, CourseSearchDocument> index = new InvertedIndex<>();
+        Map<String, List<String>> keysByCourse = new HashMap<>();
+
+        try (Stream<Course> stream = mongoTemplate.stream(new Query(), Course.class)) {
+            Iterator<Course> cursor = stream.iterator();
+            List<Course> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == REBUILD_BATCH_SIZE || !cursor.hasNext()) {
+                    courseSubcontentStore.hydrate(batch, "name", "description", "videoUrls", "pdfUrls");
+                    Map<String, Map<String, InvertedIndex.Entry<CourseSearchDocument>>> entries = batch.parallelStream()
+                        .collect(Collectors.toMap(Course::getId, this::buildEntries, (a, b) -> b));
+                    for (Map.Entry<String, Map<String, InvertedIndex.Entry<CourseSearchDocument>>> course : entries.entrySet()) {
+                        index.update(Collections.emptyList(), course.getValue());
+                        keysByCourse.put(course.getKey(), new ArrayList<>(course.getValue().keySet()));
+                    }
+                    batch.clear();
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Course search index rebuild failed: " + e.getMessage());
+            return;
+        }
+
+        snapshot = new Snapshot(index, keysByCourse);
+        ready = true;
+        System.out.println("🔎 Course search index built: " + keysByCourse.size() + " courses, "
+            + index.size() + " documents, " + index.termCount() + " terms in "
+            + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    void reindex(String courseId) {
+        Snapshot current = snapshot;
+        List<String> oldKeys = current.keysByCourse().getOrDefault(courseId, Collections.emptyList());
+        Optional<Course> course;
+        try {
+            course = courseRepository.findById(courseId);
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not reindex course " + courseId + ": " + e.getMessage());
+            return;
+        }
+
+        if (course.isPresent()) {
+            Map<String, InvertedIndex.Entry<CourseSearchDocument>> entries = buildEntries(course.get());
+            current.index().update(oldKeys, entries);
+            current.keysByCourse().put(courseId, new ArrayList<>(entries.keySet()));
+        } else {
+            current.index().update(oldKeys, Collections.emptyMap());
+            current.keysByCourse().remove(courseId);
+        }
+    }
+
+    /**
+     * One document for the course, one per topic and one per subcontent, keyed under the course id
+     */
+    Map<String, InvertedIndex.Entry<CourseSearchDocument>> buildEntries(Course course) {
+        Map<String, InvertedIndex.Entry<CourseSearchDocument>> entries = new LinkedHashMap<>();
+        String courseId = course.getId();
+
+        Map<String, Float> courseTerms = new HashMap<>();
+        SearchTokenizer.addField(courseTerms, course.getTitle(), TITLE_WEIGHT);
+        SearchTokenizer.addFields(courseTerms, course.getSubjects(), NAME_WEIGHT);
+        SearchTokenizer.addFields(courseTerms, course.getTopics(), NAME_WEIGHT);
+        SearchTokenizer.addField(courseTerms, course.getDescription(), DESCRIPTION_WEIGHT);
+
+        Set<String> topicNames = new LinkedHashSet<>();
+        if (course.getTopics() != null) {
+            topicNames.addAll(course.getTopics());
+        }
+
+        if (course.getTopicSubcontents() != null) {
+            for (Map.Entry<String, List<TopicSubcontent>> topic : course.getTopicSubcontents().entrySet()) {
+                topicNames.add(topic.getKey());
+                SearchTokenizer.addField(courseTerms, topic.getKey(), NESTED_WEIGHT);
+                if (topic.getValue() == null) {
+                    continue;
+                }
+                int index = 0;
+                for (TopicSubcontent subcontent : topic.getValue()) {
+                    Map<String, Float> terms = new HashMap<>();
+                    SearchTokenizer.addField(terms, subcontent.getName(), NAME_WEIGHT);
+                    SearchTokenizer.addField(terms, subcontent.getDescription(), DESCRIPTION_WEIGHT);
+                    SearchTokenizer.addField(courseTerms, subcontent.getName(), NESTED_WEIGHT);
+                    SearchTokenizer.addField(courseTerms, subcontent.getDescription(), NESTED_WEIGHT);
+                    if (!terms.isEmpty()) {
+                        entries.put(courseId + "#s#" + topic.getKey() + "#" + index,
+                            new InvertedIndex.Entry<>(CourseSearchDocument.subcontent(course, topic.getKey(), subcontent), terms));
+                    }
+                    index++;
+                }
+            }
+        }
+
+        for (String topicName : topicNames) {
+            Map<String, Float> terms = new HashMap<>();
+            SearchTokenizer.addField(terms, topicName, NAME_WEIGHT);
+            if (!terms.isEmpty()) {
+                entries.put(courseId + "#t#" + topicName,
+                    new InvertedIndex.Entry<>(CourseSearchDocument.topic(course, topicName), terms));
+            }
+        }
+
+        entries.put(courseId, new InvertedIndex.Entry<>(CourseSearchDocument.course(course), courseTerms));
+        return entries;
+    }
+
+    private List<Map<String, Object>> toResults(List<InvertedIndex.Hit<CourseSearchDocument>> hits) {
+        List<Map<String, Object>> results = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit<CourseSearchDocument> hit : hits) {
+            Map<String, Object> result = hit.document().toResult();
+            result.put("score", hit.score());
+            results.add(result);
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+    }
+}
@@ -0,0 +1,126 @@
+package com.authsystem.search;
+
+import com.authsystem.cache.CourseChangedEvent;
+import com.authsystem.model.Course;
+import com.authsystem.model.TopicSubcontent;
+import com.authsystem.service.CourseSubcontentStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Course Suggest Service - Typeahead behind GET /api/courses/suggest
+ * - Suggests course titles, topic names and subcontent names from a SuggestionTrie
+ * - Weights: course titles by enrollments, topics and subcontents by how many courses use the name
+ * - Course changes only mark the trie dirty; a background rebuild swaps in a new trie,
+ *   so bursts of edits cost one rebuild and readers never wait on it
+ */
+@Service
+public class CourseSuggestService {
+
+    public static final String COURSE = "course";
+    public static final String TOPIC = "topic";
+    public static final String SUBCONTENT = "subcontent";
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CourseSubcontentStore courseSubcontentStore;
+
+    private volatile SuggestionTrie trie = SuggestionTrie.empty();
+
+    // Starts dirty so the first scheduled run builds the trie
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        return trie.suggest(prefix, Math.min(limit, SuggestionTrie.MAX_K));
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @Scheduled(initialDelayString = "${course.suggest.initial-delay-ms:5000}",
+               fixedDelayString = "${course.suggest.rebuild-interval-ms:30000}")
+    public void rebuildIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                dirty.set(true);
+                System.err.println("❌ Suggestion trie rebuild failed: " + e.getMessage());
+            }
+        }
+    }
+
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder();
+
+        Query query = new Query();
+        query.fields().include("title").include("topics").include(CourseSubcontentStore.LEGACY_FIELD).include("enrolledStudents");
+
+        try (Stream<Course> stream = mongoTemplate.stream(query, Course.class)) {
+            Iterator<Course> cursor = stream.iterator();
+            List<Course> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == REBUILD_BATCH_SIZE || !cursor.hasNext()) {
+                    // Only subcontent names are suggested
+                    courseSubcontentStore.hydrate(batch, "name");
+                    batch.forEach(course -> addCourse(builder, course));
+                    batch.clear();
+                }
+            }
+        }
+
+        SuggestionTrie next = builder.build();
+        trie = next;
+        System.out.println("💡 Suggestion trie rebuilt: " + next.size() + " suggestions in "
+            + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    void addCourse(SuggestionTrie.Builder builder, Course course) {
+        if (course.getTitle() != null) {
+            builder.add(course.getTitle(), COURSE, 1L + Math.max(course.getEnrolledStudents(), 0), course.getId());
+        }
+
+        // Count each name once per course, however many times it appears inside it
+        Set<String> topics = new LinkedHashSet<>();
+        Set<String> subcontents = new LinkedHashSet<>();
+        if (course.getTopics() != null) {
+            topics.addAll(course.getTopics());
+        }
+        if (course.getTopicSubcontents() != null) {
+            for (Map.Entry<String, List<TopicSubcontent>> topic : course.getTopicSubcontents().entrySet()) {
+                topics.add(topic.getKey());
+                if (topic.getValue() != null) {
+                    for (TopicSubcontent subcontent : topic.getValue()) {
+                        if (subcontent.getName() != null) {
+                            subcontents.add(subcontent.getName());
+                        }
+                    }
+                }
+            }
+        }
+        for (String topic : topics) {
+            if (topic != null) {
+                builder.add(topic, TOPIC, 1L, course.getId());
+            }
+        }
+        for (String subcontent : subcontents) {
+            builder.add(subcontent, SUBCONTENT, 1L, course.getId());
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.authsystem.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * InvertedIndex - In-memory term → postings index with prefix matching and weighted ranking
+ * - Every query token must match (AND); the last-typed word can be a prefix, so every token is
+ *   matched both exactly and as a prefix of longer terms (prefix matches score lower)
+ * - Score per token = best field weight × idf over the terms it matched, summed over tokens
+ * - Documents get dense int ids and postings are primitive arrays, so a query allocates almost nothing
+ * - Thread-safe: searches share a read lock, updates take the write lock
+ *
+ * @param <K> document key (e.g. course id)
+ * @param <D> stored document returned in hits
+ */
+public class InvertedIndex<K, D> {
+
+    static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    // A one-letter prefix can match thousands of terms; only the first ones (sorted) are expanded
+    static final int MAX_PREFIX_TERMS = 256;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<K, Integer> idsByKey = new HashMap<>();
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private Object[] documents = new Object[64];
+    private Object[] termsById = new Object[64];
+    private int nextId;
+
+    // Per-thread scratch arrays for scoring, indexed by document id
+    private final ThreadLocal<Accumulator> accumulators = ThreadLocal.withInitial(Accumulator::new);
+
+    public record Entry<D>(D document, Map<String, Float> terms) {
+    }
+
+    public record Hit<D>(D document, float score) {
+    }
+
+    /**
+     * Receives every document matching a query
+     */
+    @FunctionalInterface
+    public interface HitCollector<D> {
+        void collect(D document, float score);
+    }
+
+    public void put(K key, D document, Map<String, Float> terms) {
+        update(Collections.singletonList(key), Collections.singletonMap(key, new Entry<>(document, terms)));
+    }
+
+    public void remove(K key) {
+        update(Collections.singletonList(key), Collections.emptyMap());
+    }
+
+    /**
+     * Remove some documents and add others as one atomic change (readers never see half an update)
+     */
+    public void update(Collection<K> removeKeys, Map<K, Entry<D>> add) {
+        lock.writeLock().lock();
+        try {
+            for (K key : removeKeys) {
+                removeLocked(key);
+            }
+            for (Map.Entry<K, Entry<D>> e : add.entrySet()) {
+                removeLocked(e.getKey());
+                int id = allocateId();
+                idsByKey.put(e.getKey(), id);
+                documents[id] = e.getValue().document();
+                termsById[id] = e.getValue().terms().keySet().toArray(new String[0]);
+                for (Map.Entry<String, Float> term : e.getValue().terms().entrySet()) {
+                    postings.computeIfAbsent(term.getKey(), t -> new Postings()).add(id, term.getValue());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every document whose key matches
+     */
+    public void removeIf(Predicate<? super K> keyFilter) {
+        lock.writeLock().lock();
+        try {
+            List<K> keys = new ArrayList<>();
+            for (K key : idsByKey.keySet()) {
+                if (keyFilter.test(key)) {
+                    keys.add(key);
+                }
+            }
+            for (K key : keys) {
+                removeLocked(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idsByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every document matching all tokens, with its relevance score (unsorted)
+     */
+    public List<Hit<D>> match(List<String> tokens) {
+        List<Hit<D>> hits = new ArrayList<>();
+        match(tokens, (document, score) -> hits.add(new Hit<>(document, score)));
+        return hits;
+    }
+
+    /**
+     * Stream every document matching all tokens into collector, without building a result list
+     */
+    @SuppressWarnings("unchecked")
+    public void match(List<String> tokens, HitCollector<D> collector) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        lock.readLock().lock();
+        try {
+            int total = Math.max(idsByKey.size(), 1);
+
+            // Resolve each token to the terms it matches, then start from the rarest token
+            List<TokenTerms> expansions = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                TokenTerms expansion = expand(token);
+                if (expansion.terms().isEmpty()) {
+                    return;
+                }
+                expansions.add(expansion);
+            }
+            expansions.sort(Comparator.comparingInt(TokenTerms::postingCount));
+
+            Accumulator acc = accumulators.get();
+            acc.begin(nextId);
+            int[] stamp = acc.stamp;
+            int[] matched = acc.matched;
+            float[] score = acc.score;
+            float[] best = acc.best;
+            int generation = acc.generation;
+
+            for (int j = 0; j < expansions.size(); j++) {
+                TokenTerms expansion = expansions.get(j);
+                acc.touchedSize = 0;
+                for (Map.Entry<String, Postings> term : expansion.terms()) {
+                    Postings list = term.getValue();
+                    float idf = (float) Math.log(1.0 + (double) total / list.size);
+                    float factor = term.getKey().equals(expansion.token()) ? idf : idf * PREFIX_MATCH_FACTOR;
+                    int[] docs = list.docs;
+                    float[] weights = list.weights;
+                    for (int p = 0; p < list.size; p++) {
+                        int d = docs[p];
+                        if (stamp[d] != generation) {
+                            if (j > 0) {
+                                continue;
+                            }
+                            stamp[d] = generation;
+                            matched[d] = 0;
+                            score[d] = 0f;
+                        }
+                        float contribution = weights[p] * factor;
+                        if (matched[d] == j) {
+                            // First term of this token to reach the document
+                            matched[d] = j + 1;
+                            best[d] = contribution;
+                            acc.touch(d);
+                        } else if (matched[d] == j + 1 && contribution > best[d]) {
+                            best[d] = contribution;
+                        }
+                    }
+                }
+                if (acc.touchedSize == 0) {
+                    return;
+                }
+                for (int t = 0; t < acc.touchedSize; t++) {
+                    int d = acc.touched[t];
+                    score[d] += best[d];
+                }
+            }
+
+            for (int t = 0; t < acc.touchedSize; t++) {
+                int d = acc.touched[t];
+                collector.collect((D) documents[d], score[d]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Highest-scoring hits, best first
+     */
+    public static <D> List<Hit<D>> top(Collection<Hit<D>> hits, int offset, int limit) {
+        TopHits<D> top = new TopHits<>(offset + limit);
+        for (Hit<D> hit : hits) {
+            top.collect(hit.document(), hit.score());
+        }
+        return top.results(offset);
+    }
+
+    /**
+     * Bounded min-heap collector that keeps the best capacity hits; only documents that make the
+     * cut are wrapped in a Hit, so large match sets are ranked without allocating per match
+     */
+    public static class TopHits<D> implements HitCollector<D> {
+        private final int capacity;
+        private final PriorityQueue<Hit<D>> heap;
+        private int total;
+
+        public TopHits(int capacity) {
+            this.capacity = Math.max(capacity, 0);
+            this.heap = new PriorityQueue<>(this.capacity + 1, Comparator.comparingDouble(Hit::score));
+        }
+
+        @Override
+        public void collect(D document, float score) {
+            total++;
+            if (capacity == 0) {
+                return;
+            }
+            if (heap.size() < capacity) {
+                heap.offer(new Hit<>(document, score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.offer(new Hit<>(document, score));
+            }
+        }
+
+        /**
+         * Number of documents collected, including those that did not make the top
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Hit<D>> results(int offset) {
+            List<Hit<D>> best = new ArrayList<>(heap);
+            best.sort(Comparator.comparingDouble((Hit<D> h) -> h.score()).reversed());
+            return offset >= best.size() ? Collections.emptyList() : best.subList(offset, best.size());
+        }
+    }
+
+    private TokenTerms expand(String token) {
+        List<Map.Entry<String, Postings>> terms = new ArrayList<>();
+        int postingCount = 0;
+        // tailMap starts at the exact term (if present), followed by every longer term sharing the prefix
+        for (Map.Entry<String, Postings> e : postings.tailMap(token, true).entrySet()) {
+            if (!e.getKey().startsWith(token) || terms.size() >= MAX_PREFIX_TERMS) {
+                break;
+            }
+            terms.add(e);
+            postingCount += e.getValue().size;
+        }
+        return new TokenTerms(token, terms, postingCount);
+    }
+
+    private record TokenTerms(String token, List<Map.Entry<String, Postings>> terms, int postingCount) {
+    }
+
+    private int allocateId() {
+        if (!freeIds.isEmpty()) {
+            return freeIds.pop();
+        }
+        if (nextId == documents.length) {
+            documents = Arrays.copyOf(documents, documents.length * 2);
+            termsById = Arrays.copyOf(termsById, termsById.length * 2);
+        }
+        return nextId++;
+    }
+
+    private void removeLocked(K key) {
+        Integer id = idsByKey.remove(key);
+        if (id == null) {
+            return;
+        }
+        for (String term : (String[]) termsById[id]) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        documents[id] = null;
+        termsById[id] = null;
+        freeIds.push(id);
+    }
+
+    /**
+     * Documents containing one term, as parallel id/weight arrays (unordered)
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        private void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        private void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    size--;
+                    docs[i] = docs[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Scoring scratch space; the generation stamp makes clearing it between queries unnecessary
+     */
+    private static final class Accumulator {
+        private int[] stamp = new int[0];
+        private int[] matched = new int[0];
+        private float[] score = new float[0];
+        private float[] best = new float[0];
+        private int[] touched = new int[64];
+        private int touchedSize;
+        private int generation;
+
+        private void begin(int capacity) {
+            if (stamp.length < capacity) {
+                int size = Math.max(capacity, stamp.length * 2);
+                stamp = new int[size];
+                matched = new int[size];
+                score = new float[size];
+                best = new float[size];
+                generation = 0;
+            }
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+            touchedSize = 0;
+        }
+
+        private void touch(int doc) {
+            if (touchedSize == touched.length) {
+                touched = Arrays.copyOf(touched, touchedSize * 2);
+            }
+            touched[touchedSize++] = doc;
+        }
+    }
+}
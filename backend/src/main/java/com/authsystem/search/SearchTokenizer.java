@@ -0,0 +1,57 @@
+package com.authsystem.search;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into lowercase, accent-free word tokens for the search indexes
+ * "Spring Boot: Intro (Part 2)" → [spring, boot, intro, part, 2]
+ */
+public final class SearchTokenizer {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private SearchTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Tokenize a query, dropping repeated words ("java java" is one token)
+     */
+    public static List<String> tokenizeQuery(String query) {
+        return new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+    }
+
+    /**
+     * Add every token of text to terms with the given field weight (repeats add up)
+     */
+    public static void addField(Map<String, Float> terms, String text, float weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    public static void addFields(Map<String, Float> terms, Collection<String> texts, float weight) {
+        if (texts == null) {
+            return;
+        }
+        for (String text : texts) {
+            addField(terms, text, weight);
+        }
+    }
+}
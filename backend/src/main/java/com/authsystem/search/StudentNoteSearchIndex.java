@@ -0,0 +1,311 @@
+package com.authsystem.search;
+
+import com.authsystem.service.StudentNoteStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.ref.SoftReference;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Student Note Search Index - Full-text search over one student's notes, across all courses,
+ * behind GET /api/progress/notes/search/{email}
+ * - One InvertedIndex per student, built from StudentNoteStore the first time they search and
+ *   then kept current from StudentNoteStore.Saved events (a save replaces that one note)
+ * - Saves made on other instances raise no event here: every search first re-reads the student's
+ *   notes updated since the index was last checked (one indexed query, usually empty)
+ * - Indexes are held through soft references, so the GC may drop them when the heap runs low,
+ *   and least recently searched ones are evicted once max-indexed-chars is exceeded; a dropped
+ *   index is simply rebuilt on the next search
+ * - Results are ranked by InvertedIndex and carry a snippet around the first matching word
+ */
+@Service
+public class StudentNoteSearchIndex {
+
+    static final float NAME_WEIGHT = 2f;
+    static final float TEXT_WEIGHT = 1f;
+    static final int SNIPPET_CHARS = 160;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    // Clock skew between the instance writing updatedAt and this one
+    private static final long CLOCK_SKEW_SECONDS = 60;
+
+    @Autowired
+    private StudentNoteStore noteStore;
+
+    @Value("${student.notes.search.max-indexed-chars:20000000}")
+    private long maxIndexedChars;
+
+    // email → index, least recently searched first
+    private final LinkedHashMap<String, Slot> slots = new LinkedHashMap<>(16, 0.75f, true);
+    private long evictions;
+
+    /**
+     * One indexed note; revision orders saves that arrive out of order
+     */
+    public record NoteDocument(String courseId, String topicName, String subtopicName, String text, long revision,
+                               LocalDateTime updatedAt) {
+    }
+
+    /**
+     * A matching note with the part of its text around the first match
+     *
+     * @param highlights start/end offsets of matching words within snippet
+     */
+    public record Result(String courseId, String topicName, String subtopicName, String snippet,
+                         List<int[]> highlights, float score, LocalDateTime updatedAt) {
+    }
+
+    public record Page(List<Result> results, int total) {
+    }
+
+    /**
+     * Best-ranked notes of a student matching every query word (the last word may be a prefix)
+     *
+     * @param courseId restricts results to one course, null for all
+     */
+    public Page search(String email, String query, String courseId, int limit) {
+        List<String> tokens = SearchTokenizer.tokenizeQuery(query);
+        if (tokens.isEmpty()) {
+            return new Page(Collections.emptyList(), 0);
+        }
+        StudentIndex studentIndex = indexFor(email);
+        catchUp(email, studentIndex);
+
+        InvertedIndex.TopHits<NoteDocument> top = new InvertedIndex.TopHits<>(Math.max(limit, 0));
+        studentIndex.index.match(tokens, (note, score) -> {
+            if (courseId == null || courseId.equals(note.courseId())) {
+                top.collect(note, score);
+            }
+        });
+
+        List<Result> results = new ArrayList<>();
+        for (InvertedIndex.Hit<NoteDocument> hit : top.results(0)) {
+            NoteDocument note = hit.document();
+            List<int[]> highlights = new ArrayList<>();
+            String snippet = snippet(note.text(), tokens, highlights);
+            results.add(new Result(note.courseId(), note.topicName(), note.subtopicName(), snippet, highlights,
+                hit.score(), note.updatedAt()));
+        }
+        return new Page(results, top.getTotal());
+    }
+
+    @EventListener
+    public void onNoteSaved(StudentNoteStore.Saved saved) {
+        Slot slot;
+        synchronized (slots) {
+            slot = slots.get(saved.studentEmail());
+        }
+        if (slot == null) {
+            return;  // Not indexed; the next search loads the saved version from the store
+        }
+        StudentNoteStore.StoredNote note = saved.note();
+        NoteDocument document = new NoteDocument(note.courseId(), note.topicName(), note.subtopicName(), note.text(),
+            note.revision(), note.updatedAt());
+        synchronized (slot) {
+            if (slot.loading) {
+                slot.pending.add(document);
+                return;
+            }
+            StudentIndex studentIndex = slot.ref.get();
+            if (studentIndex != null) {
+                studentIndex.put(document);
+            }
+        }
+    }
+
+    /**
+     * Apply the notes saved since the index was last checked, including saves on other instances
+     */
+    private void catchUp(String email, StudentIndex studentIndex) {
+        LocalDateTime checkedAt = LocalDateTime.now();
+        for (StudentNoteStore.StoredNote note : noteStore.loadChangedSince(email,
+                studentIndex.checkedAt.minusSeconds(CLOCK_SKEW_SECONDS))) {
+            studentIndex.put(new NoteDocument(note.courseId(), note.topicName(), note.subtopicName(), note.text(),
+                note.revision(), note.updatedAt()));
+        }
+        studentIndex.checkedAt = checkedAt;
+    }
+
+    /**
+     * Number of student indexes held and their total note length, for monitoring and tests
+     */
+    public Map<String, Long> stats() {
+        synchronized (slots) {
+            long students = 0;
+            long chars = 0;
+            for (Slot slot : slots.values()) {
+                StudentIndex studentIndex = slot.ref.get();
+                if (studentIndex != null) {
+                    students++;
+                    chars += studentIndex.chars;
+                }
+            }
+            return Map.of("students", students, "indexedChars", chars, "evictions", evictions);
+        }
+    }
+
+    private StudentIndex indexFor(String email) {
+        Slot slot;
+        synchronized (slots) {
+            slot = slots.get(email);
+            if (slot == null) {
+                slot = new Slot();
+                slots.put(email, slot);
+            }
+        }
+        synchronized (slot) {
+            while (slot.loading) {
+                try {
+                    slot.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while the notes index was loading", e);
+                }
+            }
+            StudentIndex studentIndex = slot.ref.get();
+            if (studentIndex != null) {
+                return studentIndex;
+            }
+            // Collected by the GC, or never built: load from storage; saves arriving meanwhile queue up
+            slot.loading = true;
+        }
+
+        StudentIndex built = new StudentIndex();
+        built.checkedAt = LocalDateTime.now();
+        try {
+            long start = System.currentTimeMillis();
+            for (StudentNoteStore.StoredNote note : noteStore.loadAll(email)) {
+                built.put(new NoteDocument(note.courseId(), note.topicName(), note.subtopicName(), note.text(),
+                    note.revision(), note.updatedAt()));
+            }
+            synchronized (slot) {
+                for (NoteDocument pending : slot.pending) {
+                    built.put(pending);
+                }
+                slot.ref = new SoftReference<>(built);
+            }
+            System.out.println("🔎 Indexed " + built.index.size() + " notes of " + email + " in "
+                + (System.currentTimeMillis() - start) + "ms");
+        } finally {
+            synchronized (slot) {
+                slot.pending.clear();
+                slot.loading = false;
+                slot.notifyAll();
+            }
+        }
+        evictOverBudget(email);
+        return built;
+    }
+
+    /**
+     * Drop indexes the GC collected, then the least recently searched ones until the rest fit max-indexed-chars
+     */
+    private void evictOverBudget(String keep) {
+        synchronized (slots) {
+            long total = 0;
+            Iterator<Slot> it = slots.values().iterator();
+            while (it.hasNext()) {
+                Slot slot = it.next();
+                StudentIndex studentIndex = slot.ref.get();
+                if (studentIndex != null) {
+                    total += studentIndex.chars;
+                } else if (!slot.loading) {
+                    it.remove();
+                }
+            }
+            Iterator<Map.Entry<String, Slot>> eldest = slots.entrySet().iterator();
+            while (total > maxIndexedChars && eldest.hasNext()) {
+                Map.Entry<String, Slot> entry = eldest.next();
+                StudentIndex studentIndex = entry.getValue().ref.get();
+                if (studentIndex != null && !entry.getKey().equals(keep)) {
+                    total -= studentIndex.chars;
+                    evictions++;
+                    eldest.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Text around the first word starting with a query token, with every matching word in it highlighted
+     */
+    static String snippet(String text, List<String> tokens, List<int[]> highlights) {
+        List<int[]> matches = new ArrayList<>();
+        Matcher words = WORD.matcher(text);
+        while (words.find()) {
+            if (!matches.isEmpty() && words.start() > matches.get(0)[0] + SNIPPET_CHARS) {
+                break;  // Past any window that starts at the first match
+            }
+            List<String> normalized = SearchTokenizer.tokenize(words.group());
+            if (!normalized.isEmpty() && tokens.stream().anyMatch(normalized.get(0)::startsWith)) {
+                matches.add(new int[]{words.start(), words.end()});
+            }
+        }
+        int first = matches.isEmpty() ? 0 : matches.get(0)[0];
+        int start = Math.max(0, first - SNIPPET_CHARS / 4);
+        // Start and end on word boundaries
+        while (start > 0 && Character.isLetterOrDigit(text.charAt(start - 1)) && first - start < SNIPPET_CHARS / 2) {
+            start--;
+        }
+        int end = Math.min(text.length(), start + SNIPPET_CHARS);
+        while (end < text.length() && Character.isLetterOrDigit(text.charAt(end)) && end - start < SNIPPET_CHARS + 20) {
+            end++;
+        }
+        String prefix = start > 0 ? "…" : "";
+        for (int[] match : matches) {
+            if (match[0] >= start && match[1] <= end) {
+                highlights.add(new int[]{match[0] - start + prefix.length(), match[1] - start + prefix.length()});
+            }
+        }
+        return prefix + text.substring(start, end).replace('\n', ' ') + (end < text.length() ? "…" : "");
+    }
+
+    private static Map<String, Float> terms(NoteDocument note) {
+        // Dampened term frequency: a word written fifty times is not fifty times as relevant
+        Map<String, Float> counts = new HashMap<>();
+        SearchTokenizer.addField(counts, note.text(), TEXT_WEIGHT);
+        Map<String, Float> terms = new HashMap<>(counts.size() + 8);
+        counts.forEach((term, count) -> terms.put(term, TEXT_WEIGHT * (1f + (float) Math.log(count))));
+        SearchTokenizer.addField(terms, note.topicName(), NAME_WEIGHT);
+        SearchTokenizer.addField(terms, note.subtopicName(), NAME_WEIGHT);
+        return terms;
+    }
+
+    /**
+     * All notes of one student
+     */
+    private static final class StudentIndex {
+        private final InvertedIndex<String, NoteDocument> index = new InvertedIndex<>();
+        private final Map<String, NoteDocument> notes = new HashMap<>();
+        private volatile long chars;
+        // Notes updated before this (less clock skew) are in the index
+        private volatile LocalDateTime checkedAt;
+
+        private synchronized void put(NoteDocument note) {
+            String key = note.courseId() + "\u0000" + note.topicName() + "\u0000" + note.subtopicName();
+            NoteDocument current = notes.get(key);
+            if (current != null && current.revision() >= note.revision()) {
+                return;
+            }
+            notes.put(key, note);
+            chars += note.text().length() - (current != null ? current.text().length() : 0);
+            if (note.text().isEmpty()) {
+                index.remove(key);
+            } else {
+                index.put(key, note, terms(note));
+            }
+        }
+    }
+
+    private static final class Slot {
+        private SoftReference<StudentIndex> ref = new SoftReference<>(null);
+        private final List<NoteDocument> pending = new ArrayList<>();
+        private boolean loading;
+    }
+}
@@ -0,0 +1,159 @@
+package com.authsystem.search;
+
+import java.util.*;
+
+/**
+ * SuggestionTrie - Immutable, frequency-weighted prefix trie for typeahead
+ * - Every suggestion is reachable from the start of each of its words ("boot" finds "Spring Boot Basics")
+ * - Each node caches the ids of its best MAX_K suggestions, so a lookup is a walk down the
+ *   prefix followed by copying at most MAX_K results - no subtree traversal at query time
+ * - Children are stored as sorted char arrays and searched with binary search to keep nodes small
+ * Build a new trie and swap the reference to update; instances are never modified after build()
+ */
+public final class SuggestionTrie {
+
+    public static final int MAX_K = 10;
+
+    private final Node root;
+    private final List<Suggestion> suggestions;
+
+    public record Suggestion(String text, String type, long weight, String courseId) {
+    }
+
+    private SuggestionTrie(Node root, List<Suggestion> suggestions) {
+        this.root = root;
+        this.suggestions = suggestions;
+    }
+
+    public static SuggestionTrie empty() {
+        return new Builder().build();
+    }
+
+    public int size() {
+        return suggestions.size();
+    }
+
+    /**
+     * Best suggestions for a prefix, heaviest first (ties broken by shorter text)
+     */
+    public List<Suggestion> suggest(String prefix, int k) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || k <= 0) {
+            return Collections.emptyList();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        int count = Math.min(k, node.top.length);
+        List<Suggestion> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(suggestions.get(node.top[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Lowercase, accent-free words separated by single spaces
+     */
+    static String normalize(String text) {
+        return String.join(" ", SearchTokenizer.tokenize(text));
+    }
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int[] top = new int[0];
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+    }
+
+    /**
+     * Collects suggestions (merging duplicates by type + normalized text) and builds the trie
+     */
+    public static final class Builder {
+
+        private final Map<String, Suggestion> byKey = new LinkedHashMap<>();
+
+        /**
+         * Add weight to a suggestion; the first display text seen for a normalized phrase wins
+         */
+        public Builder add(String text, String type, long weight, String courseId) {
+            String normalized = normalize(text);
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            byKey.merge(type + '\u0000' + normalized, new Suggestion(text.trim(), type, weight, courseId),
+                (a, b) -> new Suggestion(a.text(), a.type(), a.weight() + b.weight(),
+                    Objects.equals(a.courseId(), b.courseId()) ? a.courseId() : null));
+            return this;
+        }
+
+        public SuggestionTrie build() {
+            List<Suggestion> suggestions = new ArrayList<>(byKey.values());
+            // Rank order: weight desc, then shorter text, then alphabetical - ids follow this order,
+            // so comparing ids is comparing rank
+            suggestions.sort(Comparator.comparingLong(Suggestion::weight).reversed()
+                .thenComparingInt(s -> s.text().length())
+                .thenComparing(Suggestion::text));
+
+            BuildNode root = new BuildNode();
+            for (int id = 0; id < suggestions.size(); id++) {
+                String normalized = normalize(suggestions.get(id).text());
+                for (int start = 0; start < normalized.length(); start++) {
+                    if (start == 0 || normalized.charAt(start - 1) == ' ') {
+                        root.insert(normalized, start, id);
+                    }
+                }
+            }
+            return new SuggestionTrie(root.freeze(), List.copyOf(suggestions));
+        }
+    }
+
+    private static final class BuildNode {
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        // Best ids seen in this subtree; ids arrive in rank order, so the first MAX_K distinct ids are the best
+        private final int[] top = new int[MAX_K];
+        private int topSize;
+
+        private void insert(String key, int from, int id) {
+            BuildNode node = this;
+            for (int i = from; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new BuildNode());
+                node.offer(id);
+            }
+        }
+
+        private void offer(int id) {
+            // The same id arrives again when two of its words share this prefix
+            if (topSize < MAX_K && (topSize == 0 || top[topSize - 1] != id)) {
+                top[topSize++] = id;
+            }
+        }
+
+        private Node freeze() {
+            Node node = new Node();
+            node.top = Arrays.copyOf(top, topSize);
+            if (!children.isEmpty()) {
+                node.keys = new char[children.size()];
+                node.children = new Node[children.size()];
+                int i = 0;
+                for (Map.Entry<Character, BuildNode> e : children.entrySet()) {
+                    node.keys[i] = e.getKey();
+                    node.children[i] = e.getValue().freeze();
+                    i++;
+                }
+            }
+            return node;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.authsystem.service;
 
 import com.authsystem.model.DifficultyLevel;
+import com.authsystem.model.LearningEvent;
 import com.authsystem.model.StudentPerformance;
 import com.authsystem.model.StudentPerformance.QuizAttempt;
 import com.authsystem.repository.StudentPerformanceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -14,6 +16,7 @@ import java.util.stream.Collectors;
 /**
  * Adaptive Learning Service
  * Implements the "brain" of the adaptive learning system
+ * Profiles are only written by StudentPerformanceProjection, one batch of learning events at a time.
  */
 @Service
 public class AdaptiveLearningService {
@@ -22,48 +25,80 @@ public class AdaptiveLearningService {
     private StudentPerformanceRepository performanceRepository;
     
     /**
-     * Record a quiz attempt and update adaptive profile
-     * @param quizId - "AI_QUIZ" for AI-generated quizzes, null or UUID for normal MCQs
+     * Apply learning events from the log to the adaptive profiles, in log order
+     * Called by StudentPerformanceProjection with one batch at a time: each profile is read once and
+     * saved once per batch however many of the events are its; events it already has are skipped
      */
-    public StudentPerformance recordQuizAttempt(String studentEmail, String courseId, 
-                                                String topicName, int score, int totalQuestions,
-                                                DifficultyLevel difficultyLevel, long timeSpent, String quizId) {
-        
-        // Get or create performance record
-        StudentPerformance performance = performanceRepository
-            .findByStudentEmailAndCourseId(studentEmail, courseId)
-            .orElse(new StudentPerformance(studentEmail, courseId));
+    public void applyEvents(List<LearningEvent> events) {
+        Map<String, StudentPerformance> profiles = new HashMap<>();
+        Set<String> changed = new LinkedHashSet<>();
+        for (LearningEvent event : events) {
+            String key = event.getStudentEmail() + "\u0000" + event.getCourseId();
+            if (event.getType() == LearningEvent.Type.PERFORMANCE_RESET) {
+                // Changes made earlier in the batch would be deleted anyway
+                profiles.remove(key);
+                changed.remove(key);
+                applyReset(event);
+                continue;
+            }
+            StudentPerformance performance = profiles.computeIfAbsent(key, k -> performanceRepository
+                .findByStudentEmailAndCourseId(event.getStudentEmail(), event.getCourseId())
+                .orElse(new StudentPerformance(event.getStudentEmail(), event.getCourseId())));
+            if (performance.getLastEventSeq() >= event.getSeq()) {
+                continue;
+            }
+            switch (event.getType()) {
+                case QUIZ_ATTEMPT -> applyQuizAttempt(performance, event);
+                case TOPIC_COMPLETION -> performance.getCompletionPercentage().put(event.getTopicName(), event.getPercentage());
+                default -> {
+                    continue;
+                }
+            }
+            performance.setLastEventSeq(event.getSeq());
+            changed.add(key);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (String key : changed) {
+            StudentPerformance performance = profiles.get(key);
+            performance.setUpdatedAt(now);
+            performanceRepository.save(performance);
+        }
+    }
+
+    /**
+     * Add a quiz attempt from the learning event log to the adaptive profile
+     */
+    private void applyQuizAttempt(StudentPerformance performance, LearningEvent event) {
+        String topicName = event.getTopicName();
         
         // Add quiz attempt
-        // Use "AI_QUIZ" for AI-generated quizzes, or generate UUID for normal MCQs
-        String finalQuizId = (quizId != null && !quizId.isEmpty()) ? quizId : UUID.randomUUID().toString();
+        // "AI_QUIZ" for AI-generated quizzes; normal MCQs get an id derived from the event
+        String quizId = event.getItemId() != null && !event.getItemId().isEmpty() ? event.getItemId()
+            : UUID.nameUUIDFromBytes(("learning-event-" + event.getSeq()).getBytes(StandardCharsets.UTF_8)).toString();
         QuizAttempt attempt = new QuizAttempt(
-            finalQuizId,
+            quizId,
             topicName,
-            score,
-            totalQuestions,
-            difficultyLevel,
-            timeSpent
+            event.getScore(),
+            event.getTotalQuestions(),
+            DifficultyLevel.fromString(event.getDifficulty()),
+            event.getSeconds()
         );
+        attempt.setAttemptDate(event.getRecordedAt());
         performance.getQuizAttempts().add(attempt);
-        performance.setLastQuizDate(LocalDateTime.now());
+        performance.setLastQuizDate(event.getRecordedAt());
         
         // Update topic scores (average)
         updateTopicScores(performance, topicName);
         
         // Update time spent
         Long currentTime = performance.getTimeSpentPerTopic().getOrDefault(topicName, 0L);
-        performance.getTimeSpentPerTopic().put(topicName, currentTime + timeSpent);
+        performance.getTimeSpentPerTopic().put(topicName, currentTime + event.getSeconds());
         
         // Apply adaptive decision logic
         applyAdaptiveLogic(performance, attempt);
         
         // Generate next recommendation
         generateRecommendation(performance);
-        
-        performance.setUpdatedAt(LocalDateTime.now());
-        
-        return performanceRepository.save(performance);
     }
     
     /**
@@ -186,21 +221,6 @@ public class AdaptiveLearningService {
         }
     }
     
-    /**
-     * Update completion percentage for a topic
-     */
-    public StudentPerformance updateCompletionPercentage(String studentEmail, String courseId, 
-                                                         String topicName, double percentage) {
-        StudentPerformance performance = performanceRepository
-            .findByStudentEmailAndCourseId(studentEmail, courseId)
-            .orElse(new StudentPerformance(studentEmail, courseId));
-        
-        performance.getCompletionPercentage().put(topicName, percentage);
-        performance.setUpdatedAt(LocalDateTime.now());
-        
-        return performanceRepository.save(performance);
-    }
-    
     /**
      * Get student performance for a course
      */
@@ -426,9 +446,9 @@ public class AdaptiveLearningService {
     }
     
     /**
-     * Reset student performance for a course
+     * Apply a reset from the learning event log: the profile starts over with the next event
      */
-    public void resetPerformance(String studentEmail, String courseId) {
-        performanceRepository.deleteByStudentEmailAndCourseId(studentEmail, courseId);
+    private void applyReset(LearningEvent event) {
+        performanceRepository.deleteByStudentEmailAndCourseId(event.getStudentEmail(), event.getCourseId());
     }
 }
@@ -0,0 +1,303 @@
+package com.authsystem.service;
+
+import com.authsystem.model.MCQ;
+import com.authsystem.model.Subject;
+import com.authsystem.model.Topic;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Bulk Content Service - Creates many MCQs or topics in one request
+ * - Every item is validated before anything is written; invalid items are reported by their
+ *   index in the request and skipped, the others are still created
+ * - Valid items are written with unordered bulk inserts of chunk-size documents: one round trip
+ *   per chunk instead of one per item; an item the database rejects is reported the same way
+ * - Content versions are bumped once per subject for the whole request, not once per item
+ */
+@Service
+public class BulkContentService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CourseContentCountService courseContentCountService;
+
+    @Autowired
+    private ContentVersionService contentVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${bulk.insert.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${bulk.insert.max-items:20000}")
+    private int maxItems;
+
+    /**
+     * Why the item at this index of the request was not created
+     */
+    public record ItemError(int index, String error) {}
+
+    public record Result<T>(List<T> created, List<ItemError> failed) {}
+
+    /**
+     * Create MCQs under a topic; subject, topic name and difficulty come from the topic
+     *
+     * @param courseId optional; when given the MCQs belong to the course and its MCQ counts are updated
+     * @throws IllegalArgumentException if the topic does not exist or there are too many items
+     */
+    public Result<MCQ> createMcqs(String topicId, String courseId, List<?> items) {
+        checkSize(items);
+        Topic topic = mongoTemplate.findById(topicId, Topic.class);
+        if (topic == null) {
+            throw new IllegalArgumentException("Topic not found");
+        }
+
+        List<MCQ> valid = new ArrayList<>(items.size());
+        List<Integer> positions = new ArrayList<>(items.size());
+        List<ItemError> failed = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < items.size(); i++) {
+            String error = validateMcq(items.get(i));
+            if (error != null) {
+                failed.add(new ItemError(i, error));
+                continue;
+            }
+            MCQ mcq = toMcq(topic, courseId, (Map<?, ?>) items.get(i), now);
+            valid.add(mcq);
+            positions.add(i);
+        }
+
+        List<MCQ> created = insert(valid, positions, MCQ.class, failed);
+        if (courseId != null && !courseId.isEmpty() && !created.isEmpty()) {
+            courseContentCountService.incrementMcqCount(courseId, topic.getName(), created.size());
+        }
+        failed.sort(Comparator.comparingInt(ItemError::index));
+        System.out.println("📝 Bulk MCQ create for topic " + topic.getName() + ": " + created.size() + " created, "
+            + failed.size() + " rejected");
+        return new Result<>(created, failed);
+    }
+
+    /**
+     * Create topics under a subject, numbered after its existing topics, with the subject's difficulty
+     *
+     * @throws IllegalArgumentException if the subject does not exist or there are too many items
+     */
+    public Result<Topic> createTopics(String subjectId, List<?> names) {
+        checkSize(names);
+        Subject subject = mongoTemplate.findById(subjectId, Subject.class);
+        if (subject == null) {
+            throw new IllegalArgumentException("Subject not found");
+        }
+        Set<String> taken = new HashSet<>();
+        for (String existing : mongoTemplate.findDistinct(Query.query(Criteria.where("subjectId").is(subjectId)),
+                "name", Topic.class, String.class)) {
+            taken.add(existing.trim().toLowerCase());
+        }
+        int orderIndex = (int) mongoTemplate.count(Query.query(Criteria.where("subjectId").is(subjectId)), Topic.class) + 1;
+
+        List<Topic> valid = new ArrayList<>(names.size());
+        List<Integer> positions = new ArrayList<>(names.size());
+        List<ItemError> failed = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < names.size(); i++) {
+            Object name = names.get(i);
+            if (!(name instanceof String) || ((String) name).isBlank()) {
+                failed.add(new ItemError(i, "Topic name is required"));
+                continue;
+            }
+            if (!taken.add(((String) name).trim().toLowerCase())) {
+                failed.add(new ItemError(i, "Topic '" + ((String) name).trim() + "' already exists in this subject"));
+                continue;
+            }
+            Topic topic = new Topic();
+            topic.setId(new ObjectId().toHexString());
+            topic.setSubjectId(subjectId);
+            topic.setName(((String) name).trim());
+            topic.setDifficulty(subject.getDifficulty());
+            topic.setActive(true);
+            topic.setOrderIndex(orderIndex++);
+            topic.setCreatedAt(now);
+            topic.setUpdatedAt(now);
+            valid.add(topic);
+            positions.add(i);
+        }
+
+        List<Topic> created = insert(valid, positions, Topic.class, failed);
+        failed.sort(Comparator.comparingInt(ItemError::index));
+        System.out.println("📚 Bulk topic create for subject " + subjectId + ": " + created.size() + " created, "
+            + failed.size() + " rejected");
+        return new Result<>(created, failed);
+    }
+
+    /**
+     * @return null if the item is a valid MCQ, else why not (same messages as a single create)
+     */
+    static String validateMcq(Object item) {
+        if (!(item instanceof Map<?, ?> data)) {
+            return "MCQ must be an object";
+        }
+        if (!(data.get("question") instanceof String question) || question.isBlank()) {
+            return "Question is required";
+        }
+        if (!(data.get("options") instanceof List<?> options) || options.size() < 2) {
+            return "At least 2 options are required";
+        }
+        for (Object option : options) {
+            if (!(option instanceof String) || ((String) option).isBlank()) {
+                return "Options must be non-empty text";
+            }
+        }
+        Object index = data.get("correctAnswerIndex");
+        if (index == null) {
+            return "Correct answer index is required";
+        }
+        if (!(index instanceof Integer || index instanceof Long)
+                || ((Number) index).intValue() < 0 || ((Number) index).intValue() >= options.size()) {
+            return "Invalid correct answer index";
+        }
+        if (data.get("explanation") != null && !(data.get("explanation") instanceof String)) {
+            return "Explanation must be text";
+        }
+        Object points = data.get("points");
+        if (points != null && (!(points instanceof Integer || points instanceof Long) || ((Number) points).intValue() < 0)) {
+            return "Points must be a whole number of at least 0";
+        }
+        return null;
+    }
+
+    /**
+     * Map an item that passed validateMcq onto a new MCQ of the topic, with its id already assigned
+     */
+    static MCQ toMcq(Topic topic, String courseId, Map<?, ?> data, LocalDateTime now) {
+        MCQ mcq = new MCQ();
+        mcq.setId(new ObjectId().toHexString());
+        mcq.setCourseId(courseId);
+        mcq.setTopicId(topic.getId());
+        mcq.setSubjectId(topic.getSubjectId());
+        mcq.setTopicName(topic.getName());
+        mcq.setDifficulty(topic.getDifficulty());
+        mcq.setQuestion(((String) data.get("question")).trim());
+        mcq.setOptions(new ArrayList<>(((List<?>) data.get("options")).stream().map(String.class::cast).toList()));
+        mcq.setCorrectAnswerIndex(((Number) data.get("correctAnswerIndex")).intValue());
+        mcq.setExplanation((String) data.get("explanation"));
+        mcq.setPoints(data.get("points") != null ? ((Number) data.get("points")).intValue() : 10);
+        mcq.setCreatedAt(now);
+        mcq.setUpdatedAt(now);
+        return mcq;
+    }
+
+    private void checkSize(List<?> items) {
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " items per request, got " + items.size()
+                + "; split the import");
+        }
+    }
+
+    /**
+     * Raise AfterSaveEvent for the documents of a chunk that was not written completely; the template
+     * only raises them for a bulk that succeeded
+     */
+    private <T> void publishSaved(List<T> chunk, Set<Integer> rejected, String collection) {
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!rejected.contains(i)) {
+                Document saved = new Document();
+                mongoTemplate.getConverter().write(chunk.get(i), saved);
+                eventPublisher.publishEvent(new AfterSaveEvent<>(chunk.get(i), saved, collection));
+            }
+        }
+    }
+
+    /**
+     * @return ids of the chunk's documents that are stored, null if that cannot be read either
+     */
+    private <T> Set<Object> writtenIds(List<T> chunk, Class<T> type) {
+        List<Object> ids = new ArrayList<>(chunk.size());
+        for (T document : chunk) {
+            ids.add(id(document));
+        }
+        try {
+            Query query = Query.query(Criteria.where("_id").in(ids));
+            query.fields().include("_id");
+            Set<Object> written = new HashSet<>();
+            for (Document stored : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(type))) {
+                written.add(stored.get("_id"));
+            }
+            return written;
+        } catch (DataAccessException e) {
+            System.err.println("❌ Could not check which " + mongoTemplate.getCollectionName(type) + " were written: "
+                + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The _id a document is stored under (an ObjectId for hex string ids)
+     */
+    private Object id(Object document) {
+        Document mapped = new Document();
+        mongoTemplate.getConverter().write(document, mapped);
+        return mapped.get("_id");
+    }
+
+    /**
+     * Insert the documents in unordered chunks; documents the database rejects are added to failed
+     * under their position in the request
+     *
+     * @return the inserted documents
+     */
+    <T> List<T> insert(List<T> documents, List<Integer> positions, Class<T> type, List<ItemError> failed) {
+        String collection = mongoTemplate.getCollectionName(type);
+        return contentVersionService.bumpOnceAfter(() -> {
+            List<T> inserted = new ArrayList<>(documents.size());
+            for (int from = 0; from < documents.size(); from += chunkSize) {
+                List<T> chunk = documents.subList(from, Math.min(documents.size(), from + chunkSize));
+                Set<Integer> rejected = new HashSet<>();
+                try {
+                    mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(chunk).execute();
+                } catch (BulkOperationException e) {
+                    for (BulkWriteError error : e.getErrors()) {
+                        rejected.add(error.getIndex());
+                        failed.add(new ItemError(positions.get(from + error.getIndex()), error.getMessage()));
+                    }
+                    publishSaved(chunk, rejected, collection);
+                } catch (DataAccessException e) {
+                    // Not acknowledged: the chunk may be partly written; the ids were assigned up front,
+                    // so look up which documents made it and report only the others
+                    System.err.println("❌ Bulk insert of " + chunk.size() + " " + collection + " failed: " + e.getMessage());
+                    Set<Object> written = writtenIds(chunk, type);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        if (written == null || !written.contains(id(chunk.get(i)))) {
+                            rejected.add(i);
+                            failed.add(new ItemError(positions.get(from + i), "Not saved: " + e.getMessage()));
+                        }
+                    }
+                    publishSaved(chunk, rejected, collection);
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (!rejected.contains(i)) {
+                        inserted.add(chunk.get(i));
+                    }
+                }
+            }
+            return inserted;
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package com.authsystem.service;
+
+import com.authsystem.model.*;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Content Stats Service - Platform-wide content statistics for GET /api/content/stats
+ * - One $facet aggregation per collection computes total, per-difficulty and (subjects) per-status counts
+ * - The result is rebuilt in the background every content.stats.refresh-ms, so requests
+ *   only read the last snapshot and never wait for Mongo
+ */
+@Service
+public class ContentStatsService {
+
+    static final List<String> DIFFICULTY_LEVELS = Arrays.asList("BEGINNER", "INTERMEDIATE", "ADVANCED");
+    static final List<String> SUBJECT_STATUSES = Arrays.asList("DRAFT", "PUBLISHED");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private volatile Map<String, Object> snapshot;
+
+    /**
+     * Latest statistics snapshot; only the very first call (before the background refresh ran) computes inline
+     */
+    public Map<String, Object> getGlobalStats() {
+        Map<String, Object> current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = computeStats();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    @Scheduled(initialDelayString = "${content.stats.refresh-ms:30000}",
+               fixedDelayString = "${content.stats.refresh-ms:30000}")
+    public void refresh() {
+        try {
+            snapshot = computeStats();
+        } catch (Exception e) {
+            // Keep serving the previous snapshot
+            System.err.println("⚠️ Content stats refresh failed: " + e.getMessage());
+        }
+    }
+
+    Map<String, Object> computeStats() {
+        CollectionCounts subjects = countCollection(Subject.class, true);
+        CollectionCounts topics = countCollection(Topic.class, false);
+        CollectionCounts videos = countCollection(Video.class, false);
+        CollectionCounts pdfs = countCollection(PDF.class, false);
+        CollectionCounts mcqs = countCollection(MCQ.class, false);
+
+        Map<String, Object> stats = new HashMap<>();
+
+        // Total counts
+        stats.put("totalSubjects", subjects.total);
+        stats.put("totalTopics", topics.total);
+        stats.put("totalVideos", videos.total);
+        stats.put("totalPDFs", pdfs.total);
+        stats.put("totalMCQs", mcqs.total);
+
+        // By difficulty
+        Map<String, Object> byDifficulty = new HashMap<>();
+        for (String level : DIFFICULTY_LEVELS) {
+            Map<String, Object> diffStats = new HashMap<>();
+            diffStats.put("subjects", subjects.byDifficulty(level));
+            diffStats.put("topics", topics.byDifficulty(level));
+            diffStats.put("videos", videos.byDifficulty(level));
+            diffStats.put("pdfs", pdfs.byDifficulty(level));
+            diffStats.put("mcqs", mcqs.byDifficulty(level));
+            byDifficulty.put(level, diffStats);
+        }
+        stats.put("byDifficulty", byDifficulty);
+
+        // By status
+        Map<String, Long> byStatus = new HashMap<>();
+        for (String status : SUBJECT_STATUSES) {
+            byStatus.put(status, subjects.byStatus.getOrDefault(status, 0L));
+        }
+        stats.put("subjectsByStatus", byStatus);
+
+        stats.put("generatedAt", LocalDateTime.now());
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Total, per-difficulty and optionally per-status counts of one collection in a single round trip
+     */
+    CollectionCounts countCollection(Class<?> type, boolean withStatus) {
+        FacetOperation facet = Aggregation.facet(Aggregation.count().as("count")).as("total")
+            .and(Aggregation.group("difficulty").count().as("count")).as("byDifficulty");
+        if (withStatus) {
+            facet = facet.and(Aggregation.group("status").count().as("count")).as("byStatus");
+        }
+
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(facet), type, Document.class)
+            .getUniqueMappedResult();
+
+        CollectionCounts counts = new CollectionCounts();
+        if (result == null) {
+            return counts;
+        }
+        for (Document row : result.getList("total", Document.class, Collections.emptyList())) {
+            counts.total = toLong(row.get("count"));
+        }
+        for (Document row : result.getList("byDifficulty", Document.class, Collections.emptyList())) {
+            Object key = row.get("_id");
+            if (key != null) {
+                counts.byDifficulty.put(key.toString(), toLong(row.get("count")));
+            }
+        }
+        for (Document row : result.getList("byStatus", Document.class, Collections.emptyList())) {
+            Object key = row.get("_id");
+            if (key != null) {
+                counts.byStatus.put(key.toString(), toLong(row.get("count")));
+            }
+        }
+        return counts;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    static final class CollectionCounts {
+        long total;
+        final Map<String, Long> byDifficulty = new HashMap<>();
+        final Map<String, Long> byStatus = new HashMap<>();
+
+        // Previous response reported per-difficulty values as list sizes (ints)
+        int byDifficulty(String level) {
+            return byDifficulty.getOrDefault(level, 0L).intValue();
+        }
+    }
+}
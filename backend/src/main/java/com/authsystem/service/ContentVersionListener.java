@@ -0,0 +1,109 @@
+package com.authsystem.service;
+
+import com.authsystem.model.*;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeDeleteEvent;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Bumps subject content versions after saves and deletes of subjects, topics, videos, PDFs and MCQs
+ * Deletes only carry the filter, so affected subject ids are resolved before the delete
+ * and bumped once it has completed
+ */
+@Component
+public class ContentVersionListener extends AbstractMongoEventListener<Object> {
+
+    private static final Set<Class<?>> SUBJECT_CONTENT = Set.of(Topic.class, Video.class, PDF.class, MCQ.class);
+
+    private final ThreadLocal<Deque<List<String>>> pendingDeletes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Autowired
+    private ContentVersionService contentVersionService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        Object source = event.getSource();
+        String subjectId = null;
+        if (source instanceof Subject) {
+            subjectId = ((Subject) source).getId();
+        } else if (source instanceof Topic) {
+            subjectId = ((Topic) source).getSubjectId();
+        } else if (source instanceof Video) {
+            subjectId = ((Video) source).getSubjectId();
+        } else if (source instanceof PDF) {
+            subjectId = ((PDF) source).getSubjectId();
+        } else if (source instanceof MCQ) {
+            subjectId = ((MCQ) source).getSubjectId();
+        }
+        if (subjectId != null) {
+            bumpQuietly(ContentVersionService.subjectKey(subjectId));
+        }
+    }
+
+    @Override
+    public void onBeforeDelete(BeforeDeleteEvent<Object> event) {
+        Class<?> type = event.getType();
+        if (type != Subject.class && !SUBJECT_CONTENT.contains(type)) {
+            return;
+        }
+
+        Document filter = event.getDocument();
+        List<String> keys = new ArrayList<>();
+        if (filter == null || filter.isEmpty()) {
+            // deleteAll - not worth resolving every subject
+            keys.add(ContentVersionService.ALL_SUBJECTS);
+        } else if (type == Subject.class && filter.get("_id") != null && !(filter.get("_id") instanceof Document)) {
+            keys.add(ContentVersionService.subjectKey(filter.get("_id").toString()));
+        } else {
+            String field = type == Subject.class ? "_id" : "subjectId";
+            try {
+                for (Object id : mongoTemplate.findDistinct(new BasicQuery(filter), field,
+                        event.getCollectionName(), Object.class)) {
+                    if (id != null) {
+                        keys.add(ContentVersionService.subjectKey(id.toString()));
+                    }
+                }
+            } catch (Exception e) {
+                keys.add(ContentVersionService.ALL_SUBJECTS);
+            }
+        }
+        pendingDeletes.get().push(keys);
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        Class<?> type = event.getType();
+        if (type != Subject.class && !SUBJECT_CONTENT.contains(type)) {
+            return;
+        }
+        Deque<List<String>> pending = pendingDeletes.get();
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (String key : pending.pop()) {
+            bumpQuietly(key);
+        }
+        if (pending.isEmpty()) {
+            pendingDeletes.remove();
+        }
+    }
+
+    private void bumpQuietly(String key) {
+        try {
+            contentVersionService.bump(key);
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to bump content version " + key + ": " + e.getMessage());
+        }
+    }
+}
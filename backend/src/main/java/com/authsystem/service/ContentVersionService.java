@@ -0,0 +1,193 @@
+package com.authsystem.service;
+
+import com.authsystem.cache.CourseChangedEvent;
+import com.authsystem.model.ContentVersion;
+import com.authsystem.model.Course;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Content Version Service - Strong ETags for cacheable read endpoints
+ * Each read scope has a version document that is bumped after every write affecting it,
+ * so an If-None-Match check costs one _id lookup and never touches the content itself.
+ */
+@Service
+public class ContentVersionService {
+
+    public static final String CATALOG = "catalog";
+    public static final String ALL_COURSES = "courses:all";
+    public static final String ALL_SUBJECTS = "subjects:all";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Scopes touched inside bumpOnceAfter on this thread, bumped when it returns
+    private final ThreadLocal<Set<String>> deferredBumps = new ThreadLocal<>();
+
+    public static String courseKey(String courseId) {
+        return "course:" + courseId;
+    }
+
+    public static String subjectKey(String subjectId) {
+        return "subject:" + subjectId;
+    }
+
+    /**
+     * Increment the version of a scope, creating it on first use
+     */
+    public void bump(String key) {
+        Set<String> deferred = deferredBumps.get();
+        if (deferred != null) {
+            deferred.add(key);
+            return;
+        }
+        Update update = new Update()
+            .inc("version", 1)
+            .set("updatedAt", LocalDateTime.now())
+            .setOnInsert("stamp", Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(key)), update,
+            FindAndModifyOptions.options().upsert(true), ContentVersion.class);
+    }
+
+    /**
+     * Courses written before versions were introduced have no version document; give each one a
+     * version once at startup so reading their details never has to write
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeMissingCourseVersions() {
+        try {
+            Query ids = new Query();
+            ids.fields().include("_id");
+            List<String> keys = new ArrayList<>();
+            for (Course course : mongoTemplate.find(ids, Course.class)) {
+                keys.add(courseKey(course.getId()));
+            }
+            Set<String> missing = new LinkedHashSet<>(keys);
+            for (ContentVersion version : mongoTemplate.find(Query.query(Criteria.where("_id").in(keys)), ContentVersion.class)) {
+                missing.remove(version.getId());
+            }
+            for (String key : missing) {
+                bump(key);
+            }
+            if (!missing.isEmpty()) {
+                System.out.println("🔢 Initialized content version of " + missing.size() + " legacy courses");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to initialize course content versions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Run a batch of writes and bump every scope they touch once at the end, instead of once per
+     * written document
+     */
+    public <T> T bumpOnceAfter(Supplier<T> writes) {
+        if (deferredBumps.get() != null) {
+            return writes.get();
+        }
+        Set<String> deferred = new LinkedHashSet<>();
+        deferredBumps.set(deferred);
+        try {
+            return writes.get();
+        } finally {
+            deferredBumps.remove();
+            for (String key : deferred) {
+                try {
+                    bump(key);
+                } catch (Exception e) {
+                    System.err.println("⚠️ Failed to bump content version " + key + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Build a strong ETag covering all given scopes with a single $in lookup
+     */
+    public String etag(String... keys) {
+        List<String> keyList = Arrays.asList(keys);
+        Map<String, ContentVersion> found = new HashMap<>();
+        for (ContentVersion version : mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(keyList)), ContentVersion.class)) {
+            found.put(version.getId(), version);
+        }
+
+        StringBuilder tag = new StringBuilder("\"");
+        for (int i = 0; i < keyList.size(); i++) {
+            ContentVersion version = found.get(keyList.get(i));
+            if (i > 0) {
+                tag.append('.');
+            }
+            tag.append(version != null ? version.getStamp() + "-" + version.getVersion() : "0");
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * @return null while the course has no version yet: it does not exist, or is a legacy course
+     *         that startup seeding has not reached (the caller checks which)
+     */
+    public String courseDetailsETag(String courseId) {
+        String etag = etag(courseKey(courseId), ALL_COURSES);
+        return etag.startsWith("\"0.") ? null : etag;
+    }
+
+    public String catalogETag() {
+        return etag(CATALOG);
+    }
+
+    public String subjectContentETag(String subjectId) {
+        return etag(subjectKey(subjectId), ALL_SUBJECTS);
+    }
+
+    /**
+     * True when an If-None-Match header matches the current ETag (weak comparison, RFC 9110)
+     */
+    public boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Local course writes bump the course and the catalog; remote events were already
+     * bumped by the instance that made the write
+     */
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        try {
+            bump(event.courseId() != null ? courseKey(event.courseId()) : ALL_COURSES);
+            bump(CATALOG);
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to bump course content version: " + e.getMessage());
+        }
+    }
+}
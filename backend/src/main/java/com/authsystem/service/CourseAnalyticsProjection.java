@@ -0,0 +1,240 @@
+package com.authsystem.service;
+
+import com.authsystem.model.CourseAnalyticsCell;
+import com.authsystem.model.LearningEvent;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Projects quiz attempts onto course_analytics, the instructor analytics cube
+ * - One cell per course × topic × difficulty × day; a batch of events becomes one bulk of $inc upserts
+ * - Counts the same attempts as the progress page (not the adaptive engine's second report of a quiz)
+ * - A cell remembers the last event it counted, so events replayed after a crash are not counted twice
+ * - A rebuild recomputes every course from the log in parallel instead of restoring a snapshot
+ */
+@Component
+public class CourseAnalyticsProjection implements LearningProjection {
+
+    public static final String NAME = "course_analytics";
+    static final String NO_TOPIC = "General";
+    private static final int WRITE_BATCH = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${analytics.rebuild-threads:4}")
+    private int rebuildThreads;
+
+    private volatile boolean indexesEnsured;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String collection() {
+        return mongoTemplate.getCollectionName(CourseAnalyticsCell.class);
+    }
+
+    @Override
+    public void apply(List<LearningEvent> events) {
+        List<LearningEvent> attempts = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (LearningEvent event : events) {
+            if (counts(event)) {
+                attempts.add(event);
+                ids.add(cellId(event));
+            }
+        }
+        if (attempts.isEmpty()) {
+            return;
+        }
+        ensureIndexes();
+
+        Map<String, Long> counted = new HashMap<>();
+        Query existing = Query.query(Criteria.where("_id").in(ids));
+        existing.fields().include("seq");
+        for (Document cell : mongoTemplate.find(existing, Document.class, collection())) {
+            counted.put(cell.getString("_id"), ((Number) cell.get("seq")).longValue());
+        }
+        Map<String, CourseAnalyticsCell> cells = new HashMap<>();
+        for (LearningEvent event : attempts) {
+            if (event.getSeq() > counted.getOrDefault(cellId(event), 0L)) {
+                add(cells, event);
+            }
+        }
+        write(cells.values());
+    }
+
+    /**
+     * Recompute the cube from the quiz attempts in the log up to the given sequence number, one
+     * course per task on rebuild-threads threads. Runs while the projector is paused.
+     */
+    @Override
+    public boolean rebuildFromLog(long upTo) {
+        ensureIndexes();
+        Query quizzes = Query.query(Criteria.where(LearningEvent.TYPE).is(LearningEvent.Type.QUIZ_ATTEMPT.getCode())
+            .and(LearningEvent.SEQ).lte(upTo));
+        List<String> courseIds = mongoTemplate.findDistinct(quizzes, LearningEvent.COURSE, LearningEvent.COLLECTION, String.class);
+        mongoTemplate.remove(Query.query(Criteria.where("courseId").nin(courseIds)), CourseAnalyticsCell.class);
+        if (courseIds.isEmpty()) {
+            return true;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(rebuildThreads, courseIds.size())), runnable -> {
+            Thread thread = new Thread(runnable, "analytics-rebuild-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (String courseId : courseIds) {
+                tasks.add(() -> rebuildCourse(courseId, upTo));
+            }
+            int cells = 0;
+            for (Future<Integer> result : pool.invokeAll(tasks)) {
+                cells += result.get();
+            }
+            System.out.println("📊 Analytics cube rebuilt up to seq " + upTo + ": " + cells + " cells of "
+                + courseIds.size() + " courses");
+            return true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analytics rebuild failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analytics rebuild interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Replace a course's cells with the totals of its quiz attempts up to the given sequence number
+     *
+     * @return number of cells written
+     */
+    int rebuildCourse(String courseId, long upTo) {
+        Query query = Query.query(Criteria.where(LearningEvent.COURSE).is(courseId)
+            .and(LearningEvent.TYPE).is(LearningEvent.Type.QUIZ_ATTEMPT.getCode())
+            .and(LearningEvent.SEQ).lte(upTo))
+            .with(Sort.by(Sort.Direction.ASC, LearningEvent.SEQ));
+        Map<String, CourseAnalyticsCell> cells = new HashMap<>();
+        Set<String> submissions = new HashSet<>();
+        try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, LearningEvent.COLLECTION)) {
+            for (Document doc : (Iterable<Document>) stream::iterator) {
+                LearningEvent event = LearningEvent.fromBson(doc);
+                // Only the first event of a resubmitted quiz result counts, as in the projector
+                boolean resubmitted = event.getSubmissionId() != null && !submissions.add(event.getSubmissionId());
+                if (counts(event) && !resubmitted) {
+                    add(cells, event);
+                }
+            }
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("courseId").is(courseId)), CourseAnalyticsCell.class);
+        write(cells.values());
+        return cells.size();
+    }
+
+    private static boolean counts(LearningEvent event) {
+        return event.getType() == LearningEvent.Type.QUIZ_ATTEMPT
+            && event.getSource() != LearningEvent.Source.ADAPTIVE
+            && event.getCourseId() != null
+            && event.getRecordedAt() != null;
+    }
+
+    private static void add(Map<String, CourseAnalyticsCell> cells, LearningEvent event) {
+        CourseAnalyticsCell cell = cells.computeIfAbsent(cellId(event), id -> {
+            CourseAnalyticsCell created = new CourseAnalyticsCell();
+            created.setId(id);
+            created.setCourseId(event.getCourseId());
+            created.setTopic(topic(event));
+            created.setDifficulty(QuizAttemptProjection.difficulty(event.getDifficulty()));
+            created.setDay(event.getRecordedAt().toLocalDate().toString());
+            return created;
+        });
+        cell.setAttempts(cell.getAttempts() + 1);
+        cell.setQuestions(cell.getQuestions() + event.getTotalQuestions());
+        cell.setCorrectAnswers(cell.getCorrectAnswers() + event.getScore());
+        if (event.getTotalQuestions() > 0) {
+            cell.setScoreSum(cell.getScoreSum() + event.getScore() * 100.0 / event.getTotalQuestions());
+        }
+        cell.setSecondsSpent(cell.getSecondsSpent() + event.getSeconds());
+        cell.setSeq(Math.max(cell.getSeq(), event.getSeq()));
+    }
+
+    /**
+     * Add the given totals to their cells, creating the missing ones
+     */
+    private void write(Collection<CourseAnalyticsCell> cells) {
+        BulkOperations bulk = null;
+        int pending = 0;
+        for (CourseAnalyticsCell cell : cells) {
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CourseAnalyticsCell.class);
+            }
+            bulk.upsert(Query.query(Criteria.where("_id").is(cell.getId())), new Update()
+                .setOnInsert("courseId", cell.getCourseId())
+                .setOnInsert("topic", cell.getTopic())
+                .setOnInsert("difficulty", cell.getDifficulty())
+                .setOnInsert("day", cell.getDay())
+                .inc("attempts", cell.getAttempts())
+                .inc("questions", cell.getQuestions())
+                .inc("correctAnswers", cell.getCorrectAnswers())
+                .inc("scoreSum", cell.getScoreSum())
+                .inc("secondsSpent", cell.getSecondsSpent())
+                .max("seq", cell.getSeq()));
+            if (++pending >= WRITE_BATCH) {
+                bulk.execute();
+                bulk = null;
+                pending = 0;
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+    }
+
+    private static String topic(LearningEvent event) {
+        String topic = event.getTopicName();
+        return topic == null || topic.isBlank() ? NO_TOPIC : topic;
+    }
+
+    private static String cellId(LearningEvent event) {
+        return event.getCourseId() + "\u0000" + topic(event) + "\u0000"
+            + QuizAttemptProjection.difficulty(event.getDifficulty()) + "\u0000" + event.getRecordedAt().toLocalDate();
+    }
+
+    private void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        // auto-index-creation is off; slices are always within a course and usually a date range
+        mongoTemplate.indexOps(CourseAnalyticsCell.class).ensureIndex(new Index()
+            .on("courseId", Sort.Direction.ASC)
+            .on("day", Sort.Direction.ASC)
+            .named("course_day"));
+        // The per-course rebuild reads a course's quiz attempts from the log
+        mongoTemplate.indexOps(LearningEvent.COLLECTION).ensureIndex(new Index()
+            .on(LearningEvent.COURSE, Sort.Direction.ASC)
+            .on(LearningEvent.TYPE, Sort.Direction.ASC)
+            .on(LearningEvent.SEQ, Sort.Direction.ASC)
+            .named("course_type_seq"));
+        indexesEnsured = true;
+    }
+}
@@ -0,0 +1,144 @@
+package com.authsystem.service;
+
+import com.authsystem.model.CourseAnalyticsCell;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Course Analytics Service - Slices and roll-ups of the instructor analytics cube
+ * - A slice narrows the cells of a course by topic, difficulty and a date range
+ * - A roll-up sums the sliced cells per chosen dimensions: topic, difficulty, day, week
+ *   (its Monday) or month; no dimensions gives the course totals
+ * Reads only course_analytics, which CourseAnalyticsProjection keeps current.
+ */
+@Service
+public class CourseAnalyticsService {
+
+    public static final List<String> DIMENSIONS = List.of("topic", "difficulty", "day", "week", "month");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Attempts, average score, accuracy and time spent per group
+     *
+     * @param groupBy    dimensions to keep, the others are summed over
+     * @param topic      only this topic, or null for all
+     * @param difficulty only this difficulty (EASY / MEDIUM / HARD), or null for all
+     * @param from       first day included, or null
+     * @param to         last day included, or null
+     * @throws IllegalArgumentException for an unknown dimension
+     */
+    public Map<String, Object> analytics(String courseId, List<String> groupBy, String topic, String difficulty,
+                                         LocalDate from, LocalDate to) {
+        for (String dimension : groupBy) {
+            if (!DIMENSIONS.contains(dimension)) {
+                throw new IllegalArgumentException("Unknown dimension '" + dimension + "', expected one of " + DIMENSIONS);
+            }
+        }
+        Criteria criteria = Criteria.where("courseId").is(courseId);
+        if (from != null || to != null) {
+            criteria = criteria.and("day");
+            if (from != null) {
+                criteria = criteria.gte(from.toString());
+            }
+            if (to != null) {
+                criteria = criteria.lte(to.toString());
+            }
+        }
+        if (topic != null) {
+            criteria = criteria.and("topic").is(topic);
+        }
+        if (difficulty != null) {
+            criteria = criteria.and("difficulty").is(difficulty.toUpperCase());
+        }
+        Query query = Query.query(criteria);
+        query.fields().exclude("seq");
+        List<CourseAnalyticsCell> cells = mongoTemplate.find(query, CourseAnalyticsCell.class);
+
+        // Sorted by the group's dimension values
+        Map<List<String>, Totals> groups = new TreeMap<>((a, b) -> {
+            for (int i = 0; i < a.size(); i++) {
+                int order = a.get(i).compareTo(b.get(i));
+                if (order != 0) {
+                    return order;
+                }
+            }
+            return 0;
+        });
+        Totals course = new Totals();
+        for (CourseAnalyticsCell cell : cells) {
+            List<String> key = new ArrayList<>(groupBy.size());
+            for (String dimension : groupBy) {
+                key.add(value(cell, dimension));
+            }
+            groups.computeIfAbsent(key, k -> new Totals()).add(cell);
+            course.add(cell);
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<List<String>, Totals> group : groups.entrySet()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < groupBy.size(); i++) {
+                row.put(groupBy.get(i), group.getKey().get(i));
+            }
+            row.putAll(group.getValue().toMap());
+            rows.add(row);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("courseId", courseId);
+        response.put("groupBy", groupBy);
+        response.put("totals", course.toMap());
+        response.put("rows", rows);
+        response.put("cells", cells.size());
+        return response;
+    }
+
+    private static String value(CourseAnalyticsCell cell, String dimension) {
+        return switch (dimension) {
+            case "topic" -> cell.getTopic();
+            case "difficulty" -> cell.getDifficulty();
+            case "day" -> cell.getDay();
+            case "week" -> LocalDate.parse(cell.getDay()).with(DayOfWeek.MONDAY).toString();
+            default -> cell.getDay().substring(0, 7);  // month: yyyy-MM
+        };
+    }
+
+    private static final class Totals {
+        private long attempts;
+        private long questions;
+        private long correctAnswers;
+        private double scoreSum;
+        private long secondsSpent;
+
+        private void add(CourseAnalyticsCell cell) {
+            attempts += cell.getAttempts();
+            questions += cell.getQuestions();
+            correctAnswers += cell.getCorrectAnswers();
+            scoreSum += cell.getScoreSum();
+            secondsSpent += cell.getSecondsSpent();
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("attempts", attempts);
+            map.put("averageScore", attempts > 0 ? round(scoreSum / attempts) : 0.0);
+            map.put("accuracy", questions > 0 ? round(correctAnswers * 100.0 / questions) : 0.0);
+            map.put("questions", questions);
+            map.put("totalTimeSeconds", secondsSpent);
+            map.put("averageTimeSeconds", attempts > 0 ? round((double) secondsSpent / attempts) : 0.0);
+            return map;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.authsystem.service;
+
+import com.authsystem.model.Course;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps Course.contentCounts consistent on every whole-document save
+ * (CourseService, the create/update endpoints, test data)
+ * Course.version is a @Version field: the save itself bumps it and fails with
+ * OptimisticLockingFailureException when the course changed since it was loaded
+ */
+@Component
+public class CourseContentCountListener extends AbstractMongoEventListener<Course> {
+
+    @Autowired
+    private CourseContentCountService courseContentCountService;
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Course> event) {
+        courseContentCountService.prepareForSave(event.getSource());
+    }
+}
@@ -0,0 +1,297 @@
+package com.authsystem.service;
+
+import com.authsystem.cache.CourseChangedEvent;
+import com.authsystem.model.Course;
+import com.authsystem.model.CourseContentCounts;
+import com.authsystem.model.MCQ;
+import com.authsystem.model.TopicSubcontent;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Course Content Count Service - Maintains the counters embedded in Course.contentCounts
+ * - MCQ counters are changed with $inc updates when MCQs are created or deleted; courses without
+ *   counters yet are left to the reconciliation job, which seeds complete ones
+ * - Media counters are recomputed from topicSubcontents whenever a course save writes them
+ * - A scheduled reconciliation job detects and repairs drift against the mcqs collection
+ */
+@Service
+public class CourseContentCountService {
+
+    private static final String COUNTS = "contentCounts";
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CourseSubcontentStore courseSubcontentStore;
+
+    /**
+     * Adjust the MCQ counters of a course with one $inc
+     * Only applies to a course that already has counters - incrementing a missing map would create
+     * a partial one that readers take as complete
+     * Also bumps Course.version, so a whole save from a copy loaded before the change fails
+     * instead of writing the old counters back
+     *
+     * @param delta +1 on create, -1 on delete
+     */
+    public void incrementMcqCount(String courseId, String topicName, int delta) {
+        if (courseId == null || courseId.isEmpty() || delta == 0) {
+            return;
+        }
+
+        Update update = new Update().inc(COUNTS + ".totalMcqs", delta).inc("version", 1);
+        if (isSafeFieldName(topicName)) {
+            update.inc(COUNTS + ".mcqCountsByTopic." + topicName, delta);
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(courseId).and(COUNTS).ne(null)),
+            update, Course.class);
+        eventPublisher.publishEvent(new CourseChangedEvent(courseId));
+    }
+
+    /**
+     * Reset MCQ counters on every course (used when the whole mcqs collection is cleared)
+     */
+    public void resetAllMcqCounts() {
+        Update update = new Update()
+            .set(COUNTS + ".totalMcqs", 0)
+            .set(COUNTS + ".mcqCountsByTopic", new HashMap<String, Integer>())
+            .inc("version", 1);
+        mongoTemplate.updateMulti(new Query(), update, Course.class);
+        eventPublisher.publishEvent(CourseChangedEvent.all());
+    }
+
+    /**
+     * Bring a course's counters up to date right before it is written as a whole document
+     * Media counts are recomputed when the save writes topicSubcontents; MCQ counts are kept as
+     * loaded - every $inc also bumps Course.version, so a save holding older counts fails its
+     * version check instead of writing them back. No extra read is needed.
+     * New courses and legacy courses without counters are seeded from the mcqs collection.
+     */
+    public void prepareForSave(Course course) {
+        CourseContentCounts counts = course.getContentCounts();
+        if (counts == null || course.getVersion() == null) {
+            CourseContentCounts seeded = computeMediaCounts(course);
+            Map<String, Integer> mcqCounts = course.getId() == null ? Collections.emptyMap()
+                : countMcqsByCourseAndTopic(Collections.singletonList(course.getId()))
+                    .getOrDefault(course.getId(), Collections.emptyMap());
+            applyMcqCounts(seeded, mcqCounts);
+            seeded.setReconciledAt(LocalDateTime.now());
+            course.setContentCounts(seeded);
+            return;
+        }
+
+        if (course.hasTopicSubcontentsLoaded()) {
+            CourseContentCounts media = computeMediaCounts(course);
+            counts.setTotalSubtopics(media.getTotalSubtopics());
+            counts.setTotalVideos(media.getTotalVideos());
+            counts.setTotalPdfs(media.getTotalPdfs());
+        }
+        if (counts.getMcqCountsByTopic() == null) {
+            counts.setMcqCountsByTopic(new HashMap<>());
+        }
+    }
+
+    /**
+     * Compute subtopic, video and PDF counts from the course's topicSubcontents
+     */
+    public CourseContentCounts computeMediaCounts(Course course) {
+        CourseContentCounts counts = new CourseContentCounts();
+
+        if (course.getTopicSubcontents() != null) {
+            for (List<TopicSubcontent> subcontents : course.getTopicSubcontents().values()) {
+                if (subcontents == null) {
+                    continue;
+                }
+                counts.setTotalSubtopics(counts.getTotalSubtopics() + subcontents.size());
+                for (TopicSubcontent sc : subcontents) {
+                    counts.setTotalVideos(counts.getTotalVideos() + (sc.getVideoUrls() != null ? sc.getVideoUrls().size() : 0));
+                    counts.setTotalPdfs(counts.getTotalPdfs() + (sc.getPdfUrls() != null ? sc.getPdfUrls().size() : 0));
+                }
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Count MCQs grouped by (courseId, topicName) with a single $group aggregation
+     * MCQs without a topic name are keyed under "" so they still count towards the course total
+     *
+     * @return courseId → (topicName → MCQ count)
+     */
+    public Map<String, Map<String, Integer>> countMcqsByCourseAndTopic(Collection<String> courseIds) {
+        Map<String, Map<String, Integer>> counts = new HashMap<>();
+
+        try {
+            Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("courseId").in(courseIds)),
+                Aggregation.group("courseId", "topicName").count().as("count")
+            );
+
+            AggregationResults<Document> results = mongoTemplate.aggregate(aggregation, MCQ.class, Document.class);
+
+            for (Document row : results.getMappedResults()) {
+                Object id = row.get("_id");
+                String courseId;
+                String topicName;
+                if (id instanceof Document) {
+                    courseId = ((Document) id).getString("courseId");
+                    topicName = ((Document) id).getString("topicName");
+                } else {
+                    courseId = row.getString("courseId");
+                    topicName = row.getString("topicName");
+                }
+                if (courseId == null) {
+                    continue;
+                }
+                Number count = row.get("count", Number.class);
+                counts.computeIfAbsent(courseId, k -> new HashMap<>())
+                      .merge(topicName != null ? topicName : "", count != null ? count.intValue() : 0, Integer::sum);
+            }
+        } catch (Exception e) {
+            System.err.println("  ⚠️ Error counting MCQs (possibly corrupted data): " + e.getMessage());
+        }
+
+        return counts;
+    }
+
+    /**
+     * Reconciliation job - recompute every course's counters and repair the ones that drifted
+     * Runs in batches so only RECONCILE_BATCH_SIZE courses are held in memory at a time
+     *
+     * @return number of courses whose counters were repaired
+     */
+    @Scheduled(initialDelayString = "${course.counts.reconcile-initial-delay-ms:60000}",
+               fixedDelayString = "${course.counts.reconcile-interval-ms:3600000}")
+    public int reconcileAll() {
+        long start = System.currentTimeMillis();
+        int scanned = 0;
+        int repaired = 0;
+
+        Query query = new Query();
+        query.fields().include(CourseSubcontentStore.LEGACY_FIELD).include(COUNTS);
+
+        try (Stream<Course> stream = mongoTemplate.stream(query, Course.class)) {
+            Iterator<Course> cursor = stream.iterator();
+            List<Course> batch = new ArrayList<>(RECONCILE_BATCH_SIZE);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == RECONCILE_BATCH_SIZE) {
+                    repaired += reconcileBatch(batch);
+                    scanned += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                repaired += reconcileBatch(batch);
+                scanned += batch.size();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Course counter reconciliation failed: " + e.getMessage());
+        }
+
+        System.out.println("🔄 Course counter reconciliation: scanned " + scanned + ", repaired " + repaired
+            + " in " + (System.currentTimeMillis() - start) + "ms");
+        return repaired;
+    }
+
+    private int reconcileBatch(List<Course> courses) {
+        // One query for the batch's subcontents - only the fields the media counts need
+        courseSubcontentStore.hydrate(courses, "videoUrls", "pdfUrls");
+
+        List<String> courseIds = new ArrayList<>();
+        for (Course course : courses) {
+            courseIds.add(course.getId());
+        }
+        Map<String, Map<String, Integer>> mcqCounts = countMcqsByCourseAndTopic(courseIds);
+
+        int repaired = 0;
+        for (Course course : courses) {
+            CourseContentCounts expected = computeMediaCounts(course);
+            applyMcqCounts(expected, mcqCounts.getOrDefault(course.getId(), Collections.emptyMap()));
+
+            CourseContentCounts stored = course.getContentCounts();
+            if (stored != null && sameCounts(stored, expected)) {
+                continue;
+            }
+
+            // Compare-and-set on the observed MCQ total so a concurrent $inc is not overwritten;
+            // if it lost the race the next run picks the course up again
+            Criteria criteria = Criteria.where("_id").is(course.getId());
+            if (stored == null) {
+                criteria.and(COUNTS).exists(false);
+            } else {
+                criteria.and(COUNTS + ".totalMcqs").is(stored.getTotalMcqs());
+            }
+
+            Update update = new Update()
+                .set(COUNTS + ".totalSubtopics", expected.getTotalSubtopics())
+                .set(COUNTS + ".totalVideos", expected.getTotalVideos())
+                .set(COUNTS + ".totalPdfs", expected.getTotalPdfs())
+                .set(COUNTS + ".totalMcqs", expected.getTotalMcqs())
+                .set(COUNTS + ".mcqCountsByTopic", expected.getMcqCountsByTopic())
+                .set(COUNTS + ".reconciledAt", LocalDateTime.now())
+                .inc("version", 1);
+
+            if (mongoTemplate.updateFirst(Query.query(criteria), update, Course.class).getModifiedCount() > 0) {
+                System.out.println("  🔧 Repaired counters for course " + course.getId()
+                    + " (MCQs " + (stored != null ? stored.getTotalMcqs() : "none") + " → " + expected.getTotalMcqs() + ")");
+                eventPublisher.publishEvent(new CourseChangedEvent(course.getId()));
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    private void applyMcqCounts(CourseContentCounts counts, Map<String, Integer> mcqCountsByTopic) {
+        Map<String, Integer> byTopic = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : mcqCountsByTopic.entrySet()) {
+            total += entry.getValue();
+            if (isSafeFieldName(entry.getKey())) {
+                byTopic.put(entry.getKey(), entry.getValue());
+            }
+        }
+        counts.setTotalMcqs(total);
+        counts.setMcqCountsByTopic(byTopic);
+    }
+
+    private boolean sameCounts(CourseContentCounts a, CourseContentCounts b) {
+        Map<String, Integer> aTopics = a.getMcqCountsByTopic() != null ? new HashMap<>(a.getMcqCountsByTopic()) : new HashMap<>();
+        aTopics.values().removeIf(v -> v == null || v == 0);
+        Map<String, Integer> bTopics = new HashMap<>(b.getMcqCountsByTopic());
+        bTopics.values().removeIf(v -> v == null || v == 0);
+
+        return a.getTotalSubtopics() == b.getTotalSubtopics()
+            && a.getTotalVideos() == b.getTotalVideos()
+            && a.getTotalPdfs() == b.getTotalPdfs()
+            && a.getTotalMcqs() == b.getTotalMcqs()
+            && aTopics.equals(bTopics);
+    }
+
+    /**
+     * Topic names become field names under mcqCountsByTopic, so they must be valid Mongo keys
+     */
+    static boolean isSafeFieldName(String name) {
+        return name != null && !name.isEmpty() && !name.contains(".") && !name.startsWith("$");
+    }
+}
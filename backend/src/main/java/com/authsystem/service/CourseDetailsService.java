@@ -6,10 +6,7 @@ import com.authsystem.dto.CourseDetailsDTO.CourseContentCounts;
 import com.authsystem.dto.CourseDetailsDTO.TopicContentCounts;
 import com.authsystem.model.Course;
 import com.authsystem.model.TopicSubcontent;
-import com.authsystem.model.TopicWithSubcontents;
-import com.authsystem.model.MCQ;
 import com.authsystem.repository.CourseRepository;
-import com.authsystem.repository.MCQRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -23,7 +20,10 @@ public class CourseDetailsService {
     private CourseRepository courseRepository;
     
     @Autowired
-    private MCQRepository mcqRepository;
+    private CourseContentCountService courseContentCountService;
+    
+    @Autowired
+    private CourseSubcontentStore courseSubcontentStore;
     
     /**
      * Get complete course details with all counts computed
@@ -37,6 +37,87 @@ public class CourseDetailsService {
         }
         
         Course course = courseOpt.get();
+        
+        // Maintained counters answer MCQ counts without touching the mcqs collection;
+        // only legacy documents without counters fall back to an aggregation
+        Map<String, Integer> mcqCountsByTopic = course.getContentCounts() != null
+            ? null
+            : courseContentCountService.countMcqsByCourseAndTopic(Collections.singletonList(courseId))
+                .getOrDefault(courseId, Collections.emptyMap());
+        
+        CourseDetailsDTO dto = buildCourseDetails(course, mcqCountsByTopic);
+        CourseContentCounts counts = dto.getContentCounts();
+        
+        System.out.println("📊 Course Details Computed for " + course.getTitle() + ":");
+        System.out.println("  📚 Topics: " + counts.getTotalTopics());
+        System.out.println("  📖 Subtopics: " + counts.getTotalSubtopics());
+        System.out.println("  🎥 Videos: " + counts.getTotalVideos());
+        System.out.println("  📄 PDFs: " + counts.getTotalPdfs());
+        System.out.println("  ❓ MCQs: " + counts.getTotalMcqs());
+        
+        return dto;
+    }
+    
+    /**
+     * Get published courses for students with counts
+     */
+    public List<CourseDetailsDTO> getPublishedCoursesWithCounts() {
+        List<Course> publishedCourses = courseRepository.findByStatus("PUBLISHED");
+        return buildCourseDetailsBatch(publishedCourses);
+    }
+    
+    /**
+     * Get instructor's courses with counts
+     */
+    public List<CourseDetailsDTO> getInstructorCoursesWithCounts(String instructorEmail) {
+        List<Course> instructorCourses = courseRepository.findByInstructorEmail(instructorEmail);
+        return buildCourseDetailsBatch(instructorCourses);
+    }
+    
+    /**
+     * Build details for an already-loaded list of courses
+     * Courses carry maintained counters; one MCQ aggregation covers any legacy courses without them
+     */
+    private List<CourseDetailsDTO> buildCourseDetailsBatch(List<Course> courses) {
+        List<CourseDetailsDTO> courseDTOs = new ArrayList<>();
+        if (courses.isEmpty()) {
+            return courseDTOs;
+        }
+        
+        // Subcontents of every course in one query instead of one lazy load per course
+        courseSubcontentStore.hydrate(courses);
+        
+        List<String> uncountedIds = courses.stream()
+            .filter(course -> course.getContentCounts() == null)
+            .map(Course::getId)
+            .collect(Collectors.toList());
+        
+        Map<String, Map<String, Integer>> mcqCounts = uncountedIds.isEmpty()
+            ? Collections.emptyMap()
+            : courseContentCountService.countMcqsByCourseAndTopic(uncountedIds);
+        
+        for (Course course : courses) {
+            try {
+                CourseDetailsDTO dto = buildCourseDetails(course, course.getContentCounts() != null
+                    ? null
+                    : mcqCounts.getOrDefault(course.getId(), Collections.emptyMap()));
+                courseDTOs.add(dto);
+            } catch (Exception e) {
+                System.err.println("⚠️ Error processing course " + course.getId() + ": " + e.getMessage());
+            }
+        }
+        
+        System.out.println("📊 Built details for " + courseDTOs.size() + " courses ("
+            + uncountedIds.size() + " without maintained counters)");
+        return courseDTOs;
+    }
+    
+    /**
+     * Build the details DTO for a loaded course
+     * 
+     * @param aggregatedMcqCounts topicName → MCQ count, or null to use the course's maintained counters
+     */
+    private CourseDetailsDTO buildCourseDetails(Course course, Map<String, Integer> aggregatedMcqCounts) {
         CourseDetailsDTO dto = new CourseDetailsDTO();
         
         // Copy basic course info
@@ -55,27 +136,6 @@ public class CourseDetailsService {
         dto.setUpdatedAt(course.getUpdatedAt());
         dto.setTopics(course.getTopics());
         
-        // Get MCQs for this course grouped by topic
-        List<MCQ> allMcqs;
-        try {
-            allMcqs = mcqRepository.findByCourseId(courseId);
-            System.out.println("  📝 Found " + allMcqs.size() + " MCQs for courseId: " + courseId);
-            // Debug: Print MCQ details
-            for (MCQ mcq : allMcqs) {
-                System.out.println("    🔍 MCQ: ID=" + mcq.getId() + ", TopicName='" + mcq.getTopicName() + "', Question=" + 
-                    (mcq.getQuestion() != null && mcq.getQuestion().length() > 30 ? mcq.getQuestion().substring(0, 30) + "..." : mcq.getQuestion()));
-            }
-        } catch (Exception e) {
-            System.err.println("  ⚠️ Error fetching MCQs (possibly corrupted data): " + e.getMessage());
-            allMcqs = new ArrayList<>(); // Use empty list if MCQ fetch fails
-        }
-        
-        Map<String, List<MCQ>> mcqsByTopic = allMcqs.stream()
-            .filter(mcq -> mcq.getTopicName() != null && !mcq.getTopicName().isEmpty()) // Filter out null/empty topic names
-            .collect(Collectors.groupingBy(MCQ::getTopicName));
-        
-        System.out.println("  🗂️ MCQs grouped into " + mcqsByTopic.size() + " topics");
-        
         // Transform topicSubcontents with counts
         Map<String, List<SubtopicDetailsDTO>> transformedSubcontents = new HashMap<>();
         Map<String, TopicContentCounts> topicBreakdown = new HashMap<>();
@@ -83,25 +143,29 @@ public class CourseDetailsService {
         int totalSubtopics = 0;
         int totalVideos = 0;
         int totalPdfs = 0;
-        int totalMcqs = allMcqs.size();
-        
-        System.out.println("🔍 CourseDetailsService: Building details for course: " + course.getTitle());
-        System.out.println("  📚 Topics array: " + (course.getTopics() != null ? course.getTopics().size() : 0) + " topics");
-        System.out.println("  📦 TopicSubcontents map: " + (course.getTopicSubcontents() != null ? course.getTopicSubcontents().size() : 0) + " keys");
+        Map<String, Integer> mcqCountsByTopic;
+        int totalMcqs;
+        if (aggregatedMcqCounts != null) {
+            mcqCountsByTopic = aggregatedMcqCounts;
+            totalMcqs = aggregatedMcqCounts.values().stream().mapToInt(Integer::intValue).sum();
+        } else {
+            com.authsystem.model.CourseContentCounts maintained = course.getContentCounts();
+            mcqCountsByTopic = maintained.getMcqCountsByTopic() != null ? maintained.getMcqCountsByTopic() : Collections.emptyMap();
+            totalMcqs = maintained.getTotalMcqs();
+        }
         
         if (course.getTopicSubcontents() != null) {
-            System.out.println("  🔍 Processing topicSubcontents...");
             for (Map.Entry<String, List<TopicSubcontent>> entry : course.getTopicSubcontents().entrySet()) {
                 String topicName = entry.getKey();
                 List<TopicSubcontent> subcontents = entry.getValue();
-                System.out.println("    📖 Topic: '" + topicName + "' has " + (subcontents != null ? subcontents.size() : 0) + " subcontents");
                 
                 List<SubtopicDetailsDTO> subtopicDTOs = new ArrayList<>();
                 TopicContentCounts topicCounts = new TopicContentCounts();
                 
                 int topicVideos = 0;
                 int topicPdfs = 0;
-                int topicMcqs = mcqsByTopic.getOrDefault(topicName, Collections.emptyList()).size();
+                Integer storedTopicMcqs = (topicName == null || topicName.isEmpty()) ? null : mcqCountsByTopic.get(topicName);
+                int topicMcqs = storedTopicMcqs != null ? storedTopicMcqs : 0;
                 
                 if (subcontents != null) {
                     for (int i = 0; i < subcontents.size(); i++) {
@@ -119,8 +183,6 @@ public class CourseDetailsService {
                         int videoCount = (subcontent.getVideoUrls() != null) ? subcontent.getVideoUrls().size() : 0;
                         int pdfCount = (subcontent.getPdfUrls() != null) ? subcontent.getPdfUrls().size() : 0;
                         
-                        System.out.println("      ├─ Subcontent: " + subcontent.getName() + " (Videos: " + videoCount + ", PDFs: " + pdfCount + ")");
-                        
                         subDTO.setVideoCount(videoCount);
                         subDTO.setPdfCount(pdfCount);
                         // Set MCQ count for first subtopic (MCQs are at topic level)
@@ -137,8 +199,6 @@ public class CourseDetailsService {
                 totalVideos += topicVideos;
                 totalPdfs += topicPdfs;
                 
-                System.out.println("    📊 Topic '" + topicName + "' totals: Subtopics=" + subtopicDTOs.size() + ", Videos=" + topicVideos + ", PDFs=" + topicPdfs + ", MCQs=" + topicMcqs);
-                
                 topicCounts.setSubtopicCount(subtopicDTOs.size());
                 topicCounts.setVideoCount(topicVideos);
                 topicCounts.setPdfCount(topicPdfs);
@@ -148,11 +208,9 @@ public class CourseDetailsService {
                 topicBreakdown.put(topicName, topicCounts);
             }
         } else {
-            System.out.println("  ⚠️ WARNING: course.getTopicSubcontents() is NULL!");
+            System.out.println("  ⚠️ WARNING: topicSubcontents is NULL for course " + course.getId());
         }
         
-        System.out.println("  📊 FINAL COUNTS: Topics=" + (course.getTopics() != null ? course.getTopics().size() : 0) + ", Subtopics=" + totalSubtopics + ", Videos=" + totalVideos + ", PDFs=" + totalPdfs + ", MCQs=" + totalMcqs);
-        
         dto.setTopicSubcontents(transformedSubcontents);
         
         // Set overall counts
@@ -166,51 +224,6 @@ public class CourseDetailsService {
         
         dto.setContentCounts(counts);
         
-        System.out.println("📊 Course Details Computed:");
-        System.out.println("  📚 Topics: " + counts.getTotalTopics());
-        System.out.println("  📖 Subtopics: " + counts.getTotalSubtopics());
-        System.out.println("  🎥 Videos: " + counts.getTotalVideos());
-        System.out.println("  📄 PDFs: " + counts.getTotalPdfs());
-        System.out.println("  ❓ MCQs: " + counts.getTotalMcqs());
-        
         return dto;
     }
-    
-    /**
-     * Get published courses for students with counts
-     */
-    public List<CourseDetailsDTO> getPublishedCoursesWithCounts() {
-        List<Course> publishedCourses = courseRepository.findByStatus("PUBLISHED");
-        List<CourseDetailsDTO> courseDTOs = new ArrayList<>();
-        
-        for (Course course : publishedCourses) {
-            try {
-                CourseDetailsDTO dto = getCourseDetailsWithCounts(course.getId());
-                courseDTOs.add(dto);
-            } catch (Exception e) {
-                System.err.println("⚠️ Error processing course " + course.getId() + ": " + e.getMessage());
-            }
-        }
-        
-        return courseDTOs;
-    }
-    
-    /**
-     * Get instructor's courses with counts
-     */
-    public List<CourseDetailsDTO> getInstructorCoursesWithCounts(String instructorEmail) {
-        List<Course> instructorCourses = courseRepository.findByInstructorEmail(instructorEmail);
-        List<CourseDetailsDTO> courseDTOs = new ArrayList<>();
-        
-        for (Course course : instructorCourses) {
-            try {
-                CourseDetailsDTO dto = getCourseDetailsWithCounts(course.getId());
-                courseDTOs.add(dto);
-            } catch (Exception e) {
-                System.err.println("⚠️ Error processing course " + course.getId() + ": " + e.getMessage());
-            }
-        }
-        
-        return courseDTOs;
-    }
 }
@@ -0,0 +1,238 @@
+package com.authsystem.service;
+
+import com.authsystem.model.QuizAttempt;
+import com.authsystem.model.StudentProgress;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Course Export Service - Gradebook exports of a whole course as CSV or NDJSON
+ * - progress: one row per student from student_progress; attempts: one row per quiz attempt
+ * - Rows are written from a Mongo cursor reading only the exported fields, flushed every
+ *   stream-batch-size rows, so memory stays the same for ten thousand rows or ten million
+ * - Optionally gzipped while writing
+ */
+@Service
+public class CourseExportService {
+
+    public enum Dataset { PROGRESS, ATTEMPTS }
+
+    public enum Format { CSV, NDJSON }
+
+    private record Column(String name, String field) {}
+
+    private static final List<Column> PROGRESS_COLUMNS = List.of(
+        new Column("studentEmail", "studentEmail"),
+        new Column("courseName", "courseName"),
+        new Column("currentLevel", "currentLevel"),
+        new Column("overallScore", "overallScore"),
+        new Column("quizzesTaken", "overallPerformance.totalQuizzes"),
+        new Column("averageQuizScore", "overallPerformance.averageScore"),
+        new Column("quizzesPassed", "quizzesPassed"),
+        new Column("lessonsCompleted", "lessonsCompleted"),
+        new Column("totalTimeSpentMinutes", "totalTimeSpentMinutes"),
+        new Column("currentStreak", "currentStreak"),
+        new Column("lastActivityDate", "lastActivityDate"));
+
+    private static final List<Column> ATTEMPT_COLUMNS = List.of(
+        new Column("attemptId", "_id"),
+        new Column("studentEmail", "studentEmail"),
+        new Column("topicName", "topicName"),
+        new Column("difficulty", "difficulty"),
+        new Column("score", "score"),
+        new Column("correctAnswers", "correctAnswers"),
+        new Column("totalQuestions", "totalQuestions"),
+        new Column("timeTakenSeconds", "totalTimeTaken"),
+        new Column("attemptedAt", "attemptedAt"));
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    @Value("${pagination.stream-batch-size:500}")
+    private int streamBatchSize;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private volatile boolean indexesEnsured;
+
+    /**
+     * Write the course's rows to out; call from inside a StreamingResponseBody
+     *
+     * @return number of rows written
+     */
+    public long export(String courseId, Dataset dataset, Format format, boolean gzip, OutputStream out) throws IOException {
+        ensureIndexes();
+        List<Column> columns = dataset == Dataset.PROGRESS ? PROGRESS_COLUMNS : ATTEMPT_COLUMNS;
+        // Ordered along the index, so the server never sorts the course in memory
+        Query query = Query.query(Criteria.where("courseId").is(courseId))
+            .with(dataset == Dataset.PROGRESS
+                ? Sort.by("studentEmail").and(Sort.by("_id"))
+                : Sort.by("attemptedAt").and(Sort.by("_id")))
+            .cursorBatchSize(streamBatchSize);
+        query.fields().include(columns.stream().map(Column::field).toArray(String[]::new));
+        String collection = mongoTemplate.getCollectionName(dataset == Dataset.PROGRESS ? StudentProgress.class : QuizAttempt.class);
+
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : out, StandardCharsets.UTF_8),
+            64 * 1024);
+        JsonGenerator json = format == Format.NDJSON ? JSON.createGenerator(writer) : null;
+        if (json != null) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            // Each row is handed to the buffered writer, which flushes every stream-batch-size rows
+            json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        } else {
+            writeCsvRow(writer, columns.stream().map(Column::name).toList());
+        }
+
+        long written = 0;
+        try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, collection)) {
+            Iterator<Document> cursor = stream.iterator();
+            String[] values = new String[columns.size()];
+            while (cursor.hasNext()) {
+                Document row = cursor.next();
+                if (json != null) {
+                    writeJsonRow(json, columns, row);
+                    json.flush();
+                    writer.write('\n');
+                } else {
+                    for (int i = 0; i < columns.size(); i++) {
+                        values[i] = text(value(row, columns.get(i).field()));
+                    }
+                    writeCsvRow(writer, Arrays.asList(values));
+                }
+                if (++written % streamBatchSize == 0) {
+                    writer.flush();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Headers are already sent - all we can do is stop and leave a truncated body behind
+            System.err.println("❌ Export of " + dataset + " for course " + courseId + " aborted after " + written
+                + " rows: " + e.getMessage());
+            writer.flush();
+            throw e;
+        }
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+        System.out.println("📤 Exported " + written + " " + dataset.name().toLowerCase() + " rows of course " + courseId
+            + " as " + format.name().toLowerCase() + (gzip ? ".gz" : ""));
+        return written;
+    }
+
+    private static void writeJsonRow(JsonGenerator json, List<Column> columns, Document row) throws IOException {
+        json.writeStartObject();
+        for (Column column : columns) {
+            Object value = value(row, column.field());
+            json.writeFieldName(column.name());
+            if (value instanceof Integer || value instanceof Long) {
+                json.writeNumber(((Number) value).longValue());
+            } else if (value instanceof Number) {
+                json.writeNumber(((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                json.writeBoolean((Boolean) value);
+            } else if (value == null) {
+                json.writeNull();
+            } else {
+                json.writeString(text(value));
+            }
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * One RFC 4180 line; text a spreadsheet would run as a formula is prefixed with '
+     */
+    static void writeCsvRow(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if ("=+-@\t\r".indexOf(value.charAt(0)) >= 0 && !isNumber(value)) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static Object value(Document row, String field) {
+        Object value = row;
+        for (String part : field.split("\\.")) {
+            if (!(value instanceof Document)) {
+                return null;
+            }
+            value = ((Document) value).get(part);
+        }
+        return value;
+    }
+
+    private static String text(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Date date) {
+            // The same local time the application stored
+            return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime().toString();
+        }
+        return value.toString();
+    }
+
+    private static boolean isNumber(String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        // auto-index-creation is off; these match the export sort orders
+        mongoTemplate.indexOps(StudentProgress.class).ensureIndex(new Index()
+            .on("courseId", Sort.Direction.ASC)
+            .on("studentEmail", Sort.Direction.ASC)
+            .on("_id", Sort.Direction.ASC)
+            .named("course_student"));
+        mongoTemplate.indexOps(QuizAttempt.class).ensureIndex(new Index()
+            .on("courseId", Sort.Direction.ASC)
+            .on("attemptedAt", Sort.Direction.ASC)
+            .on("_id", Sort.Direction.ASC)
+            .named("course_attemptedAt"));
+        indexesEnsured = true;
+    }
+}
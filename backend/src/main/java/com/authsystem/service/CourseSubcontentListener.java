@@ -0,0 +1,113 @@
+package com.authsystem.service;
+
+import com.authsystem.model.Course;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeDeleteEvent;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Connects Course.topicSubcontents to the course_subcontents collection
+ * - Loaded courses get a lazy loader (no query until the map is used); courses that still
+ *   embed the map (not migrated yet) get it straight from their document
+ * - Saves write the map back when it was loaded or set, which also migrates legacy courses
+ * - Deleting courses deletes their subcontents; ids are resolved before the delete
+ * Runs before CourseChangePublisher, so caches, ETags and the search index only hear about a
+ * save once its subcontents are written and committed
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CourseSubcontentListener extends AbstractMongoEventListener<Course> {
+
+    /**
+     * Course ids resolved before a delete, matched to its AfterDelete by the delete filter
+     */
+    private record PendingDelete(Document filter, List<String> courseIds) {}
+
+    private final ThreadLocal<Deque<PendingDelete>> pendingDeletes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Autowired
+    private CourseSubcontentStore subcontentStore;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void onAfterConvert(AfterConvertEvent<Course> event) {
+        Course course = event.getSource();
+        Document document = event.getDocument();
+        if (document != null && document.containsKey(CourseSubcontentStore.LEGACY_FIELD)) {
+            course.setTopicSubcontents(subcontentStore.readLegacy(document.get(CourseSubcontentStore.LEGACY_FIELD)));
+        } else if (course.getId() != null) {
+            String courseId = course.getId();
+            course.loadTopicSubcontentsWith(() -> subcontentStore.load(courseId));
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Course> event) {
+        Course course = event.getSource();
+        if (course.hasTopicSubcontentsLoaded() && course.getId() != null) {
+            subcontentStore.replace(course.getId(), course.getVersion() != null ? course.getVersion() : 0L,
+                course.getTopicSubcontents());
+        }
+    }
+
+    @Override
+    public void onBeforeDelete(BeforeDeleteEvent<Course> event) {
+        Document filter = event.getDocument();
+        List<String> courseIds = null;
+        if (filter != null && !filter.isEmpty()) {
+            courseIds = new ArrayList<>();
+            if (filter.size() == 1 && filter.get("_id") != null && !(filter.get("_id") instanceof Document)) {
+                courseIds.add(filter.get("_id").toString());
+            } else {
+                for (Object id : mongoTemplate.findDistinct(new BasicQuery(filter), "_id",
+                        event.getCollectionName(), Object.class)) {
+                    courseIds.add(id.toString());
+                }
+            }
+        }
+        // null = deleteAll
+        pendingDeletes.get().push(new PendingDelete(filter, courseIds != null ? courseIds : Collections.singletonList(null)));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Course> event) {
+        Deque<PendingDelete> pending = pendingDeletes.get();
+        try {
+            // Entries left by deletes that failed before their AfterDelete are skipped
+            PendingDelete match = null;
+            while (!pending.isEmpty() && match == null) {
+                PendingDelete next = pending.pop();
+                if (Objects.equals(next.filter(), event.getDocument())) {
+                    match = next;
+                }
+            }
+            if (match == null) {
+                return;
+            }
+            List<String> courseIds = match.courseIds();
+            if (courseIds.size() == 1 && courseIds.get(0) == null) {
+                subcontentStore.deleteAll();
+            } else {
+                subcontentStore.deleteByCourses(courseIds);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to delete subcontents of deleted courses: " + e.getMessage());
+        } finally {
+            // Course deletes do not nest, so nothing pending is left to wait for
+            pendingDeletes.remove();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.authsystem.service;
+
+import com.authsystem.model.Course;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Stream;
+
+/**
+ * Course Subcontent Migration - Moves embedded topicSubcontents into course_subcontents online
+ * For each course still embedding the map: write its subcontents (generation = course version),
+ * then $unset the embedded map only if the course version is unchanged. A course written in the
+ * meantime is left for the next run; its own save already stored a newer generation.
+ * Reads keep working throughout because the store falls back to the embedded map.
+ */
+@Service
+public class CourseSubcontentMigration {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CourseSubcontentStore subcontentStore;
+
+    @Scheduled(initialDelayString = "${course.subcontents.migration-initial-delay-ms:10000}",
+               fixedDelayString = "${course.subcontents.migration-interval-ms:600000}")
+    public int migrateAll() {
+        if (!subcontentStore.isLegacyDataRemaining()) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        int migrated = 0;
+        int skipped = 0;
+
+        try {
+            Query query = Query.query(Criteria.where(CourseSubcontentStore.LEGACY_FIELD).exists(true));
+            query.fields().include(CourseSubcontentStore.LEGACY_FIELD).include("version");
+            try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, collection())) {
+                for (Document raw : (Iterable<Document>) stream::iterator) {
+                    if (migrate(raw)) {
+                        migrated++;
+                    } else {
+                        skipped++;
+                    }
+                }
+            }
+
+            if (!mongoTemplate.exists(Query.query(Criteria.where(CourseSubcontentStore.LEGACY_FIELD).exists(true)), collection())) {
+                subcontentStore.markLegacyDataMigrated();
+                System.out.println("✅ All course subcontents live in course_subcontents");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Course subcontent migration failed: " + e.getMessage());
+        }
+
+        if (migrated > 0 || skipped > 0) {
+            System.out.println("🚚 Course subcontent migration: migrated " + migrated + ", retry later " + skipped
+                + " in " + (System.currentTimeMillis() - start) + "ms");
+        }
+        return migrated;
+    }
+
+    /**
+     * Migrate one course now if it still embeds its subcontents (used before targeted edits)
+     */
+    public void migrateCourse(String courseId) {
+        if (!subcontentStore.isLegacyDataRemaining()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").is(courseId).and(CourseSubcontentStore.LEGACY_FIELD).exists(true));
+        query.fields().include(CourseSubcontentStore.LEGACY_FIELD).include("version");
+        Document raw = mongoTemplate.findOne(query, Document.class, collection());
+        if (raw != null) {
+            migrate(raw);
+        }
+    }
+
+    /**
+     * @return false when the course changed while it was being migrated
+     */
+    boolean migrate(Document raw) {
+        Object id = raw.get("_id");
+        Number version = raw.get("version", Number.class);
+
+        subcontentStore.replace(id.toString(), version != null ? version.longValue() : 0L,
+            subcontentStore.readLegacy(raw.get(CourseSubcontentStore.LEGACY_FIELD)));
+
+        Criteria unchanged = Criteria.where("_id").is(id);
+        if (version != null) {
+            unchanged.and("version").is(version);
+        } else {
+            unchanged.and("version").exists(false);
+        }
+        return mongoTemplate.updateFirst(Query.query(unchanged), new Update().unset(CourseSubcontentStore.LEGACY_FIELD),
+            collection()).getModifiedCount() > 0;
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(Course.class);
+    }
+}
@@ -0,0 +1,395 @@
+package com.authsystem.service;
+
+import com.authsystem.model.Course;
+import com.authsystem.model.CourseSubcontent;
+import com.authsystem.model.TopicSubcontent;
+import com.mongodb.MongoBulkWriteException;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Course Subcontent Store - Reads and writes course topic subcontents in course_subcontents
+ * - One document per subcontent, keyed by (courseId, topic, order), plus one marker per topic
+ *   (order -1) so empty topics and the topic order survive the round trip
+ * - A full write stamps every document with a generation (derived from the course version) next
+ *   to the previous set, then commits it by moving Course.subcontentGeneration forward; readers only
+ *   use the committed generation, so they never see a partly written set or a stale writer's items
+ * - Targeted course edits write their set before their course update and commit it with that
+ *   update (writeUncommitted); such a set also carries a writer number, so two edits racing for
+ *   the same version never write into each other's set
+ * - Courses not migrated yet still carry the map in the course document; reads fall back to it
+ *   until CourseSubcontentMigration reports that no such course is left
+ */
+@Service
+public class CourseSubcontentStore {
+
+    public static final String LEGACY_FIELD = "topicSubcontents";
+    public static final String GENERATION_FIELD = "subcontentGeneration";
+    private static final int TOPIC_MARKER = -1;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final String LEGACY_INDEX = "course_topic_order";
+    // Generations per course version; the ones above version * WRITERS_PER_VERSION tell writers apart
+    private static final long WRITERS_PER_VERSION = 1L << 20;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private volatile boolean legacyDataRemaining = true;
+    private volatile boolean indexesEnsured;
+
+    /**
+     * All topics of a course in their original order
+     */
+    public Map<String, List<TopicSubcontent>> load(String courseId) {
+        Map<String, List<TopicSubcontent>> topics = loadByCourses(Collections.singletonList(courseId)).get(courseId);
+        if (topics == null && legacyDataRemaining) {
+            topics = loadLegacy(Collections.singletonList(courseId)).get(courseId);
+        }
+        return topics != null ? topics : new LinkedHashMap<>();
+    }
+
+    /**
+     * Subcontents of a single topic, or an empty list when the course or topic does not exist
+     */
+    public List<TopicSubcontent> loadTopic(String courseId, String topic) {
+        Query query = Query.query(Criteria.where("courseId").is(courseId).and("topic").is(topic));
+        Map<String, Map<String, List<TopicSubcontent>>> byCourse = group(mongoTemplate.find(query, CourseSubcontent.class),
+            committedGenerations(Collections.singletonList(courseId)));
+        List<TopicSubcontent> subcontents = byCourse.getOrDefault(courseId, Collections.emptyMap()).get(topic);
+        if (subcontents == null && legacyDataRemaining) {
+            subcontents = loadLegacy(Collections.singletonList(courseId))
+                .getOrDefault(courseId, Collections.emptyMap()).get(topic);
+        }
+        return subcontents != null ? subcontents : new ArrayList<>();
+    }
+
+    /**
+     * Subcontents of several courses with one $in query; courses without documents are absent
+     *
+     * @param fields subcontent fields to read (e.g. "name", "videoUrls"); none means all of them
+     */
+    public Map<String, Map<String, List<TopicSubcontent>>> loadByCourses(Collection<String> courseIds, String... fields) {
+        if (courseIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        Query query = Query.query(Criteria.where("courseId").in(courseIds));
+        if (fields.length > 0) {
+            query.fields().include("courseId", "topic", "order", "topicOrder", "generation").include(fields);
+        }
+        return group(mongoTemplate.find(query, CourseSubcontent.class), committedGenerations(courseIds));
+    }
+
+    /**
+     * Load topicSubcontents for every course that has not loaded it yet, in one query
+     * With fields, the courses only carry those subcontent fields and must not be saved afterwards
+     */
+    public void hydrate(Collection<Course> courses, String... fields) {
+        Map<String, Course> pending = new HashMap<>();
+        for (Course course : courses) {
+            if (!course.hasTopicSubcontentsLoaded() && course.getId() != null) {
+                pending.put(course.getId(), course);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, Map<String, List<TopicSubcontent>>> loaded = loadByCourses(pending.keySet(), fields);
+        if (legacyDataRemaining && loaded.size() < pending.size()) {
+            Set<String> missing = new HashSet<>(pending.keySet());
+            missing.removeAll(loaded.keySet());
+            loaded.putAll(loadLegacy(missing));
+        }
+        for (Course course : pending.values()) {
+            Map<String, List<TopicSubcontent>> topics = loaded.get(course.getId());
+            course.setTopicSubcontents(topics != null ? topics : new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * The committed subcontent at (topic, order), or null
+     */
+    public CourseSubcontent find(String courseId, String topic, int order) {
+        Criteria criteria = Criteria.where("courseId").is(courseId).and("topic").is(topic).and("order").is(order);
+        Long committed = committedGenerations(Collections.singletonList(courseId)).get(courseId);
+        if (committed != null) {
+            criteria.and("generation").is(committed);
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "generation"));
+        return mongoTemplate.findOne(query, CourseSubcontent.class);
+    }
+
+    public boolean topicExists(String courseId, String topic) {
+        return mongoTemplate.exists(Query.query(Criteria.where("courseId").is(courseId).and("topic").is(topic)),
+            CourseSubcontent.class);
+    }
+
+    public boolean hasSubcontents(String courseId) {
+        return mongoTemplate.exists(Query.query(Criteria.where("courseId").is(courseId)), CourseSubcontent.class);
+    }
+
+    /**
+     * Flip the published flag of one stored subcontent
+     *
+     * @return false when the document no longer carries the name it was read with (replaced concurrently)
+     */
+    public boolean setPublished(CourseSubcontent subcontent, boolean published) {
+        Criteria criteria = Criteria.where("_id").is(subcontent.getId());
+        if (subcontent.getName() != null) {
+            criteria.and("name").is(subcontent.getName());
+        }
+        return mongoTemplate.updateFirst(Query.query(criteria), new Update().set("published", published),
+            CourseSubcontent.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * Replace all subcontents of a course: write the new generation with one unordered bulk write
+     * next to the current one, commit it on the course, then drop the generations before the
+     * committed one
+     * A newer generation already committed wins: this one is never made visible and is dropped
+     */
+    public void replace(String courseId, long version, Map<String, List<TopicSubcontent>> topics) {
+        long generation = generationOf(version);
+        write(courseId, generation, topics);
+
+        // Readers switch to the new set only now that all of it is written
+        Query course = Query.query(Criteria.where("_id").is(courseId));
+        course.fields().include(GENERATION_FIELD);
+        Course committed = mongoTemplate.findAndModify(course, new Update().max(GENERATION_FIELD, generation),
+            FindAndModifyOptions.options().returnNew(true), Course.class);
+        long current = committed != null && committed.getSubcontentGeneration() != null
+            ? committed.getSubcontentGeneration() : generation;
+        removeBefore(courseId, current);
+    }
+
+    /**
+     * Write the subcontents of the course version a caller is about to commit, without making
+     * them visible. The caller commits them in its own course update with
+     * $max(GENERATION_FIELD, generation), then calls removeOlderGenerations - or calls discard
+     * when its update did not apply.
+     *
+     * @return the generation written
+     */
+    public long writeUncommitted(String courseId, long version, Map<String, List<TopicSubcontent>> topics) {
+        long generation = generationOf(version) + ThreadLocalRandom.current().nextLong(1, WRITERS_PER_VERSION);
+        write(courseId, generation, topics);
+        return generation;
+    }
+
+    /**
+     * Drop the generations before the one committed on the course
+     */
+    public void removeOlderGenerations(String courseId) {
+        Long committed = committedGenerations(Collections.singletonList(courseId)).get(courseId);
+        if (committed != null) {
+            removeBefore(courseId, committed);
+        }
+    }
+
+    /**
+     * Drop a set written by writeUncommitted whose course update did not apply
+     */
+    public void discard(String courseId, long generation) {
+        mongoTemplate.remove(Query.query(Criteria.where("courseId").is(courseId).and("generation").is(generation)),
+            CourseSubcontent.class);
+    }
+
+    /**
+     * Lowest generation of a course version, higher than every generation of the versions before
+     */
+    static long generationOf(long version) {
+        return version * WRITERS_PER_VERSION;
+    }
+
+    private void write(String courseId, long generation, Map<String, List<TopicSubcontent>> topics) {
+        ensureIndexes();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CourseSubcontent.class);
+        int writes = 0;
+        int topicOrder = 0;
+        if (topics != null) {
+            for (Map.Entry<String, List<TopicSubcontent>> topic : topics.entrySet()) {
+                CourseSubcontent marker = new CourseSubcontent();
+                marker.setCourseId(courseId);
+                marker.setTopic(topic.getKey());
+                marker.setOrder(TOPIC_MARKER);
+                marker.setGeneration(generation);
+                marker.setTopicOrder(topicOrder);
+                bulk.replaceOne(keyQuery(courseId, topic.getKey(), TOPIC_MARKER, generation), marker,
+                    FindAndReplaceOptions.options().upsert());
+                writes++;
+
+                List<TopicSubcontent> subcontents = topic.getValue() != null ? topic.getValue() : Collections.emptyList();
+                for (int i = 0; i < subcontents.size(); i++) {
+                    CourseSubcontent doc = CourseSubcontent.from(courseId, topic.getKey(), i, generation, subcontents.get(i));
+                    doc.setTopicOrder(topicOrder);
+                    bulk.replaceOne(keyQuery(courseId, topic.getKey(), i, generation), doc,
+                        FindAndReplaceOptions.options().upsert());
+                    writes++;
+                }
+                topicOrder++;
+            }
+        }
+
+        if (writes > 0) {
+            try {
+                bulk.execute();
+            } catch (BulkOperationException e) {
+                // Duplicate keys mean a concurrent write of the same generation got there first
+                if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                    throw e;
+                }
+            } catch (DuplicateKeyException e) {
+                if (!(e.getCause() instanceof MongoBulkWriteException) || ((MongoBulkWriteException) e.getCause())
+                        .getWriteErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void removeBefore(String courseId, long generation) {
+        mongoTemplate.remove(Query.query(Criteria.where("courseId").is(courseId).and("generation").lt(generation)),
+            CourseSubcontent.class);
+    }
+
+    public void deleteByCourses(Collection<String> courseIds) {
+        if (!courseIds.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("courseId").in(courseIds)), CourseSubcontent.class);
+        }
+    }
+
+    public void deleteAll() {
+        mongoTemplate.remove(new Query(), CourseSubcontent.class);
+    }
+
+    /**
+     * Convert a map still embedded in a course document (not migrated yet)
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, List<TopicSubcontent>> readLegacy(Object embedded) {
+        Map<String, List<TopicSubcontent>> topics = new LinkedHashMap<>();
+        if (!(embedded instanceof Document)) {
+            return topics;
+        }
+        for (Map.Entry<String, Object> topic : ((Document) embedded).entrySet()) {
+            List<TopicSubcontent> subcontents = new ArrayList<>();
+            if (topic.getValue() instanceof List) {
+                for (Object item : (List<Object>) topic.getValue()) {
+                    if (item instanceof Document) {
+                        subcontents.add(mongoTemplate.getConverter().read(TopicSubcontent.class, (Document) item));
+                    }
+                }
+            }
+            topics.put(topic.getKey(), subcontents);
+        }
+        return topics;
+    }
+
+    public boolean isLegacyDataRemaining() {
+        return legacyDataRemaining;
+    }
+
+    /**
+     * Called once no course document embeds subcontents any more - reads stop falling back
+     */
+    void markLegacyDataMigrated() {
+        legacyDataRemaining = false;
+    }
+
+    private void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        // auto-index-creation is off, so the (courseId, topic, order, generation) index is created here from the model
+        IndexOperations indexOps = mongoTemplate.indexOps(CourseSubcontent.class);
+        // The earlier index without generation would stop a new set from being written next to the old one
+        if (indexOps.getIndexInfo().stream().anyMatch(info -> LEGACY_INDEX.equals(info.getName()))) {
+            indexOps.dropIndex(LEGACY_INDEX);
+        }
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+            .resolveIndexFor(CourseSubcontent.class)
+            .forEach(indexOps::ensureIndex);
+        indexesEnsured = true;
+    }
+
+    private Query keyQuery(String courseId, String topic, int order, long generation) {
+        return Query.query(Criteria.where("courseId").is(courseId).and("topic").is(topic).and("order").is(order)
+            .and("generation").is(generation));
+    }
+
+    /**
+     * courseId → committed generation, for the courses that have one
+     * Courses whose subcontents were written before the pointer existed have none; their newest
+     * generation is used
+     */
+    private Map<String, Long> committedGenerations(Collection<String> courseIds) {
+        Map<String, Long> committed = new HashMap<>();
+        Query query = Query.query(Criteria.where("_id").in(courseIds));
+        query.fields().include(GENERATION_FIELD);
+        for (Course course : mongoTemplate.find(query, Course.class)) {
+            if (course.getSubcontentGeneration() != null) {
+                committed.put(course.getId(), course.getSubcontentGeneration());
+            }
+        }
+        return committed;
+    }
+
+    private Map<String, Map<String, List<TopicSubcontent>>> loadLegacy(Collection<String> courseIds) {
+        Map<String, Map<String, List<TopicSubcontent>>> byCourse = new HashMap<>();
+        Query query = Query.query(Criteria.where("_id").in(courseIds).and(LEGACY_FIELD).exists(true));
+        query.fields().include(LEGACY_FIELD);
+        for (Document raw : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Course.class))) {
+            byCourse.put(raw.get("_id").toString(), readLegacy(raw.get(LEGACY_FIELD)));
+        }
+        return byCourse;
+    }
+
+    /**
+     * courseId → topic → subcontents, keeping only each course's committed generation (newest
+     * when it has none), topics in their original order and subcontents by order
+     */
+    private Map<String, Map<String, List<TopicSubcontent>>> group(List<CourseSubcontent> docs, Map<String, Long> committed) {
+        Map<String, Long> visible = new HashMap<>(committed);
+        for (CourseSubcontent doc : docs) {
+            if (!committed.containsKey(doc.getCourseId())) {
+                visible.merge(doc.getCourseId(), doc.getGeneration(), Math::max);
+            }
+        }
+
+        List<CourseSubcontent> current = new ArrayList<>();
+        for (CourseSubcontent doc : docs) {
+            if (doc.getGeneration() == visible.get(doc.getCourseId())) {
+                current.add(doc);
+            }
+        }
+        current.sort(Comparator.comparing(CourseSubcontent::getCourseId)
+            .thenComparingInt(CourseSubcontent::getTopicOrder)
+            .thenComparingInt(CourseSubcontent::getOrder));
+
+        Map<String, Map<String, List<TopicSubcontent>>> byCourse = new HashMap<>();
+        for (CourseSubcontent doc : current) {
+            List<TopicSubcontent> subcontents = byCourse.computeIfAbsent(doc.getCourseId(), k -> new LinkedHashMap<>())
+                .computeIfAbsent(doc.getTopic(), k -> new ArrayList<>());
+            if (doc.getOrder() != TOPIC_MARKER) {
+                subcontents.add(doc.toTopicSubcontent());
+            }
+        }
+        return byCourse;
+    }
+}
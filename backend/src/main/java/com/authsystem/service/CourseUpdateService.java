@@ -0,0 +1,301 @@
+package com.authsystem.service;
+
+import com.authsystem.cache.CourseChangedEvent;
+import com.authsystem.model.Course;
+import com.authsystem.model.CourseContentCounts;
+import com.authsystem.model.CourseSubcontent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+
+/**
+ * Course Update Service - Targeted instructor edits without rewriting the whole course
+ * - Each edit only writes what changed: one subcontent document for a publish toggle, a $set on
+ *   the changed course fields otherwise, plus an $inc of Course.version
+ * - Callers may pass the version they last read; the write then only applies if nobody changed
+ *   the course in between, otherwise OptimisticLockingFailureException is thrown
+ * - Enrollments change enrolledStudents with an $inc instead of saving the whole course
+ * Repository saves do not run here, so every successful write publishes its own CourseChangedEvent.
+ */
+@Service
+public class CourseUpdateService {
+
+    private static final int MAX_UNVERSIONED_ATTEMPTS = 3;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CourseContentCountService courseContentCountService;
+
+    @Autowired
+    private CourseSubcontentStore subcontentStore;
+
+    @Autowired
+    private CourseSubcontentMigration subcontentMigration;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public record SubcontentPublishResult(String subcontentName, long version) {}
+
+    /**
+     * Set the published flag of one subcontent
+     *
+     * @param expectedVersion version the caller last read, or null to skip the version check
+     * @throws NoSuchElementException when the course, topic or subcontent does not exist
+     * @throws OptimisticLockingFailureException when the course changed since expectedVersion,
+     *         or the subcontent at that index was replaced concurrently
+     */
+    public SubcontentPublishResult setSubcontentPublished(String courseId, String topicName, int subcontentIndex,
+                                                          boolean published, Long expectedVersion) {
+        subcontentMigration.migrateCourse(courseId);
+
+        CourseSubcontent subcontent = subcontentIndex >= 0 ? subcontentStore.find(courseId, topicName, subcontentIndex) : null;
+        if (subcontent == null) {
+            if (!mongoTemplate.exists(Query.query(Criteria.where("_id").is(courseId)), Course.class)) {
+                throw new NoSuchElementException("Course not found");
+            }
+            if (!subcontentStore.topicExists(courseId, topicName)) {
+                throw new NoSuchElementException("Topic not found: " + topicName);
+            }
+            throw new NoSuchElementException("Subcontent index out of bounds: " + subcontentIndex);
+        }
+
+        if (expectedVersion != null && expectedVersion != currentVersion(courseId)) {
+            throw explainMiss(courseId, expectedVersion, null);
+        }
+        // The document must still be the one read above - a concurrent rewrite of the topic fails
+        // instead of flipping a different subcontent. Written before the version moves, so a
+        // conflict here leaves the course version alone.
+        if (!subcontentStore.setPublished(subcontent, published)) {
+            throw new OptimisticLockingFailureException("Subcontents of course " + courseId + " were modified concurrently");
+        }
+
+        Update update = new Update()
+            .set("updatedAt", LocalDateTime.now())
+            .inc("version", 1);
+        Course updated = findAndModifyVersion(versionCriteria(courseId, expectedVersion), update);
+        if (updated == null) {
+            // Another edit got the version first: take the flag back
+            subcontentStore.setPublished(subcontent, subcontent.isPublished());
+            throw explainMiss(courseId, expectedVersion, null);
+        }
+        eventPublisher.publishEvent(new CourseChangedEvent(courseId));
+        return new SubcontentPublishResult(subcontent.getName(), updated.getVersion());
+    }
+
+    /**
+     * Mark a course as PUBLISHED; a course needs topics or topic subcontents to be published
+     *
+     * @return the new version
+     * @throws IllegalStateException when the course has no topics
+     */
+    public long publish(String courseId, Long expectedVersion) {
+        subcontentMigration.migrateCourse(courseId);
+
+        Criteria criteria = versionCriteria(courseId, expectedVersion);
+        if (!subcontentStore.hasSubcontents(courseId)) {
+            criteria.and("topics.0").exists(true);
+        }
+        Update update = new Update()
+            .set("status", "PUBLISHED")
+            .set("updatedAt", LocalDateTime.now())
+            .inc("version", 1);
+
+        Course updated = findAndModifyVersion(criteria, update);
+        if (updated == null) {
+            throw explainMiss(courseId, expectedVersion,
+                new IllegalStateException("Cannot publish course without topics. Please add at least one topic."));
+        }
+        eventPublisher.publishEvent(new CourseChangedEvent(courseId));
+        return updated.getVersion();
+    }
+
+    /**
+     * Apply the non-null fields of changes to a course; changes.version, if set, is the expected version
+     * topicSubcontents is only replaced when the request actually contained it
+     *
+     * @return the updated course
+     */
+    public Course applyChanges(String courseId, Course changes) {
+        Update update = new Update();
+        if (changes.getTitle() != null) {
+            update.set("title", changes.getTitle());
+        }
+        if (changes.getDescription() != null) {
+            update.set("description", changes.getDescription());
+        }
+        if (changes.getSubjects() != null) {
+            update.set("subjects", changes.getSubjects());
+        }
+        if (changes.getTopics() != null) {
+            update.set("topics", changes.getTopics());
+        }
+        if (changes.getDifficulty() != null) {
+            update.set("difficulty", changes.getDifficulty());
+        }
+        if (changes.getThumbnail() != null) {
+            update.set("thumbnail", changes.getThumbnail());
+        }
+        if (changes.getStatus() != null) {
+            update.set("status", changes.getStatus());
+        }
+        // CRITICAL: Preserve topicSubcontents - only update if explicitly provided
+        boolean replaceSubcontents = changes.hasTopicSubcontentsLoaded() && changes.getTopicSubcontents() != null;
+        update.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+        if (!replaceSubcontents) {
+            Course updated = mongoTemplate.findAndModify(
+                Query.query(versionCriteria(courseId, changes.getVersion())), update,
+                FindAndModifyOptions.options().returnNew(true), Course.class);
+            if (updated == null) {
+                throw explainMiss(courseId, changes.getVersion(), null);
+            }
+            eventPublisher.publishEvent(new CourseChangedEvent(courseId));
+            return updated;
+        }
+
+        CourseContentCounts media = courseContentCountService.computeMediaCounts(changes);
+        update.set("contentCounts.totalSubtopics", media.getTotalSubtopics())
+              .set("contentCounts.totalVideos", media.getTotalVideos())
+              .set("contentCounts.totalPdfs", media.getTotalPdfs())
+              .unset(CourseSubcontentStore.LEGACY_FIELD);
+
+        // The new subcontents are written first, next to the current ones, and the course update
+        // commits them: the course never shows counts or a version whose subcontents are missing.
+        // That update needs the version it builds on, so without one from the caller a concurrent
+        // edit is retried instead of reported.
+        for (int attempt = 1; ; attempt++) {
+            long expected = changes.getVersion() != null ? changes.getVersion() : currentVersion(courseId);
+            long generation = subcontentStore.writeUncommitted(courseId, expected + 1, changes.getTopicSubcontents());
+            Course updated;
+            try {
+                updated = mongoTemplate.findAndModify(
+                    Query.query(versionCriteria(courseId, expected)),
+                    update.max(CourseSubcontentStore.GENERATION_FIELD, generation),
+                    FindAndModifyOptions.options().returnNew(true), Course.class);
+            } catch (RuntimeException e) {
+                subcontentStore.discard(courseId, generation);
+                throw e;
+            }
+            if (updated == null) {
+                subcontentStore.discard(courseId, generation);
+                if (changes.getVersion() == null && attempt < MAX_UNVERSIONED_ATTEMPTS) {
+                    continue;
+                }
+                throw explainMiss(courseId, expected, null);
+            }
+            subcontentStore.removeOlderGenerations(courseId);
+            updated.setTopicSubcontents(changes.getTopicSubcontents());
+            eventPublisher.publishEvent(new CourseChangedEvent(courseId));
+            return updated;
+        }
+    }
+
+    /**
+     * Add delta to the course's enrolled student count in place; a stale whole save of the course
+     * can no longer undo it because the version is bumped too
+     * A decrement never takes the count below zero
+     *
+     * @return false when the course does not exist (or is already at zero for a decrement)
+     */
+    public boolean adjustEnrolledStudents(String courseId, int delta) {
+        Criteria criteria = Criteria.where("_id").is(courseId);
+        if (delta < 0) {
+            criteria.and("enrolledStudents").gte(-delta);
+        }
+        Update update = new Update()
+            .inc("enrolledStudents", delta)
+            .inc("version", 1);
+        if (mongoTemplate.updateFirst(Query.query(criteria), update, Course.class).getModifiedCount() == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new CourseChangedEvent(courseId));
+        return true;
+    }
+
+    /**
+     * Courses written before Course.version was a @Version field may not have one; a null version
+     * makes a repository save insert instead of update, so give them version 0 once at startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeMissingVersions() {
+        try {
+            long updated = mongoTemplate.updateMulti(Query.query(Criteria.where("version").is(null)),
+                new Update().set("version", 0L), Course.class).getModifiedCount();
+            if (updated > 0) {
+                System.out.println("🔢 Initialized version of " + updated + " legacy courses");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to initialize course versions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * _id filter, plus the version check when the caller supplied one
+     * Version 0 also matches courses written before the field existed
+     */
+    private Criteria versionCriteria(String courseId, Long expectedVersion) {
+        Criteria criteria = Criteria.where("_id").is(courseId);
+        if (expectedVersion != null) {
+            if (expectedVersion == 0L) {
+                criteria.and("version").in(0L, null);
+            } else {
+                criteria.and("version").is(expectedVersion);
+            }
+        }
+        return criteria;
+    }
+
+    /**
+     * Current version of a course, 0 for courses written before the field existed
+     *
+     * @throws NoSuchElementException when the course does not exist
+     */
+    private long currentVersion(String courseId) {
+        Query read = Query.query(Criteria.where("_id").is(courseId));
+        read.fields().include("version");
+        Course current = mongoTemplate.findOne(read, Course.class);
+        if (current == null) {
+            throw new NoSuchElementException("Course not found");
+        }
+        return current.getVersion() != null ? current.getVersion() : 0L;
+    }
+
+    private Course findAndModifyVersion(Criteria criteria, Update update) {
+        Query query = Query.query(criteria);
+        query.fields().include("version");
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Course.class);
+    }
+
+    /**
+     * A conditional update matched nothing - work out whether the course is missing, stale or
+     * failed the endpoint's own precondition
+     */
+    private RuntimeException explainMiss(String courseId, Long expectedVersion, RuntimeException preconditionFailure) {
+        Query read = Query.query(Criteria.where("_id").is(courseId));
+        read.fields().include("version");
+        Course current = mongoTemplate.findOne(read, Course.class);
+        if (current == null) {
+            return new NoSuchElementException("Course not found");
+        }
+        long currentVersion = current.getVersion() != null ? current.getVersion() : 0L;
+        if (expectedVersion != null && expectedVersion != currentVersion) {
+            return new OptimisticLockingFailureException("Course " + courseId + " is at version " + currentVersion
+                + ", expected " + expectedVersion);
+        }
+        return preconditionFailure != null ? preconditionFailure
+            : new OptimisticLockingFailureException("Course " + courseId + " was modified concurrently");
+    }
+}
@@ -0,0 +1,197 @@
+package com.authsystem.service;
+
+import com.authsystem.dto.CursorPage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Keyset Pagination Service - Bounded-memory listing of whole collections
+ * - Paged mode (?cursor= / ?limit=): keyset pagination on _id with opaque cursors
+ * - NDJSON mode (?format=ndjson or Accept: application/x-ndjson): one document per line, written from a Mongo cursor
+ * - Legacy mode (no parameters): the same JSON array as before, also written from a Mongo cursor
+ * No mode ever materializes the collection as a List, so heap usage stays flat however large it is
+ */
+@Service
+public class KeysetPaginationService {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final String CURSOR_PREFIX = "v1:";
+
+    @Value("${pagination.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${pagination.max-page-size:1000}")
+    private int maxPageSize;
+
+    // Documents fetched per round trip while streaming, and written between flushes
+    @Value("${pagination.stream-batch-size:500}")
+    private int streamBatchSize;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Serve GET /all style endpoints in whichever mode the request asks for
+     */
+    public <T> ResponseEntity<?> list(Class<T> type, String cursor, Integer limit, String format, String accept) {
+        try {
+            if (wantsNdjson(format, accept)) {
+                return ResponseEntity.ok()
+                    .contentType(APPLICATION_NDJSON)
+                    .body(streamNdjson(type, new Query()));
+            }
+            if (cursor != null || limit != null) {
+                return ResponseEntity.ok(page(type, new Query(), cursor, limit));
+            }
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(streamJsonArray(type, new Query()));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Fetch one page ordered by _id, starting after the document the cursor points at
+     * Reads limit + 1 documents to know whether another page exists
+     */
+    public <T> CursorPage<T> page(Class<T> type, Query filter, String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+
+        Query query = Query.of(filter).limit(pageSize + 1).with(Sort.by(Sort.Direction.ASC, "_id"));
+        if (cursor != null && !cursor.isEmpty()) {
+            query.addCriteria(Criteria.where("_id").gt(decodeCursor(cursor)));
+        }
+
+        List<T> items = mongoTemplate.find(query, type);
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+            nextCursor = encodeCursor(idOf(type, items.get(pageSize - 1)));
+        }
+        return new CursorPage<>(items, nextCursor, pageSize);
+    }
+
+    /**
+     * Stream every matching document as newline-delimited JSON
+     */
+    public <T> StreamingResponseBody streamNdjson(Class<T> type, Query filter) {
+        return out -> writeDocuments(type, filter, out, false);
+    }
+
+    /**
+     * Stream every matching document as a single JSON array (same body as findAll(), without the List)
+     */
+    public <T> StreamingResponseBody streamJsonArray(Class<T> type, Query filter) {
+        return out -> writeDocuments(type, filter, out, true);
+    }
+
+    /**
+     * Write documents from a Mongo cursor; call from inside a StreamingResponseBody or another streamed body
+     *
+     * @return number of documents written
+     */
+    public <T> long writeDocuments(Class<T> type, Query filter, OutputStream out, boolean asArray) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        Query query = Query.of(filter).with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(streamBatchSize);
+        long written = 0;
+
+        if (asArray) {
+            generator.writeStartArray();
+        }
+        try (Stream<T> stream = mongoTemplate.stream(query, type)) {
+            Iterator<T> cursor = stream.iterator();
+            while (cursor.hasNext()) {
+                writer.writeValue(generator, cursor.next());
+                if (!asArray) {
+                    generator.writeRaw('\n');
+                }
+                if (++written % streamBatchSize == 0) {
+                    generator.flush();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Headers are already sent - all we can do is stop and leave a truncated body behind
+            System.err.println("❌ Streaming " + type.getSimpleName() + " aborted after " + written + " documents: " + e.getMessage());
+            generator.flush();
+            throw e;
+        }
+        if (asArray) {
+            generator.writeEndArray();
+        }
+        generator.flush();
+        return written;
+    }
+
+    public String encodeCursor(Object id) {
+        String raw = CURSOR_PREFIX + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String decodeCursor(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!raw.startsWith(CURSOR_PREFIX) || raw.length() == CURSOR_PREFIX.length()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return raw.substring(CURSOR_PREFIX.length());
+    }
+
+    int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    public boolean wantsNdjson(String format, String accept) {
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return true;
+        }
+        return accept != null && accept.contains(APPLICATION_NDJSON.toString());
+    }
+
+    private Object idOf(Class<?> type, Object document) {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> context =
+            mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntity<?> entity = context.getRequiredPersistentEntity(type);
+        return entity.getIdentifierAccessor(document).getRequiredIdentifier();
+    }
+}
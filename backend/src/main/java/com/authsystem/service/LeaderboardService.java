@@ -0,0 +1,401 @@
+package com.authsystem.service;
+
+import com.authsystem.model.StudentProgress;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Leaderboard Service - Per-course and global student rankings held in memory
+ * - A course board ranks students by their overallScore in that course; the global board by the
+ *   sum of their course scores. Each is a RankedSkipList: rank lookup and top-k are O(log n)
+ * - Kept current from StudentProgressService.ScoreChanged, published for every recorded quiz by
+ *   the instance that runs the learning event projector; the other instances re-read the progress
+ *   documents updated since their last refresh every refresh-ms
+ * - Only the projector instance copies the boards to leaderboard_snapshots, every
+ *   snapshot-interval-ms; a restart loads the latest copy and only reads the progress documents
+ *   updated after it was taken
+ */
+@Service
+public class LeaderboardService {
+
+    static final String SNAPSHOTS = "leaderboard_snapshots";
+    private static final String CURRENT = "current";
+    // Clock skew between the instance writing updatedAt and the one reading it
+    private static final long CLOCK_SKEW_MINUTES = 5;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${leaderboards.snapshot-chunk-size:20000}")
+    private int chunkSize;
+
+    @Value("${leaderboards.load-on-startup:true}")
+    private boolean loadOnStartup;
+
+    // ScoreChanged is only published where the learning event projector runs
+    @Value("${learning.events.projector.enabled:false}")
+    private boolean projectorInstance;
+
+    private final Map<String, RankedSkipList> courses = new HashMap<>();
+    private final RankedSkipList global = new RankedSkipList();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Students whose score arrived live while the boards were loading; older loaded values must not replace it
+    private final Set<String> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+    private volatile boolean dirty;
+    // Progress updated from here on is not on the boards yet (instances without the projector)
+    private volatile LocalDateTime refreshedSince;
+    private long lastGeneration;
+
+    /**
+     * One place on a board
+     */
+    public record Standing(long rank, String studentEmail, double score) {}
+
+    public record Page(long total, List<Standing> standings) {}
+
+    @PostConstruct
+    public void start() {
+        if (!loadOnStartup) {
+            return;
+        }
+        loading = true;
+        Thread loader = new Thread(() -> {
+            try {
+                load();
+            } catch (Exception e) {
+                loading = false;
+                System.err.println("❌ Leaderboards could not be loaded: " + e.getMessage());
+            }
+        }, "leaderboard-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (projectorInstance && !loading) {
+            snapshot();
+        }
+    }
+
+    @EventListener
+    public void onScoreChanged(StudentProgressService.ScoreChanged changed) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                changedWhileLoading.add(key(changed.courseId(), changed.studentEmail()));
+            }
+            set(changed.courseId(), changed.studentEmail(), changed.overallScore());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Students of a course from the given position on, best first
+     */
+    public Page courseStandings(String courseId, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(courses.get(courseId), offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Page globalStandings(long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(global, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return null if the student has no score in the course
+     */
+    public Standing courseStanding(String courseId, String email) {
+        lock.readLock().lock();
+        try {
+            return standing(courses.get(courseId), email);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Standing globalStanding(String email) {
+        lock.readLock().lock();
+        try {
+            return standing(global, email);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the boards are still being loaded after a restart (standings may be incomplete)
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    private static Page page(RankedSkipList board, long offset, int limit) {
+        if (board == null) {
+            return new Page(0, Collections.emptyList());
+        }
+        List<Standing> standings = new ArrayList<>();
+        long rank = Math.max(0, offset);
+        for (RankedSkipList.Entry entry : board.range(rank, limit)) {
+            standings.add(new Standing(++rank, entry.member(), entry.score()));
+        }
+        return new Page(board.size(), standings);
+    }
+
+    private static Standing standing(RankedSkipList board, String email) {
+        Double score = board != null ? board.score(email) : null;
+        return score != null ? new Standing(board.rank(email), email, score) : null;
+    }
+
+    /**
+     * Set a course score and move the student's global total by the difference; caller holds the write lock
+     */
+    private void set(String courseId, String email, double score) {
+        Double previous = courses.computeIfAbsent(courseId, k -> new RankedSkipList()).put(email, score);
+        double delta = score - (previous != null ? previous : 0);
+        if (delta != 0 || global.score(email) == null) {
+            Double total = global.score(email);
+            global.put(email, (total != null ? total : 0) + delta);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Fill the boards from the latest snapshot and the progress documents updated since, or from
+     * all progress documents when there is no snapshot
+     *
+     * @return number of course scores loaded
+     */
+    int load() {
+        long start = System.currentTimeMillis();
+        LocalDateTime loadStarted = LocalDateTime.now();
+        loading = true;
+        try {
+            mongoTemplate.indexOps(StudentProgress.class).ensureIndex(new Index()
+                .on("updatedAt", Sort.Direction.ASC).named("updatedAt"));
+            Document current = mongoTemplate.findOne(Query.query(Criteria.where("_id").is(CURRENT)), Document.class, SNAPSHOTS);
+
+            Criteria scored = Criteria.where("overallPerformance.totalQuizzes").gt(0);
+            if (current == null) {
+                int loaded = loadProgress(scored, null);
+                System.out.println("🏆 Leaderboards built from " + loaded + " progress documents in "
+                    + (System.currentTimeMillis() - start) + "ms");
+                return loaded;
+            }
+
+            // Progress written after the snapshot wins over the snapshot's value
+            Date takenAt = current.getDate("takenAt");
+            LocalDateTime since = LocalDateTime.ofInstant(takenAt.toInstant(), java.time.ZoneId.systemDefault())
+                .minusMinutes(CLOCK_SKEW_MINUTES);
+            Map<String, Double> newer = new HashMap<>();
+            loadProgress(new Criteria().andOperator(scored, Criteria.where("updatedAt").gte(since)), newer);
+            int caughtUp = newer.size();
+
+            int loaded = 0;
+            Query chunks = Query.query(Criteria.where("generation").is(current.get("generation")).and("_id").ne(CURRENT));
+            try (Stream<Document> stream = mongoTemplate.stream(chunks, Document.class, SNAPSHOTS)) {
+                for (Document chunk : (Iterable<Document>) stream::iterator) {
+                    String courseId = chunk.getString("courseId");
+                    List<String> members = chunk.getList("members", String.class);
+                    List<Double> scores = chunk.getList("scores", Double.class);
+                    lock.writeLock().lock();
+                    try {
+                        for (int i = 0; i < members.size(); i++) {
+                            Double fresh = newer.remove(key(courseId, members.get(i)));
+                            loaded += apply(courseId, members.get(i), fresh != null ? fresh : scores.get(i));
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<String, Double> entry : newer.entrySet()) {
+                    String[] parts = entry.getKey().split("\u0000", 2);
+                    loaded += apply(parts[0], parts[1], entry.getValue());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("🏆 Leaderboards loaded: " + loaded + " course scores from the snapshot of " + takenAt
+                + " and " + caughtUp + " newer progress documents in " + (System.currentTimeMillis() - start) + "ms");
+            return loaded;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                loading = false;
+                changedWhileLoading.clear();
+                refreshedSince = loadStarted;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Apply the scores of progress documents updated since the last refresh; only on instances
+     * without the projector, which never see ScoreChanged
+     *
+     * @return number of course scores applied
+     */
+    @Scheduled(initialDelayString = "${leaderboards.refresh-ms:10000}", fixedDelayString = "${leaderboards.refresh-ms:10000}")
+    public int refresh() {
+        LocalDateTime since = refreshedSince;
+        if (projectorInstance || loading || since == null) {
+            return 0;
+        }
+        LocalDateTime next = LocalDateTime.now();
+        int applied = loadProgress(new Criteria().andOperator(
+            Criteria.where("overallPerformance.totalQuizzes").gt(0),
+            Criteria.where("updatedAt").gte(since.minusMinutes(CLOCK_SKEW_MINUTES))), null);
+        refreshedSince = next;
+        return applied;
+    }
+
+    /**
+     * Apply the scores of matching progress documents, or collect them into the given map
+     */
+    private int loadProgress(Criteria criteria, Map<String, Double> into) {
+        Query query = Query.query(criteria);
+        query.fields().include("studentEmail").include("courseId").include("overallScore");
+        int loaded = 0;
+        try (Stream<Document> stream = mongoTemplate.stream(query, Document.class,
+                mongoTemplate.getCollectionName(StudentProgress.class))) {
+            for (Document progress : (Iterable<Document>) stream::iterator) {
+                String email = progress.getString("studentEmail");
+                String courseId = progress.getString("courseId");
+                Number score = progress.get("overallScore", Number.class);
+                if (email == null || courseId == null || score == null) {
+                    continue;
+                }
+                if (into != null) {
+                    into.put(key(courseId, email), score.doubleValue());
+                    continue;
+                }
+                lock.writeLock().lock();
+                try {
+                    loaded += apply(courseId, email, score.doubleValue());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private int apply(String courseId, String email, double score) {
+        if (changedWhileLoading.contains(key(courseId, email))) {
+            return 0;  // A live update is newer
+        }
+        set(courseId, email, score);
+        return 1;
+    }
+
+    /**
+     * Write every course board to leaderboard_snapshots as a new generation, point current at it
+     * unless a newer generation got there first, then drop the older ones
+     *
+     * @return number of course scores written
+     */
+    @Scheduled(initialDelayString = "${leaderboards.snapshot-interval-ms:300000}",
+               fixedDelayString = "${leaderboards.snapshot-interval-ms:300000}")
+    public synchronized int snapshot() {
+        if (!projectorInstance || !dirty || loading) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        // Taken before copying: a score changed during the copy is re-read from progress on load
+        Date takenAt = new Date();
+        long generation = Math.max(takenAt.getTime(), lastGeneration + 1);
+        lastGeneration = generation;
+        dirty = false;
+
+        List<String> courseIds;
+        lock.readLock().lock();
+        try {
+            courseIds = new ArrayList<>(courses.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        int written = 0;
+        try {
+            for (String courseId : courseIds) {
+                List<String> members = new ArrayList<>();
+                List<Double> scores = new ArrayList<>();
+                lock.readLock().lock();
+                try {
+                    courses.get(courseId).forEach((member, score) -> {
+                        members.add(member);
+                        scores.add(score);
+                    });
+                } finally {
+                    lock.readLock().unlock();
+                }
+                for (int from = 0, chunk = 0; from < members.size(); from += chunkSize, chunk++) {
+                    int to = Math.min(members.size(), from + chunkSize);
+                    mongoTemplate.insert(List.of(new Document("_id", generation + ":" + courseId + ":" + chunk)
+                        .append("generation", generation)
+                        .append("courseId", courseId)
+                        .append("members", new ArrayList<>(members.subList(from, to)))
+                        .append("scores", new ArrayList<>(scores.subList(from, to)))), SNAPSHOTS);
+                }
+                written += members.size();
+            }
+            // Compare-and-set: only moves current forward; an older pointer fails with a duplicate _id
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(CURRENT).and("generation").lt(generation)),
+                new Update().set("generation", generation).set("takenAt", takenAt).set("scores", written), SNAPSHOTS);
+        } catch (DuplicateKeyException e) {
+            dirty = true;
+            mongoTemplate.remove(Query.query(Criteria.where("generation").is(generation)
+                .and("_id").ne(CURRENT)), SNAPSHOTS);
+            System.out.println("📸 Leaderboard snapshot skipped, a newer one was taken meanwhile");
+            return 0;
+        } catch (Exception e) {
+            dirty = true;
+            mongoTemplate.remove(Query.query(Criteria.where("generation").is(generation)
+                .and("_id").ne(CURRENT)), SNAPSHOTS);
+            System.err.println("❌ Leaderboard snapshot failed, retrying next run: " + e.getMessage());
+            return 0;
+        }
+        // Never a newer generation: another instance may have just pointed current at it
+        mongoTemplate.remove(Query.query(Criteria.where("generation").lt(generation).and("_id").ne(CURRENT)), SNAPSHOTS);
+        System.out.println("📸 Leaderboard snapshot: " + written + " course scores of " + courseIds.size()
+            + " courses in " + (System.currentTimeMillis() - start) + "ms");
+        return written;
+    }
+
+    private static String key(String courseId, String email) {
+        return courseId + "\u0000" + email;
+    }
+}
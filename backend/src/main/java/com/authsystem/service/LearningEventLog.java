@@ -0,0 +1,159 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Learning Event Log - Append-only log of student learning activity (learning_events)
+ * - Every event gets the next number of one dense sequence as its _id, so readers page through
+ *   the log by _id and notice a gap when an allocated number was never written
+ * - appendAll() reserves a whole block of numbers with one $inc and writes it with one insertMany
+ * - Nothing is updated or deleted; the read models are built from here by LearningEventProjector
+ * - A quiz result the client resubmitted after a timeout is logged again under its submission id;
+ *   the projector applies only the first event of each submission id
+ */
+@Service
+public class LearningEventLog {
+
+    static final String COUNTERS = "learning_event_counters";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private volatile boolean indexesEnsured;
+
+    /**
+     * Published after events were appended, so projectors can catch up right away
+     */
+    public record Appended(long lastSeq) {}
+
+    /**
+     * @return the sequence number of the appended event
+     */
+    public long append(LearningEvent event) {
+        return appendAll(Collections.singletonList(event));
+    }
+
+    /**
+     * Append events in the given order
+     *
+     * @return the sequence number of the last one, 0 if there were none
+     */
+    public long appendAll(List<LearningEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        ensureIndexes();
+        long last = reserve(events.size());
+        long seq = last - events.size();
+        List<Document> docs = new ArrayList<>(events.size());
+        for (LearningEvent event : events) {
+            event.setSeq(++seq);
+            docs.add(event.toBson());
+        }
+        mongoTemplate.insert(docs, LearningEvent.COLLECTION);
+        eventPublisher.publishEvent(new Appended(last));
+        return last;
+    }
+
+    /**
+     * Events after the given sequence number, oldest first
+     */
+    public List<LearningEvent> readAfter(long afterSeq, int limit) {
+        Query query = Query.query(Criteria.where(LearningEvent.SEQ).gt(afterSeq))
+            .with(Sort.by(Sort.Direction.ASC, LearningEvent.SEQ))
+            .limit(limit);
+        return decode(mongoTemplate.find(query, Document.class, LearningEvent.COLLECTION));
+    }
+
+    /**
+     * Events of one student and course after the given sequence number, oldest first
+     */
+    public List<LearningEvent> readStream(String email, String courseId, long afterSeq) {
+        Query query = Query.query(Criteria.where(LearningEvent.STUDENT).is(email)
+                .and(LearningEvent.COURSE).is(courseId)
+                .and(LearningEvent.SEQ).gt(afterSeq))
+            .with(Sort.by(Sort.Direction.ASC, LearningEvent.SEQ));
+        return decode(mongoTemplate.find(query, Document.class, LearningEvent.COLLECTION));
+    }
+
+    /**
+     * Which of the given client submission ids were already recorded by an event before the given sequence number
+     */
+    public Set<String> submittedBefore(Collection<String> submissionIds, long beforeSeq) {
+        if (submissionIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        ensureIndexes();
+        Query query = Query.query(Criteria.where(LearningEvent.SUBMISSION).in(submissionIds)
+            .and(LearningEvent.SEQ).lt(beforeSeq));
+        query.fields().include(LearningEvent.SUBMISSION);
+        Set<String> submitted = new HashSet<>();
+        for (Document doc : mongoTemplate.find(query, Document.class, LearningEvent.COLLECTION)) {
+            submitted.add(doc.getString(LearningEvent.SUBMISSION));
+        }
+        return submitted;
+    }
+
+    /**
+     * Highest sequence number handed out so far (its event may not be written yet)
+     */
+    public long lastAllocated() {
+        Document counter = mongoTemplate.findOne(Query.query(Criteria.where("_id").is(LearningEvent.COLLECTION)),
+            Document.class, COUNTERS);
+        return counter != null ? ((Number) counter.get("seq")).longValue() : 0;
+    }
+
+    private long reserve(int count) {
+        Document counter = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(LearningEvent.COLLECTION)),
+            new Update().inc("seq", (long) count), FindAndModifyOptions.options().returnNew(true).upsert(true),
+            Document.class, COUNTERS);
+        return ((Number) counter.get("seq")).longValue();
+    }
+
+    private static List<LearningEvent> decode(List<Document> docs) {
+        List<LearningEvent> events = new ArrayList<>(docs.size());
+        for (Document doc : docs) {
+            events.add(LearningEvent.fromBson(doc));
+        }
+        return events;
+    }
+
+    private void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        // auto-index-creation is off; the _id index already serves readAfter
+        mongoTemplate.indexOps(LearningEvent.COLLECTION).ensureIndex(new Index()
+            .on(LearningEvent.STUDENT, Sort.Direction.ASC)
+            .on(LearningEvent.COURSE, Sort.Direction.ASC)
+            .on(LearningEvent.SEQ, Sort.Direction.ASC)
+            .named("student_course_seq"));
+        // Only quiz results posted with a client submission id carry one
+        mongoTemplate.indexOps(LearningEvent.COLLECTION).ensureIndex(new Index()
+            .on(LearningEvent.SUBMISSION, Sort.Direction.ASC)
+            .sparse()
+            .named("submission"));
+        indexesEnsured = true;
+    }
+}
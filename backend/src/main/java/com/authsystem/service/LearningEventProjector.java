@@ -0,0 +1,446 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.RenameCollectionOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Learning Event Projector - Builds the read models from the learning event log in the background
+ * - One worker thread reads the log in batches and hands every projection the events after its
+ *   checkpoint (learning_projections); it wakes up on every append and polls for other instances'
+ * - The log is consumed strictly in sequence order; a gap is only skipped once the projector has
+ *   waited gap-timeout-ms for it (a number whose insert failed), so a slow append is never overtaken
+ * - Resubmitted quiz results (same client submission id) are dropped before any projection sees them
+ * - Every snapshot-every events a projection's collection is copied to learning_snapshots; a
+ *   rebuild restores the latest copy into a staging collection, swaps it in with a rename and
+ *   replays only the events after it
+ * Controllers that answer with a read model wait for it with awaitProjected (read-your-writes).
+ * Runs only where learning.events.projector.enabled is true, which must be exactly one instance.
+ */
+@Service
+public class LearningEventProjector {
+
+    static final String CHECKPOINTS = "learning_projections";
+    static final String SNAPSHOTS = "learning_snapshots";
+    private static final int SNAPSHOT_WRITE_BATCH = 500;
+    private static final String REBUILD_SUFFIX = "_rebuild";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private LearningEventLog eventLog;
+
+    @Autowired
+    private List<LearningProjection> projections;
+
+    @Value("${learning.events.projector.enabled:false}")
+    private boolean enabled;
+
+    @Value("${learning.events.batch-size:500}")
+    private int batchSize;
+
+    @Value("${learning.events.gap-timeout-ms:30000}")
+    private long gapTimeoutMs;
+
+    @Value("${learning.events.snapshot-every:50000}")
+    private long snapshotEvery;
+
+    @Value("${learning.events.read-your-writes-ms:2000}")
+    private long readYourWritesMs;
+
+    private final Map<String, Long> checkpoints = new ConcurrentHashMap<>();
+    private final Map<String, Long> snapshotSeqs = new ConcurrentHashMap<>();
+    // First missing seq of a gap → System.nanoTime() when the projector first ran into it
+    private final Map<Long, Long> gapsSeenAt = new ConcurrentHashMap<>();
+    private final AtomicBoolean catchUpQueued = new AtomicBoolean();
+    private final Object progressMonitor = new Object();
+    private ExecutorService worker;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            System.out.println("⏸️ Learning event projector disabled on this instance (LEARNING_PROJECTOR_ENABLED=true on one instance)");
+            return;
+        }
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "learning-projector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.submit(() -> {
+            try {
+                loadCheckpoints();
+                for (LearningProjection projection : projections) {
+                    if (!snapshotSeqs.containsKey(projection.name())) {
+                        // First run: keeps what was written before the log existed for rebuilds
+                        snapshot(projection);
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("❌ Learning event projector could not start: " + e.getMessage());
+            }
+        });
+        requestCatchUp();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    @EventListener
+    public void onAppended(LearningEventLog.Appended appended) {
+        requestCatchUp();
+    }
+
+    @Scheduled(fixedDelayString = "${learning.events.poll-ms:1000}")
+    public void poll() {
+        requestCatchUp();
+    }
+
+    private void requestCatchUp() {
+        if (worker != null && catchUpQueued.compareAndSet(false, true)) {
+            worker.submit(() -> {
+                catchUpQueued.set(false);
+                try {
+                    catchUp();
+                } catch (Exception e) {
+                    System.err.println("❌ Learning event projection failed, retrying on the next poll: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Apply everything that is in the log to every projection
+     *
+     * @return number of log events processed
+     */
+    public synchronized int catchUp() {
+        if (checkpoints.isEmpty()) {
+            loadCheckpoints();
+        }
+        Set<String> failed = new HashSet<>();
+        int processed = 0;
+        while (true) {
+            long from = Long.MAX_VALUE;
+            for (LearningProjection projection : projections) {
+                if (!failed.contains(projection.name())) {
+                    from = Math.min(from, checkpoint(projection.name()));
+                }
+            }
+            if (from == Long.MAX_VALUE) {
+                break;
+            }
+            List<LearningEvent> batch = eventLog.readAfter(from, batchSize);
+            List<LearningEvent> ready = contiguous(from, batch);
+            if (ready.isEmpty()) {
+                break;
+            }
+            long last = ready.get(ready.size() - 1).getSeq();
+            List<LearningEvent> firstSubmissions = withoutResubmissions(ready);
+            for (LearningProjection projection : projections) {
+                long checkpoint = checkpoint(projection.name());
+                if (failed.contains(projection.name()) || checkpoint >= last) {
+                    continue;
+                }
+                List<LearningEvent> pending = new ArrayList<>();
+                for (LearningEvent event : firstSubmissions) {
+                    if (event.getSeq() > checkpoint) {
+                        pending.add(event);
+                    }
+                }
+                try {
+                    if (!pending.isEmpty()) {
+                        projection.apply(pending);
+                    }
+                    saveCheckpoint(projection.name(), last);
+                    if (last - snapshotSeqs.getOrDefault(projection.name(), 0L) >= snapshotEvery) {
+                        snapshot(projection);
+                    }
+                } catch (Exception e) {
+                    // Retried from its checkpoint on the next catch-up; the others keep going
+                    failed.add(projection.name());
+                    System.err.println("❌ Projection " + projection.name() + " failed at seq " + (checkpoint + 1)
+                        + ": " + e.getMessage());
+                }
+            }
+            processed += ready.size();
+            if (ready.size() < batch.size() || batch.size() < batchSize) {
+                break;  // Stopped at a gap, or reached the end of the log
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * The leading events of a batch that directly follow from, skipping only gaps this projector has
+     * been waiting on for gap-timeout-ms
+     * The wait is timed from when the gap was first seen here, never from event timestamps: retried
+     * and replayed appends carry their original times and would otherwise skip a number still being written
+     */
+    private List<LearningEvent> contiguous(long from, List<LearningEvent> batch) {
+        List<LearningEvent> ready = new ArrayList<>(batch.size());
+        long expected = from + 1;
+        for (LearningEvent event : batch) {
+            if (event.getSeq() != expected) {
+                long firstSeen = gapsSeenAt.computeIfAbsent(expected, seq -> System.nanoTime());
+                if (System.nanoTime() - firstSeen < gapTimeoutMs * 1_000_000) {
+                    break;  // The missing events may still be on their way
+                }
+                System.err.println("⚠️ Learning events " + expected + ".." + (event.getSeq() - 1) + " were never written, skipping");
+            }
+            ready.add(event);
+            expected = event.getSeq() + 1;
+        }
+        long next = expected;
+        gapsSeenAt.keySet().removeIf(seq -> seq < next);
+        return ready;
+    }
+
+    /**
+     * The events of a batch without the resubmissions of a quiz result that is already in the log
+     * (a client that timed out waiting for its acknowledgement posts it again with the same submission id)
+     */
+    private List<LearningEvent> withoutResubmissions(List<LearningEvent> ready) {
+        Set<String> submissionIds = new HashSet<>();
+        for (LearningEvent event : ready) {
+            if (event.getSubmissionId() != null) {
+                submissionIds.add(event.getSubmissionId());
+            }
+        }
+        if (submissionIds.isEmpty()) {
+            return ready;
+        }
+        Set<String> seen = eventLog.submittedBefore(submissionIds, ready.get(0).getSeq());
+        List<LearningEvent> first = new ArrayList<>(ready.size());
+        for (LearningEvent event : ready) {
+            if (event.getSubmissionId() != null && !seen.add(event.getSubmissionId())) {
+                System.out.println("🔁 Learning event " + event.getSeq() + " resubmits " + event.getSubmissionId() + ", skipping");
+                continue;
+            }
+            first.add(event);
+        }
+        return first;
+    }
+
+    /**
+     * Wait until a projection has applied the given event, at most read-your-writes-ms
+     *
+     * @return false on timeout
+     */
+    public boolean awaitProjected(String projection, long seq) {
+        if (worker == null) {
+            return false;  // Another instance projects; its progress is not visible here
+        }
+        requestCatchUp();
+        long deadline = System.currentTimeMillis() + readYourWritesMs;
+        synchronized (progressMonitor) {
+            while (checkpoint(projection) < seq) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    System.err.println("⚠️ Projection " + projection + " has not reached seq " + seq + " yet, answering with older state");
+                    return false;
+                }
+                try {
+                    progressMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy the projection's collection, as of its current checkpoint, to learning_snapshots
+     */
+    public synchronized void snapshot(LearningProjection projection) {
+        long start = System.currentTimeMillis();
+        long seq = checkpoint(projection.name());
+        String snapshotId = new ObjectId().toHexString();
+        int documents = 0;
+        List<Document> batch = new ArrayList<>();
+        try (Stream<Document> stream = mongoTemplate.stream(new Query(), Document.class, projection.collection())) {
+            for (Document doc : (Iterable<Document>) stream::iterator) {
+                batch.add(new Document("p", projection.name()).append("sid", snapshotId).append("d", doc));
+                documents++;
+                if (batch.size() >= SNAPSHOT_WRITE_BATCH) {
+                    mongoTemplate.insert(batch, SNAPSHOTS);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, SNAPSHOTS);
+        }
+        // Switch to the new snapshot only once it is complete, then drop the older ones
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(projection.name())),
+            new Update().set("snapshot", new Document("sid", snapshotId).append("seq", seq)
+                .append("documents", documents).append("takenAt", new Date())),
+            CHECKPOINTS);
+        mongoTemplate.remove(Query.query(Criteria.where("p").is(projection.name()).and("sid").ne(snapshotId)), SNAPSHOTS);
+        snapshotSeqs.put(projection.name(), seq);
+        System.out.println("📸 Snapshot of " + projection.name() + " at seq " + seq + ": " + documents + " documents in "
+            + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Replace a projection's collection with its latest snapshot and replay the events after it,
+     * or let the projection recompute itself from the log if it can
+     *
+     * @return number of log events replayed
+     */
+    public synchronized int rebuild(String name) {
+        LearningProjection projection = projections.stream()
+            .filter(candidate -> candidate.name().equals(name))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown projection: " + name));
+        long start = System.currentTimeMillis();
+
+        long upTo = checkpoint(name);
+        if (projection.rebuildFromLog(upTo)) {
+            int replayed = catchUp();
+            System.out.println("🔁 Rebuilt " + name + " from the log up to seq " + upTo + ", replayed " + replayed
+                + " events in " + (System.currentTimeMillis() - start) + "ms");
+            return replayed;
+        }
+
+        Document state = mongoTemplate.findOne(Query.query(Criteria.where("_id").is(name)), Document.class, CHECKPOINTS);
+        Document snapshot = state != null ? state.get("snapshot", Document.class) : null;
+        // Restore into a staging collection while the live one keeps serving reads
+        String staging = projection.collection() + REBUILD_SUFFIX;
+        mongoTemplate.dropCollection(staging);
+        mongoTemplate.createCollection(staging);
+        copyIndexes(projection.collection(), staging);
+        long seq = 0;
+        if (snapshot != null) {
+            Query query = Query.query(Criteria.where("p").is(name).and("sid").is(snapshot.getString("sid")));
+            List<Document> batch = new ArrayList<>();
+            try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, SNAPSHOTS)) {
+                for (Document copy : (Iterable<Document>) stream::iterator) {
+                    batch.add(copy.get("d", Document.class));
+                    if (batch.size() >= SNAPSHOT_WRITE_BATCH) {
+                        mongoTemplate.insert(batch, staging);
+                        batch = new ArrayList<>();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                mongoTemplate.insert(batch, staging);
+            }
+            seq = ((Number) snapshot.get("seq")).longValue();
+        }
+        // Checkpoint first: a crash before the swap only replays events the projections tolerate twice
+        saveCheckpoint(name, seq);
+        // One rename swaps the restored copy in - readers never see an empty or half-filled collection
+        mongoTemplate.getCollection(staging).renameCollection(
+            new MongoNamespace(mongoTemplate.getDb().getName(), projection.collection()),
+            new RenameCollectionOptions().dropTarget(true));
+
+        int replayed = catchUp();
+        System.out.println("🔁 Rebuilt " + name + " from " + (snapshot != null ? "snapshot at seq " + seq : "an empty collection")
+            + ", replayed " + replayed + " events in " + (System.currentTimeMillis() - start) + "ms");
+        return replayed;
+    }
+
+    /**
+     * Recreate the indexes of a collection on another one, so the swapped-in copy keeps them
+     */
+    private void copyIndexes(String from, String to) {
+        for (IndexInfo info : mongoTemplate.indexOps(from).getIndexInfo()) {
+            if ("_id_".equals(info.getName())) {
+                continue;
+            }
+            Index index = new Index().named(info.getName());
+            for (IndexField field : info.getIndexFields()) {
+                index.on(field.getKey(), field.getDirection() != null ? field.getDirection() : Sort.Direction.ASC);
+            }
+            if (info.isUnique()) {
+                index.unique();
+            }
+            if (info.isSparse()) {
+                index.sparse();
+            }
+            if (info.getPartialFilterExpression() != null) {
+                index.partial(PartialIndexFilter.of(Document.parse(info.getPartialFilterExpression())));
+            }
+            info.getExpireAfter().ifPresent(index::expire);
+            mongoTemplate.indexOps(to).ensureIndex(index);
+        }
+    }
+
+    /**
+     * Checkpoint, lag behind the log and latest snapshot of every projection
+     */
+    public List<Map<String, Object>> status() {
+        long lastAllocated = eventLog.lastAllocated();
+        List<Map<String, Object>> status = new ArrayList<>();
+        for (LearningProjection projection : projections) {
+            Map<String, Object> entry = new HashMap<>();
+            long checkpoint = checkpoint(projection.name());
+            entry.put("name", projection.name());
+            entry.put("checkpoint", checkpoint);
+            entry.put("lag", Math.max(0, lastAllocated - checkpoint));
+            entry.put("snapshotSeq", snapshotSeqs.get(projection.name()));
+            status.add(entry);
+        }
+        return status;
+    }
+
+    long checkpoint(String name) {
+        return checkpoints.getOrDefault(name, 0L);
+    }
+
+    private void saveCheckpoint(String name, long seq) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(name)), new Update().set("seq", seq), CHECKPOINTS);
+        checkpoints.put(name, seq);
+        synchronized (progressMonitor) {
+            progressMonitor.notifyAll();
+        }
+    }
+
+    private void loadCheckpoints() {
+        for (Document state : mongoTemplate.find(new Query(), Document.class, CHECKPOINTS)) {
+            String name = state.getString("_id");
+            Number seq = state.get("seq", Number.class);
+            checkpoints.put(name, seq != null ? seq.longValue() : 0L);
+            Document snapshot = state.get("snapshot", Document.class);
+            if (snapshot != null) {
+                snapshotSeqs.put(name, ((Number) snapshot.get("seq")).longValue());
+            }
+        }
+        for (LearningProjection projection : projections) {
+            checkpoints.putIfAbsent(projection.name(), 0L);
+        }
+    }
+}
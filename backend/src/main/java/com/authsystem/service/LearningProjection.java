@@ -0,0 +1,39 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+
+import java.util.List;
+
+/**
+ * A read model built from the learning event log by LearningEventProjector
+ * Implementations must tolerate seeing an event twice: after a crash the projector replays
+ * everything after the last saved checkpoint. Each one owns its collection completely, which
+ * is what snapshots copy and a rebuild replaces.
+ */
+public interface LearningProjection {
+
+    /**
+     * Stable name, used for the checkpoint and the snapshots
+     */
+    String name();
+
+    /**
+     * Collection holding the read model
+     */
+    String collection();
+
+    /**
+     * Apply a batch of events in sequence order
+     */
+    void apply(List<LearningEvent> events);
+
+    /**
+     * Recompute the read model straight from the log, up to and including the given sequence
+     * number, instead of restoring the latest snapshot; the projector is paused meanwhile
+     *
+     * @return false if the projection has no such rebuild and restores its snapshot
+     */
+    default boolean rebuildFromLog(long upTo) {
+        return false;
+    }
+}
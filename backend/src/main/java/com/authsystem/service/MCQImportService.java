@@ -0,0 +1,421 @@
+package com.authsystem.service;
+
+import com.authsystem.model.MCQ;
+import com.authsystem.model.Topic;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * MCQ Import Service - Imports question bank files of any size into a topic
+ * - CSV (header row: question, option1..optionN or options split on |, correctAnswerIndex,
+ *   explanation, points) or JSON (an array of MCQs, or an object with an mcqs array)
+ * - The file is read one question at a time (Jackson streaming parser / CSV reader) and validated
+ *   like bulk-create; valid questions go in batches of chunk-size through a bounded queue to one
+ *   writer thread doing unordered bulk inserts, so parsing overlaps writing and memory stays the
+ *   same for a thousand questions or a million
+ * - Progress is written as NDJSON lines while the import runs: a progress line per batch, an error
+ *   line per rejected question (up to max-reported-errors), and a final done line
+ * - A file that stops parsing part way keeps what was imported before that point
+ */
+@Service
+public class MCQImportService {
+
+    public enum Format { CSV, JSON }
+
+    public record Summary(long read, long created, long failed, String error) {}
+
+    private record Batch(List<MCQ> mcqs, List<Integer> positions) {}
+
+    private static final Batch END = new Batch(List.of(), List.of());
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final int MAX_CSV_FIELD_CHARS = 100_000;
+
+    @Autowired
+    private BulkContentService bulkContentService;
+
+    @Autowired
+    private CourseContentCountService courseContentCountService;
+
+    @Autowired
+    private ContentVersionService contentVersionService;
+
+    @Value("${bulk.insert.chunk-size:1000}")
+    private int batchSize;
+
+    @Value("${mcq.import.queue-batches:4}")
+    private int queueBatches;
+
+    @Value("${mcq.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /**
+     * Read the file into the topic, writing progress to out; call from inside a StreamingResponseBody
+     *
+     * @param courseId optional; when given the MCQs belong to the course and its MCQ counts are updated
+     */
+    public Summary importMcqs(Topic topic, String courseId, Format format, InputStream in, OutputStream out)
+            throws IOException {
+        ArrayBlockingQueue<Batch> queue = new ArrayBlockingQueue<>(Math.max(1, queueBatches));
+        AtomicLong created = new AtomicLong();
+        ConcurrentLinkedQueue<BulkContentService.ItemError> rejected = new ConcurrentLinkedQueue<>();
+        AtomicReference<Exception> writerError = new AtomicReference<>();
+        boolean countCourse = courseId != null && !courseId.isEmpty();
+
+        Thread writer = new Thread(() -> {
+            try {
+                // One content version bump for the whole file
+                contentVersionService.bumpOnceAfter(() -> {
+                    while (true) {
+                        Batch batch;
+                        try {
+                            batch = queue.take();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return null;
+                        }
+                        if (batch == END) {
+                            return null;
+                        }
+                        List<BulkContentService.ItemError> failed = new ArrayList<>();
+                        List<MCQ> inserted = bulkContentService.insert(batch.mcqs(), batch.positions(), MCQ.class, failed);
+                        if (countCourse && !inserted.isEmpty()) {
+                            courseContentCountService.incrementMcqCount(courseId, topic.getName(), inserted.size());
+                        }
+                        created.addAndGet(inserted.size());
+                        rejected.addAll(failed);
+                    }
+                });
+            } catch (Exception e) {
+                writerError.set(e);
+            }
+        }, "mcq-import-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        Writer progress = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long read = 0;
+        long failed = 0;
+        String error = null;
+        LocalDateTime now = LocalDateTime.now();
+        List<MCQ> mcqs = new ArrayList<>(batchSize);
+        List<Integer> positions = new ArrayList<>(batchSize);
+        try {
+            try {
+                RowReader rows = format == Format.CSV ? new CsvRows(in) : new JsonRows(in);
+                Object row;
+                while ((row = rows.next()) != null) {
+                    int index = (int) read++;
+                    String invalid = BulkContentService.validateMcq(row);
+                    if (invalid != null) {
+                        failed++;
+                        reportError(progress, failed, index, invalid);
+                    } else {
+                        mcqs.add(BulkContentService.toMcq(topic, courseId, (Map<?, ?>) row, now));
+                        positions.add(index);
+                    }
+                    if (mcqs.size() == batchSize) {
+                        enqueue(queue, new Batch(mcqs, positions), writer, writerError);
+                        mcqs = new ArrayList<>(batchSize);
+                        positions = new ArrayList<>(batchSize);
+                        failed += drainRejected(rejected, progress, failed);
+                        writeLine(progress, progressLine("progress", read, created.get(), failed));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Malformed file or a writer that stopped: what was already queued is still written
+                error = e.getMessage();
+            }
+            if (!mcqs.isEmpty()) {
+                try {
+                    enqueue(queue, new Batch(mcqs, positions), writer, writerError);
+                } catch (IllegalStateException e) {
+                    error = error != null ? error : e.getMessage();
+                }
+            }
+        } finally {
+            finish(queue, writer);
+        }
+        if (writerError.get() != null && error == null) {
+            error = "Import stopped: " + writerError.get().getMessage();
+        }
+
+        failed += drainRejected(rejected, progress, failed);
+        Map<String, Object> done = progressLine("done", read, created.get(), failed);
+        if (error != null) {
+            done.put("error", error);
+        }
+        System.out.println((error == null ? "📥" : "⚠️") + " MCQ import into topic " + topic.getName() + ": " + read
+            + " read, " + created.get() + " created, " + failed + " rejected" + (error == null ? "" : " - " + error));
+        writeLine(progress, done);
+        return new Summary(read, created.get(), failed, error);
+    }
+
+    private static void enqueue(ArrayBlockingQueue<Batch> queue, Batch batch, Thread writer,
+                                AtomicReference<Exception> writerError) {
+        try {
+            while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+                if (!writer.isAlive()) {
+                    throw new IllegalStateException("Import stopped: " + (writerError.get() != null
+                        ? writerError.get().getMessage() : "writer ended"));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        }
+    }
+
+    /**
+     * Let the writer finish what is queued, then wait for it
+     */
+    private static void finish(ArrayBlockingQueue<Batch> queue, Thread writer) {
+        try {
+            while (writer.isAlive() && !queue.offer(END, 1, TimeUnit.SECONDS)) {
+                // Writer is still busy with a full queue
+            }
+            writer.join();
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return number of rejections drained
+     */
+    private long drainRejected(ConcurrentLinkedQueue<BulkContentService.ItemError> rejected, Writer progress,
+                               long failedSoFar) throws IOException {
+        long drained = 0;
+        BulkContentService.ItemError error;
+        while ((error = rejected.poll()) != null) {
+            drained++;
+            reportError(progress, failedSoFar + drained, error.index(), error.error());
+        }
+        return drained;
+    }
+
+    private void reportError(Writer progress, long failedSoFar, int index, String error) throws IOException {
+        if (failedSoFar <= maxReportedErrors) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("type", "error");
+            line.put("index", index);
+            line.put("error", error);
+            progress.write(JSON.writeValueAsString(line));
+            progress.write('\n');
+        }
+    }
+
+    private static Map<String, Object> progressLine(String type, long read, long created, long failed) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("type", type);
+        line.put("read", read);
+        line.put("created", created);
+        line.put("failed", failed);
+        return line;
+    }
+
+    private static void writeLine(Writer progress, Map<String, Object> line) throws IOException {
+        progress.write(JSON.writeValueAsString(line));
+        progress.write('\n');
+        progress.flush();
+    }
+
+    /**
+     * One question of the file at a time, in the shape bulk-create takes; null at the end
+     */
+    private interface RowReader {
+        Object next() throws IOException;
+    }
+
+    private static class JsonRows implements RowReader {
+
+        private final JsonParser parser;
+
+        JsonRows(InputStream in) throws IOException {
+            parser = JSON.getFactory().createParser(in);
+            JsonToken first = parser.nextToken();
+            if (first == JsonToken.START_OBJECT) {
+                // {"topicId": ..., "mcqs": [...]} as sent to bulk-create
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (("mcqs".equals(field) || "questions".equals(field)) && value == JsonToken.START_ARRAY) {
+                        return;
+                    }
+                    parser.skipChildren();
+                }
+            } else if (first == JsonToken.START_ARRAY) {
+                return;
+            }
+            throw new IOException("Expected a JSON array of MCQs or an object with an mcqs array");
+        }
+
+        @Override
+        public Object next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new IOException("Unexpected end of JSON at " + parser.currentLocation().toString());
+            }
+            if (token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            return JSON.readValue(parser, Object.class);
+        }
+    }
+
+    private static class CsvRows implements RowReader {
+
+        private final Reader in;
+        private final int questionColumn;
+        private final int optionsColumn;
+        private final List<Integer> optionColumns = new ArrayList<>();
+        private final int answerColumn;
+        private final int explanationColumn;
+        private final int pointsColumn;
+        private final StringBuilder field = new StringBuilder();
+        private final List<String> record = new ArrayList<>();
+        private long records;
+
+        CsvRows(InputStream in) throws IOException {
+            this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new IOException("The CSV file is empty");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase().replaceAll("[\\s_]", "");
+                columns.putIfAbsent(name, i);
+                if (name.startsWith("option") && !name.equals("options")) {
+                    optionColumns.add(i);
+                }
+            }
+            questionColumn = columns.getOrDefault("question", -1);
+            if (questionColumn < 0) {
+                throw new IOException("The CSV header must have a question column");
+            }
+            optionsColumn = columns.getOrDefault("options", -1);
+            answerColumn = columns.getOrDefault("correctanswerindex", -1);
+            explanationColumn = columns.getOrDefault("explanation", -1);
+            pointsColumn = columns.getOrDefault("points", -1);
+        }
+
+        @Override
+        public Object next() throws IOException {
+            List<String> values;
+            do {
+                values = readRecord();
+            } while (values != null && values.size() == 1 && values.get(0).isBlank());
+            if (values == null) {
+                return null;
+            }
+            Map<String, Object> mcq = new HashMap<>();
+            mcq.put("question", cell(values, questionColumn));
+            List<String> options = new ArrayList<>();
+            if (optionsColumn >= 0 && cell(values, optionsColumn) != null) {
+                for (String option : cell(values, optionsColumn).split("\\|")) {
+                    options.add(option.trim());
+                }
+            }
+            for (int column : optionColumns) {
+                if (cell(values, column) != null) {
+                    options.add(cell(values, column));
+                }
+            }
+            mcq.put("options", options);
+            mcq.put("correctAnswerIndex", number(cell(values, answerColumn)));
+            mcq.put("explanation", cell(values, explanationColumn));
+            mcq.put("points", number(cell(values, pointsColumn)));
+            return mcq;
+        }
+
+        private static String cell(List<String> values, int column) {
+            if (column < 0 || column >= values.size() || values.get(column).isBlank()) {
+                return null;
+            }
+            return values.get(column).trim();
+        }
+
+        // Whole numbers become Integers; anything else is left as text for validation to reject
+        private static Object number(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+
+        /**
+         * One RFC 4180 record (quoted fields may hold commas, quotes and line breaks); null at the end
+         */
+        private List<String> readRecord() throws IOException {
+            record.clear();
+            field.setLength(0);
+            int c = in.read();
+            if (c < 0) {
+                return null;
+            }
+            records++;
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new IOException("Unterminated quoted field in CSV record " + records);
+                    }
+                    if (c == '"') {
+                        c = in.read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    }
+                    append(c);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c < 0) {
+                    break;
+                } else if (c == '\r') {
+                    c = in.read();
+                    if (c == '\n' || c < 0) {
+                        break;
+                    }
+                    continue;
+                } else {
+                    append(c);
+                }
+                c = in.read();
+            }
+            record.add(field.toString());
+            return record;
+        }
+
+        private void append(int c) throws IOException {
+            if (field.length() >= MAX_CSV_FIELD_CHARS) {
+                throw new IOException("CSV field longer than " + MAX_CSV_FIELD_CHARS + " characters in record " + records);
+            }
+            field.append((char) c);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.model.StudentProgress;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Progress Telemetry Buffer - Write-behind for video-watch and PDF-view heartbeats
+ * - Events are collected in memory and appended to the learning event log with one insertMany;
+ *   StudentProgressProjection then merges them into one update per student and course
+ * - Flushes run every progress.telemetry.flush-interval-ms, or as soon as the buffer holds
+ *   max-pending-events events or max-pending-students students
+ * - Every event is written to the journal before it is acknowledged, and a journal segment is only
+ *   deleted after its flush succeeded: a process crash loses nothing, while a machine or power
+ *   failure loses at most the events of the last journal-sync-ms, which the OS had not written to
+ *   disk yet (a crash between the append and the delete appends that segment once more)
+ * - Until an event is flushed, and after that until StudentProgressProjection has applied it,
+ *   withPending adds it to progress documents that are read, so the projection delay never shows
+ * Flushes go through the log rather than a direct $inc on student_progress: the projection applies
+ * events in sequence order and guards every update with projectedSeq, which a write outside the
+ * log would break (an earlier quiz result would then be skipped, a retried flush counted twice).
+ */
+@Service
+public class ProgressTelemetryBuffer {
+
+    @Autowired
+    private LearningEventLog eventLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${progress.telemetry.journal-dir:data/progress-journal}")
+    private String journalDir;
+
+    @Value("${progress.telemetry.max-pending-events:20000}")
+    private int maxPendingEvents;
+
+    @Value("${progress.telemetry.max-pending-students:5000}")
+    private int maxPendingStudents;
+
+    // How long flushed events are added to reads at most, when the projection has not confirmed them
+    @Value("${progress.telemetry.unprojected-retention-ms:60000}")
+    private long unprojectedRetentionMs;
+
+    // Recording holds the read lock, swapping buffer and journal segment for a flush the write lock
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+    private volatile Map<String, Pending> buffer = new ConcurrentHashMap<>();
+    private volatile Queue<Entry> events = new ConcurrentLinkedQueue<>();
+    // Flushed, possibly not yet projected, oldest first per student and course
+    private final Map<String, Deque<Pending>> unprojected = new ConcurrentHashMap<>();
+    private TelemetryJournal journal;
+
+    /**
+     * One buffered event, also its journal line
+     *
+     * @param activityType "VIDEO" or "PDF"
+     */
+    public record Entry(String studentEmail, String courseId, String topicName, int seconds, String activityType,
+                        String title, LocalDateTime recordedAt) {
+
+        LearningEvent toEvent() {
+            LearningEvent event = LearningEvent.mediaTime(activityType, studentEmail, courseId, topicName, title, seconds);
+            event.setRecordedAt(recordedAt);
+            return event;
+        }
+    }
+
+    @PostConstruct
+    public void open() {
+        journal = new TelemetryJournal(Paths.get(journalDir));
+        TelemetryJournal.Recovered recovered = journal.open();
+        if (recovered.lines().isEmpty()) {
+            journal.delete(recovered.segments());
+            return;
+        }
+        // Move what the last run did not flush into the new segment, then flush it
+        for (String line : recovered.lines()) {
+            try {
+                record(objectMapper.readValue(line, Entry.class));
+            } catch (JsonProcessingException e) {
+                System.err.println("⚠️ Skipping unreadable telemetry journal line: " + e.getOriginalMessage());
+            }
+        }
+        journal.delete(recovered.segments());
+        System.out.println("🔁 Replayed " + recovered.lines().size() + " buffered progress events from the journal");
+        flush();
+    }
+
+    /**
+     * Buffer time spent on a video or PDF
+     *
+     * @param activityType "VIDEO" or "PDF"
+     */
+    public void recordMediaTime(String email, String courseId, String topicName, int timeSpentSeconds,
+                                String activityType, String title) {
+        record(new Entry(email, courseId, topicName, timeSpentSeconds, activityType, title, LocalDateTime.now()));
+
+        if (pendingEvents.get() >= maxPendingEvents || buffer.size() >= maxPendingStudents) {
+            flush();
+        }
+    }
+
+    private void record(Entry entry) {
+        String line;
+        try {
+            line = objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot journal progress event: " + e.getOriginalMessage(), e);
+        }
+        swapLock.readLock().lock();
+        try {
+            journal.append(line);
+            events.add(entry);
+            buffer.computeIfAbsent(key(entry.studentEmail(), entry.courseId()), k -> new Pending()).merge(entry.toEvent());
+            pendingEvents.incrementAndGet();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Append all buffered events to the learning event log
+     *
+     * @return number of students whose events were appended
+     */
+    @Scheduled(fixedDelayString = "${progress.telemetry.flush-interval-ms:5000}")
+    public int flush() {
+        if (!flushLock.tryLock()) {
+            return 0;  // Another thread is flushing
+        }
+        try {
+            Map<String, Pending> drained;
+            Queue<Entry> drainedEvents;
+            Path sealed;
+            swapLock.writeLock().lock();
+            try {
+                drained = buffer;
+                drainedEvents = events;
+                buffer = new ConcurrentHashMap<>();
+                events = new ConcurrentLinkedQueue<>();
+                pendingEvents.set(0);
+                sealed = journal.rotate();
+                // Reads keep seeing these events while they are appended and projected
+                drained.forEach((key, pending) ->
+                    unprojected.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>()).add(pending));
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            int written = 0;
+            if (!drainedEvents.isEmpty()) {
+                try {
+                    List<LearningEvent> appended = new ArrayList<>(drainedEvents.size());
+                    for (Entry entry : drainedEvents) {
+                        appended.add(entry.toEvent());
+                    }
+                    eventLog.appendAll(appended);
+                    written = drained.size();
+                    long flushedAt = System.currentTimeMillis();
+                    for (LearningEvent event : appended) {
+                        drained.get(key(event.getStudentEmail(), event.getCourseId())).appended(event.getSeq(), flushedAt);
+                    }
+                } catch (Exception e) {
+                    // Keep the events: back into the buffer and the active segment before the sealed one goes
+                    System.err.println("❌ Progress telemetry flush failed, retrying next run: " + e.getMessage());
+                    for (Entry entry : drainedEvents) {
+                        record(entry);
+                    }
+                    drained.forEach((key, pending) -> unprojected.computeIfPresent(key, (k, flushed) -> {
+                        flushed.remove(pending);
+                        return flushed.isEmpty() ? null : flushed;
+                    }));
+                }
+            }
+            journal.delete(Collections.singletonList(sealed));
+            dropUnprojectedBefore(System.currentTimeMillis() - unprojectedRetentionMs);
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${progress.telemetry.journal-sync-ms:1000}")
+    public void syncJournal() {
+        journal.sync();
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Add what is still buffered for this student and course to a progress document read from MongoDB
+     */
+    public StudentProgress withPending(StudentProgress progress) {
+        if (progress == null) {
+            return null;
+        }
+        String key = key(progress.getStudentEmail(), progress.getCourseId());
+        Deque<Pending> flushed = unprojected.get(key);
+        if (flushed != null) {
+            long projectedSeq = progress.getProjectedSeq();
+            // A flush the projection has fully applied is in the document already
+            flushed.removeIf(done -> done.lastSeq > 0 && done.lastSeq <= projectedSeq);
+            for (Pending pending : flushed) {
+                if (pending.firstSeq > projectedSeq) {
+                    pending.applyTo(progress);
+                }
+            }
+        }
+        Pending pending = buffer.get(key);
+        if (pending != null) {
+            pending.applyTo(progress);
+        }
+        return progress;
+    }
+
+    /**
+     * Stop adding flushes to reads that the projection should long have applied (or that another
+     * instance projects, whose progress is not seen here)
+     */
+    private void dropUnprojectedBefore(long flushedBefore) {
+        unprojected.values().removeIf(flushed -> {
+            flushed.removeIf(pending -> pending.lastSeq > 0 && pending.flushedAt < flushedBefore);
+            return flushed.isEmpty();
+        });
+    }
+
+    private static String key(String email, String courseId) {
+        return email + "\u0000" + courseId;
+    }
+
+    /**
+     * Merged, not yet flushed events of one student and course, for reads
+     */
+    private static class Pending {
+        // Summed before converting: 30-second heartbeats add up to minutes even though each is less than one
+        private long seconds;
+        private final Map<String, Long> topicSeconds = new HashMap<>();
+        // Newest first, at most MAX_RECENT_ACTIVITIES
+        private final LinkedList<StudentProgress.ActivityLog> activities = new LinkedList<>();
+        private LocalDateTime lastActivity;
+        // Set by the flush that appended these events; lastSeq stays 0 until then
+        private volatile long firstSeq = Long.MAX_VALUE;
+        private volatile long lastSeq;
+        private volatile long flushedAt;
+
+        synchronized void appended(long seq, long flushedAt) {
+            firstSeq = Math.min(firstSeq, seq);
+            lastSeq = Math.max(lastSeq, seq);
+            this.flushedAt = flushedAt;
+        }
+
+        synchronized void merge(LearningEvent event) {
+            seconds += event.getSeconds();
+            if (CourseContentCountService.isSafeFieldName(event.getTopicName())) {
+                topicSeconds.merge(event.getTopicName(), event.getSeconds(), Long::sum);
+            }
+            // Re-queued events can be older than what is already buffered, so keep them sorted
+            activities.add(StudentProgressService.mediaActivity(event));
+            activities.sort(Comparator.comparing(StudentProgress.ActivityLog::getTimestamp,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+            while (activities.size() > StudentProgressService.MAX_RECENT_ACTIVITIES) {
+                activities.removeLast();
+            }
+            if (lastActivity == null || (event.getRecordedAt() != null && event.getRecordedAt().isAfter(lastActivity))) {
+                lastActivity = event.getRecordedAt();
+            }
+        }
+
+        synchronized void applyTo(StudentProgress progress) {
+            progress.setTotalTimeSpentMinutes(progress.getTotalTimeSpentMinutes() + (int) (seconds / 60));
+            topicSeconds.forEach((topic, seconds) -> {
+                StudentProgress.TopicMastery mastery = progress.getTopicMastery()
+                    .computeIfAbsent(topic, k -> new StudentProgress.TopicMastery());
+                mastery.setTimeSpent(mastery.getTimeSpent() + seconds);
+                mastery.setLastAttemptDate(lastActivity);
+            });
+            List<StudentProgress.ActivityLog> merged = new ArrayList<>(activities);
+            if (progress.getRecentActivities() != null) {
+                merged.addAll(progress.getRecentActivities());
+            }
+            progress.setRecentActivities(new ArrayList<>(
+                merged.subList(0, Math.min(merged.size(), StudentProgressService.MAX_RECENT_ACTIVITIES))));
+            progress.setLastActivityDate(lastActivity);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.model.QuizAttempt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Projects every recorded quiz attempt onto quiz_attempts (read by the recommendations)
+ * The document id is derived from the event, so a replayed event overwrites its own attempt.
+ * A batch is written with one unordered bulk of replace-upserts; bulk replacements raise the same
+ * AfterSaveEvents as save(), which keeps QuizAttemptChangePublisher invalidating cached recommendations.
+ */
+@Component
+public class QuizAttemptProjection implements LearningProjection {
+
+    public static final String NAME = "quiz_attempts";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String collection() {
+        return mongoTemplate.getCollectionName(QuizAttempt.class);
+    }
+
+    @Override
+    public void apply(List<LearningEvent> events) {
+        BulkOperations bulk = null;
+        for (LearningEvent event : events) {
+            if (event.getType() != LearningEvent.Type.QUIZ_ATTEMPT) {
+                continue;
+            }
+            QuizAttempt attempt = new QuizAttempt();
+            // A resubmitted result lands on the attempt of its first submission
+            attempt.setId(event.getSubmissionId() != null ? "qs-" + event.getSubmissionId() : "le-" + event.getSeq());
+            attempt.setStudentEmail(event.getStudentEmail());
+            attempt.setCourseId(event.getCourseId());
+            attempt.setTopicName(event.getTopicName());
+            attempt.setDifficulty(difficulty(event.getDifficulty()));
+            attempt.setTotalQuestions(event.getTotalQuestions());
+            attempt.setCorrectAnswers(event.getScore());
+            attempt.setScore(event.getTotalQuestions() > 0 ? event.getScore() * 100.0 / event.getTotalQuestions() : 0);
+            attempt.setTotalTimeTaken(event.getSeconds());
+            attempt.setAttemptedAt(event.getRecordedAt());
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuizAttempt.class);
+            }
+            bulk.replaceOne(Query.query(Criteria.where("_id").is(attempt.getId())), attempt,
+                FindAndReplaceOptions.options().upsert());
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+    }
+
+    /**
+     * EASY / MEDIUM / HARD; the adaptive engine reports its BEGINNER / INTERMEDIATE / ADVANCED levels
+     */
+    static String difficulty(String reported) {
+        if (reported == null) {
+            return "MEDIUM";
+        }
+        return switch (reported.toUpperCase()) {
+            case "BEGINNER" -> "EASY";
+            case "INTERMEDIATE" -> "MEDIUM";
+            case "ADVANCED" -> "HARD";
+            default -> reported.toUpperCase();
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Quiz Result Ingest - The single write path for finished quizzes (POST /api/quiz-results)
+ * - Validated results go into a bounded ring buffer (ArrayBlockingQueue); one writer thread drains
+ *   up to batch-size of them at a time and appends them to the learning event log with one
+ *   appendAll (one $inc and one insertMany for the whole batch)
+ * - A submission completes once its batch is in the log, and only then is the request answered;
+ *   from there LearningEventProjector fans it out to student_progress, student_performance and
+ *   quiz_attempts in batches, each from its own checkpoint
+ * - Backpressure: when the queue stays full for enqueue-timeout-ms, submit() refuses the result
+ *   and the caller is told to retry later
+ * - At-least-once: a result that was acknowledged is in the log; one not appended within the
+ *   caller's timeout stays queued and is answered as pending, one whose append failed is retried
+ *   by the client and may be logged twice - under the same submission id, which the projector
+ *   counts once
+ */
+@Service
+public class QuizResultIngest {
+
+    @Autowired
+    private LearningEventLog eventLog;
+
+    @Value("${quiz.results.queue-capacity:8192}")
+    private int queueCapacity;
+
+    @Value("${quiz.results.batch-size:256}")
+    private int batchSize;
+
+    @Value("${quiz.results.enqueue-timeout-ms:50}")
+    private long enqueueTimeoutMs;
+
+    @Value("${quiz.results.max-append-attempts:5}")
+    private int maxAppendAttempts;
+
+    private ArrayBlockingQueue<Submission> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private record Submission(LearningEvent event, CompletableFuture<Long> appended) {
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::drain, "quiz-result-ingest");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Append what is still queued, then stop the writer
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        writer.interrupt();
+        try {
+            writer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            System.err.println("⚠️ " + queue.size() + " quiz results were not appended before shutdown");
+        }
+    }
+
+    /**
+     * Queue a validated quiz result for the learning event log
+     *
+     * @return completes with the event's sequence number once it is in the log, or exceptionally
+     *         when the append kept failing; null when the queue stayed full (retry later)
+     */
+    public CompletableFuture<Long> submit(LearningEvent event) {
+        Submission submission = new Submission(event, new CompletableFuture<>());
+        boolean queued;
+        try {
+            queued = running && queue.offer(submission, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        accepted.incrementAndGet();
+        return submission.appended();
+    }
+
+    private void drain() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Whatever queued up while the last batch was written goes into this one
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                continue;  // stop() is draining the rest
+            }
+            append(batch);
+            batch.clear();
+        }
+    }
+
+    private void append(List<Submission> batch) {
+        List<LearningEvent> events = new ArrayList<>(batch.size());
+        for (Submission submission : batch) {
+            events.add(submission.event());
+        }
+        Exception lastError = null;
+        for (int attempt = 1; attempt <= maxAppendAttempts; attempt++) {
+            try {
+                eventLog.appendAll(events);
+                appended.addAndGet(batch.size());
+                batches.incrementAndGet();
+                for (Submission submission : batch) {
+                    submission.appended().complete(submission.event().getSeq());
+                }
+                return;
+            } catch (Exception e) {
+                lastError = e;
+                System.err.println("❌ Appending " + batch.size() + " quiz results failed (attempt " + attempt + "): "
+                    + e.getMessage());
+                sleepQuietly(Math.min(2000L, 50L << attempt));
+            }
+        }
+        // Never acknowledged, so the clients retry them
+        failed.addAndGet(batch.size());
+        for (Submission submission : batch) {
+            submission.appended().completeExceptionally(lastError);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queue depth and counters, for monitoring and tests
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("queued", (long) queue.size());
+        stats.put("capacity", (long) queueCapacity);
+        stats.put("accepted", accepted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("appended", appended.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        return stats;
+    }
+}
@@ -0,0 +1,214 @@
+package com.authsystem.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Ranked Skip List - Members ordered by score, highest first (ties by member), for LeaderboardService
+ * - Every forward link also stores how many entries it passes over (its span), so the rank of an
+ *   entry is the sum of the spans followed to reach it and the entry at a given rank is found the
+ *   same way - both O(log n), like Redis sorted sets
+ * - A member → node map holds each member's current entry, so a new score replaces the old one
+ * Not thread-safe; LeaderboardService guards all lists with one read/write lock.
+ */
+final class RankedSkipList {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double P = 0.25;
+
+    record Entry(String member, double score) {
+    }
+
+    private static final class Node {
+        private final String member;
+        private final double score;
+        private final Node[] next;
+        private final int[] span;
+
+        private Node(String member, double score, int level) {
+            this.member = member;
+            this.score = score;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+
+    private final Node head = new Node(null, 0, MAX_LEVEL);
+    private final Map<String, Node> nodes = new HashMap<>();
+    private int level = 1;
+    private int length;
+
+    int size() {
+        return length;
+    }
+
+    /**
+     * @return the member's score, null if it is not ranked
+     */
+    Double score(String member) {
+        Node node = nodes.get(member);
+        return node != null ? node.score : null;
+    }
+
+    /**
+     * Rank the member with the given score, replacing its previous entry
+     *
+     * @return the previous score, null if the member was not ranked
+     */
+    Double put(String member, double score) {
+        Node existing = nodes.get(member);
+        if (existing != null) {
+            if (existing.score == score) {
+                return score;
+            }
+            delete(existing);
+        }
+        nodes.put(member, insert(member, score));
+        return existing != null ? existing.score : null;
+    }
+
+    /**
+     * @return the removed score, null if the member was not ranked
+     */
+    Double remove(String member) {
+        Node node = nodes.remove(member);
+        if (node == null) {
+            return null;
+        }
+        delete(node);
+        return node.score;
+    }
+
+    /**
+     * @return 1 for the highest score, 0 if the member is not ranked
+     */
+    long rank(String member) {
+        Node node = nodes.get(member);
+        if (node == null) {
+            return 0;
+        }
+        long rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && !before(node, x.next[i].score, x.next[i].member)) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == node) {
+                return rank;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Entries from the given 0-based position on, highest score first
+     */
+    List<Entry> range(long offset, int limit) {
+        List<Entry> entries = new ArrayList<>(Math.max(0, Math.min(limit, length)));
+        if (offset < 0 || offset >= length || limit <= 0) {
+            return entries;
+        }
+        // Walk down to the entry at rank offset + 1, then along the bottom level
+        long traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= offset + 1) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+        }
+        for (; x != null && entries.size() < limit; x = x.next[0]) {
+            entries.add(new Entry(x.member, x.score));
+        }
+        return entries;
+    }
+
+    /**
+     * Every entry, highest score first
+     */
+    void forEach(ObjDoubleConsumer<String> action) {
+        for (Node x = head.next[0]; x != null; x = x.next[0]) {
+            action.accept(x.member, x.score);
+        }
+    }
+
+    private Node insert(String member, double score) {
+        Node[] update = new Node[MAX_LEVEL];
+        long[] rank = new long[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && before(x.next[i], score, member)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = length;
+            }
+            level = nodeLevel;
+        }
+        Node node = new Node(member, score, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (int) (rank[0] - rank[i]);
+            update[i].span[i] = (int) (rank[0] - rank[i]) + 1;
+        }
+        // Links above the new node now pass over one more entry
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        length++;
+        return node;
+    }
+
+    private void delete(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i], node.score, node.member)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        length--;
+    }
+
+    /**
+     * Whether the node ranks ahead of the given score and member
+     */
+    private static boolean before(Node node, double score, String member) {
+        return node.score > score || (node.score == score && node.member.compareTo(member) < 0);
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (level < MAX_LEVEL && random.nextDouble() < P) {
+            level++;
+        }
+        return level;
+    }
+}
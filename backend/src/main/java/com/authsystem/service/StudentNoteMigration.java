@@ -0,0 +1,86 @@
+package com.authsystem.service;
+
+import com.authsystem.model.StudentProgress;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Stream;
+
+/**
+ * Student Note Migration - Moves notes embedded in student_progress into student_notes online
+ * Each note is imported only if the subtopic has no notes in the store yet (a save made after
+ * the switch is newer), then the embedded map is $unset. Nothing writes the embedded map any
+ * more, so no version check is needed. Reads fall back to the embedded map until this is done.
+ */
+@Service
+public class StudentNoteMigration {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private StudentNoteStore noteStore;
+
+    @Scheduled(initialDelayString = "${student.notes.migration-initial-delay-ms:15000}",
+               fixedDelayString = "${student.notes.migration-interval-ms:600000}")
+    public int migrateAll() {
+        if (!noteStore.isLegacyDataRemaining()) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        int migrated = 0;
+        int notes = 0;
+
+        try {
+            noteStore.ensureIndexes();
+
+            Query query = Query.query(Criteria.where(StudentNoteStore.LEGACY_FIELD).exists(true));
+            query.fields().include(StudentNoteStore.LEGACY_FIELD).include("studentEmail").include("courseId");
+            try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, collection())) {
+                for (Document raw : (Iterable<Document>) stream::iterator) {
+                    notes += migrate(raw);
+                    migrated++;
+                }
+            }
+
+            if (!mongoTemplate.exists(Query.query(Criteria.where(StudentNoteStore.LEGACY_FIELD).exists(true)), collection())) {
+                noteStore.markLegacyDataMigrated();
+                System.out.println("✅ All student notes live in student_notes");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Student note migration failed: " + e.getMessage());
+        }
+
+        if (migrated > 0) {
+            System.out.println("🚚 Student note migration: " + notes + " notes from " + migrated + " progress documents in "
+                + (System.currentTimeMillis() - start) + "ms");
+        }
+        return migrated;
+    }
+
+    /**
+     * @return number of notes imported
+     */
+    int migrate(Document raw) {
+        String email = raw.getString("studentEmail");
+        String courseId = raw.getString("courseId");
+        int[] imported = {0};
+        StudentNoteStore.forEachLegacyNote(raw.get(StudentNoteStore.LEGACY_FIELD), (topicName, subtopicName, text) -> {
+            noteStore.importLegacy(email, courseId, topicName, subtopicName, text);
+            imported[0]++;
+        });
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(raw.get("_id"))),
+            new Update().unset(StudentNoteStore.LEGACY_FIELD), collection());
+        return imported[0];
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(StudentProgress.class);
+    }
+}
@@ -0,0 +1,323 @@
+package com.authsystem.service;
+
+import com.authsystem.model.StudentNote;
+import com.authsystem.model.StudentProgress;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Student Note Store - Reads and writes student notes in student_notes
+ * - One document per (student, course, topic, subtopic); reads fetch a single subtopic
+ * - Bodies of compress-threshold-bytes and more are stored deflate-compressed
+ * - Saves are either the full text or a delta (offset, removed characters, inserted text) made
+ *   against a known revision; a save against an older revision fails with
+ *   OptimisticLockingFailureException so the client can resend its full text
+ * - Progress documents not migrated yet still carry a notes map; reads fall back to it until
+ *   StudentNoteMigration reports that none is left
+ * - Every write publishes Saved, which keeps StudentNoteSearchIndex current
+ */
+@Service
+public class StudentNoteStore {
+
+    public static final String LEGACY_FIELD = "notes";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${student.notes.compress-threshold-bytes:1024}")
+    private int compressThresholdBytes;
+
+    @Value("${student.notes.max-length:100000}")
+    private int maxLength;
+
+    private volatile boolean legacyDataRemaining = true;
+    private volatile boolean indexesEnsured;
+
+    /**
+     * Notes of one subtopic and the revision they were read at (0 for notes never saved here)
+     */
+    public record Note(String text, long revision) {}
+
+    /**
+     * One subtopic's notes with where they belong, as loaded for a whole student
+     */
+    public record StoredNote(String courseId, String topicName, String subtopicName, String text, long revision,
+                             LocalDateTime updatedAt) {}
+
+    /**
+     * Published after notes were written; revision 0 for notes imported from before the store
+     * (those may not have been stored when the subtopic already had newer notes)
+     */
+    public record Saved(String studentEmail, StoredNote note) {}
+
+    public Note read(String email, String courseId, String topicName, String subtopicName) {
+        Note note = readStored(email, courseId, topicName, subtopicName);
+        if (note == null && legacyDataRemaining) {
+            String legacy = readLegacy(email, courseId, topicName, subtopicName);
+            // The migration may have moved it in between
+            note = legacy != null ? new Note(legacy, 0) : readStored(email, courseId, topicName, subtopicName);
+        }
+        return note != null ? note : new Note("", 0);
+    }
+
+    /**
+     * Every note of a student across all courses, including notes not migrated yet
+     */
+    public List<StoredNote> loadAll(String email) {
+        List<StoredNote> notes = new ArrayList<>();
+        Set<String> stored = new HashSet<>();
+        for (StudentNote note : mongoTemplate.find(Query.query(Criteria.where("studentEmail").is(email)), StudentNote.class)) {
+            notes.add(new StoredNote(note.getCourseId(), note.getTopicName(), note.getSubtopicName(), decode(note),
+                note.getRevision(), note.getUpdatedAt()));
+            stored.add(note.getCourseId() + "/" + note.getTopicName() + "/" + note.getSubtopicName());
+        }
+        if (legacyDataRemaining) {
+            Query query = Query.query(Criteria.where("studentEmail").is(email).and(LEGACY_FIELD).exists(true));
+            query.fields().include(LEGACY_FIELD).include("courseId");
+            for (Document raw : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(StudentProgress.class))) {
+                String courseId = raw.getString("courseId");
+                forEachLegacyNote(raw.get(LEGACY_FIELD), (topicName, subtopicName, text) -> {
+                    if (!stored.contains(courseId + "/" + topicName + "/" + subtopicName)) {
+                        notes.add(new StoredNote(courseId, topicName, subtopicName, text, 0, null));
+                    }
+                });
+            }
+        }
+        return notes;
+    }
+
+    /**
+     * Notes of a student saved at or after the given time, on any instance
+     */
+    public List<StoredNote> loadChangedSince(String email, LocalDateTime since) {
+        ensureIndexes();
+        List<StoredNote> notes = new ArrayList<>();
+        for (StudentNote note : mongoTemplate.find(Query.query(Criteria.where("studentEmail").is(email)
+                .and("updatedAt").gte(since)), StudentNote.class)) {
+            notes.add(new StoredNote(note.getCourseId(), note.getTopicName(), note.getSubtopicName(), decode(note),
+                note.getRevision(), note.getUpdatedAt()));
+        }
+        return notes;
+    }
+
+    /**
+     * Calls action with (topic, subtopic, text) for every note of an embedded notes map
+     */
+    static void forEachLegacyNote(Object embedded, LegacyNoteAction action) {
+        if (!(embedded instanceof Document)) {
+            return;
+        }
+        for (Map.Entry<String, Object> topic : ((Document) embedded).entrySet()) {
+            if (!(topic.getValue() instanceof Document)) {
+                continue;
+            }
+            for (Map.Entry<String, Object> subtopic : ((Document) topic.getValue()).entrySet()) {
+                if (subtopic.getValue() instanceof String) {
+                    action.accept(topic.getKey(), subtopic.getKey(), (String) subtopic.getValue());
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface LegacyNoteAction {
+        void accept(String topicName, String subtopicName, String text);
+    }
+
+    /**
+     * Replace the notes of a subtopic
+     *
+     * @param baseRevision revision the text was edited from, null to overwrite whatever is stored
+     * @return the new revision
+     */
+    public long save(String email, String courseId, String topicName, String subtopicName, String text, Long baseRevision) {
+        return write(email, courseId, topicName, subtopicName, text != null ? text : "", baseRevision);
+    }
+
+    /**
+     * Replace removed characters at offset with inserted, in the notes stored at baseRevision
+     *
+     * @return the new revision
+     * @throws OptimisticLockingFailureException when the stored notes are no longer at baseRevision
+     * @throws IllegalArgumentException when the delta does not fit the stored text
+     */
+    public long applyDelta(String email, String courseId, String topicName, String subtopicName,
+                           long baseRevision, int offset, int removed, String inserted) {
+        Note current = read(email, courseId, topicName, subtopicName);
+        if (current.revision() != baseRevision) {
+            throw new OptimisticLockingFailureException("Notes are at revision " + current.revision() + ", not " + baseRevision);
+        }
+        String text = current.text();
+        if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+            throw new IllegalArgumentException("Delta " + offset + "+" + removed + " does not fit notes of length " + text.length());
+        }
+        String updated = text.substring(0, offset) + (inserted != null ? inserted : "") + text.substring(offset + removed);
+        return write(email, courseId, topicName, subtopicName, updated, baseRevision);
+    }
+
+    /**
+     * Store notes moved from a progress document or replayed from the learning log, unless the
+     * subtopic already has notes here (those are always newer)
+     */
+    public void importLegacy(String email, String courseId, String topicName, String subtopicName, String text) {
+        ensureIndexes();
+        Update update = new Update()
+            .setOnInsert("revision", 0L)
+            .setOnInsert("updatedAt", LocalDateTime.now());
+        encode(text != null ? text : "", update, true);
+        try {
+            mongoTemplate.upsert(Query.query(key(email, courseId, topicName, subtopicName)), update, StudentNote.class);
+        } catch (DuplicateKeyException e) {
+            // Saved concurrently, which wins
+        }
+        eventPublisher.publishEvent(new Saved(email,
+            new StoredNote(courseId, topicName, subtopicName, text != null ? text : "", 0, null)));
+    }
+
+    public boolean isLegacyDataRemaining() {
+        return legacyDataRemaining;
+    }
+
+    void markLegacyDataMigrated() {
+        legacyDataRemaining = false;
+    }
+
+    private long write(String email, String courseId, String topicName, String subtopicName, String text, Long baseRevision) {
+        if (text.length() > maxLength) {
+            throw new IllegalArgumentException("Notes are longer than " + maxLength + " characters");
+        }
+        ensureIndexes();
+        Criteria criteria = key(email, courseId, topicName, subtopicName);
+        if (baseRevision != null) {
+            criteria.and("revision").is(baseRevision);
+        }
+        Update update = new Update()
+            .set("length", text.length())
+            .set("updatedAt", LocalDateTime.now())
+            .inc("revision", 1L);
+        encode(text, update, false);
+        Query query = Query.query(criteria);
+        query.fields().include("revision");
+
+        // Only a first save may insert; a lost race then hits the unique index
+        boolean mayInsert = baseRevision == null || baseRevision == 0;
+        StudentNote saved;
+        try {
+            saved = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true).upsert(mayInsert), StudentNote.class);
+        } catch (DuplicateKeyException e) {
+            saved = null;
+        }
+        if (saved == null) {
+            throw new OptimisticLockingFailureException("Notes for " + topicName + " / " + subtopicName
+                + " were saved from another revision than " + baseRevision);
+        }
+        eventPublisher.publishEvent(new Saved(email,
+            new StoredNote(courseId, topicName, subtopicName, text, saved.getRevision(), LocalDateTime.now())));
+        return saved.getRevision();
+    }
+
+    private void encode(String text, Update update, boolean onInsertOnly) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        byte[] packed = raw.length >= compressThresholdBytes ? deflate(raw) : null;
+        boolean compress = packed != null && packed.length < raw.length;
+        if (onInsertOnly) {
+            update.setOnInsert("length", text.length());
+            update.setOnInsert(compress ? "compressedText" : "text", compress ? packed : text);
+        } else if (compress) {
+            update.set("compressedText", packed).unset("text");
+        } else {
+            update.set("text", text).unset("compressedText");
+        }
+    }
+
+    static String decode(StudentNote note) {
+        if (note.getCompressedText() != null) {
+            return new String(inflate(note.getCompressedText()), StandardCharsets.UTF_8);
+        }
+        return note.getText() != null ? note.getText() : "";
+    }
+
+    static byte[] deflate(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_COMPRESSION))) {
+            deflater.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] packed) {
+        try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(packed))) {
+            return inflater.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Note readStored(String email, String courseId, String topicName, String subtopicName) {
+        StudentNote note = mongoTemplate.findOne(Query.query(key(email, courseId, topicName, subtopicName)), StudentNote.class);
+        return note != null ? new Note(decode(note), note.getRevision()) : null;
+    }
+
+    private String readLegacy(String email, String courseId, String topicName, String subtopicName) {
+        if (!CourseContentCountService.isSafeFieldName(topicName) || !CourseContentCountService.isSafeFieldName(subtopicName)) {
+            return null;
+        }
+        String path = LEGACY_FIELD + "." + topicName + "." + subtopicName;
+        Query query = Query.query(Criteria.where("studentEmail").is(email).and("courseId").is(courseId).and(path).exists(true));
+        query.fields().include(path);
+        Document raw = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(StudentProgress.class));
+        if (raw == null) {
+            return null;
+        }
+        Object topic = raw.get(LEGACY_FIELD, Document.class).get(topicName);
+        return topic instanceof Document ? ((Document) topic).getString(subtopicName) : null;
+    }
+
+    private static Criteria key(String email, String courseId, String topicName, String subtopicName) {
+        return Criteria.where("studentEmail").is(email)
+            .and("courseId").is(courseId)
+            .and("topicName").is(topicName)
+            .and("subtopicName").is(subtopicName);
+    }
+
+    void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        // auto-index-creation is off, so the unique (student, course, topic, subtopic) index is created here
+        IndexOperations indexOps = mongoTemplate.indexOps(StudentNote.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+            .resolveIndexFor(StudentNote.class)
+            .forEach(indexOps::ensureIndex);
+        indexesEnsured = true;
+    }
+}
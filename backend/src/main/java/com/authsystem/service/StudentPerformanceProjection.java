@@ -0,0 +1,56 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.model.StudentPerformance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Projects learning events onto student_performance (the adaptive learning profiles)
+ * Takes the quiz attempts the adaptive engine recorded or /api/quiz-results ingested, topic
+ * completion and resets.
+ */
+@Component
+public class StudentPerformanceProjection implements LearningProjection {
+
+    public static final String NAME = "student_performance";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AdaptiveLearningService adaptiveService;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String collection() {
+        return mongoTemplate.getCollectionName(StudentPerformance.class);
+    }
+
+    @Override
+    public void apply(List<LearningEvent> events) {
+        List<LearningEvent> relevant = new ArrayList<>(events.size());
+        for (LearningEvent event : events) {
+            switch (event.getType()) {
+                case QUIZ_ATTEMPT -> {
+                    if (event.getSource() != LearningEvent.Source.PROGRESS) {
+                        relevant.add(event);
+                    }
+                }
+                case TOPIC_COMPLETION, PERFORMANCE_RESET -> relevant.add(event);
+                default -> {
+                    // Not part of this read model
+                }
+            }
+        }
+        adaptiveService.applyEvents(relevant);
+    }
+}
@@ -0,0 +1,75 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.model.StudentProgress;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Projects learning events onto student_progress (the progress page)
+ * Video and PDF events are merged per student and course into one update per batch; any other
+ * event of the same student first writes the merged time, so updates stay in sequence order.
+ * Quiz attempts recorded by the adaptive engine only belong to StudentPerformanceProjection.
+ * Notes are written to StudentNoteStore directly now; NOTE_SAVED events from before that only
+ * fill in subtopics the store does not have yet.
+ */
+@Component
+public class StudentProgressProjection implements LearningProjection {
+
+    public static final String NAME = "student_progress";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private StudentProgressService progressService;
+
+    @Autowired
+    private StudentNoteStore noteStore;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String collection() {
+        return mongoTemplate.getCollectionName(StudentProgress.class);
+    }
+
+    @Override
+    public void apply(List<LearningEvent> events) {
+        Map<String, List<LearningEvent>> media = new LinkedHashMap<>();
+        for (LearningEvent event : events) {
+            String key = event.getStudentEmail() + "\u0000" + event.getCourseId();
+            switch (event.getType()) {
+                case VIDEO_WATCH, PDF_VIEW -> media.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+                case QUIZ_ATTEMPT -> {
+                    if (event.getSource() != LearningEvent.Source.ADAPTIVE) {
+                        writeMedia(media.remove(key));
+                        progressService.recordQuizAttempt(event);
+                    }
+                }
+                case LESSON_COMPLETE -> {
+                    writeMedia(media.remove(key));
+                    progressService.markLessonComplete(event);
+                }
+                case NOTE_SAVED -> noteStore.importLegacy(event.getStudentEmail(), event.getCourseId(),
+                    event.getTopicName(), event.getSubtopicName(), event.getText());
+                default -> {
+                    // Not part of this read model
+                }
+            }
+        }
+        progressService.recordMediaTime(media.values());
+    }
+
+    private void writeMedia(List<LearningEvent> run) {
+        if (run != null) {
+            progressService.recordMediaTime(Collections.singletonList(run));
+        }
+    }
+}
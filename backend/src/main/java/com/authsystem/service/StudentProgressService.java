@@ -0,0 +1,395 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.model.StudentProgress;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Student Progress Service - Records learning activity with atomic, constant-size updates
+ * - Counters and running score sums are changed with $inc, so no request reads or rewrites
+ *   the attempt history; averages are scoreSum / count
+ * - The activity log and the attempt list are capped by MongoDB itself ($push with $slice); every
+ *   attempt stays in quiz_attempts (QuizAttemptProjection)
+ * - A lesson is completed at most once: the $push only matches while the lesson id is absent
+ * Called by StudentProgressProjection for the events of the learning log; every update also sets
+ * projectedSeq and only matches below it, so a replayed event changes nothing.
+ * A unique (studentEmail, courseId) index makes the concurrent first upserts of a student and
+ * course end up in one document.
+ */
+@Service
+public class StudentProgressService {
+
+    static final int MAX_RECENT_ACTIVITIES = 20;
+    static final int MAX_RECENT_QUIZ_ATTEMPTS = 100;
+    static final String PROJECTED_SEQ = "projectedSeq";
+    private static final double PASS_PERCENTAGE = 60;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private volatile boolean indexesEnsured;
+
+    /**
+     * Published after a quiz attempt changed a student's overallScore in a course (read by LeaderboardService)
+     */
+    public record ScoreChanged(String studentEmail, String courseId, double overallScore) {}
+
+    /**
+     * Record a quiz attempt and refresh the averages and levels derived from it
+     *
+     * @return the updated progress, null if the event was applied before
+     */
+    public StudentProgress recordQuizAttempt(LearningEvent event) {
+        String topicName = event.getTopicName();
+        int score = event.getScore();
+        int totalQuestions = event.getTotalQuestions();
+        LocalDateTime now = event.getRecordedAt();
+        double percentage = (score * 100.0) / totalQuestions;
+        boolean passed = percentage >= PASS_PERCENTAGE;
+
+        StudentProgress.QuizAttempt attempt = new StudentProgress.QuizAttempt();
+        attempt.setQuizId(topicName + "_" + event.getSeq());
+        attempt.setQuizTitle(topicName + " Quiz");
+        attempt.setScore(score);
+        attempt.setTotalQuestions(totalQuestions);
+        attempt.setDifficulty(event.getDifficulty());
+        attempt.setQuizType(event.getQuizType());
+        attempt.setAttemptedAt(now);
+        attempt.setPassed(passed);
+
+        boolean trackTopic = CourseContentCountService.isSafeFieldName(topicName);
+        Update update = new Update()
+            .inc("quizzesPassed", passed ? 1 : 0)
+            .inc("totalTimeSpentMinutes", (int) (event.getSeconds() / 60))
+            .inc("overallPerformance.totalQuizzes", 1)
+            .inc("overallPerformance.scoredQuizzes", 1)
+            .inc("overallPerformance.scoreSum", percentage)
+            .inc("overallPerformance.totalTimeSpent", event.getSeconds());
+        if (trackTopic) {
+            update.inc(mastery(topicName, "totalAttempts"), 1)
+                  .inc(mastery(topicName, "scoredAttempts"), 1)
+                  .inc(mastery(topicName, "scoreSum"), percentage)
+                  .inc(mastery(topicName, "correctAnswers"), score)
+                  .inc(mastery(topicName, "timeSpent"), event.getSeconds())
+                  .set(mastery(topicName, "lastAttemptDate"), now);
+        }
+        // Oldest first like before, only the newest attempts are kept
+        update.push("quizAttempts").slice(-MAX_RECENT_QUIZ_ATTEMPTS).each(attempt);
+        String resultText = passed ? "Passed ✅" : "Needs retry ⚠️";
+        pushActivity(update, activity("QUIZ", topicName + " Quiz",
+            "Scored " + score + "/" + totalQuestions + " (" + Math.round(percentage) + "%) - " + resultText, now));
+        update.set("lastActivityDate", now).set("updatedAt", LocalDateTime.now());
+
+        StudentProgress progress = modify(event, null, update);
+        if (progress != null) {
+            updateDerivedScores(progress, trackTopic ? topicName : null);
+            eventPublisher.publishEvent(new ScoreChanged(progress.getStudentEmail(), progress.getCourseId(),
+                progress.getOverallScore()));
+        }
+        return progress;
+    }
+
+    /**
+     * Mark a lesson as completed; completing it again only refreshes the activity date
+     *
+     * @return the updated progress, null if the event was applied before
+     */
+    public StudentProgress markLessonComplete(LearningEvent event) {
+        LocalDateTime now = event.getRecordedAt();
+        StudentProgress.LessonProgress lesson = new StudentProgress.LessonProgress();
+        lesson.setLessonId(event.getItemId());
+        lesson.setLessonTitle(event.getTitle());
+        lesson.setCompleted(true);
+        lesson.setTimeSpentMinutes((int) (event.getSeconds() / 60));
+        lesson.setCompletedAt(now);
+
+        Update update = new Update()
+            .push("lessonProgressList", lesson)
+            .inc("lessonsCompleted", 1);
+        pushActivity(update, activity("LESSON", event.getTitle(), "Completed lesson", now));
+        update.set("lastActivityDate", now).set("updatedAt", LocalDateTime.now());
+
+        Criteria notCompleted = Criteria.where("lessonProgressList")
+            .not().elemMatch(Criteria.where("lessonId").is(event.getItemId()).and("completed").is(true));
+        StudentProgress progress = modify(event, notCompleted, update);
+        if (progress == null) {
+            // Already completed (or this event was applied before)
+            progress = modify(event, null, new Update().set("lastActivityDate", now).set("updatedAt", LocalDateTime.now()));
+        }
+        return progress;
+    }
+
+    /**
+     * Add video and PDF time with one update per student and course in a single unordered bulk write
+     *
+     * @param runs consecutive VIDEO_WATCH / PDF_VIEW events, one list per student and course, oldest first
+     */
+    public void recordMediaTime(Collection<List<LearningEvent>> runs) {
+        if (runs.isEmpty()) {
+            return;
+        }
+        ensureIndexes();
+        // Create missing documents first: a guarded upsert would insert a duplicate instead of skipping
+        BulkOperations create = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StudentProgress.class);
+        for (List<LearningEvent> run : runs) {
+            LearningEvent first = run.get(0);
+            create.upsert(Query.query(owner(first.getStudentEmail(), first.getCourseId())),
+                withInsertDefaults(new Update(), first.getStudentEmail(), first.getCourseId()));
+        }
+        try {
+            create.execute();
+        } catch (BulkOperationException e) {
+            // Only documents a concurrent request created first may fail (duplicate key)
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != 11000)) {
+                throw e;
+            }
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StudentProgress.class);
+        for (List<LearningEvent> run : runs) {
+            LearningEvent first = run.get(0);
+            LearningEvent last = run.get(run.size() - 1);
+            // Summed before converting: each heartbeat alone is usually less than a minute
+            long seconds = 0;
+            Map<String, Long> topicSeconds = new HashMap<>();
+            Map<String, LocalDateTime> topicDates = new HashMap<>();
+            List<StudentProgress.ActivityLog> activities = new ArrayList<>();
+            for (LearningEvent event : run) {
+                seconds += event.getSeconds();
+                if (CourseContentCountService.isSafeFieldName(event.getTopicName())) {
+                    topicSeconds.merge(event.getTopicName(), event.getSeconds(), Long::sum);
+                    topicDates.put(event.getTopicName(), event.getRecordedAt());
+                }
+                activities.add(0, mediaActivity(event));
+            }
+            if (activities.size() > MAX_RECENT_ACTIVITIES) {
+                activities = activities.subList(0, MAX_RECENT_ACTIVITIES);
+            }
+            Update update = new Update().inc("totalTimeSpentMinutes", (int) (seconds / 60));
+            topicSeconds.forEach((topic, topicTime) -> update.inc(mastery(topic, "timeSpent"), topicTime)
+                .set(mastery(topic, "lastAttemptDate"), topicDates.get(topic)));
+            update.push("recentActivities").atPosition(0).slice(MAX_RECENT_ACTIVITIES).each(activities.toArray());
+            update.set("lastActivityDate", last.getRecordedAt())
+                  .set("updatedAt", LocalDateTime.now())
+                  .set(PROJECTED_SEQ, last.getSeq());
+            bulk.updateOne(Query.query(new Criteria().andOperator(owner(first.getStudentEmail(), first.getCourseId()),
+                notApplied(first.getSeq()))), update);
+        }
+        bulk.execute();
+    }
+
+    /**
+     * The activity a video or PDF event shows in recentActivities
+     */
+    static StudentProgress.ActivityLog mediaActivity(LearningEvent event) {
+        long minutes = event.getSeconds() / 60;
+        boolean pdf = event.getType() == LearningEvent.Type.PDF_VIEW;
+        return activity(pdf ? "PDF" : "VIDEO", event.getTitle(),
+            (pdf ? "Viewed PDF for " : "Watched video for ") + minutes + " minutes", event.getRecordedAt());
+    }
+
+    /**
+     * Apply an event's update to the student's progress document, creating the document first if needed
+     *
+     * @param condition extra filter; null is returned when the document exists but does not match it,
+     *                  or when the event was applied before
+     */
+    private StudentProgress modify(LearningEvent event, Criteria condition, Update update) {
+        String email = event.getStudentEmail();
+        String courseId = event.getCourseId();
+        Criteria guard = condition != null ? new Criteria().andOperator(notApplied(event.getSeq()), condition)
+            : notApplied(event.getSeq());
+        update.set(PROJECTED_SEQ, event.getSeq());
+        StudentProgress progress = findAndModify(email, courseId, guard, update);
+        if (progress == null && !mongoTemplate.exists(Query.query(owner(email, courseId)), StudentProgress.class)) {
+            ensureIndexes();
+            // Upsert the defaults; the unique index lets only one of concurrent first requests insert
+            try {
+                mongoTemplate.upsert(Query.query(owner(email, courseId)), withInsertDefaults(new Update(), email, courseId),
+                    StudentProgress.class);
+            } catch (DuplicateKeyException e) {
+                // Created by a concurrent request in the meantime
+            }
+            progress = findAndModify(email, courseId, guard, update);
+        }
+        return progress;
+    }
+
+    /**
+     * Add $setOnInsert for every default of a new StudentProgress the update does not already write,
+     * so the update can run as an upsert
+     */
+    public Update withInsertDefaults(Update update, String email, String courseId) {
+        StudentProgress created = new StudentProgress();
+        created.setStudentEmail(email);
+        created.setCourseId(courseId);
+        Document defaults = new Document();
+        mongoTemplate.getConverter().write(created, defaults);
+
+        Set<String> written = new HashSet<>();
+        for (Object fields : update.getUpdateObject().values()) {
+            for (String path : ((Document) fields).keySet()) {
+                written.add(path.split("\\.")[0]);
+            }
+        }
+        defaults.forEach((field, value) -> {
+            if (!"_id".equals(field) && !written.contains(field)) {
+                update.setOnInsert(field, value);
+            }
+        });
+        return update;
+    }
+
+    private StudentProgress findAndModify(String email, String courseId, Criteria condition, Update update) {
+        Criteria criteria = owner(email, courseId);
+        if (condition != null) {
+            criteria = new Criteria().andOperator(criteria, condition);
+        }
+        return mongoTemplate.findAndModify(Query.query(criteria), update,
+            FindAndModifyOptions.options().returnNew(true), StudentProgress.class);
+    }
+
+    /**
+     * Write averageScore, overallScore and the levels for the counters the attempt produced
+     * Only applies while no later attempt was recorded - that attempt writes its own, newer values
+     */
+    private void updateDerivedScores(StudentProgress progress, String topicName) {
+        StudentProgress.OverallPerformance overall = progress.getOverallPerformance();
+        Update update = new Update();
+
+        // Documents written before the running sums existed: the stored average covers the older quizzes
+        int unscored = overall.getTotalQuizzes() - overall.getScoredQuizzes();
+        if (unscored > 0) {
+            overall.setScoreSum(overall.getScoreSum() + overall.getAverageScore() * unscored);
+            overall.setScoredQuizzes(overall.getTotalQuizzes());
+            update.set("overallPerformance.scoreSum", overall.getScoreSum())
+                  .set("overallPerformance.scoredQuizzes", overall.getScoredQuizzes());
+        }
+        overall.setAverageScore(overall.getScoreSum() / overall.getScoredQuizzes());
+        overall.setPerformanceLevel(performanceLevel(overall.getAverageScore()));
+        progress.setOverallScore(overall.getAverageScore());
+        progress.setCurrentLevel(studentLevel(progress.getOverallScore(), progress.getQuizzesPassed()));
+        update.set("overallPerformance.averageScore", overall.getAverageScore())
+              .set("overallPerformance.performanceLevel", overall.getPerformanceLevel())
+              .set("overallScore", progress.getOverallScore())
+              .set("currentLevel", progress.getCurrentLevel());
+
+        StudentProgress.TopicMastery mastery = topicName != null ? progress.getTopicMastery().get(topicName) : null;
+        if (mastery != null) {
+            int unscoredAttempts = mastery.getTotalAttempts() - mastery.getScoredAttempts();
+            if (unscoredAttempts > 0) {
+                mastery.setScoreSum(mastery.getScoreSum() + mastery.getAverageScore() * unscoredAttempts);
+                mastery.setScoredAttempts(mastery.getTotalAttempts());
+                update.set(mastery(topicName, "scoreSum"), mastery.getScoreSum())
+                      .set(mastery(topicName, "scoredAttempts"), mastery.getScoredAttempts());
+            }
+            mastery.setAverageScore(mastery.getScoreSum() / mastery.getScoredAttempts());
+            mastery.setDifficulty(topicDifficulty(mastery.getAverageScore()));
+            update.set(mastery(topicName, "averageScore"), mastery.getAverageScore())
+                  .set(mastery(topicName, "difficulty"), mastery.getDifficulty());
+        }
+
+        Criteria latest = Criteria.where("_id").is(progress.getId())
+            .and("overallPerformance.totalQuizzes").is(overall.getTotalQuizzes());
+        mongoTemplate.updateFirst(Query.query(latest), update, StudentProgress.class);
+    }
+
+    private static String performanceLevel(double averageScore) {
+        if (averageScore >= 90) {
+            return "EXCELLENT";
+        } else if (averageScore >= 75) {
+            return "GOOD";
+        } else if (averageScore >= 60) {
+            return "AVERAGE";
+        }
+        return "NEEDS_IMPROVEMENT";
+    }
+
+    private static String studentLevel(double score, int quizzesPassed) {
+        if (score >= 90 && quizzesPassed >= 10) {
+            return "MASTERY";
+        } else if (score >= 75 && quizzesPassed >= 5) {
+            return "ADVANCED";
+        } else if (score >= 60 && quizzesPassed >= 3) {
+            return "INTERMEDIATE";
+        }
+        return "BEGINNER";
+    }
+
+    private static String topicDifficulty(double averageScore) {
+        if (averageScore >= 80) {
+            return "HARD";
+        } else if (averageScore >= 60) {
+            return "MEDIUM";
+        }
+        return "EASY";
+    }
+
+    static void pushActivity(Update update, StudentProgress.ActivityLog activity) {
+        update.push("recentActivities").atPosition(0).slice(MAX_RECENT_ACTIVITIES).each(activity);
+    }
+
+    private static StudentProgress.ActivityLog activity(String type, String title, String description, LocalDateTime at) {
+        StudentProgress.ActivityLog activity = new StudentProgress.ActivityLog(type, title, description);
+        activity.setTimestamp(at);
+        return activity;
+    }
+
+    /**
+     * Matches documents that have not seen the event yet (documents from before the log have no projectedSeq)
+     */
+    private static Criteria notApplied(long seq) {
+        return Criteria.where(PROJECTED_SEQ).not().gte(seq);
+    }
+
+    static Criteria owner(String email, String courseId) {
+        return Criteria.where("studentEmail").is(email).and("courseId").is(courseId);
+    }
+
+    static String mastery(String topicName, String field) {
+        return "topicMastery." + topicName + "." + field;
+    }
+
+    void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        // auto-index-creation is off, so the unique (student, course) index is created here
+        IndexOperations indexOps = mongoTemplate.indexOps(StudentProgress.class);
+        try {
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(StudentProgress.class)
+                .forEach(indexOps::ensureIndex);
+        } catch (DuplicateKeyException e) {
+            // Duplicates written before the index existed must be merged by hand; writes keep working meanwhile
+            System.err.println("❌ Unique student_progress index not created, duplicate student/course documents exist: "
+                + e.getMessage());
+        }
+        indexesEnsured = true;
+    }
+}
@@ -0,0 +1,248 @@
+package com.authsystem.service;
+
+import com.authsystem.model.*;
+import com.authsystem.repository.TopicRepository;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Student Recommendation Service - Builds personalized recommendations from quiz attempts
+ * - Attempts are read with a projection (topic, score, difficulty) instead of whole documents
+ * - Weak topics are resolved with one $in query, and their video/PDF/MCQ availability with one
+ *   count-only $group per collection, so the query count does not depend on the number of topics
+ * Results are cached per student by RecommendationCache.
+ */
+@Service
+public class StudentRecommendationService {
+
+    private static final int MAX_RECOMMENDATIONS = 5;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public Map<String, Object> getRecommendations(String email) {
+        Map<String, Object> response = new HashMap<>();
+        
+        // Get all quiz attempts for the student (only the fields the analysis reads)
+        Query attemptsQuery = Query.query(Criteria.where("studentEmail").is(email));
+        attemptsQuery.fields().include("topicName").include("score").include("difficulty");
+        List<QuizAttempt> attempts = mongoTemplate.find(attemptsQuery, QuizAttempt.class);
+        
+        if (attempts.isEmpty()) {
+            response.put("message", "No quiz attempts found. Start taking quizzes to get personalized recommendations!");
+            response.put("recommendations", new ArrayList<>());
+            return response;
+        }
+        
+        // Analyze performance
+        Map<String, TopicPerformance> topicPerformanceMap = analyzePerformance(attempts);
+        
+        // Generate recommendations
+        List<Map<String, Object>> recommendations = generateRecommendations(topicPerformanceMap);
+        
+        // Calculate overall stats
+        double avgScore = attempts.stream()
+            .mapToDouble(QuizAttempt::getScore)
+            .average()
+            .orElse(0.0);
+        
+        response.put("overallScore", Math.round(avgScore * 100.0) / 100.0);
+        response.put("totalAttempts", attempts.size());
+        response.put("recommendations", recommendations);
+        response.put("weakTopics", getWeakTopics(topicPerformanceMap));
+        response.put("strongTopics", getStrongTopics(topicPerformanceMap));
+        
+        return response;
+    }
+    
+    private Map<String, TopicPerformance> analyzePerformance(List<QuizAttempt> attempts) {
+        Map<String, TopicPerformance> performanceMap = new HashMap<>();
+        
+        for (QuizAttempt attempt : attempts) {
+            String topicName = attempt.getTopicName();
+            
+            TopicPerformance perf = performanceMap.computeIfAbsent(topicName, k -> new TopicPerformance(topicName));
+            perf.addAttempt(attempt.getScore(), attempt.getDifficulty());
+        }
+        
+        return performanceMap;
+    }
+    
+    private List<Map<String, Object>> generateRecommendations(Map<String, TopicPerformance> performanceMap) {
+        List<Map<String, Object>> recommendations = new ArrayList<>();
+        
+        // Sort topics by average score (weakest first)
+        List<TopicPerformance> sortedPerformance = performanceMap.values().stream()
+            .sorted(Comparator.comparingDouble(TopicPerformance::getAverageScore))
+            .limit(MAX_RECOMMENDATIONS) // Top 5 weakest topics
+            .collect(Collectors.toList());
+        
+        // Find topic details for all weak topics at once (first match per name, as before)
+        List<String> topicNames = new ArrayList<>();
+        for (TopicPerformance perf : sortedPerformance) {
+            if (perf.getTopicName() != null) {
+                topicNames.add(perf.getTopicName());
+            }
+        }
+        Map<String, Topic> topicsByName = new HashMap<>();
+        if (!topicNames.isEmpty()) {
+            for (Topic topic : topicRepository.findByNameIn(topicNames)) {
+                topicsByName.putIfAbsent(topic.getName(), topic);
+            }
+        }
+        
+        // Count learning materials for those topics - counts only, no documents loaded
+        List<String> topicIds = new ArrayList<>();
+        for (Topic topic : topicsByName.values()) {
+            topicIds.add(topic.getId());
+        }
+        Map<String, Long> videoCounts = countByTopic(Video.class, topicIds);
+        Map<String, Long> pdfCounts = countByTopic(PDF.class, topicIds);
+        Map<String, Long> mcqCounts = countByTopic(MCQ.class, topicIds);
+        
+        for (TopicPerformance perf : sortedPerformance) {
+            Map<String, Object> recommendation = new HashMap<>();
+            
+            String topicName = perf.getTopicName();
+            double avgScore = perf.getAverageScore();
+            Topic topic = topicsByName.get(topicName);
+            
+            if (topic != null) {
+                recommendation.put("topicId", topic.getId());
+                recommendation.put("topicName", topicName);
+                recommendation.put("averageScore", Math.round(avgScore * 100.0) / 100.0);
+                recommendation.put("attempts", perf.getAttemptCount());
+                recommendation.put("priority", getPriority(avgScore));
+                recommendation.put("suggestion", getSuggestion(avgScore, perf.getAttemptCount()));
+                recommendation.put("videosAvailable", videoCounts.getOrDefault(topic.getId(), 0L).intValue());
+                recommendation.put("pdfsAvailable", pdfCounts.getOrDefault(topic.getId(), 0L).intValue());
+                recommendation.put("mcqsAvailable", mcqCounts.getOrDefault(topic.getId(), 0L).intValue());
+                
+                // Recommend specific content type based on performance
+                if (avgScore < 50) {
+                    recommendation.put("recommendedAction", "Watch video lectures");
+                    recommendation.put("recommendedContentType", "VIDEO");
+                } else if (avgScore < 70) {
+                    recommendation.put("recommendedAction", "Review PDF materials");
+                    recommendation.put("recommendedContentType", "PDF");
+                } else {
+                    recommendation.put("recommendedAction", "Practice more MCQs");
+                    recommendation.put("recommendedContentType", "MCQ");
+                }
+                
+                recommendations.add(recommendation);
+            }
+        }
+        
+        return recommendations;
+    }
+    
+    /**
+     * Documents per topicId for the given topics, in one $group aggregation
+     */
+    private Map<String, Long> countByTopic(Class<?> type, Collection<String> topicIds) {
+        Map<String, Long> counts = new HashMap<>();
+        if (topicIds.isEmpty()) {
+            return counts;
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("topicId").in(topicIds)),
+            Aggregation.group("topicId").count().as("count")
+        );
+        for (Document row : mongoTemplate.aggregate(aggregation, type, Document.class).getMappedResults()) {
+            Object topicId = row.get("_id");
+            Number count = row.get("count", Number.class);
+            if (topicId != null && count != null) {
+                counts.put(topicId.toString(), count.longValue());
+            }
+        }
+        return counts;
+    }
+    
+    private List<Map<String, Object>> getWeakTopics(Map<String, TopicPerformance> performanceMap) {
+        return performanceMap.values().stream()
+            .filter(perf -> perf.getAverageScore() < 60)
+            .map(perf -> {
+                Map<String, Object> topic = new HashMap<>();
+                topic.put("name", perf.getTopicName());
+                topic.put("score", Math.round(perf.getAverageScore() * 100.0) / 100.0);
+                topic.put("attempts", perf.getAttemptCount());
+                return topic;
+            })
+            .sorted(Comparator.comparingDouble(t -> (Double) t.get("score")))
+            .limit(3)
+            .collect(Collectors.toList());
+    }
+    
+    private List<Map<String, Object>> getStrongTopics(Map<String, TopicPerformance> performanceMap) {
+        return performanceMap.values().stream()
+            .filter(perf -> perf.getAverageScore() >= 80)
+            .map(perf -> {
+                Map<String, Object> topic = new HashMap<>();
+                topic.put("name", perf.getTopicName());
+                topic.put("score", Math.round(perf.getAverageScore() * 100.0) / 100.0);
+                topic.put("attempts", perf.getAttemptCount());
+                return topic;
+            })
+            .sorted(Comparator.comparingDouble(t -> -(Double) t.get("score")))
+            .limit(3)
+            .collect(Collectors.toList());
+    }
+    
+    private String getPriority(double avgScore) {
+        if (avgScore < 50) return "HIGH";
+        if (avgScore < 70) return "MEDIUM";
+        return "LOW";
+    }
+    
+    private String getSuggestion(double avgScore, int attempts) {
+        if (avgScore < 40) {
+            return "Focus on fundamental concepts. Watch video lectures and review materials carefully.";
+        } else if (avgScore < 60) {
+            return "Good progress! Review the topics and practice more to strengthen understanding.";
+        } else if (avgScore < 80) {
+            return "You're doing well! Practice advanced problems to master this topic.";
+        } else {
+            return "Excellent work! Continue practicing to maintain mastery.";
+        }
+    }
+    
+    // Helper class to track topic performance
+    private static class TopicPerformance {
+        private String topicName;
+        private List<Double> scores = new ArrayList<>();
+        private List<String> difficulties = new ArrayList<>();
+        
+        public TopicPerformance(String topicName) {
+            this.topicName = topicName;
+        }
+        
+        public void addAttempt(double score, String difficulty) {
+            scores.add(score);
+            difficulties.add(difficulty);
+        }
+        
+        public String getTopicName() {
+            return topicName;
+        }
+        
+        public double getAverageScore() {
+            return scores.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+        }
+        
+        public int getAttemptCount() {
+            return scores.size();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.authsystem.service;
+
+import com.authsystem.model.*;
+import com.authsystem.repository.*;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Subject Content Service - Loads subject trees and instructor overviews with a fixed number of queries
+ * - Subject tree: topics, then videos, PDFs and MCQs of all topics with one $in query each,
+ *   grouped by topicId in memory (instead of three queries per topic)
+ * - Instructor overview: one grouped count aggregation per collection for all subjects
+ *   (instead of four queries per subject)
+ */
+@Service
+public class SubjectContentService {
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private PDFRepository pdfRepository;
+
+    @Autowired
+    private MCQRepository mcqRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Subject with nested topics, each containing its videos, PDFs and MCQs
+     * 8 queries whatever the number of topics: subject, topics, 3 batched content fetches, 3 subject totals
+     */
+    public Optional<Map<String, Object>> getCompleteSubjectContent(String subjectId) {
+        Optional<Subject> subjectOptional = subjectRepository.findById(subjectId);
+        if (!subjectOptional.isPresent()) {
+            return Optional.empty();
+        }
+
+        // Get all topics for this subject (ordered)
+        List<Topic> topics = topicRepository.findBySubjectIdOrderByOrderIndexAsc(subjectId);
+        List<String> topicIds = new ArrayList<>();
+        for (Topic topic : topics) {
+            topicIds.add(topic.getId());
+        }
+
+        Map<String, List<Video>> videosByTopic = new HashMap<>();
+        Map<String, List<PDF>> pdfsByTopic = new HashMap<>();
+        Map<String, List<MCQ>> mcqsByTopic = new HashMap<>();
+        if (!topicIds.isEmpty()) {
+            // Results come back in orderIndex order, so each topic's list stays ordered
+            for (Video video : videoRepository.findByTopicIdInOrderByOrderIndexAsc(topicIds)) {
+                videosByTopic.computeIfAbsent(video.getTopicId(), k -> new ArrayList<>()).add(video);
+            }
+            for (PDF pdf : pdfRepository.findByTopicIdInOrderByOrderIndexAsc(topicIds)) {
+                pdfsByTopic.computeIfAbsent(pdf.getTopicId(), k -> new ArrayList<>()).add(pdf);
+            }
+            for (MCQ mcq : mcqRepository.findByTopicIdIn(topicIds)) {
+                mcqsByTopic.computeIfAbsent(mcq.getTopicId(), k -> new ArrayList<>()).add(mcq);
+            }
+        }
+
+        // Build hierarchical structure
+        Map<String, Object> result = new HashMap<>();
+        result.put("subject", subjectOptional.get());
+
+        List<Map<String, Object>> topicsWithContent = new ArrayList<>();
+        for (Topic topic : topics) {
+            List<Video> videos = videosByTopic.getOrDefault(topic.getId(), Collections.emptyList());
+            List<PDF> pdfs = pdfsByTopic.getOrDefault(topic.getId(), Collections.emptyList());
+            List<MCQ> mcqs = mcqsByTopic.getOrDefault(topic.getId(), Collections.emptyList());
+
+            Map<String, Object> topicData = new HashMap<>();
+            topicData.put("topic", topic);
+            topicData.put("videos", videos);
+            topicData.put("pdfs", pdfs);
+            topicData.put("mcqs", mcqs);
+
+            // Add counts
+            topicData.put("videoCount", videos.size());
+            topicData.put("pdfCount", pdfs.size());
+            topicData.put("mcqCount", mcqs.size());
+
+            topicsWithContent.add(topicData);
+        }
+
+        result.put("topics", topicsWithContent);
+        result.put("topicCount", topics.size());
+
+        // Subject totals also include content whose topic is gone, as before
+        result.put("totalVideos", videoRepository.countBySubjectId(subjectId));
+        result.put("totalPDFs", pdfRepository.countBySubjectId(subjectId));
+        result.put("totalMCQs", mcqRepository.countBySubjectId(subjectId));
+
+        return Optional.of(result);
+    }
+
+    /**
+     * All subjects of an instructor with topic/video/PDF/MCQ counts per subject and overall
+     * 5 queries whatever the number of subjects: subjects plus one grouped count per collection
+     */
+    public Map<String, Object> getContentByInstructor(String email) {
+        List<Subject> subjects = subjectRepository.findByInstructorEmail(email);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("instructorEmail", email);
+        result.put("subjects", subjects);
+
+        List<String> subjectIds = new ArrayList<>();
+        for (Subject subject : subjects) {
+            subjectIds.add(subject.getId());
+        }
+
+        Map<String, Long> topicCounts = countBySubject(Topic.class, subjectIds);
+        Map<String, Long> videoCounts = countBySubject(Video.class, subjectIds);
+        Map<String, Long> pdfCounts = countBySubject(PDF.class, subjectIds);
+        Map<String, Long> mcqCounts = countBySubject(MCQ.class, subjectIds);
+
+        List<Map<String, Object>> subjectsWithContent = new ArrayList<>();
+
+        int totalTopics = 0;
+        int totalVideos = 0;
+        int totalPDFs = 0;
+        int totalMCQs = 0;
+
+        for (Subject subject : subjects) {
+            int topicCount = topicCounts.getOrDefault(subject.getId(), 0L).intValue();
+            Long videoCount = videoCounts.getOrDefault(subject.getId(), 0L);
+            Long pdfCount = pdfCounts.getOrDefault(subject.getId(), 0L);
+            Long mcqCount = mcqCounts.getOrDefault(subject.getId(), 0L);
+
+            Map<String, Object> subjectData = new HashMap<>();
+            subjectData.put("subject", subject);
+            subjectData.put("topicCount", topicCount);
+            subjectData.put("videoCount", videoCount);
+            subjectData.put("pdfCount", pdfCount);
+            subjectData.put("mcqCount", mcqCount);
+
+            totalTopics += topicCount;
+            totalVideos += videoCount;
+            totalPDFs += pdfCount;
+            totalMCQs += mcqCount;
+
+            subjectsWithContent.add(subjectData);
+        }
+
+        result.put("subjectsWithStats", subjectsWithContent);
+        result.put("totalSubjects", subjects.size());
+        result.put("totalTopics", totalTopics);
+        result.put("totalVideos", totalVideos);
+        result.put("totalPDFs", totalPDFs);
+        result.put("totalMCQs", totalMCQs);
+
+        return result;
+    }
+
+    /**
+     * Documents per subjectId for the given subjects, in one $group aggregation
+     */
+    Map<String, Long> countBySubject(Class<?> type, Collection<String> subjectIds) {
+        Map<String, Long> counts = new HashMap<>();
+        if (subjectIds.isEmpty()) {
+            return counts;
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("subjectId").in(subjectIds)),
+            Aggregation.group("subjectId").count().as("count")
+        );
+        for (Document row : mongoTemplate.aggregate(aggregation, type, Document.class).getMappedResults()) {
+            Object subjectId = row.get("_id");
+            Number count = row.get("count", Number.class);
+            if (subjectId != null && count != null) {
+                counts.put(subjectId.toString(), count.longValue());
+            }
+        }
+        return counts;
+    }
+}
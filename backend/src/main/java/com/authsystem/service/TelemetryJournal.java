@@ -0,0 +1,144 @@
+package com.authsystem.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of buffered telemetry, split into segments
+ * - Every buffered entry is appended as one line to the active segment before it is acknowledged;
+ *   the OS has it as soon as append() returns, sync() forces it to the disk
+ * - rotate() seals the active segment together with a buffer drain; once the drained entries are
+ *   written to MongoDB the sealed segment is deleted
+ * - Segments still present at startup were never written and are replayed
+ */
+class TelemetryJournal {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private FileChannel active;
+    private Path activePath;
+    private long sequence;
+
+    TelemetryJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Read the lines of every existing segment, oldest first, and start a new active segment
+     *
+     * @return the replayed lines together with the segments they came from
+     */
+    synchronized Recovered open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = segments();
+            List<String> lines = new ArrayList<>();
+            for (Path segment : segments) {
+                for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        lines.add(line);
+                    }
+                }
+                sequence = Math.max(sequence, sequenceOf(segment));
+            }
+            openSegment();
+            return new Recovered(lines, segments);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open telemetry journal in " + directory, e);
+        }
+    }
+
+    synchronized void append(String line) {
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                active.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to telemetry journal " + activePath, e);
+        }
+    }
+
+    synchronized void sync() {
+        try {
+            if (active != null && active.isOpen()) {
+                active.force(false);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Telemetry journal sync failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Seal the active segment and continue in a new one
+     *
+     * @return the sealed segment
+     */
+    synchronized Path rotate() {
+        try {
+            Path sealed = activePath;
+            active.force(false);
+            active.close();
+            openSegment();
+            return sealed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rotate telemetry journal " + activePath, e);
+        }
+    }
+
+    void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                System.err.println("⚠️ Cannot delete telemetry journal segment " + segment + ": " + e.getMessage());
+            }
+        }
+    }
+
+    synchronized void close() {
+        try {
+            if (active != null && active.isOpen()) {
+                active.force(false);
+                active.close();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Cannot close telemetry journal: " + e.getMessage());
+        }
+    }
+
+    private void openSegment() throws IOException {
+        sequence++;
+        activePath = directory.resolve(PREFIX + String.format("%012d", sequence) + SUFFIX);
+        active = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(PREFIX)
+                    && path.getFileName().toString().endsWith(SUFFIX))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    record Recovered(List<String> lines, List<Path> segments) {}
+}
@@ -0,0 +1,45 @@
+package com.authsystem.cache;
+
+import com.authsystem.dto.CourseDetailsDTO;
+import com.authsystem.service.CourseDetailsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CourseCatalogCacheTest {
+
+    private CourseCatalogCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new CourseCatalogCache();
+        CourseDetailsService service = mock(CourseDetailsService.class);
+        ReflectionTestUtils.setField(cache, "courseDetailsService", service);
+        ReflectionTestUtils.setField(cache, "maxDetails", 10);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        cache.init();
+        when(service.getCourseDetailsWithCounts(anyString())).thenAnswer(inv -> {
+            CourseDetailsDTO dto = new CourseDetailsDTO();
+            dto.setTitle("load " + loads.incrementAndGet());
+            return dto;
+        });
+    }
+
+    @Test
+    void detailsBuiltUnderAnOlderEtagAreNotServedUnderANewerOne() {
+        assertEquals("load 1", cache.getCourseDetails("c1", "\"a-1.b-1\"").getTitle());
+        assertEquals("load 1", cache.getCourseDetails("c1", "\"a-1.b-1\"").getTitle());
+
+        // Another instance wrote the course; its CourseChangedEvent has not arrived here yet
+        assertEquals("load 2", cache.getCourseDetails("c1", "\"a-2.b-1\"").getTitle());
+        assertEquals("load 3", cache.getCourseDetails("c1", "\"a-2.b-1\"").getTitle());
+        assertEquals("load 3", cache.getCourseDetails("c1", "\"a-2.b-1\"").getTitle());
+        assertEquals(3, loads.get());
+    }
+}
@@ -0,0 +1,118 @@
+package com.authsystem.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadThroughCacheTest {
+
+    @Test
+    void secondLookupIsAHit() {
+        ReadThroughCache<String, String> cache = new ReadThroughCache<>("test", 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v-a", cache.get("a", k -> { loads.incrementAndGet(); return "v-" + k; }));
+        assertEquals("v-a", cache.get("a", k -> { loads.incrementAndGet(); return "v-" + k; }));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPastMaxSize() {
+        ReadThroughCache<Integer, Integer> cache = new ReadThroughCache<>("test", 2, Duration.ofMinutes(1));
+        cache.get(1, k -> k);
+        cache.get(2, k -> k);
+        cache.get(1, k -> k);   // 1 is now most recently used
+        cache.get(3, k -> k);   // evicts 2
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        AtomicInteger reloads = new AtomicInteger();
+        cache.get(1, k -> { reloads.incrementAndGet(); return k; });
+        cache.get(2, k -> { reloads.incrementAndGet(); return k; });
+        assertEquals(1, reloads.get());
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        ReadThroughCache<String, Integer> cache = new ReadThroughCache<>("test", 10, Duration.ofMinutes(1));
+        AtomicInteger version = new AtomicInteger(1);
+
+        assertEquals(1, cache.get("k", k -> version.get()));
+        version.set(2);
+        assertEquals(1, cache.get("k", k -> version.get()));
+        cache.invalidate("k");
+        assertEquals(2, cache.get("k", k -> version.get()));
+    }
+
+    @Test
+    void invalidationOnlyDiscardsOverlappingLoadsOfTheSameKey() {
+        ReadThroughCache<String, String> cache = new ReadThroughCache<>("test", 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        // Another key invalidated while "a" loads: "a" is still cached
+        cache.get("a", k -> { loads.incrementAndGet(); cache.invalidate("b"); return "v-" + k; });
+        cache.get("a", k -> { loads.incrementAndGet(); return "v-" + k; });
+        assertEquals(1, loads.get());
+
+        // "b" invalidated while it loads: the value is returned but not stored
+        assertEquals("v-b", cache.get("b", k -> { loads.incrementAndGet(); cache.invalidate("b"); return "v-" + k; }));
+        cache.get("b", k -> { loads.incrementAndGet(); return "v-" + k; });
+        assertEquals(3, loads.get());
+
+        // invalidateAll still discards every overlapping load
+        cache.get("c", k -> { loads.incrementAndGet(); cache.invalidateAll(); return "v-" + k; });
+        cache.get("c", k -> { loads.incrementAndGet(); return "v-" + k; });
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        ReadThroughCache<String, String> cache = new ReadThroughCache<>("test", 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("hot", k -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "value";
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loaderFailureIsNotCached() {
+        ReadThroughCache<String, String> cache = new ReadThroughCache<>("test", 10, Duration.ofMinutes(1));
+
+        assertThrows(RuntimeException.class, () -> cache.get("k", k -> { throw new RuntimeException("not found"); }));
+        assertEquals("ok", cache.get("k", k -> "ok"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.authsystem.cache;
+
+import com.authsystem.service.StudentRecommendationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RecommendationCacheTest {
+
+    private RecommendationCache cache;
+    private StudentRecommendationService service;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecommendationCache();
+        service = mock(StudentRecommendationService.class);
+        ReflectionTestUtils.setField(cache, "recommendationService", service);
+        ReflectionTestUtils.setField(cache, "maxStudents", 100);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        cache.init();
+        when(service.getRecommendations(anyString())).thenAnswer(inv -> Map.of("student", inv.getArgument(0)));
+    }
+
+    @Test
+    void recordedAttemptDropsOnlyThatStudent() {
+        cache.getRecommendations("a@example.com");
+        cache.getRecommendations("b@example.com");
+        cache.getRecommendations("a@example.com");
+        verify(service, times(1)).getRecommendations("a@example.com");
+
+        cache.onQuizAttemptRecorded(new QuizAttemptRecordedEvent("a@example.com"));
+        cache.getRecommendations("a@example.com");
+        cache.getRecommendations("b@example.com");
+
+        verify(service, times(2)).getRecommendations("a@example.com");
+        verify(service, times(1)).getRecommendations("b@example.com");
+    }
+
+    @Test
+    void bulkChangeDropsEveryStudent() {
+        cache.getRecommendations("a@example.com");
+        cache.getRecommendations("b@example.com");
+
+        cache.onQuizAttemptRecorded(QuizAttemptRecordedEvent.all());
+        cache.getRecommendations("a@example.com");
+        cache.getRecommendations("b@example.com");
+
+        verify(service, times(2)).getRecommendations("a@example.com");
+        verify(service, times(2)).getRecommendations("b@example.com");
+    }
+
+    @Test
+    void cachedResultIsReadOnly() {
+        Map<String, Object> result = cache.getRecommendations("a@example.com");
+        assertThrows(UnsupportedOperationException.class, () -> result.put("x", 1));
+    }
+}
@@ -0,0 +1,63 @@
+package com.authsystem.controller;
+
+import com.authsystem.model.Course;
+import com.authsystem.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CourseAnalyticsControllerTest {
+
+    private CourseAnalyticsController controller;
+    private CourseRepository courseRepository;
+    private Method checkMethod;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        controller = new CourseAnalyticsController();
+        courseRepository = mock(CourseRepository.class);
+        ReflectionTestUtils.setField(controller, "courseRepository", courseRepository);
+        checkMethod = CourseAnalyticsController.class.getDeclaredMethod("checkInstructor", String.class, Authentication.class);
+        checkMethod.setAccessible(true);
+    }
+
+    private Integer check(String courseId, String email, String role) throws Exception {
+        // Authorities as JwtFilter grants them
+        Authentication authentication = new UsernamePasswordAuthenticationToken(email, null,
+            List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        ResponseEntity<?> denied = (ResponseEntity<?>) checkMethod.invoke(controller, courseId, authentication);
+        return denied != null ? denied.getStatusCode().value() : null;
+    }
+
+    private void course(String id, String instructorEmail) {
+        Course course = new Course();
+        course.setId(id);
+        course.setInstructorEmail(instructorEmail);
+        when(courseRepository.findById(id)).thenReturn(Optional.of(course));
+    }
+
+    @Test
+    void onlyTheCoursesInstructorOrAnAdminGetsThrough() throws Exception {
+        course("c1", "owner@x.com");
+        course("orphan", null);
+
+        assertNull(check("c1", "owner@x.com", "INSTRUCTOR"));
+        assertEquals(403, check("c1", "other@x.com", "INSTRUCTOR"));
+        assertNull(check("c1", "admin@x.com", "ADMIN"));
+        // No owner recorded: nobody but admins
+        assertEquals(403, check("orphan", "other@x.com", "INSTRUCTOR"));
+        assertNull(check("orphan", "admin@x.com", "ADMIN"));
+        assertEquals(404, check("missing", "admin@x.com", "ADMIN"));
+    }
+}
@@ -1,12 +1,20 @@
 package com.authsystem.controller;
 
+import com.authsystem.dto.CourseDetailsDTO;
+import com.authsystem.repository.CourseRepository;
+import com.authsystem.service.ContentVersionService;
+import com.authsystem.service.CourseDetailsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 class CourseControllerTest {
 
@@ -58,4 +66,28 @@ class CourseControllerTest {
         assertNull(invokeParse("topicVideos__0", "topicVideos_"));
         assertNull(invokeParse("topicVideos_Topic_noNumber", "topicVideos_"));
     }
+
+    @Test
+    void aLegacyCourseWithoutAVersionIsServedWithoutWritingOne() {
+        ContentVersionService versions = mock(ContentVersionService.class);
+        CourseRepository courses = mock(CourseRepository.class);
+        CourseDetailsService details = mock(CourseDetailsService.class);
+        ReflectionTestUtils.setField(controller, "contentVersionService", versions);
+        ReflectionTestUtils.setField(controller, "courseRepository", courses);
+        ReflectionTestUtils.setField(controller, "courseDetailsService", details);
+        CourseDetailsDTO body = new CourseDetailsDTO();
+        when(versions.courseDetailsETag("legacy")).thenReturn(null);
+        when(courses.existsById("legacy")).thenReturn(true);
+        when(details.getCourseDetailsWithCounts("legacy")).thenReturn(body);
+
+        ResponseEntity<?> response = controller.getCourseDetails("legacy", null);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(body, response.getBody());
+        assertNull(response.getHeaders().getETag());
+        verify(versions, never()).bump(anyString());
+
+        when(courses.existsById("missing")).thenReturn(false);
+        assertEquals(404, controller.getCourseDetails("missing", null).getStatusCode().value());
+    }
 }
@@ -0,0 +1,61 @@
+package com.authsystem.controller;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.service.QuizResultIngest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class QuizResultControllerTest {
+
+    private QuizResultController controller;
+    private QuizResultIngest ingest;
+
+    @BeforeEach
+    void setUp() {
+        controller = new QuizResultController();
+        ingest = mock(QuizResultIngest.class);
+        when(ingest.submit(any(LearningEvent.class))).thenReturn(CompletableFuture.completedFuture(1L));
+        ReflectionTestUtils.setField(controller, "ingest", ingest);
+        ReflectionTestUtils.setField(controller, "ackTimeoutMs", 1000L);
+    }
+
+    private static Authentication student(String email) {
+        return new UsernamePasswordAuthenticationToken(email, null, List.of(new SimpleGrantedAuthority("ROLE_STUDENT")));
+    }
+
+    private static Map<String, Object> result(String email) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("studentEmail", email);
+        request.put("courseId", "c1");
+        request.put("topicName", "Intro");
+        request.put("score", 7);
+        request.put("totalQuestions", 10);
+        return request;
+    }
+
+    @Test
+    void aStudentCanOnlyRecordTheirOwnResults() {
+        ResponseEntity<?> denied = controller.submit(result("victim@x.com"), student("other@x.com"));
+        assertEquals(403, denied.getStatusCode().value());
+        assertEquals(403, controller.submit(result("victim@x.com"), null).getStatusCode().value());
+        verify(ingest, never()).submit(any(LearningEvent.class));
+
+        ResponseEntity<?> recorded = controller.submit(result("victim@x.com"), student("victim@x.com"));
+        assertEquals(202, recorded.getStatusCode().value());
+        verify(ingest).submit(any(LearningEvent.class));
+    }
+}
@@ -0,0 +1,159 @@
+package com.authsystem.search;
+
+import com.authsystem.model.MCQ;
+import com.authsystem.model.Subject;
+import com.authsystem.model.Video;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ContentSearchIndexTest {
+
+    private ContentSearchIndex index;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        index = new ContentSearchIndex();
+        mongoTemplate = mock(MongoTemplate.class);
+        ReflectionTestUtils.setField(index, "mongoTemplate", mongoTemplate);
+    }
+
+    private Subject subject(String id, String title, String difficulty) {
+        Subject subject = new Subject();
+        subject.setId(id);
+        subject.setTitle(title);
+        subject.setDifficulty(difficulty);
+        return subject;
+    }
+
+    private Video video(String id, String title, String difficulty) {
+        Video video = new Video();
+        video.setId(id);
+        video.setTitle(title);
+        video.setDifficulty(difficulty);
+        return video;
+    }
+
+    private MCQ mcq(String id, String question, String difficulty) {
+        MCQ mcq = new MCQ();
+        mcq.setId(id);
+        mcq.setQuestion(question);
+        mcq.setDifficulty(difficulty);
+        return mcq;
+    }
+
+    // Typed, so stubbing the generic stream(Query, Class<T>) needs no raw Class
+    private static Class<Object> anyType() {
+        return any();
+    }
+
+    private List<String> ids(ContentSearchIndex.Result result) {
+        return result.hits().stream().map(h -> h.document().id()).toList();
+    }
+
+    @Test
+    void filtersByTypeAndDifficultyWithFacets() {
+        index.put(subject("s1", "Java Programming", "BEGINNER"));
+        index.put(video("v1", "Java Streams", "ADVANCED"));
+        index.put(video("v2", "Java Basics", "BEGINNER"));
+        index.put(mcq("m1", "Which Java keyword declares a constant?", "BEGINNER"));
+        index.put(video("v3", "Python Basics", "BEGINNER"));
+
+        ContentSearchIndex.Result all = index.search("java", null, null, 0, 20);
+        assertEquals(4, all.total());
+        assertEquals(1, all.typeCounts().get("subject"));
+        assertEquals(2, all.typeCounts().get("video"));
+        assertEquals(0, all.typeCounts().get("topic"));
+        assertEquals(3, all.difficultyCounts().get("BEGINNER"));
+
+        ContentSearchIndex.Result beginnerVideos = index.search("java", Set.of("video"), "BEGINNER", 0, 20);
+        assertEquals(List.of("v2"), ids(beginnerVideos));
+        // Facets ignore their own filter: both video difficulties and all beginner types stay visible
+        assertEquals(Map.of("ADVANCED", 1, "BEGINNER", 1), beginnerVideos.difficultyCounts());
+        assertEquals(1, beginnerVideos.typeCounts().get("mcq"));
+    }
+
+    @Test
+    void paginatesRankedResults() {
+        for (int i = 0; i < 25; i++) {
+            index.put(video("v" + i, "Docker lesson " + i, "BEGINNER"));
+        }
+
+        ContentSearchIndex.Result first = index.search("docker", null, null, 0, 10);
+        ContentSearchIndex.Result third = index.search("docker", null, null, 2, 10);
+
+        assertEquals(25, first.total());
+        assertEquals(10, first.hits().size());
+        assertEquals(5, third.hits().size());
+        Set<String> seen = new HashSet<>(ids(first));
+        seen.addAll(ids(index.search("docker", null, null, 1, 10)));
+        seen.addAll(ids(third));
+        assertEquals(25, seen.size());
+    }
+
+    @Test
+    void updatesAndDeletesApplyImmediately() {
+        index.put(video("v1", "Kafka intro", "BEGINNER"));
+        index.put(video("v1", "RabbitMQ intro", "BEGINNER"));
+        index.put(mcq("m1", "What is Kafka?", "BEGINNER"));
+
+        assertEquals(List.of("m1"), ids(index.search("kafka", null, null, 0, 10)));
+
+        index.remove(Video.class, "v1");
+        assertEquals(0, index.search("rabbitmq", null, null, 0, 10).total());
+
+        index.removeAll(MCQ.class);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void rebuildReadsEveryTypeAndMarksReady() {
+        when(mongoTemplate.stream(any(Query.class), anyType())).thenAnswer(inv -> {
+            Class<?> type = inv.getArgument(1);
+            if (type == Subject.class) {
+                return Stream.of(subject("s1", "Networks", "INTERMEDIATE"));
+            }
+            if (type == MCQ.class) {
+                return Stream.of(mcq("m1", "What does TCP guarantee in networks?", "INTERMEDIATE"));
+            }
+            return Stream.empty();
+        });
+
+        assertFalse(index.isReady());
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(2, index.search("network", null, "intermediate", 0, 10).total());
+        verify(mongoTemplate, times(5)).stream(any(Query.class), anyType());
+    }
+
+    @Test
+    void aFailedFirstBuildIsRetriedWithBackoff() {
+        ReflectionTestUtils.setField(index, "firstBuildRetryMs", 1L);
+        ReflectionTestUtils.setField(index, "firstBuildMaxRetryMs", 4L);
+        int[] attempts = {0};
+        when(mongoTemplate.stream(any(Query.class), anyType())).thenAnswer(inv -> {
+            Class<?> type = inv.getArgument(1);
+            if (type == Subject.class && ++attempts[0] <= 3) {
+                throw new IllegalStateException("Timed out waiting for a server");
+            }
+            return type == Subject.class ? Stream.of(subject("s1", "Networks", "INTERMEDIATE")) : Stream.empty();
+        });
+
+        index.buildFirst();
+
+        assertTrue(index.isReady());
+        assertEquals(4, attempts[0]);
+        assertEquals(1, index.search("network", null, null, 0, 10).total());
+    }
+}
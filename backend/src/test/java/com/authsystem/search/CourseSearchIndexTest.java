@@ -0,0 +1,133 @@
+package com.authsystem.search;
+
+import com.authsystem.model.Course;
+import com.authsystem.model.TopicSubcontent;
+import com.authsystem.repository.CourseRepository;
+import com.authsystem.service.CourseSubcontentStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseSearchIndexTest {
+
+    private static final String[] WORDS = {
+        "java", "python", "spring", "react", "angular", "docker", "kubernetes", "algorithms", "data", "structures",
+        "machine", "learning", "networks", "security", "databases", "mongodb", "cloud", "design", "testing", "devops"
+    };
+
+    private CourseSearchIndex index;
+    private CourseRepository courseRepository;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourseSearchIndex();
+        courseRepository = mock(CourseRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        ReflectionTestUtils.setField(index, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(index, "mongoTemplate", mongoTemplate);
+        CourseSubcontentStore subcontentStore = new CourseSubcontentStore();
+        ReflectionTestUtils.setField(subcontentStore, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(index, "courseSubcontentStore", subcontentStore);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    private Course course(String id, String title, String topic, String subcontentName) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        course.setDescription("Course about " + title);
+        course.setSubjects(List.of("Programming"));
+        course.setTopics(List.of(topic));
+        TopicSubcontent sc = new TopicSubcontent();
+        sc.setName(subcontentName);
+        sc.setVideoUrls(List.of("v1", "v2"));
+        Map<String, List<TopicSubcontent>> subcontents = new LinkedHashMap<>();
+        subcontents.put(topic, List.of(sc));
+        course.setTopicSubcontents(subcontents);
+        return course;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> list(Map<String, Object> results, String key) {
+        return (List<Map<String, Object>>) results.get(key);
+    }
+
+    @Test
+    void rebuildIndexesCoursesTopicsAndSubcontents() {
+        when(mongoTemplate.stream(any(Query.class), eq(Course.class))).thenReturn(Stream.of(
+            course("c1", "Java Fundamentals", "Generics", "Bounded wildcards"),
+            course("c2", "Python for Data", "Pandas", "DataFrames intro")));
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        Map<String, Object> results = index.search("wildcard", 10);
+        assertEquals(List.of("c1"), list(results, "courses").stream().map(r -> r.get("id")).toList());
+        Map<String, Object> subcontent = list(results, "topics").get(0);
+        assertEquals("subcontent", subcontent.get("type"));
+        assertEquals("Generics", subcontent.get("topicName"));
+        assertEquals("Java Fundamentals", subcontent.get("courseTitle"));
+        assertEquals(2, subcontent.get("videoCount"));
+        assertEquals(2, results.get("totalResults"));
+    }
+
+    @Test
+    void reindexReplacesAndDropsCourses() {
+        when(mongoTemplate.stream(any(Query.class), eq(Course.class)))
+            .thenReturn(Stream.of(course("c1", "Java Fundamentals", "Generics", "Wildcards")));
+        index.rebuild();
+
+        when(courseRepository.findById("c1")).thenReturn(Optional.of(course("c1", "Kotlin Fundamentals", "Coroutines", "Flows")));
+        index.reindex("c1");
+        assertEquals(0, (int) index.search("java", 10).get("totalResults"));
+        assertEquals(1, list(index.search("kotlin", 10), "courses").size());
+
+        when(courseRepository.findById("c1")).thenReturn(Optional.empty());
+        index.reindex("c1");
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @Tag("perf")
+    void searchesFiftyThousandCoursesQuickly() {
+        Random random = new Random(42);
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            courses.add(course("c" + i, title, WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)] + " lab"));
+        }
+        when(mongoTemplate.stream(any(Query.class), eq(Course.class))).thenReturn(courses.stream());
+        index.rebuild();
+
+        String[] queries = {"java spring", "mach learn", "kubernetes", "data struct", "12345", "secur net"};
+        for (int i = 0; i < 2000; i++) {
+            index.search(queries[i % queries.length], 20);
+        }
+        long[] timings = new long[600];
+        for (int i = 0; i < timings.length; i++) {
+            long start = System.nanoTime();
+            index.search(queries[i % queries.length], 20);
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        long p99Micros = timings[(int) (timings.length * 0.99)] / 1000;
+        System.out.println("Course search p99 at 50k courses: " + p99Micros + "µs");
+        assertTrue(p99Micros < 50_000, "p99 was " + p99Micros + "µs");
+    }
+}
@@ -0,0 +1,79 @@
+package com.authsystem.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private Map<String, Float> terms(String text, float weight) {
+        Map<String, Float> terms = new HashMap<>();
+        SearchTokenizer.addField(terms, text, weight);
+        return terms;
+    }
+
+    private List<String> search(InvertedIndex<String, String> index, String query) {
+        List<String> ids = new ArrayList<>();
+        for (InvertedIndex.Hit<String> hit : InvertedIndex.top(index.match(SearchTokenizer.tokenizeQuery(query)), 0, 10)) {
+            ids.add(hit.document());
+        }
+        return ids;
+    }
+
+    @Test
+    void tokenizerLowercasesAndStripsAccentsAndPunctuation() {
+        assertEquals(List.of("spring", "boot", "intro", "part", "2"), SearchTokenizer.tokenize("Spring Boot: Intro (Part 2)"));
+        assertEquals(List.of("resume", "cafe"), SearchTokenizer.tokenize("Résumé, CAFÉ"));
+        assertEquals(List.of("java"), SearchTokenizer.tokenizeQuery("java JAVA"));
+    }
+
+    @Test
+    void matchesPrefixesAndRequiresEveryToken() {
+        InvertedIndex<String, String> index = new InvertedIndex<>();
+        index.put("a", "a", terms("Java Programming", 1f));
+        index.put("b", "b", terms("JavaScript Basics", 1f));
+        index.put("c", "c", terms("Python Programming", 1f));
+
+        assertEquals(Set.of("a", "b"), new HashSet<>(search(index, "jav")));
+        assertEquals(List.of("a"), search(index, "java prog"));
+        assertTrue(search(index, "java python").isEmpty());
+        assertTrue(search(index, "rust").isEmpty());
+    }
+
+    @Test
+    void exactAndHeavierMatchesRankFirst() {
+        InvertedIndex<String, String> index = new InvertedIndex<>();
+        index.put("prefix", "prefix", terms("Javanese cooking", 3f));
+        index.put("exact", "exact", terms("Java", 3f));
+        index.put("description", "description", terms("Java", 1f));
+
+        assertEquals(List.of("exact", "prefix", "description"), search(index, "java"));
+    }
+
+    @Test
+    void updatesReplaceAndRemoveDocuments() {
+        InvertedIndex<String, String> index = new InvertedIndex<>();
+        index.put("a", "a-v1", terms("Docker", 1f));
+        index.put("a", "a-v2", terms("Kubernetes", 1f));
+
+        assertTrue(search(index, "docker").isEmpty());
+        assertEquals(List.of("a-v2"), search(index, "kube"));
+        assertEquals(1, index.termCount());
+
+        index.remove("a");
+        assertEquals(0, index.size());
+        assertEquals(0, index.termCount());
+    }
+
+    @Test
+    void topHonoursOffsetAndLimit() {
+        List<InvertedIndex.Hit<String>> hits = List.of(
+            new InvertedIndex.Hit<>("low", 1f), new InvertedIndex.Hit<>("high", 3f), new InvertedIndex.Hit<>("mid", 2f));
+
+        assertEquals(List.of("high", "mid"), InvertedIndex.top(hits, 0, 2).stream().map(InvertedIndex.Hit::document).toList());
+        assertEquals(List.of("mid", "low"), InvertedIndex.top(hits, 1, 5).stream().map(InvertedIndex.Hit::document).toList());
+        assertTrue(InvertedIndex.top(hits, 3, 5).isEmpty());
+    }
+}
@@ -0,0 +1,162 @@
+package com.authsystem.search;
+
+import com.authsystem.service.StudentNoteStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StudentNoteSearchIndexTest {
+
+    private static final String[] WORDS = {"the", "equation", "solve", "for", "both", "sides", "remember", "sign",
+        "subtract", "divide", "factor", "root", "check", "answer", "example", "term", "coefficient", "variable",
+        "slope", "graph", "intercept", "minus", "plus", "times", "is", "a", "of", "and", "to", "matrix", "vector",
+        "limit", "derivative", "integral", "series", "proof", "lemma", "theorem", "probability", "angle"};
+
+    private StudentNoteStore noteStore;
+    private StudentNoteSearchIndex index;
+    private final Map<String, List<StudentNoteStore.StoredNote>> stored = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        noteStore = mock(StudentNoteStore.class);
+        when(noteStore.loadAll(anyString())).thenAnswer(inv -> stored.getOrDefault(inv.getArgument(0), List.of()));
+        index = new StudentNoteSearchIndex();
+        ReflectionTestUtils.setField(index, "noteStore", noteStore);
+        ReflectionTestUtils.setField(index, "maxIndexedChars", 20_000_000L);
+    }
+
+    @Test
+    void rankedResultsCarrySnippetsAroundTheMatch() {
+        stored.put("s@x.com", List.of(
+            note("c1", "Algebra", "Quadratics", 1, "Completing the square works every time. The quadratic formula "
+                + "x = (-b ± √(b² - 4ac)) / 2a comes from it; the discriminant tells how many roots there are."),
+            note("c1", "Algebra", "Linear equations", 1, "Move terms across, the formula for slope is rise over run."),
+            note("c2", "Physics", "Kinematics", 1, "Quadratic in time: s = ut + ½at². Remember the sign of a.")));
+
+        StudentNoteSearchIndex.Page page = index.search("s@x.com", "quadratic formula", null, 10);
+        assertEquals(1, page.total());
+        StudentNoteSearchIndex.Result best = page.results().get(0);
+        assertEquals("Quadratics", best.subtopicName());
+        for (int[] highlight : best.highlights()) {
+            String word = best.snippet().substring(highlight[0], highlight[1]).toLowerCase();
+            assertTrue(word.startsWith("quadratic") || word.startsWith("formula"), word);
+        }
+        assertEquals(2, best.highlights().size());
+
+        // Every word must match, the last one as a prefix; topic names are searchable too
+        assertEquals(2, index.search("s@x.com", "quadr", null, 10).total());
+        assertEquals(1, index.search("s@x.com", "discrim", null, 10).total());
+        assertEquals("Kinematics", index.search("s@x.com", "physics", null, 10).results().get(0).subtopicName());
+        assertEquals(1, index.search("s@x.com", "quadratic", "c2", 10).total());
+        assertEquals(0, index.search("other@x.com", "quadratic", null, 10).total());
+    }
+
+    @Test
+    void indexIsBuiltOnceAndKeptCurrentBySaves() {
+        stored.put("s@x.com", new ArrayList<>(List.of(note("c1", "Algebra", "Basics", 1, "signs of terms"))));
+        assertEquals(1, index.search("s@x.com", "signs", null, 10).total());
+
+        index.onNoteSaved(new StudentNoteStore.Saved("s@x.com", note("c1", "Algebra", "Basics", 3, "factor by grouping")));
+        index.onNoteSaved(new StudentNoteStore.Saved("s@x.com", note("c1", "Calculus", "Limits", 1, "squeeze theorem")));
+        // Delivered late: older than what the index already has
+        index.onNoteSaved(new StudentNoteStore.Saved("s@x.com", note("c1", "Algebra", "Basics", 2, "signs again")));
+
+        assertEquals(0, index.search("s@x.com", "signs", null, 10).total());
+        assertEquals(1, index.search("s@x.com", "grouping", null, 10).total());
+        assertEquals(1, index.search("s@x.com", "squeeze", null, 10).total());
+
+        // Clearing a note removes it from the results
+        index.onNoteSaved(new StudentNoteStore.Saved("s@x.com", note("c1", "Calculus", "Limits", 2, "")));
+        assertEquals(0, index.search("s@x.com", "squeeze", null, 10).total());
+        verify(noteStore, times(1)).loadAll("s@x.com");
+    }
+
+    @Test
+    void leastRecentlySearchedIndexesAreEvictedOverBudget() {
+        for (String student : List.of("a@x.com", "b@x.com", "c@x.com")) {
+            stored.put(student, List.of(note("c1", "Algebra", "Basics", 1, noteText(new Random(student.hashCode()), 4000))));
+        }
+        ReflectionTestUtils.setField(index, "maxIndexedChars", 9_000L);
+
+        index.search("a@x.com", "equation", null, 10);
+        index.search("b@x.com", "equation", null, 10);
+        index.search("a@x.com", "equation", null, 10);
+        index.search("c@x.com", "equation", null, 10);
+
+        Map<String, Long> stats = index.stats();
+        assertEquals(2L, stats.get("students"));
+        assertEquals(8000L, stats.get("indexedChars"));
+        assertEquals(1L, stats.get("evictions"));
+
+        // b was the least recently searched; its index is rebuilt from storage on demand
+        index.search("b@x.com", "equation", null, 10);
+        verify(noteStore, times(2)).loadAll("b@x.com");
+        verify(noteStore, times(1)).loadAll("a@x.com");
+    }
+
+    @Test
+    @Tag("perf")
+    void searchesTakeMillisecondsOnANoteHeavyStudent() {
+        Random random = new Random(7);
+        List<StudentNoteStore.StoredNote> notes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            notes.add(note("c" + (i % 8), "Topic " + (i / 40), "Subtopic " + i, 1, noteText(random, 500 + random.nextInt(2000))));
+        }
+        stored.put("s@x.com", notes);
+
+        long start = System.nanoTime();
+        index.search("s@x.com", "lemma", null, 20);
+        double buildMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        String[] queries = {"derivative integral", "theorem pro", "matrix vector", "slope", "probability angle", "series lim"};
+        int rounds = 500;
+        int found = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            found += index.search("s@x.com", queries[i % queries.length], null, 20).results().size();
+        }
+        double perQueryMs = (System.nanoTime() - start) / 1_000_000.0 / rounds;
+        System.out.printf("Notes search over 2000 notes (%d characters): index built in %.0f ms, %.3f ms per query%n",
+            index.stats().get("indexedChars"), buildMs, perQueryMs);
+
+        assertTrue(found > 0);
+        assertTrue(perQueryMs < 20, "took " + perQueryMs + " ms per query");
+    }
+
+    @Test
+    void savesMadeOnAnotherInstanceAreFoundOnTheNextSearch() {
+        stored.put("s@x.com", List.of(note("c1", "Algebra", "Basics", 1, "signs of terms")));
+        assertEquals(1, index.search("s@x.com", "signs", null, 10).total());
+
+        // Saved elsewhere: no Saved event here, only the updatedAt in student_notes
+        when(noteStore.loadChangedSince(eq("s@x.com"), any(LocalDateTime.class)))
+            .thenReturn(List.of(note("c1", "Algebra", "Basics", 2, "factor by grouping")));
+
+        assertEquals(0, index.search("s@x.com", "signs", null, 10).total());
+        assertEquals(1, index.search("s@x.com", "grouping", null, 10).total());
+        verify(noteStore, times(1)).loadAll("s@x.com");
+    }
+
+    private static StudentNoteStore.StoredNote note(String courseId, String topic, String subtopic, long revision, String text) {
+        return new StudentNoteStore.StoredNote(courseId, topic, subtopic, text, revision, LocalDateTime.now());
+    }
+
+    private static String noteText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            text.append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        return text.substring(0, length);
+    }
+}
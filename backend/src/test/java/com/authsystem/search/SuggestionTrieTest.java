@@ -0,0 +1,59 @@
+package com.authsystem.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionTrieTest {
+
+    private List<String> texts(List<SuggestionTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestionTrie.Suggestion::text).toList();
+    }
+
+    @Test
+    void ranksByWeightAndMatchesAnyWordStart() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+            .add("Spring Boot Basics", "course", 40, "c1")
+            .add("Spring Security", "course", 90, "c2")
+            .add("Bootstrap Layouts", "topic", 5, null)
+            .add("Python", "course", 500, "c3")
+            .build();
+
+        assertEquals(List.of("Spring Security", "Spring Boot Basics"), texts(trie.suggest("spr", 5)));
+        assertEquals(List.of("Spring Boot Basics", "Bootstrap Layouts"), texts(trie.suggest("boot", 5)));
+        assertEquals(List.of("Spring Security"), texts(trie.suggest("SPRING  sec", 5)));
+        assertTrue(trie.suggest("rust", 5).isEmpty());
+        assertTrue(trie.suggest("", 5).isEmpty());
+    }
+
+    @Test
+    void mergesDuplicatePhrasesAndSumsFrequency() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+            .add("Arrays", "topic", 1, "c1")
+            .add("arrays", "topic", 1, "c2")
+            .add("Array Methods", "topic", 1, "c3")
+            .build();
+
+        List<SuggestionTrie.Suggestion> suggestions = trie.suggest("arr", 5);
+        assertEquals(List.of("Arrays", "Array Methods"), texts(suggestions));
+        assertEquals(2, suggestions.get(0).weight());
+        assertNull(suggestions.get(0).courseId());
+        assertEquals("c3", suggestions.get(1).courseId());
+    }
+
+    @Test
+    void keepsOnlyTheTopKPerPrefix() {
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder();
+        for (int i = 0; i < 100; i++) {
+            builder.add("Topic " + i, "topic", i, null);
+        }
+        SuggestionTrie trie = builder.build();
+
+        List<SuggestionTrie.Suggestion> suggestions = trie.suggest("topic", 50);
+        assertEquals(SuggestionTrie.MAX_K, suggestions.size());
+        assertEquals("Topic 99", suggestions.get(0).text());
+        assertEquals(List.of("Topic 42"), texts(trie.suggest("topic 42", 3)));
+    }
+}
@@ -0,0 +1,218 @@
+package com.authsystem.service;
+
+import com.authsystem.model.MCQ;
+import com.authsystem.model.Topic;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BulkContentServiceTest {
+
+    private InMemoryMongo mongo;
+    private BulkContentService service;
+    private CourseContentCountService courseContentCountService;
+    private List<AfterSaveEvent<?>> saveEvents;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongo = new InMemoryMongo();
+        ContentVersionService contentVersionService = new ContentVersionService();
+        ReflectionTestUtils.setField(contentVersionService, "mongoTemplate", mongo.template);
+        ContentVersionListener listener = new ContentVersionListener();
+        ReflectionTestUtils.setField(listener, "contentVersionService", contentVersionService);
+        ReflectionTestUtils.setField(listener, "mongoTemplate", mongo.template);
+        courseContentCountService = mock(CourseContentCountService.class);
+        saveEvents = new ArrayList<>();
+
+        service = new BulkContentService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(service, "courseContentCountService", courseContentCountService);
+        ReflectionTestUtils.setField(service, "contentVersionService", contentVersionService);
+        ReflectionTestUtils.setField(service, "eventPublisher", (ApplicationEventPublisher) event -> {
+            saveEvents.add((AfterSaveEvent<?>) event);
+            listener.onApplicationEvent((AfterSaveEvent<Object>) event);
+        });
+        ReflectionTestUtils.setField(service, "chunkSize", 1000);
+        ReflectionTestUtils.setField(service, "maxItems", 20000);
+
+        mongo.insert("subjects", new Document("_id", "s1").append("name", "Maths").append("difficulty", "BEGINNER"));
+        mongo.insert("topics", new Document("_id", "t1").append("subjectId", "s1").append("name", "Intro")
+            .append("difficulty", "BEGINNER").append("orderIndex", 1));
+    }
+
+    private static Map<String, Object> mcq(String question, List<?> options, Object correctAnswerIndex) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("question", question);
+        item.put("options", options);
+        item.put("correctAnswerIndex", correctAnswerIndex);
+        return item;
+    }
+
+    private static List<Integer> indexes(BulkContentService.Result<?> result) {
+        return result.failed().stream().map(BulkContentService.ItemError::index).toList();
+    }
+
+    private long versionBumps() {
+        return mongo.collection("content_versions").stream().mapToLong(doc -> ((Number) doc.get("version")).longValue()).sum();
+    }
+
+    @Test
+    void invalidMcqsAreReportedAndTheRestCreated() {
+        Map<String, Object> withPoints = mcq("2 + 2?", List.of("3", "4"), 1);
+        withPoints.put("points", 5);
+        Map<String, Object> textPoints = mcq("3 + 3?", List.of("6", "7"), 0);
+        textPoints.put("points", "many");
+        List<Object> items = List.of(
+            withPoints,
+            mcq(" ", List.of("a", "b"), 0),
+            mcq("One option?", List.of("a"), 0),
+            mcq("Out of range?", List.of("a", "b"), 2),
+            textPoints,
+            "not an object",
+            mcq("Default points?", List.of("yes", "no"), 0));
+
+        BulkContentService.Result<MCQ> result = service.createMcqs("t1", "c1", items);
+
+        assertEquals(List.of("2 + 2?", "Default points?"), result.created().stream().map(MCQ::getQuestion).toList());
+        assertEquals(List.of(1, 2, 3, 4, 5), indexes(result));
+        assertEquals(List.of("Question is required", "At least 2 options are required", "Invalid correct answer index",
+            "Points must be a whole number of at least 0", "MCQ must be an object"),
+            result.failed().stream().map(BulkContentService.ItemError::error).toList());
+        assertEquals(5, result.created().get(0).getPoints());
+        assertEquals(10, result.created().get(1).getPoints());
+
+        List<Document> stored = mongo.collection("mcqs");
+        assertEquals(2, stored.size());
+        assertEquals("Intro", stored.get(0).get("topicName"));
+        assertEquals("s1", stored.get(0).get("subjectId"));
+        assertEquals("c1", stored.get(0).get("courseId"));
+        assertEquals(result.created().get(0).getId(), stored.get(0).get("_id").toString());
+        verify(courseContentCountService).incrementMcqCount("c1", "Intro", 2);
+
+        assertThrows(IllegalArgumentException.class, () -> service.createMcqs("missing", null, items));
+    }
+
+    @Test
+    void topicsSkipBlankAndDuplicateNamesAndContinueTheNumbering() {
+        BulkContentService.Result<Topic> result = service.createTopics("s1",
+            Arrays.asList("Basics", " intro ", "", "BASICS", null, "Advanced"));
+
+        assertEquals(List.of("Basics", "Advanced"), result.created().stream().map(Topic::getName).toList());
+        assertEquals(List.of(2, 3), result.created().stream().map(Topic::getOrderIndex).toList());
+        assertEquals("BEGINNER", result.created().get(0).getDifficulty());
+        assertEquals(List.of(1, 2, 3, 4), indexes(result));
+        assertEquals(3, mongo.collection("topics").size());
+
+        ReflectionTestUtils.setField(service, "maxItems", 3);
+        assertThrows(IllegalArgumentException.class,
+            () -> service.createTopics("s1", List.of("a", "b", "c", "d")));
+    }
+
+    @Test
+    void itemsRejectedByTheDatabaseDoNotStopTheRest() {
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        mongo.uniqueKeys.put("mcqs", List.of("question"));
+        mongo.insert("mcqs", new Document("question", "Taken?"));
+        List<Object> items = new ArrayList<>();
+        for (String question : List.of("Q1?", "Taken?", "Q2?", "Q3?", "Q4?")) {
+            items.add(mcq(question, List.of("a", "b"), 0));
+        }
+
+        BulkContentService.Result<MCQ> result = service.createMcqs("t1", null, items);
+
+        assertEquals(List.of("Q1?", "Q2?", "Q3?", "Q4?"), result.created().stream().map(MCQ::getQuestion).toList());
+        assertEquals(List.of(1), indexes(result));
+        assertTrue(result.failed().get(0).error().contains("duplicate key"));
+        assertEquals(5, mongo.collection("mcqs").size());
+        // The chunk that failed partly still reports its inserted MCQ; all of them share one version bump
+        assertEquals(1, saveEvents.size());
+        assertEquals(1, versionBumps());
+        verifyNoInteractions(courseContentCountService);
+    }
+
+    @Test
+    void anUnacknowledgedChunkReportsOnlyTheDocumentsThatAreMissing() {
+        // The connection drops after the first two documents of the chunk were written
+        BulkOperations dropped = mock(BulkOperations.class);
+        List<Object> sent = new ArrayList<>();
+        when(dropped.insert(anyList())).thenAnswer(inv -> {
+            sent.addAll(inv.getArgument(0));
+            return dropped;
+        });
+        when(dropped.execute()).thenAnswer(inv -> {
+            for (Object written : sent.subList(0, 2)) {
+                Document doc = new Document();
+                mongo.converter.write(written, doc);
+                mongo.insert("mcqs", doc);
+            }
+            throw new DataAccessResourceFailureException("Prematurely reached end of stream");
+        });
+        doReturn(dropped).when(mongo.template).bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(MCQ.class));
+        List<Object> items = new ArrayList<>();
+        for (String question : List.of("Q1?", "Q2?", "Q3?")) {
+            items.add(mcq(question, List.of("a", "b"), 0));
+        }
+
+        BulkContentService.Result<MCQ> result = service.createMcqs("t1", "c1", items);
+
+        assertEquals(List.of("Q1?", "Q2?"), result.created().stream().map(MCQ::getQuestion).toList());
+        assertEquals(List.of(2), indexes(result));
+        assertEquals(2, saveEvents.size());
+        verify(courseContentCountService).incrementMcqCount("c1", "Intro", 2);
+    }
+
+    @Test
+    void eachChunkIsOneBulkInsert() {
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(mcq("Question " + i + "?", List.of("a", "b"), 0));
+        }
+
+        BulkContentService.Result<MCQ> result = service.createMcqs("t1", "c1", items);
+
+        assertEquals(5, result.created().size());
+        assertEquals(5, mongo.collection("mcqs").size());
+        verify(mongo.template, times(3)).bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(MCQ.class));
+        verify(mongo.template, never()).save(any(Object.class));
+        verify(courseContentCountService, times(1)).incrementMcqCount("c1", "Intro", 5);
+    }
+
+    @Test
+    @Tag("perf")
+    void tenThousandMcqsInTenRoundTrips() {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Map<String, Object> item = mcq("Question " + i + "?", List.of("a", "b", "c", "d"), i % 4);
+            item.put("explanation", "Because " + i);
+            items.add(item);
+        }
+
+        long start = System.nanoTime();
+        BulkContentService.Result<MCQ> result = service.createMcqs("t1", "c1", items);
+        double ms = (System.nanoTime() - start) / 1_000_000.0;
+
+        System.out.printf("Bulk create of 10000 MCQs: %.0f ms, 10 bulk inserts instead of 10000 saves%n", ms);
+        assertEquals(10_000, result.created().size());
+        assertTrue(result.failed().isEmpty());
+        assertEquals(10_000, mongo.collection("mcqs").size());
+        verify(mongo.template, times(10)).bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(MCQ.class));
+        verify(mongo.template, never()).save(any(Object.class));
+        verify(courseContentCountService, times(1)).incrementMcqCount("c1", "Intro", 10_000);
+    }
+}
@@ -0,0 +1,86 @@
+package com.authsystem.service;
+
+import com.authsystem.model.MCQ;
+import com.authsystem.model.Subject;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ContentStatsServiceTest {
+
+    private ContentStatsService service;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        service = new ContentStatsService();
+        mongoTemplate = mock(MongoTemplate.class);
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+
+        when(mongoTemplate.aggregate(any(Aggregation.class), any(Class.class), eq(Document.class))).thenAnswer(inv -> {
+            Class<?> type = inv.getArgument(1);
+            Document facets = new Document("total", List.of(new Document("count", 0)))
+                .append("byDifficulty", List.of());
+            if (type == Subject.class) {
+                facets = new Document("total", List.of(new Document("count", 3)))
+                    .append("byDifficulty", List.of(new Document("_id", "BEGINNER").append("count", 2),
+                        new Document("_id", null).append("count", 1)))
+                    .append("byStatus", List.of(new Document("_id", "PUBLISHED").append("count", 3)));
+            } else if (type == MCQ.class) {
+                facets = new Document("total", List.of(new Document("count", 1_000_000)))
+                    .append("byDifficulty", List.of(new Document("_id", "ADVANCED").append("count", 1_000_000)));
+            }
+            return new AggregationResults<>(List.of(facets), new Document());
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void buildsLegacyShapeFromOneAggregationPerCollection() {
+        Map<String, Object> stats = service.getGlobalStats();
+
+        verify(mongoTemplate, times(5)).aggregate(any(Aggregation.class), any(Class.class), eq(Document.class));
+        verifyNoMoreInteractions(mongoTemplate);
+
+        assertEquals(3L, stats.get("totalSubjects"));
+        assertEquals(1_000_000L, stats.get("totalMCQs"));
+        assertEquals(0L, stats.get("totalVideos"));
+        Map<String, Map<String, Object>> byDifficulty = (Map<String, Map<String, Object>>) stats.get("byDifficulty");
+        assertEquals(2, byDifficulty.get("BEGINNER").get("subjects"));
+        assertEquals(1_000_000, byDifficulty.get("ADVANCED").get("mcqs"));
+        assertEquals(0, byDifficulty.get("INTERMEDIATE").get("topics"));
+        assertEquals(Map.of("DRAFT", 0L, "PUBLISHED", 3L), stats.get("subjectsByStatus"));
+    }
+
+    @Test
+    void servesCachedSnapshotUntilBackgroundRefresh() {
+        Map<String, Object> first = service.getGlobalStats();
+        assertSame(first, service.getGlobalStats());
+        verify(mongoTemplate, times(5)).aggregate(any(Aggregation.class), any(Class.class), eq(Document.class));
+
+        service.refresh();
+        assertNotSame(first, service.getGlobalStats());
+        verify(mongoTemplate, times(10)).aggregate(any(Aggregation.class), any(Class.class), eq(Document.class));
+    }
+
+    @Test
+    void failedRefreshKeepsPreviousSnapshot() {
+        Map<String, Object> first = service.getGlobalStats();
+        when(mongoTemplate.aggregate(any(Aggregation.class), any(Class.class), eq(Document.class)))
+            .thenThrow(new RuntimeException("connection reset"));
+
+        service.refresh();
+
+        assertSame(first, service.getGlobalStats());
+    }
+}
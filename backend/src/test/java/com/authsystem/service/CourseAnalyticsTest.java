@@ -0,0 +1,182 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CourseAnalyticsTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 10, 5, 9, 30);
+
+    private InMemoryMongo mongo;
+    private LearningEventLog eventLog;
+    private LearningEventProjector projector;
+    private CourseAnalyticsService analytics;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        eventLog = new LearningEventLog();
+        ReflectionTestUtils.setField(eventLog, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(eventLog, "eventPublisher", mock(ApplicationEventPublisher.class));
+        projector = newProjector();
+        analytics = new CourseAnalyticsService();
+        ReflectionTestUtils.setField(analytics, "mongoTemplate", mongo.template);
+    }
+
+    private LearningEventProjector newProjector() {
+        CourseAnalyticsProjection projection = new CourseAnalyticsProjection();
+        ReflectionTestUtils.setField(projection, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(projection, "rebuildThreads", 3);
+        LearningEventProjector created = new LearningEventProjector();
+        ReflectionTestUtils.setField(created, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(created, "eventLog", eventLog);
+        ReflectionTestUtils.setField(created, "projections", List.<LearningProjection>of(projection));
+        ReflectionTestUtils.setField(created, "batchSize", 200);
+        ReflectionTestUtils.setField(created, "gapTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(created, "snapshotEvery", 100_000L);
+        ReflectionTestUtils.setField(created, "readYourWritesMs", 5000L);
+        return created;
+    }
+
+    private void quiz(LearningEvent.Source source, String courseId, String topic, String difficulty, int score,
+                      long seconds, LocalDateTime at) {
+        LearningEvent event = LearningEvent.quizAttempt(source, "s@x.com", courseId, topic, "q1", score, 10, seconds,
+            difficulty, "PRACTICE");
+        event.setRecordedAt(at);
+        eventLog.append(event);
+    }
+
+    private void appendCourseOne() {
+        quiz(LearningEvent.Source.PROGRESS, "c1", "Algebra", "EASY", 8, 60, MONDAY);
+        quiz(LearningEvent.Source.INGEST, "c1", "Algebra", "EASY", 6, 40, MONDAY.plusHours(2));
+        // The adaptive engine's report of the same quiz is not counted again
+        quiz(LearningEvent.Source.ADAPTIVE, "c1", "Algebra", "BEGINNER", 6, 40, MONDAY.plusHours(2));
+        quiz(LearningEvent.Source.PROGRESS, "c1", "Algebra", "ADVANCED", 5, 100, MONDAY.plusDays(2));
+        quiz(LearningEvent.Source.PROGRESS, "c1", "Geometry", "MEDIUM", 10, 30, MONDAY.plusDays(9));
+        quiz(LearningEvent.Source.PROGRESS, "c1", null, "MEDIUM", 7, 20, MONDAY.plusDays(9));
+        quiz(LearningEvent.Source.PROGRESS, "c2", "Algebra", "EASY", 1, 10, MONDAY);
+        eventLog.append(LearningEvent.lessonComplete("s@x.com", "c1", "l1", "Lesson 1", 5));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> rows(Map<String, Object> result) {
+        return (List<Map<String, Object>>) result.get("rows");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> totals(Map<String, Object> result) {
+        return (Map<String, Object>) result.get("totals");
+    }
+
+    @Test
+    void slicesAndRollUpsOfTheCube() {
+        appendCourseOne();
+        projector.catchUp();
+        // Algebra EASY, Algebra HARD, Geometry MEDIUM, General MEDIUM in c1 and one cell in c2
+        assertEquals(5, mongo.collection("course_analytics").size());
+
+        Map<String, Object> byTopic = analytics.analytics("c1", List.of("topic"), null, null, null, null);
+        assertEquals(List.of("Algebra", "General", "Geometry"), rows(byTopic).stream().map(row -> row.get("topic")).toList());
+        Map<String, Object> algebra = rows(byTopic).get(0);
+        assertEquals(3L, algebra.get("attempts"));
+        assertEquals(63.33, algebra.get("averageScore"));
+        assertEquals(30L, algebra.get("questions"));
+        assertEquals(200L, algebra.get("totalTimeSeconds"));
+        assertEquals(5L, totals(byTopic).get("attempts"));
+        assertEquals(72.0, totals(byTopic).get("averageScore"));
+
+        Map<String, Object> byWeek = analytics.analytics("c1", List.of("week", "difficulty"), null, null, null, null);
+        assertEquals(List.of(
+            List.of("2026-10-05", "EASY", 2L), List.of("2026-10-05", "HARD", 1L), List.of("2026-10-12", "MEDIUM", 2L)),
+            rows(byWeek).stream().map(row -> List.of(row.get("week"), row.get("difficulty"), row.get("attempts"))).toList());
+
+        Map<String, Object> slice = analytics.analytics("c1", List.of("day"), "Algebra", "easy",
+            LocalDate.of(2026, 10, 5), LocalDate.of(2026, 10, 6));
+        assertEquals(1, rows(slice).size());
+        assertEquals(70.0, rows(slice).get(0).get("averageScore"));
+        assertEquals(50.0, rows(slice).get(0).get("averageTimeSeconds"));
+
+        Map<String, Object> month = analytics.analytics("c1", Collections.emptyList(), null, null,
+            LocalDate.of(2026, 10, 10), null);
+        assertEquals(2L, totals(month).get("attempts"));
+        assertTrue(rows(analytics.analytics("c1", List.of("month"), null, null, null, null)).size() == 1);
+        assertEquals(0L, totals(analytics.analytics("unknown", List.of("topic"), null, null, null, null)).get("attempts"));
+        assertThrows(IllegalArgumentException.class,
+            () -> analytics.analytics("c1", List.of("student"), null, null, null, null));
+    }
+
+    @Test
+    void replayedEventsAreNotCountedTwice() {
+        appendCourseOne();
+        projector.catchUp();
+        Map<String, Object> before = analytics.analytics("c1", List.of("topic", "difficulty", "day"), null, null, null, null);
+
+        // Crash before the checkpoint was saved: everything is handed to the projection again
+        mongo.collection(LearningEventProjector.CHECKPOINTS).clear();
+        assertEquals(8, newProjector().catchUp());
+        assertEquals(before, analytics.analytics("c1", List.of("topic", "difficulty", "day"), null, null, null, null));
+    }
+
+    @Test
+    void rebuildRecomputesEveryCourseFromTheLog() {
+        rebuildFromTheLog(60);
+    }
+
+    @Test
+    @Tag("perf")
+    void rebuildOfSixHundredAttemptsRecomputesEveryCourse() {
+        rebuildFromTheLog(600);
+    }
+
+    private void rebuildFromTheLog(int attempts) {
+        List<LearningEvent> events = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            LearningEvent event = LearningEvent.quizAttempt(LearningEvent.Source.PROGRESS, "s" + i + "@x.com",
+                "course" + (i % 6), "Topic " + (i % 4), "q" + i, i % 11, 10, 30 + i % 7, i % 2 == 0 ? "EASY" : "HARD", "PRACTICE");
+            event.setRecordedAt(MONDAY.plusDays(i % 10));
+            events.add(event);
+        }
+        eventLog.appendAll(events);
+        projector.catchUp();
+        List<Map<String, Object>> live = new ArrayList<>();
+        for (int course = 0; course < 6; course++) {
+            live.add(analytics.analytics("course" + course, List.of("topic", "difficulty", "day"), null, null, null, null));
+        }
+
+        // A damaged cell and the cell of a course that has no attempts in the log
+        Document damaged = mongo.collection("course_analytics").get(0);
+        damaged.put("attempts", 999L);
+        mongo.collection("course_analytics").add(new Document("_id", "gone").append("courseId", "gone").append("attempts", 3L));
+
+        long start = System.nanoTime();
+        assertEquals(0, projector.rebuild(CourseAnalyticsProjection.NAME));
+        System.out.printf("Rebuild of course_analytics: %d attempts of 6 courses in %.0f ms%n",
+            attempts, (System.nanoTime() - start) / 1_000_000.0);
+        for (int course = 0; course < 6; course++) {
+            assertEquals(live.get(course),
+                analytics.analytics("course" + course, List.of("topic", "difficulty", "day"), null, null, null, null));
+        }
+        assertEquals(0L, totals(analytics.analytics("gone", List.of(), null, null, null, null)).get("attempts"));
+
+        // Events after the rebuild are added to the recomputed cells
+        quiz(LearningEvent.Source.PROGRESS, "course0", "Topic 0", "EASY", 10, 30, MONDAY);
+        projector.catchUp();
+        assertEquals((Long) totals(live.get(0)).get("attempts") + 1,
+            totals(analytics.analytics("course0", List.of(), null, null, null, null)).get("attempts"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.authsystem.service;
+
+import com.authsystem.model.Course;
+import com.authsystem.model.CourseContentCounts;
+import com.authsystem.model.TopicSubcontent;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseContentCountServiceTest {
+
+    private InMemoryMongo mongo;
+    private CourseContentCountService service;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        service = new CourseContentCountService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+    }
+
+    @Test
+    void mcqIncrementsOnlyApplyToCoursesThatHaveCounters() {
+        mongo.insert("courses", new Document("_id", "legacy").append("version", 2L));
+        mongo.insert("courses", new Document("_id", "counted").append("version", 2L)
+            .append("contentCounts", new Document("totalMcqs", 3).append("mcqCountsByTopic", new Document("Intro", 3))));
+
+        service.incrementMcqCount("legacy", "Intro", 1);
+        service.incrementMcqCount("counted", "Intro", 1);
+
+        // A partial map on the legacy course would be read as its complete counts
+        Document legacy = mongo.collection("courses").get(0);
+        assertFalse(legacy.containsKey("contentCounts"));
+        assertEquals(2L, ((Number) legacy.get("version")).longValue());
+
+        Document counted = mongo.collection("courses").get(1);
+        Document counts = counted.get("contentCounts", Document.class);
+        assertEquals(4, ((Number) counts.get("totalMcqs")).intValue());
+        assertEquals(4, ((Number) counts.get("mcqCountsByTopic", Document.class).get("Intro")).intValue());
+        assertEquals(3L, ((Number) counted.get("version")).longValue());
+    }
+
+    @Test
+    void wholeSavesKeepTheLoadedMcqCountsWithoutReadingTheCourseAgain() {
+        TopicSubcontent sc = new TopicSubcontent();
+        sc.setName("Intro");
+        sc.setVideoUrls(List.of("a", "b"));
+        sc.setPdfUrls(List.of("c"));
+        Course course = new Course();
+        course.setId("c1");
+        course.setVersion(3L);
+        course.setTopicSubcontents(new LinkedHashMap<>(Map.of("Intro", List.of(sc))));
+        CourseContentCounts loaded = new CourseContentCounts();
+        loaded.setTotalMcqs(4);
+        loaded.setMcqCountsByTopic(new HashMap<>(Map.of("Intro", 4)));
+        course.setContentCounts(loaded);
+
+        service.prepareForSave(course);
+
+        assertEquals(1, course.getContentCounts().getTotalSubtopics());
+        assertEquals(2, course.getContentCounts().getTotalVideos());
+        assertEquals(1, course.getContentCounts().getTotalPdfs());
+        assertEquals(4, course.getContentCounts().getTotalMcqs());
+        verify(mongo.template, never()).findOne(any(Query.class), eq(Course.class));
+    }
+}
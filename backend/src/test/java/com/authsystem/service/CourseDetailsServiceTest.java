@@ -0,0 +1,116 @@
+package com.authsystem.service;
+
+import com.authsystem.dto.CourseDetailsDTO;
+import com.authsystem.model.Course;
+import com.authsystem.model.CourseContentCounts;
+import com.authsystem.model.MCQ;
+import com.authsystem.model.TopicSubcontent;
+import com.authsystem.repository.CourseRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseDetailsServiceTest {
+
+    private CourseDetailsService service;
+    private CourseRepository courseRepository;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        service = new CourseDetailsService();
+        courseRepository = mock(CourseRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        ReflectionTestUtils.setField(service, "courseRepository", courseRepository);
+        CourseContentCountService countService = new CourseContentCountService();
+        ReflectionTestUtils.setField(countService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "courseContentCountService", countService);
+        CourseSubcontentStore subcontentStore = new CourseSubcontentStore();
+        ReflectionTestUtils.setField(subcontentStore, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "courseSubcontentStore", subcontentStore);
+    }
+
+    private Course course(String id, String topic, int videos) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle("Course " + id);
+        course.setTopics(List.of(topic));
+        TopicSubcontent sc = new TopicSubcontent();
+        sc.setName("Intro");
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < videos; i++) {
+            urls.add("video-" + i);
+        }
+        sc.setVideoUrls(urls);
+        Map<String, List<TopicSubcontent>> subcontents = new LinkedHashMap<>();
+        subcontents.put(topic, List.of(sc));
+        course.setTopicSubcontents(subcontents);
+        return course;
+    }
+
+    private Document countRow(String courseId, String topicName, int count) {
+        return new Document("_id", new Document("courseId", courseId).append("topicName", topicName))
+                .append("count", count);
+    }
+
+    @Test
+    void publishedListUsesOneAggregationForAllCourses() {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            courses.add(course("c" + i, "Arrays", 2));
+        }
+        when(courseRepository.findByStatus("PUBLISHED")).thenReturn(courses);
+        List<Document> rows = List.of(countRow("c0", "Arrays", 5), countRow("c0", null, 1), countRow("c1", "Arrays", 3));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(MCQ.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(rows, new Document()));
+
+        List<CourseDetailsDTO> result = service.getPublishedCoursesWithCounts();
+
+        assertEquals(1000, result.size());
+        verify(courseRepository, times(1)).findByStatus("PUBLISHED");
+        verify(courseRepository, never()).findById(anyString());
+        verify(mongoTemplate, times(1)).aggregate(any(Aggregation.class), eq(MCQ.class), eq(Document.class));
+
+        CourseDetailsDTO first = result.get(0);
+        assertEquals(6, first.getContentCounts().getTotalMcqs());
+        assertEquals(5, first.getContentCounts().getTopicBreakdown().get("Arrays").getMcqCount());
+        assertEquals(2, first.getContentCounts().getTotalVideos());
+        assertEquals(3, result.get(1).getContentCounts().getTotalMcqs());
+        assertEquals(0, result.get(2).getContentCounts().getTotalMcqs());
+    }
+
+    @Test
+    void maintainedCountersAvoidTheMcqCollection() {
+        Course course = course("c1", "Graphs", 1);
+        CourseContentCounts counts = new CourseContentCounts();
+        counts.setTotalMcqs(4);
+        counts.setMcqCountsByTopic(new HashMap<>(Map.of("Graphs", 4)));
+        course.setContentCounts(counts);
+        when(courseRepository.findById("c1")).thenReturn(Optional.of(course));
+
+        CourseDetailsDTO dto = service.getCourseDetailsWithCounts("c1");
+
+        assertEquals(4, dto.getContentCounts().getTotalMcqs());
+        assertEquals(4, dto.getContentCounts().getTopicBreakdown().get("Graphs").getMcqCount());
+        assertEquals(4, dto.getTopicSubcontents().get("Graphs").get(0).getMcqCount());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void emptyCourseListSkipsAggregation() {
+        when(courseRepository.findByInstructorEmail("nobody@example.com")).thenReturn(List.of());
+
+        assertTrue(service.getInstructorCoursesWithCounts("nobody@example.com").isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
+}
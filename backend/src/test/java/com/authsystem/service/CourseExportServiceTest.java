@@ -0,0 +1,169 @@
+package com.authsystem.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseExportServiceTest {
+
+    private CourseExportService service;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        service = new CourseExportService();
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.indexOps(any(Class.class))).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.getCollectionName(any(Class.class))).thenAnswer(inv ->
+            inv.getArgument(0, Class.class).getSimpleName().equals("QuizAttempt") ? "quiz_attempts" : "student_progress");
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "streamBatchSize", 500);
+    }
+
+    private static Document progress(String email, double score) {
+        return new Document("_id", email).append("studentEmail", email).append("courseName", "Algebra, part 1")
+            .append("overallScore", score)
+            .append("overallPerformance", new Document("totalQuizzes", 4).append("averageScore", 72.5))
+            .append("lessonsCompleted", 3)
+            .append("lastActivityDate", Date.from(LocalDateTime.of(2026, 10, 1, 8, 15).atZone(ZoneId.systemDefault()).toInstant()));
+    }
+
+    @Test
+    void csvRowsAreEscapedAndReadOnlyTheExportedFields() throws IOException {
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("student_progress"))).thenReturn(Stream.of(
+            progress("a@x.com", 81.5), progress("=HYPERLINK(\"x\")", -3)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, service.export("c1", CourseExportService.Dataset.PROGRESS, CourseExportService.Format.CSV, false, out));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("studentEmail,courseName,currentLevel,overallScore,quizzesTaken,averageQuizScore,quizzesPassed,"
+            + "lessonsCompleted,totalTimeSpentMinutes,currentStreak,lastActivityDate", lines[0]);
+        assertEquals("a@x.com,\"Algebra, part 1\",,81.5,4,72.5,,3,,,2026-10-01T08:15", lines[1]);
+        // A formula is neutralised, a negative number is left alone
+        assertTrue(lines[2].startsWith("\"'=HYPERLINK(\"\"x\"\")\",\"Algebra, part 1\",,-3.0,"), lines[2]);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(Document.class), eq("student_progress"));
+        assertEquals(new Document("courseId", "c1"), query.getValue().getQueryObject());
+        assertEquals(new Document("studentEmail", 1).append("_id", 1), query.getValue().getSortObject());
+        assertFalse(query.getValue().getFieldsObject().containsKey("quizAttempts"));
+        assertEquals(1, query.getValue().getFieldsObject().get("overallPerformance.totalQuizzes"));
+    }
+
+    @Test
+    void ndjsonGzippedHasOneObjectPerLine() throws IOException {
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("quiz_attempts"))).thenReturn(Stream.of(
+            new Document("_id", "le-1").append("studentEmail", "a@x.com").append("score", 80.0).append("totalQuestions", 10),
+            new Document("_id", "le-2").append("studentEmail", "b@x.com").append("topicName", "Line\nbreak")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export("c1", CourseExportService.Dataset.ATTEMPTS, CourseExportService.Format.NDJSON, true, out);
+
+        String body = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+            StandardCharsets.UTF_8);
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        JsonNode first = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("le-1", first.get("attemptId").asText());
+        assertEquals(80.0, first.get("score").asDouble());
+        assertEquals(10, first.get("totalQuestions").asInt());
+        assertTrue(first.get("topicName").isNull());
+        assertEquals("Line\nbreak", new ObjectMapper().readTree(lines.get(1)).get("topicName").asText());
+    }
+
+    @Test
+    void rowsAreFlushedAfterEveryBatchWhileTheCursorIsStillOpen() throws IOException {
+        int rows = 1250;
+        AtomicInteger produced = new AtomicInteger();
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("student_progress"))).thenAnswer(inv ->
+            Stream.generate(() -> progress("student" + produced.incrementAndGet() + "@example.com", 64.25)).limit(rows));
+        // Rows read from the cursor by the time of each flush
+        List<Integer> producedAtFlush = new ArrayList<>();
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void flush() {
+                producedAtFlush.add(produced.get());
+            }
+        };
+
+        assertEquals(rows, service.export("c1", CourseExportService.Dataset.PROGRESS, CourseExportService.Format.CSV, false, sink));
+
+        assertTrue(producedAtFlush.size() >= 2, "flushes: " + producedAtFlush);
+        assertTrue(producedAtFlush.get(0) <= 500, "first flush after " + producedAtFlush.get(0) + " rows");
+    }
+
+    @Test
+    @Tag("perf")
+    void aMillionRowsStreamWithoutHoldingThem() throws IOException {
+        int rows = 1_000_000;
+        AtomicInteger produced = new AtomicInteger();
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("student_progress"))).thenAnswer(inv ->
+            Stream.generate(() -> progress("student" + produced.incrementAndGet() + "@example.com", 64.25)).limit(rows));
+        // Counts bytes and flushes; nothing is kept
+        long[] counted = new long[2];
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                counted[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                counted[0] += len;
+            }
+
+            @Override
+            public void flush() {
+                counted[1]++;
+            }
+        };
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        long written = service.export("c1", CourseExportService.Dataset.PROGRESS, CourseExportService.Format.CSV, true, sink);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.gc();
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.printf("Export of %d gradebook rows as csv.gz: %.1f s (%.0f rows/s), %d compressed bytes, "
+            + "heap %d MB before and %d MB after%n", written, seconds, written / seconds, counted[0],
+            usedBefore >> 20, usedAfter >> 20);
+        assertEquals(rows, written);
+        assertTrue(counted[1] >= rows / 500, "flushed every batch");
+        assertTrue(usedAfter - usedBefore < 32L << 20, "heap grew by " + ((usedAfter - usedBefore) >> 20) + " MB");
+    }
+}
@@ -0,0 +1,275 @@
+package com.authsystem.service;
+
+import com.authsystem.model.Course;
+import com.authsystem.model.CourseSubcontent;
+import com.authsystem.model.TopicSubcontent;
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeDeleteEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CourseSubcontentStoreTest {
+
+    private InMemoryMongo mongo;
+    private CourseSubcontentStore store;
+    private CourseSubcontentMigration migration;
+    private CourseSubcontentListener listener;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        mongo.uniqueKeys.put("course_subcontents", List.of("courseId", "topic", "order", "generation"));
+
+        store = new CourseSubcontentStore();
+        ReflectionTestUtils.setField(store, "mongoTemplate", mongo.template);
+        migration = new CourseSubcontentMigration();
+        ReflectionTestUtils.setField(migration, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(migration, "subcontentStore", store);
+        listener = new CourseSubcontentListener();
+        ReflectionTestUtils.setField(listener, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(listener, "subcontentStore", store);
+    }
+
+    @Test
+    void keepsTopicOrderAndEmptyTopics() {
+        Map<String, List<TopicSubcontent>> topics = new LinkedHashMap<>();
+        topics.put("Zeta", List.of(subcontent("z1"), subcontent("z2")));
+        topics.put("Alpha", new ArrayList<>());
+        topics.put("Mid", List.of(subcontent("m1")));
+
+        store.replace("c1", 1L, topics);
+
+        Map<String, List<TopicSubcontent>> loaded = store.load("c1");
+        assertEquals(List.of("Zeta", "Alpha", "Mid"), new ArrayList<>(loaded.keySet()));
+        assertEquals(List.of("z1", "z2"), names(loaded.get("Zeta")));
+        assertTrue(loaded.get("Alpha").isEmpty());
+        assertEquals(List.of("m1"), names(store.loadTopic("c1", "Mid")));
+        assertTrue(store.loadTopic("c1", "Nope").isEmpty());
+    }
+
+    @Test
+    void staleWriterCannotMixItsItemsIntoANewerGeneration() {
+        store.replace("c1", 7L, Map.of("T", List.of(subcontent("new"))));
+        // A slower writer that read the course before version 7 finishes last
+        Map<String, List<TopicSubcontent>> stale = new LinkedHashMap<>();
+        stale.put("T", List.of(subcontent("old 0"), subcontent("old 1")));
+        stale.put("Gone", List.of(subcontent("old 2")));
+        store.replace("c1", 6L, stale);
+
+        Map<String, List<TopicSubcontent>> loaded = store.load("c1");
+        assertEquals(List.of("T"), new ArrayList<>(loaded.keySet()));
+        assertEquals(List.of("new"), names(loaded.get("T")));
+
+        // The next full write removes the leftovers
+        store.replace("c1", 8L, Map.of("T", List.of(subcontent("newest"))));
+        assertEquals(2, mongo.collection("course_subcontents").size());
+    }
+
+    @Test
+    void readersKeepTheCommittedSetUntilTheNextOneIsCompletelyWritten() {
+        mongo.insert("courses", new Document("_id", "c1").append("version", 2L));
+        store.replace("c1", 1L, Map.of("T", List.of(subcontent("a"), subcontent("b"))));
+        assertEquals(CourseSubcontentStore.generationOf(1L), mongo.collection("courses").get(0).get(CourseSubcontentStore.GENERATION_FIELD));
+
+        // Generation 2 is half written: its first item landed, the commit has not happened yet
+        mongo.insert("course_subcontents", new Document("courseId", "c1").append("topic", "T").append("order", 0)
+            .append("topicOrder", 0).append("generation", CourseSubcontentStore.generationOf(2L)).append("name", "new a"));
+        assertEquals(List.of("a", "b"), names(store.load("c1").get("T")));
+        assertEquals("a", store.find("c1", "T", 0).getName());
+
+        store.replace("c1", 2L, Map.of("T", List.of(subcontent("new a"))));
+        assertEquals(List.of("new a"), names(store.load("c1").get("T")));
+        assertEquals(CourseSubcontentStore.generationOf(2L), mongo.collection("courses").get(0).get(CourseSubcontentStore.GENERATION_FIELD));
+        assertEquals(2, mongo.collection("course_subcontents").size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aDeleteThatFailedDoesNotRedirectTheNextOne() {
+        store.replace("c1", 1L, Map.of("T", List.of(subcontent("one"))));
+        store.replace("c2", 1L, Map.of("T", List.of(subcontent("two"))));
+
+        // The delete of c1 fails after BeforeDelete, so its AfterDelete never comes
+        listener.onBeforeDelete(new BeforeDeleteEvent<>(new Document("_id", "c1"), Course.class, "courses"));
+        listener.onBeforeDelete(new BeforeDeleteEvent<>(new Document("_id", "c2"), Course.class, "courses"));
+        listener.onAfterDelete(new AfterDeleteEvent<>(new Document("_id", "c2"), Course.class, "courses"));
+
+        assertEquals(List.of("one"), names(store.load("c1").get("T")));
+        assertTrue(store.load("c2").isEmpty());
+        // Nothing of either delete stays on the thread
+        ThreadLocal<Deque<?>> pending = (ThreadLocal<Deque<?>>) ReflectionTestUtils.getField(listener, "pendingDeletes");
+        assertTrue(pending.get().isEmpty());
+    }
+
+    @Test
+    void readsFallBackToEmbeddedSubcontentsUntilMigrated() {
+        mongo.insert("courses", CourseUpdateServiceTest.largeCourse("c1"));
+        Map<String, List<TopicSubcontent>> before = store.load("c1");
+        assertEquals(CourseUpdateServiceTest.TOPICS, before.size());
+        assertTrue(mongo.collection("course_subcontents").isEmpty());
+
+        migration.migrateCourse("c1");
+
+        Document course = mongo.collection("courses").get(0);
+        assertFalse(course.containsKey(CourseSubcontentStore.LEGACY_FIELD));
+        Map<String, List<TopicSubcontent>> after = store.load("c1");
+        assertEquals(new ArrayList<>(before.keySet()), new ArrayList<>(after.keySet()));
+        assertEquals(names(before.get("Topic 4")), names(after.get("Topic 4")));
+        assertEquals(10, after.get("Topic 4").get(2).getMcqQuestions().size());
+    }
+
+    @Test
+    void migrationLeavesCoursesChangedMeanwhileForTheNextRun() {
+        Document course = CourseUpdateServiceTest.largeCourse("c1");
+        mongo.insert("courses", course);
+        Document raw = Document.parse(course.toJson());
+        // The course is saved again after the migration read it
+        course.put("version", 6L);
+
+        assertFalse(migration.migrate(raw));
+        assertTrue(course.containsKey(CourseSubcontentStore.LEGACY_FIELD));
+    }
+
+    @Test
+    void courseReadsDoNotLoadSubcontentsUntilUsed() {
+        store.replace("c1", 1L, Map.of("T", List.of(subcontent("a"))));
+        Document header = new Document("_id", "c1").append("title", "Course").append("version", 1L);
+        Course course = mongo.converter.read(Course.class, header);
+
+        listener.onAfterConvert(new AfterConvertEvent<>(header, course, "courses"));
+        assertEquals(0, subcontentQueries());
+
+        assertEquals(List.of("a"), names(course.getTopicSubcontents().get("T")));
+        course.getTopicSubcontents();
+        assertEquals(1, subcontentQueries());
+    }
+
+    @Test
+    void aCourseHeaderAndOneTopicAreAFractionOfTheEmbeddedCourse() {
+        Document legacy = CourseUpdateServiceTest.largeCourse("c1");
+        Document header = new Document(legacy);
+        header.remove(CourseSubcontentStore.LEGACY_FIELD);
+        mongo.insert("courses", Document.parse(legacy.toJson()));
+        migration.migrateCourse("c1");
+
+        int topicBytes = mongo.collection("course_subcontents").stream()
+            .filter(doc -> "Topic 3".equals(doc.get("topic")))
+            .mapToInt(doc -> raw(doc).getByteBuffer().remaining())
+            .sum();
+        int legacyBytes = raw(legacy).getByteBuffer().remaining();
+        assertTrue(topicBytes > 0);
+        assertTrue(raw(header).getByteBuffer().remaining() * 100 < legacyBytes);
+        assertTrue(topicBytes * 10 < legacyBytes);
+    }
+
+    /**
+     * No MongoDB in the test environment, so this measures what a read costs the application:
+     * bytes transferred and BSON decode + mapping time, for the old single document vs. the split layout
+     */
+    @Test
+    @Tag("perf")
+    void decodeCostOfCourseReads() {
+        Document legacy = CourseUpdateServiceTest.largeCourse("c1");
+        Document header = new Document(legacy);
+        header.remove(CourseSubcontentStore.LEGACY_FIELD);
+        mongo.insert("courses", Document.parse(legacy.toJson()));
+        migration.migrateCourse("c1");
+
+        List<RawBsonDocument> all = new ArrayList<>();
+        List<RawBsonDocument> oneTopic = new ArrayList<>();
+        for (Document doc : mongo.collection("course_subcontents")) {
+            RawBsonDocument raw = raw(doc);
+            all.add(raw);
+            if ("Topic 3".equals(doc.get("topic"))) {
+                oneTopic.add(raw);
+            }
+        }
+        RawBsonDocument legacyRaw = raw(legacy);
+        RawBsonDocument headerRaw = raw(header);
+
+        int iterations = 50;
+        double legacyMs = time(iterations, () -> {
+            Document doc = decode(legacyRaw);
+            Course course = mongo.converter.read(Course.class, doc);
+            course.setTopicSubcontents(store.readLegacy(doc.get(CourseSubcontentStore.LEGACY_FIELD)));
+        });
+        double headerMs = time(iterations, () -> mongo.converter.read(Course.class, decode(headerRaw)));
+        double topicMs = time(iterations, () -> {
+            for (RawBsonDocument raw : oneTopic) {
+                mongo.converter.read(CourseSubcontent.class, decode(raw)).toTopicSubcontent();
+            }
+        });
+        double allMs = time(iterations, () -> {
+            mongo.converter.read(Course.class, decode(headerRaw));
+            for (RawBsonDocument raw : all) {
+                mongo.converter.read(CourseSubcontent.class, decode(raw)).toTopicSubcontent();
+            }
+        });
+
+        int topicBytes = oneTopic.stream().mapToInt(raw -> raw.getByteBuffer().remaining()).sum();
+        System.out.printf("Course read, embedded subcontents: %d bytes, %.3f ms%n", legacyRaw.getByteBuffer().remaining(), legacyMs);
+        System.out.printf("Course read, header only:          %d bytes, %.3f ms%n", headerRaw.getByteBuffer().remaining(), headerMs);
+        System.out.printf("One topic's subcontents:           %d bytes, %.3f ms%n", topicBytes, topicMs);
+        System.out.printf("Header + all subcontents:          %d documents, %.3f ms%n", all.size() + 1, allMs);
+
+        assertTrue(headerRaw.getByteBuffer().remaining() * 100 < legacyRaw.getByteBuffer().remaining());
+        assertTrue(topicBytes * 10 < legacyRaw.getByteBuffer().remaining());
+    }
+
+    private long subcontentQueries() {
+        return mockingDetails(mongo.template).getInvocations().stream()
+            .filter(inv -> inv.getMethod().getName().equals("find")
+                && inv.getArguments()[0] instanceof Query
+                && inv.getArguments()[1] == CourseSubcontent.class)
+            .count();
+    }
+
+    private static TopicSubcontent subcontent(String name) {
+        TopicSubcontent subcontent = new TopicSubcontent();
+        subcontent.setName(name);
+        return subcontent;
+    }
+
+    private static List<String> names(List<TopicSubcontent> subcontents) {
+        List<String> names = new ArrayList<>();
+        for (TopicSubcontent subcontent : subcontents) {
+            names.add(subcontent.getName());
+        }
+        return names;
+    }
+
+    private static final Codec<Document> CODEC = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+
+    private static RawBsonDocument raw(Document doc) {
+        return new RawBsonDocument(doc, CODEC);
+    }
+
+    private static Document decode(RawBsonDocument raw) {
+        return CODEC.decode(raw.asBsonReader(), DecoderContext.builder().build());
+    }
+
+    private static double time(int iterations, Runnable read) {
+        for (int i = 0; i < 5; i++) {
+            read.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            read.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / iterations;
+    }
+}
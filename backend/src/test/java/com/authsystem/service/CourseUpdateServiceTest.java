@@ -0,0 +1,355 @@
+package com.authsystem.service;
+
+import com.authsystem.model.Course;
+import com.authsystem.model.CourseSubcontent;
+import com.authsystem.model.TopicSubcontent;
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseUpdateServiceTest {
+
+    static final int TOPICS = 20;
+    static final int SUBCONTENTS_PER_TOPIC = 15;
+
+    private CourseUpdateService service;
+    private CourseSubcontentStore store;
+    private InMemoryMongo mongo;
+
+    // The course as it was stored before subcontents moved to their own collection
+    private Document legacy;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        mongo.uniqueKeys.put("course_subcontents", List.of("courseId", "topic", "order", "generation"));
+
+        store = new CourseSubcontentStore();
+        ReflectionTestUtils.setField(store, "mongoTemplate", mongo.template);
+        CourseSubcontentMigration migration = new CourseSubcontentMigration();
+        ReflectionTestUtils.setField(migration, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(migration, "subcontentStore", store);
+        CourseContentCountService counts = new CourseContentCountService();
+        ReflectionTestUtils.setField(counts, "courseSubcontentStore", store);
+
+        service = new CourseUpdateService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(service, "courseContentCountService", counts);
+        ReflectionTestUtils.setField(service, "subcontentStore", store);
+        ReflectionTestUtils.setField(service, "subcontentMigration", migration);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+
+        legacy = largeCourse("c1");
+        mongo.insert("courses", Document.parse(legacy.toJson()));
+        migration.migrateCourse("c1");
+        mongo.writes.clear();
+    }
+
+    @Test
+    void subcontentToggleUpdatesOnlyThatSubcontentAndTheVersion() {
+        service.setSubcontentPublished("c1", "Topic 3", 7, true, null);
+
+        assertEquals(2, mongo.writes.size());
+        for (Document write : mongo.writes) {
+            // Update operators only - neither the course nor a subcontent is written back whole
+            assertTrue(write.get("u", Document.class).keySet().stream().allMatch(key -> key.startsWith("$")), write.toJson());
+        }
+        assertTrue(published("Topic 3", 7));
+        assertFalse(published("Topic 3", 6));
+        assertEquals(6L, course().get("version"));
+        assertFalse(course().containsKey("topicSubcontents"));
+    }
+
+    @Test
+    @Tag("perf")
+    void subcontentToggleSendsAFractionOfTheDocument() {
+        service.setSubcontentPublished("c1", "Topic 3", 7, true, null);
+
+        int fullSave = bsonSize(legacy);
+        int targeted = 0;
+        for (Document write : mongo.writes) {
+            targeted += bsonSize(write);
+        }
+        System.out.println("Subcontent toggle payload: full save " + fullSave + " bytes, targeted updates " + targeted + " bytes");
+
+        assertTrue(targeted * 100 < fullSave, "targeted " + targeted + " vs full " + fullSave);
+    }
+
+    @Test
+    void concurrentTogglesOfDifferentSubcontentsAreAllKept() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < TOPICS; t++) {
+            for (int i = 0; i < SUBCONTENTS_PER_TOPIC; i += 2) {
+                String topic = "Topic " + t;
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return service.setSubcontentPublished("c1", topic, index, true, null);
+                }));
+            }
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // With load-modify-save, each thread would have written back its own stale copy
+        for (int t = 0; t < TOPICS; t++) {
+            for (int i = 0; i < SUBCONTENTS_PER_TOPIC; i++) {
+                assertEquals(i % 2 == 0, published("Topic " + t, i), "Topic " + t + " subcontent " + i);
+            }
+        }
+        assertEquals(5L + futures.size(), course().get("version"));
+    }
+
+    @Test
+    void onlyOneOfTwoEditsFromTheSameVersionWins() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (String topic : List.of("Topic 0", "Topic 1")) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    service.setSubcontentPublished("c1", topic, 0, true, 5L);
+                } catch (OptimisticLockingFailureException e) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, conflicts.get());
+        assertEquals(6L, course().get("version"));
+        assertNotEquals(published("Topic 0", 0), published("Topic 1", 0));
+    }
+
+    @Test
+    void toggleFailsWhenTheIndexNowPointsAtAnotherSubcontent() {
+        when(mongo.template.findOne(any(Query.class), eq(CourseSubcontent.class))).thenAnswer(inv -> {
+            CourseSubcontent snapshot = mongo.template.find(inv.getArgument(0), CourseSubcontent.class).get(0);
+            // Another instructor rewrites the topic right after our read
+            subcontent("Topic 2", 4).put("name", "Inserted subtopic");
+            return snapshot;
+        });
+
+        assertThrows(OptimisticLockingFailureException.class,
+            () -> service.setSubcontentPublished("c1", "Topic 2", 4, true, null));
+        assertFalse(published("Topic 2", 4));
+        // Nothing changed, so clients holding version 5 must not get a conflict
+        assertEquals(5L, ((Number) course().get("version")).longValue());
+    }
+
+    @Test
+    void aStaleToggleChangesNeitherTheSubcontentNorTheVersion() {
+        assertThrows(OptimisticLockingFailureException.class,
+            () -> service.setSubcontentPublished("c1", "Topic 2", 4, true, 4L));
+
+        assertFalse(published("Topic 2", 4));
+        assertEquals(5L, ((Number) course().get("version")).longValue());
+        assertTrue(mongo.writes.isEmpty());
+    }
+
+    @Test
+    void toggleValidatesTopicAndIndex() {
+        assertThrows(NoSuchElementException.class, () -> service.setSubcontentPublished("c1", "Nope", 0, true, null));
+        assertThrows(NoSuchElementException.class, () -> service.setSubcontentPublished("c1", "Topic 0", 99, true, null));
+        assertThrows(NoSuchElementException.class, () -> service.setSubcontentPublished("c1", "Topic 0", -1, true, null));
+        assertThrows(NoSuchElementException.class, () -> service.setSubcontentPublished("missing", "Topic 0", 0, true, null));
+        assertTrue(mongo.writes.isEmpty());
+    }
+
+    @Test
+    void publishSetsStatusOnlyAndChecksVersion() {
+        assertThrows(OptimisticLockingFailureException.class, () -> service.publish("c1", 4L));
+        assertEquals("DRAFT", course().get("status"));
+
+        assertEquals(6L, service.publish("c1", 5L));
+        assertEquals("PUBLISHED", course().get("status"));
+        assertEquals(Set.of("status", "updatedAt"), mongo.writes.get(1).get("u", Document.class).get("$set", Document.class).keySet());
+
+        assertThrows(NoSuchElementException.class, () -> service.publish("missing", null));
+    }
+
+    @Test
+    void publishWithoutTopicsIsRejected() {
+        mongo.insert("courses", new Document("_id", "c2").append("topics", new ArrayList<>())
+            .append("status", "DRAFT").append("version", 1L));
+
+        assertThrows(IllegalStateException.class, () -> service.publish("c2", null));
+        assertEquals("DRAFT", mongo.collection("courses").get(1).get("status"));
+    }
+
+    @Test
+    void enrollmentCountsAreIncrementedInPlaceAndNeverGoNegative() {
+        mongo.insert("courses", new Document("_id", "c2").append("enrolledStudents", 0).append("version", 3L));
+
+        assertTrue(service.adjustEnrolledStudents("c2", 1));
+        assertTrue(service.adjustEnrolledStudents("c2", 1));
+        assertTrue(service.adjustEnrolledStudents("c2", -1));
+        assertTrue(service.adjustEnrolledStudents("c2", -1));
+        assertFalse(service.adjustEnrolledStudents("c2", -1));
+        assertFalse(service.adjustEnrolledStudents("missing", 1));
+
+        Document c2 = mongo.collection("courses").get(1);
+        assertEquals(0, ((Number) c2.get("enrolledStudents")).intValue());
+        // Every change bumps the version, so a whole save of a copy loaded before it is rejected
+        assertEquals(7L, ((Number) c2.get("version")).longValue());
+        assertEquals(Set.of("enrolledStudents", "version"), mongo.writes.get(0).get("u", Document.class).get("$inc", Document.class).keySet());
+    }
+
+    @Test
+    void updateSetsOnlyProvidedFieldsAndKeepsSubcontents() {
+        Course changes = new Course();
+        changes.setStatus(null);
+        changes.setTitle("Renamed");
+        changes.setVersion(5L);
+
+        service.applyChanges("c1", changes);
+
+        Document set = mongo.writes.get(0).get("u", Document.class).get("$set", Document.class);
+        assertEquals(Set.of("title", "updatedAt"), set.keySet());
+        assertEquals("Renamed", course().get("title"));
+        // The request carried no topicSubcontents - they must survive the edit
+        assertEquals(TOPICS, store.load("c1").size());
+
+        // Same version again - someone (we) changed the course since
+        changes.setTitle("Stale");
+        assertThrows(OptimisticLockingFailureException.class, () -> service.applyChanges("c1", changes));
+        assertEquals("Renamed", course().get("title"));
+    }
+
+    @Test
+    void updateReplacesProvidedSubcontentsWithANewGeneration() {
+        TopicSubcontent only = new TopicSubcontent();
+        only.setName("Only one");
+        only.setVideoUrls(List.of("a.mp4", "b.mp4"));
+        Map<String, List<TopicSubcontent>> topics = new LinkedHashMap<>();
+        topics.put("Topic 0", List.of(only));
+        topics.put("Empty topic", new ArrayList<>());
+        Course changes = new Course();
+        changes.setStatus(null);
+        changes.setTopicSubcontents(topics);
+
+        Course updated = service.applyChanges("c1", changes);
+
+        assertEquals(6L, updated.getVersion());
+        Map<String, List<TopicSubcontent>> stored = store.load("c1");
+        assertEquals(List.of("Topic 0", "Empty topic"), new ArrayList<>(stored.keySet()));
+        assertEquals("Only one", stored.get("Topic 0").get(0).getName());
+        assertEquals(3, mongo.collection("course_subcontents").size());
+        assertEquals(2, ((Document) course().get("contentCounts")).get("totalVideos"));
+    }
+
+    @Test
+    void aFailedSubcontentUpdateLeavesTheCourseAsItWas() {
+        String before = course().toJson();
+        Map<String, List<TopicSubcontent>> topics = new LinkedHashMap<>();
+        TopicSubcontent only = new TopicSubcontent();
+        only.setName("Only one");
+        topics.put("Topic 0", List.of(only));
+        int stored = mongo.collection("course_subcontents").size();
+
+        // Stale version: the new set was written but is never committed, and is dropped again
+        Course stale = new Course();
+        stale.setStatus(null);
+        stale.setVersion(4L);
+        stale.setTopicSubcontents(topics);
+        assertThrows(OptimisticLockingFailureException.class, () -> service.applyChanges("c1", stale));
+        assertEquals(stored, mongo.collection("course_subcontents").size());
+
+        // The subcontent write itself fails: the course is not touched at all
+        doThrow(new DataAccessResourceFailureException("connection reset"))
+            .when(mongo.template).bulkOps(any(BulkOperations.BulkMode.class), eq(CourseSubcontent.class));
+        Course changes = new Course();
+        changes.setStatus(null);
+        changes.setTopicSubcontents(topics);
+        assertThrows(DataAccessResourceFailureException.class, () -> service.applyChanges("c1", changes));
+
+        assertEquals(before, course().toJson());
+        assertEquals(TOPICS, store.load("c1").size());
+    }
+
+    // ---- in-memory course ----
+
+    static Document largeCourse(String id) {
+        Document topicSubcontents = new Document();
+        List<String> topics = new ArrayList<>();
+        for (int t = 0; t < TOPICS; t++) {
+            List<Document> subcontents = new ArrayList<>();
+            for (int i = 0; i < SUBCONTENTS_PER_TOPIC; i++) {
+                List<Document> questions = new ArrayList<>();
+                for (int q = 0; q < 10; q++) {
+                    questions.add(new Document("question", "Question " + q + " about subtopic " + i + " of topic " + t + "?")
+                        .append("option1", "Option A").append("option2", "Option B")
+                        .append("option3", "Option C").append("option4", "Option D")
+                        .append("correctAnswer", 1));
+                }
+                subcontents.add(new Document("name", "Subtopic " + t + "." + i)
+                    .append("description", "x".repeat(400))
+                    .append("videoUrls", List.of("https://cdn.example.com/v/" + t + "/" + i + "/a.mp4",
+                                                 "https://cdn.example.com/v/" + t + "/" + i + "/b.mp4"))
+                    .append("pdfUrls", List.of("https://cdn.example.com/p/" + t + "/" + i + ".pdf"))
+                    .append("mcqQuestions", questions)
+                    .append("published", false));
+            }
+            topicSubcontents.put("Topic " + t, subcontents);
+            topics.add("Topic " + t);
+        }
+        return new Document("_id", id)
+            .append("title", "Large course")
+            .append("description", "y".repeat(1000))
+            .append("topics", topics)
+            .append("status", "DRAFT")
+            .append("topicSubcontents", topicSubcontents)
+            .append("version", 5L);
+    }
+
+    private Document course() {
+        return mongo.collection("courses").get(0);
+    }
+
+    private Document subcontent(String topic, int order) {
+        for (Document doc : mongo.collection("course_subcontents")) {
+            if (topic.equals(doc.get("topic")) && ((Number) doc.get("order")).intValue() == order) {
+                return doc;
+            }
+        }
+        throw new AssertionError("No subcontent " + topic + "/" + order);
+    }
+
+    private boolean published(String topic, int order) {
+        return subcontent(topic, order).getBoolean("published", false);
+    }
+
+    static int bsonSize(Document doc) {
+        return new RawBsonDocument(doc, MongoClientSettings.getDefaultCodecRegistry().get(Document.class))
+            .getByteBuffer().remaining();
+    }
+}
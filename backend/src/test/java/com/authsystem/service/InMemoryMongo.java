@@ -0,0 +1,717 @@
+package com.authsystem.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.RenameCollectionOptions;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.bson.types.ObjectId;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Mocked MongoTemplate backed by in-memory collections, for tests that need real read/write
+ * semantics across several calls (conditional updates, upserts, concurrent writers)
+ * Supports the filter and update operators the course services use; every call is atomic.
+ */
+class InMemoryMongo {
+
+    private static final Object MISSING = new Object();
+
+    final MongoTemplate template = mock(MongoTemplate.class);
+    final MappingMongoConverter converter;
+    final Map<String, List<Document>> collections = new HashMap<>();
+    // Filters and update documents of every write, in order
+    final List<Document> writes = Collections.synchronizedList(new ArrayList<>());
+    // Unique keys per collection, enforced on insert
+    final Map<String, List<String>> uniqueKeys = new HashMap<>();
+
+    private final MongoMappingContext mappingContext = new MongoMappingContext();
+    private final Object lock = new Object();
+
+    @SuppressWarnings("unchecked")
+    InMemoryMongo() {
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(Collections.emptyList()).getSimpleTypeHolder());
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.afterPropertiesSet();
+
+        when(template.getConverter()).thenReturn(converter);
+        when(template.getCollectionName(any(Class.class))).thenAnswer(inv -> collectionName(inv.getArgument(0)));
+
+        when(template.find(any(Query.class), any(Class.class))).thenAnswer(inv ->
+            find(inv.getArgument(0), inv.getArgument(1), collectionName(inv.getArgument(1))));
+        when(template.find(any(Query.class), any(Class.class), anyString())).thenAnswer(inv ->
+            find(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)));
+        when(template.findOne(any(Query.class), any(Class.class))).thenAnswer(inv ->
+            first(find(inv.getArgument(0), inv.getArgument(1), collectionName(inv.getArgument(1)))));
+        when(template.findOne(any(Query.class), any(Class.class), anyString())).thenAnswer(inv ->
+            first(find(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2))));
+        when(template.stream(any(Query.class), any(Class.class), anyString())).thenAnswer(inv ->
+            find(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)).stream());
+        when(template.stream(any(Query.class), any(Class.class))).thenAnswer(inv ->
+            find(inv.getArgument(0), inv.getArgument(1), collectionName(inv.getArgument(1))).stream());
+        when(template.findDistinct(any(Query.class), anyString(), anyString(), any(Class.class))).thenAnswer(inv -> {
+            Set<Object> values = new LinkedHashSet<>();
+            for (Document doc : find(inv.getArgument(0), Document.class, inv.getArgument(2))) {
+                if (doc.get(inv.getArgument(1)) != null) {
+                    values.add(doc.get(inv.getArgument(1)));
+                }
+            }
+            return new ArrayList<>(values);
+        });
+        when(template.findDistinct(any(Query.class), anyString(), any(Class.class), any(Class.class))).thenAnswer(inv ->
+            template.findDistinct((Query) inv.getArgument(0), (String) inv.getArgument(1),
+                collectionName(inv.getArgument(2)), (Class<?>) inv.getArgument(3)));
+        when(template.findById(any(), any(Class.class))).thenAnswer(inv -> first(find(
+            Query.query(Criteria.where("_id").is(inv.getArgument(0))),
+            inv.getArgument(1), collectionName(inv.getArgument(1)))));
+        when(template.count(any(Query.class), any(Class.class))).thenAnswer(inv ->
+            (long) find(inv.getArgument(0), Document.class, collectionName(inv.getArgument(1))).size());
+        when(template.exists(any(Query.class), any(Class.class))).thenAnswer(inv ->
+            !find(inv.getArgument(0), Document.class, collectionName(inv.getArgument(1))).isEmpty());
+        when(template.exists(any(Query.class), anyString())).thenAnswer(inv ->
+            !find(inv.getArgument(0), Document.class, inv.getArgument(1)).isEmpty());
+
+        when(template.updateFirst(any(Query.class), any(Update.class), any(Class.class))).thenAnswer(inv ->
+            updateFirst(inv.getArgument(0), inv.getArgument(1), collectionName(inv.getArgument(2))));
+        when(template.updateFirst(any(Query.class), any(Update.class), anyString())).thenAnswer(inv ->
+            updateFirst(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)));
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), any(Class.class)))
+            .thenAnswer(inv -> findAndModify(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2), inv.getArgument(3),
+                collectionName(inv.getArgument(3))));
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), any(Class.class), anyString()))
+            .thenAnswer(inv -> findAndModify(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2), inv.getArgument(3),
+                inv.getArgument(4)));
+        when(template.upsert(any(Query.class), any(Update.class), any(Class.class))).thenAnswer(inv ->
+            upsert(inv.getArgument(0), inv.getArgument(1), collectionName(inv.getArgument(2))));
+        when(template.upsert(any(Query.class), any(Update.class), anyString())).thenAnswer(inv ->
+            upsert(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)));
+        when(template.remove(any(Query.class), any(Class.class))).thenAnswer(inv ->
+            remove(inv.getArgument(0), collectionName(inv.getArgument(1))));
+        when(template.remove(any(Query.class), anyString())).thenAnswer(inv ->
+            remove(inv.getArgument(0), inv.getArgument(1)));
+        when(template.insert(anyCollection(), anyString())).thenAnswer(inv -> {
+            for (Object doc : (Collection<?>) inv.getArgument(0)) {
+                insert(inv.getArgument(1), copy((Document) doc));
+            }
+            return inv.getArgument(0);
+        });
+        when(template.save(any(Object.class))).thenAnswer(inv -> {
+            Object entity = inv.getArgument(0);
+            Document doc = new Document();
+            converter.write(entity, doc);
+            doc.remove("_class");
+            if (doc.get("_id") == null) {
+                ObjectId id = new ObjectId();
+                doc.put("_id", id);
+                mappingContext.getRequiredPersistentEntity(entity.getClass()).getPropertyAccessor(entity)
+                    .setProperty(mappingContext.getRequiredPersistentEntity(entity.getClass()).getRequiredIdProperty(), id.toHexString());
+            }
+            synchronized (lock) {
+                List<Document> docs = collection(collectionName(entity.getClass()));
+                docs.removeIf(existing -> Objects.equals(existing.get("_id"), doc.get("_id")));
+                docs.add(doc);
+            }
+            return entity;
+        });
+        when(template.indexOps(anyString())).thenReturn(mock(IndexOperations.class));
+        when(template.indexOps(any(Class.class))).thenReturn(mock(IndexOperations.class));
+        when(template.insert(any(Object.class))).thenAnswer(inv -> {
+            Object entity = inv.getArgument(0);
+            Document doc = new Document();
+            converter.write(entity, doc);
+            doc.remove("_class");
+            insert(collectionName(entity.getClass()), doc);
+            mappingContext.getRequiredPersistentEntity(entity.getClass()).getPropertyAccessor(entity)
+                .setProperty(mappingContext.getRequiredPersistentEntity(entity.getClass()).getRequiredIdProperty(), doc.get("_id"));
+            return entity;
+        });
+        when(template.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class))).thenAnswer(inv ->
+            bulk(collectionName(inv.getArgument(1))));
+        when(template.createCollection(anyString())).thenAnswer(inv -> {
+            collection(inv.getArgument(0));
+            return driverCollection(inv.getArgument(0));
+        });
+        doAnswer(inv -> {
+            synchronized (lock) {
+                collections.remove((String) inv.getArgument(0));
+            }
+            return null;
+        }).when(template).dropCollection(anyString());
+        MongoDatabase database = mock(MongoDatabase.class);
+        when(database.getName()).thenReturn("test");
+        when(template.getDb()).thenReturn(database);
+        when(template.getCollection(anyString())).thenAnswer(inv -> driverCollection(inv.getArgument(0)));
+    }
+
+    /**
+     * Driver collection supporting renameCollection only
+     */
+    @SuppressWarnings("unchecked")
+    private MongoCollection<Document> driverCollection(String name) {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        doAnswer(inv -> {
+            MongoNamespace target = inv.getArgument(0);
+            RenameCollectionOptions options = inv.getArgument(1);
+            synchronized (lock) {
+                if (!collections.containsKey(name)
+                        || (!options.isDropTarget() && collections.containsKey(target.getCollectionName()))) {
+                    throw new MongoException("Cannot rename " + name + " to " + target.getCollectionName());
+                }
+                collections.put(target.getCollectionName(), collections.remove(name));
+            }
+            return null;
+        }).when(collection).renameCollection(any(MongoNamespace.class), any(RenameCollectionOptions.class));
+        return collection;
+    }
+
+    List<Document> collection(String name) {
+        synchronized (lock) {
+            return collections.computeIfAbsent(name, k -> new ArrayList<>());
+        }
+    }
+
+    String collectionName(Class<?> type) {
+        return mappingContext.getRequiredPersistentEntity(type).getCollection();
+    }
+
+    void insert(String collection, Document doc) {
+        synchronized (lock) {
+            doc.putIfAbsent("_id", new ObjectId().toHexString());
+            collection(collection).add(doc);
+        }
+    }
+
+    // ---- operations ----
+
+    private <T> List<T> find(Query query, Class<T> type, String collection) {
+        List<T> results = new ArrayList<>();
+        synchronized (lock) {
+            List<Document> matched = new ArrayList<>();
+            for (Document doc : collection(collection)) {
+                if (matches(doc, query.getQueryObject())) {
+                    matched.add(doc);
+                }
+            }
+            sort(matched, query.getSortObject());
+            for (Document doc : matched) {
+                if (query.getLimit() > 0 && results.size() >= query.getLimit()) {
+                    break;
+                }
+                results.add(read(type, doc));
+            }
+        }
+        return results;
+    }
+
+    private UpdateResult updateFirst(Query query, Update update, String collection) {
+        Document mapped = map(update);
+        writes.add(new Document("q", query.getQueryObject()).append("u", mapped));
+        synchronized (lock) {
+            for (Document doc : collection(collection)) {
+                if (matches(doc, query.getQueryObject())) {
+                    apply(doc, mapped);
+                    return UpdateResult.acknowledged(1, 1L, null);
+                }
+            }
+        }
+        return UpdateResult.acknowledged(0, 0L, null);
+    }
+
+    private <T> T findAndModify(Query query, Update update, FindAndModifyOptions options, Class<T> type, String collection) {
+        Document mapped = map(update);
+        writes.add(new Document("q", query.getQueryObject()).append("u", mapped));
+        synchronized (lock) {
+            for (Document doc : collection(collection)) {
+                if (matches(doc, query.getQueryObject())) {
+                    Document before = copy(doc);
+                    apply(doc, mapped);
+                    return read(type, options.isReturnNew() ? doc : before);
+                }
+            }
+            if (options.isUpsert()) {
+                upsert(query, update, collection);
+                writes.remove(writes.size() - 1);
+                // The upserted document was appended last
+                List<Document> docs = collection(collection);
+                return options.isReturnNew() ? read(type, docs.get(docs.size() - 1)) : null;
+            }
+        }
+        return null;
+    }
+
+    private UpdateResult upsert(Query query, Update update, String collection) {
+        Document mapped = map(update);
+        writes.add(new Document("q", query.getQueryObject()).append("u", mapped));
+        synchronized (lock) {
+            for (Document doc : collection(collection)) {
+                if (matches(doc, query.getQueryObject())) {
+                    apply(doc, mapped);
+                    return UpdateResult.acknowledged(1, 1L, null);
+                }
+            }
+            Document inserted = new Document();
+            query.getQueryObject().forEach((key, value) -> {
+                if (!key.startsWith("$") && !(value instanceof Document)) {
+                    inserted.put(key, value);
+                }
+            });
+            Document setOnInsert = mapped.get("$setOnInsert", Document.class);
+            if (setOnInsert != null) {
+                inserted.putAll(setOnInsert);
+            }
+            apply(inserted, mapped);
+            List<String> unique = uniqueKeys.get(collection);
+            if (unique != null && collection(collection).stream()
+                    .anyMatch(doc -> unique.stream().allMatch(key -> Objects.equals(doc.get(key), inserted.get(key))))) {
+                writes.remove(writes.size() - 1);
+                throw new DuplicateKeyException("E11000 duplicate key in " + collection);
+            }
+            insert(collection, inserted);
+            return UpdateResult.acknowledged(0, 0L, null);
+        }
+    }
+
+    private DeleteResult remove(Query query, String collection) {
+        synchronized (lock) {
+            List<Document> docs = collection(collection);
+            int before = docs.size();
+            docs.removeIf(doc -> matches(doc, query.getQueryObject()));
+            return DeleteResult.acknowledged(before - docs.size());
+        }
+    }
+
+    private BulkOperations bulk(String collection) {
+        BulkOperations bulk = mock(BulkOperations.class);
+        List<Object[]> replacements = new ArrayList<>();
+        when(bulk.replaceOne(any(Query.class), any(), any(FindAndReplaceOptions.class))).thenAnswer(inv -> {
+            replacements.add(new Object[] { inv.getArgument(0), inv.getArgument(1), inv.getArgument(2) });
+            return bulk;
+        });
+        List<Object[]> upserts = new ArrayList<>();
+        when(bulk.upsert(any(Query.class), any(Update.class))).thenAnswer(inv -> {
+            upserts.add(new Object[] { inv.getArgument(0), inv.getArgument(1) });
+            return bulk;
+        });
+        List<Object> inserts = new ArrayList<>();
+        when(bulk.insert(anyList())).thenAnswer(inv -> {
+            inserts.addAll(inv.getArgument(0));
+            return bulk;
+        });
+        List<Object[]> updates = new ArrayList<>();
+        when(bulk.updateOne(any(Query.class), any(Update.class))).thenAnswer(inv -> {
+            updates.add(new Object[] { inv.getArgument(0), inv.getArgument(1) });
+            return bulk;
+        });
+        when(bulk.execute()).thenAnswer(inv -> {
+            for (Object[] upsert : upserts) {
+                upsert((Query) upsert[0], (Update) upsert[1], collection);
+            }
+            for (Object[] update : updates) {
+                updateFirst((Query) update[0], (Update) update[1], collection);
+            }
+            List<BulkWriteError> errors = new ArrayList<>();
+            synchronized (lock) {
+                List<String> unique = uniqueKeys.getOrDefault(collection, Collections.emptyList());
+                Set<Object> taken = new HashSet<>();
+                for (Document existing : collection(collection)) {
+                    taken.add(existing.get("_id"));
+                    if (!unique.isEmpty()) {
+                        taken.add(unique.stream().map(existing::get).toList());
+                    }
+                }
+                for (int i = 0; i < inserts.size(); i++) {
+                    Document doc = new Document();
+                    converter.write(inserts.get(i), doc);
+                    doc.remove("_class");
+                    writes.add(new Document("insert", doc));
+                    boolean duplicate = !taken.add(doc.get("_id"))
+                        || !unique.isEmpty() && !taken.add(unique.stream().map(doc::get).toList());
+                    if (duplicate) {
+                        errors.add(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), i));
+                    } else {
+                        insert(collection, doc);
+                    }
+                }
+                for (int i = 0; i < replacements.size(); i++) {
+                    Query query = (Query) replacements.get(i)[0];
+                    Document replacement = new Document();
+                    converter.write(replacements.get(i)[1], replacement);
+                    replacement.remove("_class");
+                    writes.add(new Document("q", query.getQueryObject()).append("u", replacement));
+                    if (!replaceOrUpsert(collection, query, replacement, ((FindAndReplaceOptions) replacements.get(i)[2]).isUpsert())) {
+                        errors.add(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), inserts.size() + i));
+                    }
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new BulkOperationException("Bulk write failed", new MongoBulkWriteException(
+                    BulkWriteResult.unacknowledged(), errors, null, new ServerAddress(), Collections.emptySet()));
+            }
+            return BulkWriteResult.unacknowledged();
+        });
+        return bulk;
+    }
+
+    private boolean replaceOrUpsert(String collection, Query query, Document replacement, boolean upsert) {
+        List<Document> docs = collection(collection);
+        for (int i = 0; i < docs.size(); i++) {
+            if (matches(docs.get(i), query.getQueryObject())) {
+                replacement.put("_id", docs.get(i).get("_id"));
+                docs.set(i, replacement);
+                return true;
+            }
+        }
+        if (!upsert) {
+            return true;
+        }
+        List<String> unique = uniqueKeys.get(collection);
+        if (unique != null) {
+            for (Document doc : docs) {
+                if (unique.stream().allMatch(key -> Objects.equals(doc.get(key), replacement.get(key)))) {
+                    return false;
+                }
+            }
+        }
+        replacement.putIfAbsent("_id", new ObjectId().toHexString());
+        docs.add(replacement);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(Class<T> type, Document doc) {
+        return type == Document.class ? (T) copy(doc) : converter.read(type, copy(doc));
+    }
+
+    private static <T> T first(List<T> results) {
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Document copy(Document doc) {
+        Document copy = new Document();
+        for (Map.Entry<String, Object> entry : doc.entrySet()) {
+            copy.put(entry.getKey(), deepCopyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object deepCopyValue(Object value) {
+        if (value instanceof Document) {
+            return copy((Document) value);
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<Object>) value) {
+                list.add(deepCopyValue(item));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    // ---- query and update evaluation ----
+
+    static Object resolve(Object node, String path) {
+        for (String part : path.split("\\.")) {
+            if (node instanceof Document && ((Document) node).containsKey(part)) {
+                node = ((Document) node).get(part);
+            } else if (node instanceof List && part.matches("\\d+") && Integer.parseInt(part) < ((List<?>) node).size()) {
+                node = ((List<?>) node).get(Integer.parseInt(part));
+            } else {
+                return MISSING;
+            }
+        }
+        return node;
+    }
+
+    static Object get(Document doc, String path) {
+        Object value = resolve(doc, path);
+        return value == MISSING ? null : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    static boolean matches(Document doc, Document filter) {
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            if (entry.getKey().equals("$and")) {
+                for (Document branch : (List<Document>) entry.getValue()) {
+                    if (!matches(doc, branch)) {
+                        return false;
+                    }
+                }
+                continue;
+            }
+            if (entry.getKey().equals("$or")) {
+                boolean any = false;
+                for (Document branch : (List<Document>) entry.getValue()) {
+                    any |= matches(doc, branch);
+                }
+                if (!any) {
+                    return false;
+                }
+                continue;
+            }
+            Object actual = resolve(doc, entry.getKey());
+            Object expected = entry.getValue();
+            if (expected instanceof Document && !((Document) expected).isEmpty()
+                    && ((Document) expected).keySet().stream().allMatch(k -> k.startsWith("$"))) {
+                for (Map.Entry<String, Object> op : ((Document) expected).entrySet()) {
+                    boolean ok = switch (op.getKey()) {
+                        case "$exists" -> (actual != MISSING) == (Boolean) op.getValue();
+                        case "$not" -> !matches(actual == MISSING ? new Document() : new Document("v", actual),
+                            new Document("v", op.getValue()));
+                        case "$elemMatch" -> actual instanceof List && ((List<Object>) actual).stream()
+                            .anyMatch(item -> item instanceof Document && matches((Document) item, (Document) op.getValue()));
+                        case "$in" -> contains((Collection<Object>) op.getValue(), actual);
+                        case "$nin" -> !contains((Collection<Object>) op.getValue(), actual);
+                        case "$ne" -> !equal(op.getValue(), actual);
+                        case "$lt" -> comparable(actual, op.getValue()) && compare(actual, op.getValue()) < 0;
+                        case "$lte" -> comparable(actual, op.getValue()) && compare(actual, op.getValue()) <= 0;
+                        case "$gt" -> comparable(actual, op.getValue()) && compare(actual, op.getValue()) > 0;
+                        case "$gte" -> comparable(actual, op.getValue()) && compare(actual, op.getValue()) >= 0;
+                        default -> throw new IllegalArgumentException(op.getKey());
+                    };
+                    if (!ok) {
+                        return false;
+                    }
+                }
+            } else if (!equal(expected, actual)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Like MongoDB, a missing field or one of another type never satisfies a range operator
+    private static boolean comparable(Object actual, Object bound) {
+        return (actual instanceof Number && bound instanceof Number) || (actual instanceof String && bound instanceof String)
+            || (instant(actual) != null && instant(bound) != null);
+    }
+
+    private static int compare(Object actual, Object bound) {
+        if (actual instanceof Number && bound instanceof Number) {
+            return Long.compare(((Number) actual).longValue(), ((Number) bound).longValue());
+        }
+        if (actual instanceof String && bound instanceof String) {
+            return ((String) actual).compareTo((String) bound);
+        }
+        return instant(actual).compareTo(instant(bound));
+    }
+
+    // Stored dates are java.util.Date, criteria may still hold LocalDateTime
+    private static java.time.Instant instant(Object value) {
+        if (value instanceof Date date) {
+            return date.toInstant();
+        }
+        if (value instanceof java.time.LocalDateTime dateTime) {
+            return dateTime.atZone(java.time.ZoneId.systemDefault()).toInstant();
+        }
+        return null;
+    }
+
+    private static boolean contains(Collection<Object> values, Object actual) {
+        for (Object value : values) {
+            if (value == null ? actual == MISSING || actual == null : equal(value, actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equal(Object expected, Object actual) {
+        if (expected instanceof Number && actual instanceof Number) {
+            return ((Number) expected).longValue() == ((Number) actual).longValue();
+        }
+        if (actual instanceof List && !(expected instanceof List)) {
+            return ((List<?>) actual).contains(expected);
+        }
+        if (expected == null) {
+            // Like Mongo, null matches a missing field too
+            return actual == MISSING || actual == null;
+        }
+        return actual != MISSING && Objects.equals(expected, actual);
+    }
+
+    private static void sort(List<Document> docs, Document sort) {
+        if (sort == null || sort.isEmpty()) {
+            return;
+        }
+        Comparator<Document> comparator = null;
+        for (Map.Entry<String, Object> key : sort.entrySet()) {
+            int direction = ((Number) key.getValue()).intValue();
+            Comparator<Document> byKey = Comparator.comparingLong(doc -> {
+                Object value = get(doc, key.getKey());
+                return value instanceof Number ? ((Number) value).longValue() : 0L;
+            });
+            if (direction < 0) {
+                byKey = byKey.reversed();
+            }
+            comparator = comparator == null ? byKey : comparator.thenComparing(byKey);
+        }
+        docs.sort(comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    void apply(Document doc, Document update) {
+        Document set = update.get("$set", Document.class);
+        if (set != null) {
+            for (Map.Entry<String, Object> entry : set.entrySet()) {
+                String last = entry.getKey().substring(entry.getKey().lastIndexOf('.') + 1);
+                Object parent = parent(doc, entry.getKey());
+                if (parent instanceof List) {
+                    ((List<Object>) parent).set(Integer.parseInt(last), toMongo(entry.getValue()));
+                } else if (parent instanceof Document) {
+                    ((Document) parent).put(last, toMongo(entry.getValue()));
+                }
+            }
+        }
+        Document unset = update.get("$unset", Document.class);
+        if (unset != null) {
+            for (String path : unset.keySet()) {
+                Object parent = parent(doc, path);
+                if (parent instanceof Document) {
+                    ((Document) parent).remove(path.substring(path.lastIndexOf('.') + 1));
+                }
+            }
+        }
+        Document inc = update.get("$inc", Document.class);
+        if (inc != null) {
+            for (Map.Entry<String, Object> entry : inc.entrySet()) {
+                Document parent = (Document) parent(doc, entry.getKey());
+                String last = entry.getKey().substring(entry.getKey().lastIndexOf('.') + 1);
+                Number current = parent.get(last, Number.class);
+                Number delta = (Number) entry.getValue();
+                if (current instanceof Double || delta instanceof Double) {
+                    parent.put(last, (current != null ? current.doubleValue() : 0.0) + delta.doubleValue());
+                } else {
+                    parent.put(last, (current != null ? current.longValue() : 0L) + delta.longValue());
+                }
+            }
+        }
+        Document max = update.get("$max", Document.class);
+        if (max != null) {
+            for (Map.Entry<String, Object> entry : max.entrySet()) {
+                Document parent = (Document) parent(doc, entry.getKey());
+                String last = entry.getKey().substring(entry.getKey().lastIndexOf('.') + 1);
+                Object current = parent.get(last);
+                if (current == null || compare(entry.getValue(), current) > 0) {
+                    parent.put(last, toMongo(entry.getValue()));
+                }
+            }
+        }
+        Document push = update.get("$push", Document.class);
+        if (push != null) {
+            for (Map.Entry<String, Object> entry : push.entrySet()) {
+                Document parent = (Document) parent(doc, entry.getKey());
+                String last = entry.getKey().substring(entry.getKey().lastIndexOf('.') + 1);
+                List<Object> array = parent.get(last) instanceof List ? (List<Object>) parent.get(last) : new ArrayList<>();
+                parent.put(last, array);
+
+                Object value = entry.getValue();
+                List<Object> items = new ArrayList<>();
+                Integer position = null;
+                Integer slice = null;
+                if (value instanceof Document && ((Document) value).containsKey("$each")) {
+                    for (Object item : (Collection<Object>) ((Document) value).get("$each")) {
+                        items.add(toMongo(item));
+                    }
+                    position = ((Document) value).getInteger("$position");
+                    slice = ((Document) value).getInteger("$slice");
+                } else {
+                    items.add(toMongo(value));
+                }
+                array.addAll(position != null ? Math.min(position, array.size()) : array.size(), items);
+                if (slice != null && slice < 0 && array.size() > -slice) {
+                    array.subList(0, array.size() + slice).clear();
+                } else if (slice != null && slice >= 0 && array.size() > slice) {
+                    array.subList(slice, array.size()).clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * The document or array holding the last segment of path, creating missing parents like $set does
+     */
+    private static Object parent(Document doc, String path) {
+        int dot = path.lastIndexOf('.');
+        Object parent = doc;
+        if (dot >= 0) {
+            for (String part : path.substring(0, dot).split("\\.")) {
+                Object child = resolve(parent, part);
+                if (child == MISSING && parent instanceof Document) {
+                    child = new Document();
+                    ((Document) parent).put(part, child);
+                }
+                parent = child;
+            }
+        }
+        return parent;
+    }
+
+    /**
+     * The update document with values converted the way MongoTemplate's update mapping does
+     */
+    private Document map(Update update) {
+        Document mapped = new Document();
+        for (Map.Entry<String, Object> operator : update.getUpdateObject().entrySet()) {
+            Document fields = new Document();
+            for (Map.Entry<String, Object> field : ((Document) operator.getValue()).entrySet()) {
+                Object value = field.getValue();
+                if (value instanceof Update.Modifiers) {
+                    Document modifiers = new Document();
+                    for (Update.Modifier modifier : ((Update.Modifiers) value).getModifiers()) {
+                        Object modifierValue = modifier.getValue();
+                        if (modifierValue instanceof Object[]) {
+                            List<Object> items = new ArrayList<>();
+                            for (Object item : (Object[]) modifierValue) {
+                                items.add(toMongo(item));
+                            }
+                            modifierValue = items;
+                        }
+                        modifiers.put(modifier.getKey(), modifierValue);
+                    }
+                    fields.put(field.getKey(), modifiers);
+                } else {
+                    fields.put(field.getKey(), toMongo(value));
+                }
+            }
+            mapped.put(operator.getKey(), fields);
+        }
+        return mapped;
+    }
+
+    private Object toMongo(Object value) {
+        if (value == null || value instanceof Document) {
+            return value;
+        }
+        return converter.convertToMongoType(value);
+    }
+}
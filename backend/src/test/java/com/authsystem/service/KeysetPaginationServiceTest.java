@@ -0,0 +1,151 @@
+package com.authsystem.service;
+
+import com.authsystem.dto.CursorPage;
+import com.authsystem.model.MCQ;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class KeysetPaginationServiceTest {
+
+    private KeysetPaginationService service;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        service = new KeysetPaginationService();
+        mongoTemplate = mock(MongoTemplate.class);
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(Collections.emptyList()).getSimpleTypeHolder());
+        when(mongoTemplate.getConverter())
+            .thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(service, "defaultPageSize", 100);
+        ReflectionTestUtils.setField(service, "maxPageSize", 1000);
+        ReflectionTestUtils.setField(service, "streamBatchSize", 500);
+    }
+
+    private MCQ mcq(String id) {
+        MCQ mcq = new MCQ();
+        mcq.setId(id);
+        mcq.setQuestion("Question " + id);
+        return mcq;
+    }
+
+    @Test
+    void cursorRoundTripsAndIsOpaque() {
+        String cursor = service.encodeCursor("65a1f0c2e4b0a1b2c3d4e5f6");
+
+        assertFalse(cursor.contains("65a1f0c2e4b0a1b2c3d4e5f6"));
+        assertEquals("65a1f0c2e4b0a1b2c3d4e5f6", service.decodeCursor(cursor));
+        assertThrows(IllegalArgumentException.class, () -> service.decodeCursor("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> service.decodeCursor(
+            Base64.getUrlEncoder().encodeToString("65a1".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void pageReadsOneExtraDocumentToDetectNextPage() {
+        when(mongoTemplate.find(any(Query.class), eq(MCQ.class)))
+            .thenReturn(new ArrayList<>(List.of(mcq("a"), mcq("b"), mcq("c"))));
+
+        CursorPage<MCQ> page = service.page(MCQ.class, new Query(), service.encodeCursor("0"), 2);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(MCQ.class));
+        assertEquals(3, query.getValue().getLimit());
+        assertEquals("0", query.getValue().getQueryObject().get("_id", org.bson.Document.class).get("$gt"));
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals("b", service.decodeCursor(page.getNextCursor()));
+    }
+
+    @Test
+    void lastPageHasNoCursorAndLimitIsCapped() {
+        when(mongoTemplate.find(any(Query.class), eq(MCQ.class))).thenReturn(new ArrayList<>(List.of(mcq("a"))));
+
+        CursorPage<MCQ> page = service.page(MCQ.class, new Query(), null, 50_000);
+
+        assertNull(page.getNextCursor());
+        assertFalse(page.isHasMore());
+        assertEquals(1000, page.getLimit());
+        assertThrows(IllegalArgumentException.class, () -> service.page(MCQ.class, new Query(), null, 0));
+    }
+
+    @Test
+    void ndjsonWritesOneDocumentPerLine() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(MCQ.class))).thenReturn(Stream.of(mcq("a"), mcq("b")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.streamNdjson(MCQ.class, new Query()).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"id\":\"a\""));
+        assertTrue(lines[1].contains("\"id\":\"b\""));
+    }
+
+    @Test
+    void jsonArrayModeKeepsLegacyBody() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(MCQ.class))).thenReturn(Stream.of(mcq("a"), mcq("b")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.streamJsonArray(MCQ.class, new Query()).writeTo(out);
+
+        MCQ[] parsed = new ObjectMapper().registerModule(new JavaTimeModule())
+            .readValue(out.toByteArray(), MCQ[].class);
+        assertEquals(2, parsed.length);
+        assertEquals("b", parsed[1].getId());
+    }
+
+    @Test
+    void streamsAMillionDocumentsWithoutHoldingThem() throws Exception {
+        int total = 1_000_000;
+        AtomicInteger produced = new AtomicInteger();
+        when(mongoTemplate.stream(any(Query.class), eq(MCQ.class)))
+            .thenReturn(Stream.generate(() -> mcq(String.valueOf(produced.incrementAndGet()))).limit(total));
+
+        long[] lines = new long[1];
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                if (b == '\n') {
+                    lines[0]++;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                for (int i = off; i < off + len; i++) {
+                    write(b[i]);
+                }
+            }
+        };
+
+        long written = service.writeDocuments(MCQ.class, new Query(), sink, false);
+
+        assertEquals(total, written);
+        assertEquals(total, lines[0]);
+    }
+}
@@ -0,0 +1,147 @@
+package com.authsystem.service;
+
+import com.authsystem.model.StudentProgress;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardServiceTest {
+
+    private InMemoryMongo mongo;
+    private LeaderboardService leaderboards;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        leaderboards = newService();
+    }
+
+    private LeaderboardService newService() {
+        LeaderboardService created = new LeaderboardService();
+        ReflectionTestUtils.setField(created, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(created, "chunkSize", 3);
+        ReflectionTestUtils.setField(created, "projectorInstance", true);
+        return created;
+    }
+
+    private void score(String email, String courseId, double overallScore) {
+        leaderboards.onScoreChanged(new StudentProgressService.ScoreChanged(email, courseId, overallScore));
+    }
+
+    @Test
+    void quizScoresMoveStudentsOnCourseAndGlobalBoards() {
+        score("a@x.com", "c1", 70);
+        score("b@x.com", "c1", 85);
+        score("c@x.com", "c1", 85);
+        score("a@x.com", "c2", 60);
+        score("b@x.com", "c2", 40);
+
+        LeaderboardService.Page course = leaderboards.courseStandings("c1", 0, 10);
+        assertEquals(3, course.total());
+        // Equal scores are ordered by email
+        assertEquals(List.of("b@x.com", "c@x.com", "a@x.com"),
+            course.standings().stream().map(LeaderboardService.Standing::studentEmail).toList());
+        assertEquals(3, leaderboards.courseStanding("c1", "a@x.com").rank());
+
+        // Global ranks by the sum of course scores: a 130, b 125, c 85
+        assertEquals(1, leaderboards.globalStanding("a@x.com").rank());
+        score("b@x.com", "c2", 55.5);
+        assertEquals(new LeaderboardService.Standing(1, "b@x.com", 140.5), leaderboards.globalStanding("b@x.com"));
+        assertEquals(2, leaderboards.globalStandings(1, 5).standings().get(0).rank());
+        assertNull(leaderboards.courseStanding("c2", "c@x.com"));
+        assertEquals(0, leaderboards.courseStandings("unknown", 0, 10).total());
+    }
+
+    @Test
+    void restartLoadsTheSnapshotAndOnlyNewerProgress() {
+        for (int i = 0; i < 8; i++) {
+            score("s" + i + "@x.com", "c1", 50 + i);
+        }
+        score("s0@x.com", "c2", 90);
+        assertEquals(9, leaderboards.snapshot());
+        // 8 + 1 scores in chunks of 3, plus the generation pointer
+        assertEquals(3 + 1 + 1, mongo.collection(LeaderboardService.SNAPSHOTS).size());
+        assertEquals(0, leaderboards.snapshot());
+
+        // After the snapshot s0 improved in c1 and s9 scored for the first time
+        progress("s0@x.com", "c1", 99, LocalDateTime.now());
+        progress("s9@x.com", "c1", 10, LocalDateTime.now());
+        // Written long before the snapshot, so not read again
+        progress("s5@x.com", "c1", 1, LocalDateTime.now().minusDays(1));
+
+        LeaderboardService restarted = newService();
+        assertEquals(10, restarted.load());
+        assertEquals(9, restarted.courseStandings("c1", 0, 20).total());
+        assertEquals(new LeaderboardService.Standing(1, "s0@x.com", 99.0), restarted.courseStanding("c1", "s0@x.com"));
+        assertEquals(55.0, restarted.courseStanding("c1", "s5@x.com").score());
+        assertEquals(9, restarted.courseStanding("c1", "s9@x.com").rank());
+        assertEquals(99.0 + 90, restarted.globalStanding("s0@x.com").score());
+
+        // A second snapshot replaces the first generation
+        score("s1@x.com", "c1", 75);
+        leaderboards.snapshot();
+        assertEquals(3 + 1 + 1, mongo.collection(LeaderboardService.SNAPSHOTS).size());
+    }
+
+    @Test
+    void withoutASnapshotBoardsAreBuiltFromProgressAndLiveScoresWin() {
+        progress("a@x.com", "c1", 80, LocalDateTime.now().minusDays(3));
+        progress("b@x.com", "c1", 70, LocalDateTime.now().minusDays(3));
+        // Recorded while loading: newer than what the load reads
+        ReflectionTestUtils.setField(leaderboards, "loading", true);
+        score("b@x.com", "c1", 95);
+
+        assertEquals(1, leaderboards.load());
+        assertFalse(leaderboards.isLoading());
+        assertEquals(new LeaderboardService.Standing(1, "b@x.com", 95.0), leaderboards.courseStanding("c1", "b@x.com"));
+        assertEquals(2, leaderboards.courseStanding("c1", "a@x.com").rank());
+    }
+
+    @Test
+    void aSnapshotNeverReplacesANewerOneAndOtherInstancesRefreshFromProgress() {
+        mongo.uniqueKeys.put(LeaderboardService.SNAPSHOTS, List.of("_id"));
+        score("a@x.com", "c1", 70);
+        assertEquals(1, leaderboards.snapshot());
+        long first = ((Number) mongo.collection(LeaderboardService.SNAPSHOTS).stream()
+            .filter(doc -> "current".equals(doc.get("_id"))).findFirst().orElseThrow().get("generation")).longValue();
+
+        // Another projector instance pointed current at a newer generation meanwhile
+        mongo.collection(LeaderboardService.SNAPSHOTS).stream().filter(doc -> "current".equals(doc.get("_id")))
+            .findFirst().orElseThrow().put("generation", first + 60_000);
+        score("a@x.com", "c1", 75);
+        assertEquals(0, leaderboards.snapshot());
+        assertEquals(first + 60_000, ((Number) mongo.collection(LeaderboardService.SNAPSHOTS).stream()
+            .filter(doc -> "current".equals(doc.get("_id"))).findFirst().orElseThrow().get("generation")).longValue());
+        // The losing copy is removed, the older one is left to the winner
+        assertEquals(1 + 1, mongo.collection(LeaderboardService.SNAPSHOTS).size());
+
+        // An instance without the projector never snapshots and picks scores up from progress
+        LeaderboardService other = newService();
+        ReflectionTestUtils.setField(other, "projectorInstance", false);
+        other.load();
+        other.onScoreChanged(new StudentProgressService.ScoreChanged("x@x.com", "c1", 10));
+        assertEquals(0, other.snapshot());
+        progress("b@x.com", "c1", 88, LocalDateTime.now());
+        assertEquals(1, other.refresh());
+        assertEquals(new LeaderboardService.Standing(1, "b@x.com", 88.0), other.courseStanding("c1", "b@x.com"));
+        assertEquals(0, leaderboards.refresh());
+    }
+
+    private void progress(String email, String courseId, double overallScore, LocalDateTime updatedAt) {
+        StudentProgress progress = new StudentProgress();
+        progress.setStudentEmail(email);
+        progress.setCourseId(courseId);
+        progress.setOverallScore(overallScore);
+        progress.setUpdatedAt(updatedAt);
+        progress.getOverallPerformance().setTotalQuizzes(1);
+        mongo.template.insert(progress);
+        Document stored = mongo.collection("student_progress").get(mongo.collection("student_progress").size() - 1);
+        assertEquals(email, stored.get("studentEmail"));
+    }
+}
@@ -0,0 +1,331 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.model.StudentPerformance;
+import com.authsystem.repository.StudentPerformanceRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LearningEventProjectorTest {
+
+    private InMemoryMongo mongo;
+    private LearningEventLog eventLog;
+    private LearningEventProjector projector;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        eventLog = new LearningEventLog();
+        ReflectionTestUtils.setField(eventLog, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(eventLog, "eventPublisher", publisher);
+        projector = newProjector(mongo, eventLog, 1000);
+        doAnswer(inv -> {
+            projector.onAppended(inv.getArgument(0));
+            return null;
+        }).when(publisher).publishEvent(any(Object.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        projector.stop();
+    }
+
+    /**
+     * A projector with the three real projections over the given in-memory database
+     */
+    static LearningEventProjector newProjector(InMemoryMongo mongo, LearningEventLog eventLog, long snapshotEvery) {
+        StudentProgressService progressService = new StudentProgressService();
+        ReflectionTestUtils.setField(progressService, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(progressService, "eventPublisher", mock(ApplicationEventPublisher.class));
+        StudentProgressProjection progressProjection = new StudentProgressProjection();
+        ReflectionTestUtils.setField(progressProjection, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(progressProjection, "progressService", progressService);
+        StudentNoteStore noteStore = new StudentNoteStore();
+        ReflectionTestUtils.setField(noteStore, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(noteStore, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(noteStore, "compressThresholdBytes", 1024);
+        ReflectionTestUtils.setField(progressProjection, "noteStore", noteStore);
+
+        AdaptiveLearningService adaptiveService = new AdaptiveLearningService();
+        ReflectionTestUtils.setField(adaptiveService, "performanceRepository", performanceRepository(mongo));
+        StudentPerformanceProjection performanceProjection = new StudentPerformanceProjection();
+        ReflectionTestUtils.setField(performanceProjection, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(performanceProjection, "adaptiveService", adaptiveService);
+
+        QuizAttemptProjection attemptProjection = new QuizAttemptProjection();
+        ReflectionTestUtils.setField(attemptProjection, "mongoTemplate", mongo.template);
+
+        LearningEventProjector created = new LearningEventProjector();
+        ReflectionTestUtils.setField(created, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(created, "eventLog", eventLog);
+        ReflectionTestUtils.setField(created, "projections",
+            List.<LearningProjection>of(progressProjection, performanceProjection, attemptProjection));
+        ReflectionTestUtils.setField(created, "batchSize", 200);
+        ReflectionTestUtils.setField(created, "gapTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(created, "snapshotEvery", snapshotEvery);
+        ReflectionTestUtils.setField(created, "readYourWritesMs", 5000L);
+        ReflectionTestUtils.setField(created, "enabled", true);
+        return created;
+    }
+
+    private static StudentPerformanceRepository performanceRepository(InMemoryMongo mongo) {
+        StudentPerformanceRepository repository = mock(StudentPerformanceRepository.class);
+        when(repository.findByStudentEmailAndCourseId(anyString(), anyString())).thenAnswer(inv ->
+            java.util.Optional.ofNullable(mongo.template.findOne(Query.query(Criteria.where("studentEmail").is(inv.getArgument(0))
+                .and("courseId").is(inv.getArgument(1))), StudentPerformance.class)));
+        when(repository.save(any(StudentPerformance.class))).thenAnswer(inv -> mongo.template.save(inv.getArgument(0)));
+        doAnswer(inv -> mongo.template.remove(Query.query(Criteria.where("studentEmail").is(inv.getArgument(0))
+                .and("courseId").is(inv.getArgument(1))), StudentPerformance.class))
+            .when(repository).deleteByStudentEmailAndCourseId(anyString(), anyString());
+        return repository;
+    }
+
+    @Test
+    void compactEncodingIsSmallerThanTheMappedDocument() {
+        LearningEvent event = LearningEvent.quizAttempt(LearningEvent.Source.ADAPTIVE, "student42@example.com",
+            "6650f1c2a4b7e3d9c8f01234", "Linear Equations", null, 7, 10, 245, "INTERMEDIATE", null);
+        event.setSeq(1_234_567);
+        Document mapped = new Document();
+        mongo.converter.write(event, mapped);
+
+        int compact = CourseUpdateServiceTest.bsonSize(event.toBson());
+        int full = CourseUpdateServiceTest.bsonSize(mapped);
+        System.out.println("Learning event encoding: compact " + compact + " bytes, mapped " + full + " bytes");
+        assertTrue(compact * 10 < full * 6, compact + " vs " + full);
+
+        LearningEvent decoded = LearningEvent.fromBson(event.toBson());
+        assertEquals(LearningEvent.Type.QUIZ_ATTEMPT, decoded.getType());
+        assertEquals(LearningEvent.Source.ADAPTIVE, decoded.getSource());
+        assertEquals(7, decoded.getScore());
+        assertEquals(245, decoded.getSeconds());
+        assertEquals("Linear Equations", decoded.getTopicName());
+    }
+
+    @Test
+    void projectionsBuildAllThreeReadModels() {
+        eventLog.append(LearningEvent.quizAttempt(LearningEvent.Source.PROGRESS, "s@x.com", "c1", "Algebra", null,
+            8, 10, 120, "MEDIUM", "ai"));
+        eventLog.append(LearningEvent.quizAttempt(LearningEvent.Source.ADAPTIVE, "s@x.com", "c1", "Algebra", null,
+            9, 10, 120, "INTERMEDIATE", null));
+        eventLog.appendAll(List.of(
+            LearningEvent.mediaTime("VIDEO", "s@x.com", "c1", "Algebra", "Intro", 300),
+            LearningEvent.mediaTime("PDF", "s@x.com", "c1", "Algebra", "Notes", 120)));
+        eventLog.append(LearningEvent.lessonComplete("s@x.com", "c1", "l1", "Lesson 1", 10));
+        eventLog.append(LearningEvent.noteSaved("s@x.com", "c1", "Algebra", "Basics", "remember the sign"));
+        eventLog.append(LearningEvent.topicCompletion("s@x.com", "c1", "Algebra", 40.0));
+
+        assertEquals(7, projector.catchUp());
+
+        Document progress = mongo.collection("student_progress").get(0);
+        assertEquals(1, ((Number) progress.get("quizzesPassed")).intValue());
+        assertEquals(2 + 5 + 2, ((Number) progress.get("totalTimeSpentMinutes")).intValue());
+        assertEquals(1, ((Number) progress.get("lessonsCompleted")).intValue());
+        // Notes logged before they moved to student_notes land there, not in the progress document
+        assertFalse(progress.containsKey("notes"));
+        assertEquals("remember the sign", mongo.collection("student_notes").get(0).get("text"));
+        assertEquals(4, ((List<?>) progress.get("recentActivities")).size());
+
+        StudentPerformance performance = mongo.converter.read(StudentPerformance.class, mongo.collection("student_performance").get(0));
+        assertEquals(1, performance.getQuizAttempts().size());
+        assertEquals(90, performance.getTopicScores().get("Algebra"));
+        assertEquals(40.0, performance.getCompletionPercentage().get("Algebra"));
+        assertEquals(7, performance.getLastEventSeq());
+
+        // Both trackers' attempts, difficulty on the EASY / MEDIUM / HARD scale
+        assertEquals(2, mongo.collection("quiz_attempts").size());
+        assertEquals(80.0, mongo.collection("quiz_attempts").get(0).getDouble("score"), 1e-9);
+        assertEquals("MEDIUM", mongo.collection("quiz_attempts").get(1).get("difficulty"));
+
+        eventLog.append(LearningEvent.performanceReset("s@x.com", "c1"));
+        projector.catchUp();
+        assertTrue(mongo.collection("student_performance").isEmpty());
+    }
+
+    @Test
+    void replayAfterACrashChangesNothing() {
+        appendQuizzes(300);
+        projector.catchUp();
+        Document before = mongo.collection("student_progress").get(0);
+
+        // Crash before any checkpoint was saved: a new projector starts from the beginning
+        mongo.collection(LearningEventProjector.CHECKPOINTS).clear();
+        LearningEventProjector restarted = newProjector(mongo, eventLog, 1000);
+        assertEquals(300, restarted.catchUp());
+
+        Document after = mongo.collection("student_progress").get(0);
+        assertEquals(before.get("overallPerformance"), after.get("overallPerformance"));
+        assertEquals(StudentProgressService.MAX_RECENT_QUIZ_ATTEMPTS, ((List<?>) after.get("quizAttempts")).size());
+        assertEquals(150, mongo.collection("student_performance").get(0).getList("quizAttempts", Object.class).size());
+        assertEquals(300, mongo.collection("quiz_attempts").size());
+    }
+
+    @Test
+    void aResubmittedQuizResultIsCountedOnce() {
+        // Sent again in the same batch, and again after the first one was projected
+        eventLog.appendAll(List.of(submitted("sub-00000001"), submitted("sub-00000001"), submitted("sub-00000002")));
+        assertEquals(3, projector.catchUp());
+        eventLog.append(submitted("sub-00000001"));
+        assertEquals(1, projector.catchUp());
+
+        Document progress = mongo.collection("student_progress").get(0);
+        assertEquals(2, ((Number) progress.get("overallPerformance", Document.class).get("totalQuizzes")).intValue());
+        assertEquals(2, mongo.collection("student_performance").get(0).getList("quizAttempts", Object.class).size());
+        assertEquals(List.of("qs-sub-00000001", "qs-sub-00000002"),
+            mongo.collection("quiz_attempts").stream().map(doc -> doc.get("_id")).toList());
+        assertEquals(4, projector.checkpoint(QuizAttemptProjection.NAME));
+    }
+
+    private static LearningEvent submitted(String submissionId) {
+        LearningEvent event = LearningEvent.quizAttempt(LearningEvent.Source.INGEST, "s@x.com", "c1", "Algebra", null,
+            7, 10, 60, "MEDIUM", "normal");
+        event.setSubmissionId(submissionId);
+        return event;
+    }
+
+    @Test
+    void unwrittenSequenceNumbersHoldProjectionsBackUntilTheGapTimesOut() {
+        eventLog.append(LearningEvent.lessonComplete("s@x.com", "c1", "l1", "Lesson 1", 5));
+        // Number 2 is handed out but its insert never lands
+        mongo.template.findAndModify(Query.query(Criteria.where("_id").is(LearningEvent.COLLECTION)),
+            new org.springframework.data.mongodb.core.query.Update().inc("seq", 1L),
+            org.springframework.data.mongodb.core.FindAndModifyOptions.options().returnNew(true), Document.class,
+            LearningEventLog.COUNTERS);
+        eventLog.append(LearningEvent.lessonComplete("s@x.com", "c1", "l3", "Lesson 3", 5));
+
+        assertEquals(1, projector.catchUp());
+        assertEquals(1, ((Number) mongo.collection("student_progress").get(0).get("lessonsCompleted")).intValue());
+
+        // An old timestamp on the event after the gap (a retried or replayed append) does not end the wait
+        mongo.collection(LearningEvent.COLLECTION).get(1).put("at",
+            java.util.Date.from(LocalDateTime.now().minusMinutes(5).atZone(java.time.ZoneId.systemDefault()).toInstant()));
+        assertEquals(0, projector.catchUp());
+        assertEquals(1, ((Number) mongo.collection("student_progress").get(0).get("lessonsCompleted")).intValue());
+
+        // Only waiting gap-timeout-ms since the projector first saw the gap gives it up
+        ReflectionTestUtils.setField(projector, "gapTimeoutMs", 0L);
+        assertEquals(1, projector.catchUp());
+        assertEquals(2, ((Number) mongo.collection("student_progress").get(0).get("lessonsCompleted")).intValue());
+    }
+
+    @Test
+    void rebuildStartsFromTheLatestSnapshot() {
+        rebuildFromSnapshot(40, 100, 5, 5);
+    }
+
+    @Test
+    @Tag("perf")
+    void rebuildOfAThousandEventsStartsFromTheLatestSnapshot() {
+        rebuildFromSnapshot(400, 1000, 50, 250);
+    }
+
+    /**
+     * Snapshots every snapshotEvery events (checked after each batch of 200) while events are
+     * projected, then appends more: a rebuild replays only the expected events after the last snapshot
+     */
+    private void rebuildFromSnapshot(int snapshotEvery, int events, int eventsAfter, int expectedReplay) {
+        projector = newProjector(mongo, eventLog, snapshotEvery);
+        projector.snapshot(projection(StudentProgressProjection.NAME));
+        appendQuizzes(events);
+        projector.catchUp();
+        appendQuizzes(eventsAfter);
+        projector.catchUp();
+        Document live = mongo.collection("student_progress").get(0);
+
+        long start = System.nanoTime();
+        int replayed = projector.rebuild(StudentProgressProjection.NAME);
+        double snapshotMs = (System.nanoTime() - start) / 1_000_000.0;
+        Document rebuilt = mongo.collection("student_progress").get(0);
+
+        // Without a snapshot the whole log is replayed
+        mongo.collection(LearningEventProjector.SNAPSHOTS).clear();
+        mongo.collection(LearningEventProjector.CHECKPOINTS).forEach(state -> state.remove("snapshot"));
+        start = System.nanoTime();
+        int fullReplay = projector.rebuild(StudentProgressProjection.NAME);
+        double fullMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        System.out.printf("Rebuild of student_progress: from snapshot %d events in %.0f ms, from the start %d events in %.0f ms%n",
+            replayed, snapshotMs, fullReplay, fullMs);
+        assertEquals(expectedReplay, replayed);
+        assertEquals(events + eventsAfter, fullReplay);
+        assertEquals(live.get("overallPerformance"), rebuilt.get("overallPerformance"));
+        assertEquals(live.get("overallPerformance"), mongo.collection("student_progress").get(0).get("overallPerformance"));
+        assertEquals(1, mongo.collection("student_progress").size());
+        // Restored into a staging collection and renamed over the live one, which is never emptied
+        verify(mongo.template, never()).remove(any(Query.class), eq("student_progress"));
+        assertFalse(mongo.collections.containsKey("student_progress_rebuild"));
+    }
+
+    @Test
+    void writersSeeTheirOwnEventsProjected() throws Exception {
+        concurrentWriters(4, 40, 4);
+    }
+
+    @Test
+    @Tag("perf")
+    void twoHundredWritersSeeTheirOwnEventsProjected() throws Exception {
+        concurrentWriters(8, 200, 20);
+    }
+
+    private void concurrentWriters(int threads, int appends, int students) throws Exception {
+        projector.start();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < appends; i++) {
+            String email = "s" + (i % students) + "@x.com";
+            futures.add(pool.submit(() -> {
+                long seq = eventLog.append(LearningEvent.quizAttempt(LearningEvent.Source.PROGRESS, email, "c1", "Algebra",
+                    null, 6, 10, 60, "MEDIUM", "normal"));
+                return projector.awaitProjected(StudentProgressProjection.NAME, seq);
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        System.out.printf("%d appends from %d threads, each waiting for its projection: %.1f ms%n",
+            appends, threads, (System.nanoTime() - start) / 1_000_000.0);
+
+        assertEquals(students, mongo.collection("student_progress").size());
+        for (Document progress : mongo.collection("student_progress")) {
+            assertEquals(appends / students,
+                ((Number) progress.get("overallPerformance", Document.class).get("totalQuizzes")).intValue());
+        }
+    }
+
+    private void appendQuizzes(int count) {
+        List<LearningEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(LearningEvent.quizAttempt(i % 2 == 0 ? LearningEvent.Source.PROGRESS : LearningEvent.Source.ADAPTIVE,
+                "s@x.com", "c1", "Algebra", null, i % 11, 10, 30, "MEDIUM", "normal"));
+        }
+        eventLog.appendAll(events);
+    }
+
+    @SuppressWarnings("unchecked")
+    private LearningProjection projection(String name) {
+        return ((List<LearningProjection>) ReflectionTestUtils.getField(projector, "projections")).stream()
+            .filter(projection -> projection.name().equals(name))
+            .findFirst()
+            .orElseThrow();
+    }
+}
@@ -0,0 +1,254 @@
+package com.authsystem.service;
+
+import com.authsystem.model.Topic;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MCQImportServiceTest {
+
+    private InMemoryMongo mongo;
+    private MCQImportService service;
+    private CourseContentCountService courseContentCountService;
+    private Topic topic;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        ContentVersionService contentVersionService = new ContentVersionService();
+        ReflectionTestUtils.setField(contentVersionService, "mongoTemplate", mongo.template);
+        courseContentCountService = mock(CourseContentCountService.class);
+
+        BulkContentService bulk = new BulkContentService();
+        ReflectionTestUtils.setField(bulk, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(bulk, "courseContentCountService", courseContentCountService);
+        ReflectionTestUtils.setField(bulk, "contentVersionService", contentVersionService);
+        ReflectionTestUtils.setField(bulk, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(bulk, "chunkSize", 2);
+
+        service = newService(bulk, contentVersionService, 2);
+
+        topic = new Topic();
+        topic.setId("t1");
+        topic.setSubjectId("s1");
+        topic.setName("Intro");
+        topic.setDifficulty("BEGINNER");
+    }
+
+    private MCQImportService newService(BulkContentService bulk, ContentVersionService contentVersionService, int batchSize) {
+        MCQImportService created = new MCQImportService();
+        ReflectionTestUtils.setField(created, "bulkContentService", bulk);
+        ReflectionTestUtils.setField(created, "courseContentCountService", courseContentCountService);
+        ReflectionTestUtils.setField(created, "contentVersionService", contentVersionService);
+        ReflectionTestUtils.setField(created, "batchSize", batchSize);
+        ReflectionTestUtils.setField(created, "queueBatches", 2);
+        ReflectionTestUtils.setField(created, "maxReportedErrors", 1000);
+        return created;
+    }
+
+    private static List<JsonNode> lines(ByteArrayOutputStream out) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(new ObjectMapper().readTree(line));
+        }
+        return lines;
+    }
+
+    private static InputStream text(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void csvRowsAreValidatedImportedAndReported() throws IOException {
+        String csv = "\uFEFFQuestion,Option 1,Option 2,Option 3,correctAnswerIndex,explanation,points\r\n"
+            + "\"Which is prime, 4 or 5?\",4,5,,1,\"Five has\nno divisors\",\r\n"
+            + "2 + 2?,3,4,5,1,,5\r\n"
+            + "\r\n"
+            + "No options?,,,,0,,\r\n"
+            + "\"Say \"\"hi\"\"\",hi,bye,,7,,\r\n"
+            + "Last?,yes,no,,0,,x\n"
+            + "Really last?,yes,no,,1,,\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        MCQImportService.Summary summary = service.importMcqs(topic, "c1", MCQImportService.Format.CSV, text(csv), out);
+
+        assertEquals(new MCQImportService.Summary(6, 3, 3, null), summary);
+        List<Document> stored = mongo.collection("mcqs");
+        assertEquals(List.of("Which is prime, 4 or 5?", "2 + 2?", "Really last?"),
+            stored.stream().map(doc -> doc.get("question")).toList());
+        assertEquals(List.of("4", "5"), stored.get(0).get("options"));
+        assertEquals("Five has\nno divisors", stored.get(0).get("explanation"));
+        assertEquals(5, stored.get(1).get("points"));
+        assertEquals(10, stored.get(2).get("points"));
+        assertEquals("Intro", stored.get(2).get("topicName"));
+        assertEquals("c1", stored.get(2).get("courseId"));
+        verify(courseContentCountService).incrementMcqCount("c1", "Intro", 2);
+        verify(courseContentCountService).incrementMcqCount("c1", "Intro", 1);
+
+        List<JsonNode> lines = lines(out);
+        List<String> errors = lines.stream().filter(line -> line.get("type").asText().equals("error"))
+            .map(line -> line.get("index").asInt() + " " + line.get("error").asText()).toList();
+        assertEquals(List.of("2 At least 2 options are required", "3 Invalid correct answer index",
+            "4 Points must be a whole number of at least 0"), errors);
+        assertTrue(lines.stream().anyMatch(line -> line.get("type").asText().equals("progress")));
+        JsonNode done = lines.get(lines.size() - 1);
+        assertEquals("done", done.get("type").asText());
+        assertEquals(3, done.get("created").asLong());
+        assertFalse(done.has("error"));
+    }
+
+    @Test
+    void jsonIsReadFromAnArrayOrTheMcqsOfABulkCreateBody() throws IOException {
+        String body = "{\"topicId\": \"ignored\", \"meta\": {\"generator\": [1, 2]}, \"mcqs\": ["
+            + "{\"question\": \"A?\", \"options\": [\"x\", \"y\"], \"correctAnswerIndex\": 0},"
+            + "{\"question\": \"B?\", \"options\": [\"x\", \"y\"], \"correctAnswerIndex\": 1.5},"
+            + "{\"question\": \"C?\", \"options\": [\"x\", \"y\", \"z\"], \"correctAnswerIndex\": 2, \"points\": 3}]}";
+
+        MCQImportService.Summary summary = service.importMcqs(topic, null, MCQImportService.Format.JSON, text(body),
+            new ByteArrayOutputStream());
+
+        assertEquals(new MCQImportService.Summary(3, 2, 1, null), summary);
+        assertEquals(3, mongo.collection("mcqs").get(1).get("points"));
+        verifyNoInteractions(courseContentCountService);
+
+        assertEquals(1, service.importMcqs(topic, null, MCQImportService.Format.JSON,
+            text("[{\"question\": \"D?\", \"options\": [\"x\", \"y\"], \"correctAnswerIndex\": 1}]"),
+            new ByteArrayOutputStream()).created());
+        assertNotNull(service.importMcqs(topic, null, MCQImportService.Format.JSON, text("\"nope\""),
+            new ByteArrayOutputStream()).error());
+    }
+
+    @Test
+    void aBrokenFileKeepsWhatWasReadBeforeTheError() throws IOException {
+        String body = "[{\"question\": \"A?\", \"options\": [\"x\", \"y\"], \"correctAnswerIndex\": 0},"
+            + "{\"question\": \"B?\", \"options\": [\"x\", \"y\"], \"correctAnswerIndex\": 1},"
+            + "{\"question\": \"C?\", \"options\": [\"x\", \"y\"], \"correctAnswerIndex\": 1},"
+            + "{\"question\": \"D?\", \"opt";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        MCQImportService.Summary summary = service.importMcqs(topic, null, MCQImportService.Format.JSON, text(body), out);
+
+        assertEquals(3, summary.read());
+        assertEquals(3, summary.created());
+        assertNotNull(summary.error());
+        assertEquals(3, mongo.collection("mcqs").size());
+        List<JsonNode> lines = lines(out);
+        assertEquals(summary.error(), lines.get(lines.size() - 1).get("error").asText());
+
+        MCQImportService.Summary unterminated = service.importMcqs(topic, null, MCQImportService.Format.CSV,
+            text("question,option1,option2,correctAnswerIndex\nE?,a,b,0\n\"F?,a,b,0\n"), new ByteArrayOutputStream());
+        assertEquals(1, unterminated.created());
+        assertTrue(unterminated.error().contains("Unterminated"), unterminated.error());
+    }
+
+    /**
+     * A million questions generated while they are read, so neither the input nor the inserts are held
+     */
+    private static InputStream generatedBank(int questions) {
+        Enumeration<InputStream> parts = new Enumeration<>() {
+            private int next = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next <= questions;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int i = next++;
+                String part = i < 0 ? "[" : i == questions ? "]"
+                    : (i > 0 ? "," : "") + "{\"question\": \"Question " + i + " of the generated bank?\", "
+                        + "\"options\": [\"first\", \"second\", \"third\", \"fourth\"], \"correctAnswerIndex\": " + (i % 4)
+                        + ", \"explanation\": \"Generated explanation " + i + "\", \"points\": 10}";
+                return new ByteArrayInputStream(part.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        return new BufferedInputStream(new SequenceInputStream(parts), 64 * 1024);
+    }
+
+    // Counts and drops every batch (a mock would keep all of them as invocation arguments)
+    private MCQImportService countingImporter(AtomicLong inserted, AtomicLong batches) {
+        BulkContentService bulk = new BulkContentService() {
+            @Override
+            <T> List<T> insert(List<T> documents, List<Integer> positions, Class<T> type, List<ItemError> failed) {
+                batches.incrementAndGet();
+                inserted.addAndGet(documents.size());
+                return documents;
+            }
+        };
+        ContentVersionService contentVersionService = mock(ContentVersionService.class);
+        when(contentVersionService.bumpOnceAfter(any())).thenAnswer(inv -> ((Supplier<?>) inv.getArgument(0)).get());
+        MCQImportService importer = newService(bulk, contentVersionService, 1000);
+        ReflectionTestUtils.setField(importer, "queueBatches", 4);
+        return importer;
+    }
+
+    @Test
+    void aGeneratedBankIsInsertedInBatchesOfTheConfiguredSize() throws IOException {
+        int questions = 2500;
+        AtomicLong inserted = new AtomicLong();
+        AtomicLong batches = new AtomicLong();
+        MCQImportService importer = countingImporter(inserted, batches);
+
+        MCQImportService.Summary summary = importer.importMcqs(topic, null, MCQImportService.Format.JSON,
+            generatedBank(questions), new ByteArrayOutputStream());
+
+        assertEquals(new MCQImportService.Summary(questions, questions, 0, null), summary);
+        assertEquals(questions, inserted.get());
+        assertEquals(3, batches.get());
+    }
+
+    @Test
+    @Tag("perf")
+    void aMillionQuestionsImportInConstantMemory() throws IOException {
+        int questions = 1_000_000;
+        AtomicLong inserted = new AtomicLong();
+        AtomicLong batches = new AtomicLong();
+        MCQImportService importer = countingImporter(inserted, batches);
+        AtomicLong progressBytes = new AtomicLong();
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                progressBytes.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                progressBytes.addAndGet(len);
+            }
+        };
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        MCQImportService.Summary summary = importer.importMcqs(topic, null, MCQImportService.Format.JSON,
+            generatedBank(questions), sink);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.gc();
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.printf("Import of %d MCQs from JSON: %.1f s (%.0f questions/s), %d bulk inserts, %d progress bytes, "
+            + "heap %d MB before and %d MB after%n", summary.read(), seconds, summary.read() / seconds, batches.get(),
+            progressBytes.get(), usedBefore >> 20, usedAfter >> 20);
+        assertEquals(new MCQImportService.Summary(questions, questions, 0, null), summary);
+        assertEquals(questions, inserted.get());
+        assertEquals(questions / 1000, batches.get());
+        assertTrue(usedAfter - usedBefore < 32L << 20, "heap grew by " + ((usedAfter - usedBefore) >> 20) + " MB");
+    }
+}
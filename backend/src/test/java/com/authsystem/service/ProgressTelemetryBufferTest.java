@@ -0,0 +1,231 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.model.StudentProgress;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ProgressTelemetryBufferTest {
+
+    @TempDir
+    Path journalDir;
+
+    private InMemoryMongo mongo;
+    private LearningEventLog eventLog;
+    private StudentProgressProjection projection;
+    private ProgressTelemetryBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        useMongo(mongo);
+        buffer = newBuffer(100_000);
+    }
+
+    private void useMongo(InMemoryMongo store) {
+        eventLog = new LearningEventLog();
+        ReflectionTestUtils.setField(eventLog, "mongoTemplate", store.template);
+        ReflectionTestUtils.setField(eventLog, "eventPublisher", mock(ApplicationEventPublisher.class));
+        StudentProgressService progressService = new StudentProgressService();
+        ReflectionTestUtils.setField(progressService, "mongoTemplate", store.template);
+        ReflectionTestUtils.setField(progressService, "eventPublisher", mock(ApplicationEventPublisher.class));
+        projection = new StudentProgressProjection();
+        ReflectionTestUtils.setField(projection, "mongoTemplate", store.template);
+        ReflectionTestUtils.setField(projection, "progressService", progressService);
+    }
+
+    private ProgressTelemetryBuffer newBuffer(int maxPendingEvents) {
+        ProgressTelemetryBuffer created = new ProgressTelemetryBuffer();
+        ReflectionTestUtils.setField(created, "eventLog", eventLog);
+        ReflectionTestUtils.setField(created, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(created, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(created, "maxPendingEvents", maxPendingEvents);
+        ReflectionTestUtils.setField(created, "maxPendingStudents", 5000);
+        ReflectionTestUtils.setField(created, "unprojectedRetentionMs", 60_000L);
+        created.open();
+        return created;
+    }
+
+    @Test
+    void heartbeatsAreAppendedInOneWriteAndProjectedAsOneUpdatePerStudent() {
+        heartbeats(10, 30);
+    }
+
+    @Test
+    @Tag("perf")
+    void tenThousandHeartbeatsAreAppendedInOneWrite() {
+        heartbeats(100, 100);
+    }
+
+    private void heartbeats(int students, int eventsPerStudent) {
+        long start = System.nanoTime();
+        for (int e = 0; e < eventsPerStudent; e++) {
+            for (int s = 0; s < students; s++) {
+                buffer.recordMediaTime("s" + s + "@x.com", "c1", e % 2 == 0 ? "Algebra" : "Geometry", 90,
+                    e % 2 == 0 ? "VIDEO" : "PDF", "Item " + e);
+            }
+        }
+        double microsPerEvent = (System.nanoTime() - start) / 1000.0 / (students * eventsPerStudent);
+        assertTrue(mongo.collection(LearningEvent.COLLECTION).isEmpty());
+
+        assertEquals(students, buffer.flush());
+        verify(mongo.template, times(1)).insert(anyCollection(), eq(LearningEvent.COLLECTION));
+        assertEquals(students * eventsPerStudent, mongo.collection(LearningEvent.COLLECTION).size());
+        assertEquals(1, journalSegments().size());
+
+        projection.apply(eventLog.readAfter(0, students * eventsPerStudent));
+        long updates = mongo.writes.stream().filter(write -> write.get("q", Document.class).containsKey("$and")).count();
+        System.out.printf("Progress telemetry: %d events → 1 append, %d student_progress updates, %.1f µs per recorded event%n",
+            students * eventsPerStudent, updates, microsPerEvent);
+        assertEquals(students, updates);
+        assertEquals(students, mongo.collection("student_progress").size());
+
+        Document progress = mongo.collection("student_progress").get(0);
+        // Heartbeats of 90 seconds add up to 1.5 minutes each, not one minute each
+        assertEquals(eventsPerStudent * 90 / 60, ((Number) progress.get("totalTimeSpentMinutes")).intValue());
+        Document mastery = progress.get("topicMastery", Document.class);
+        assertEquals(eventsPerStudent / 2 * 90L, ((Number) mastery.get("Algebra", Document.class).get("timeSpent")).longValue());
+        assertEquals(eventsPerStudent / 2 * 90L, ((Number) mastery.get("Geometry", Document.class).get("timeSpent")).longValue());
+        List<?> activities = (List<?>) progress.get("recentActivities");
+        assertEquals(StudentProgressService.MAX_RECENT_ACTIVITIES, activities.size());
+        assertEquals("Item " + (eventsPerStudent - 1), ((Document) activities.get(0)).get("activityTitle"));
+        // Created with the usual defaults
+        assertEquals("Beginner", progress.get("currentLevel"));
+        assertNotNull(progress.get("overallPerformance"));
+    }
+
+    @Test
+    void unflushedEventsAreReplayedAfterARestart() {
+        for (int i = 0; i < 30; i++) {
+            buffer.recordMediaTime("s@x.com", "c1", "Algebra", 120, "VIDEO", "Video " + i);
+        }
+        // Process dies without flushing; a new instance opens the same journal
+        ProgressTelemetryBuffer restarted = newBuffer(100_000);
+
+        assertEquals(30, mongo.collection(LearningEvent.COLLECTION).size());
+        assertEquals(0, restarted.flush());
+        assertEquals(30, mongo.collection(LearningEvent.COLLECTION).size());
+        projection.apply(eventLog.readAfter(0, 100));
+        Document progress = mongo.collection("student_progress").get(0);
+        assertEquals(60, ((Number) progress.get("totalTimeSpentMinutes")).intValue());
+        assertEquals("Video 29", ((Document) ((List<?>) progress.get("recentActivities")).get(0)).get("activityTitle"));
+    }
+
+    @Test
+    void failedFlushKeepsTheEventsForTheNextRun() {
+        buffer.recordMediaTime("s@x.com", "c1", "Algebra", 600, "VIDEO", "Lecture");
+        doThrow(new IllegalStateException("connection reset"))
+            .when(mongo.template).insert(anyCollection(), eq(LearningEvent.COLLECTION));
+
+        assertEquals(0, buffer.flush());
+        assertTrue(mongo.collection(LearningEvent.COLLECTION).isEmpty());
+
+        // Recovers from the journal too, not just from memory
+        mongo = new InMemoryMongo();
+        useMongo(mongo);
+        ProgressTelemetryBuffer restarted = newBuffer(100_000);
+
+        assertEquals(1, mongo.collection(LearningEvent.COLLECTION).size());
+        assertEquals(600, ((Number) mongo.collection(LearningEvent.COLLECTION).get(0).get("sec")).intValue());
+        assertEquals(0, restarted.flush());
+    }
+
+    @Test
+    void flushesEarlyWhenTheBufferIsFull() {
+        ProgressTelemetryBuffer small = newBuffer(50);
+        for (int i = 0; i < 50; i++) {
+            small.recordMediaTime("s" + i + "@x.com", "c1", "Algebra", 60, "PDF", "Notes");
+        }
+        assertEquals(50, mongo.collection(LearningEvent.COLLECTION).size());
+    }
+
+    @Test
+    void heartbeatsShorterThanAMinuteAddUpToMinutes() {
+        for (int i = 0; i < 10; i++) {
+            buffer.recordMediaTime("s@x.com", "c1", "Algebra", 30, "VIDEO", "Clip");
+        }
+        StudentProgress buffered = new StudentProgress();
+        buffered.setStudentEmail("s@x.com");
+        buffered.setCourseId("c1");
+        assertEquals(5, buffer.withPending(buffered).getTotalTimeSpentMinutes());
+
+        buffer.flush();
+        projection.apply(eventLog.readAfter(0, 100));
+        assertEquals(5, ((Number) mongo.collection("student_progress").get(0).get("totalTimeSpentMinutes")).intValue());
+    }
+
+    @Test
+    void flushedEventsStayInReadsUntilTheProjectionAppliesThem() {
+        for (int i = 0; i < 4; i++) {
+            buffer.recordMediaTime("s@x.com", "c1", "Algebra", 60, "VIDEO", "Clip");
+        }
+        buffer.flush();
+        buffer.recordMediaTime("s@x.com", "c1", "Algebra", 60, "VIDEO", "Clip");
+
+        // Appended to the log, not projected yet
+        StudentProgress unprojected = new StudentProgress();
+        unprojected.setStudentEmail("s@x.com");
+        unprojected.setCourseId("c1");
+        assertEquals(5, buffer.withPending(unprojected).getTotalTimeSpentMinutes());
+
+        projection.apply(eventLog.readAfter(0, 100));
+        StudentProgress projected = mongo.converter.read(StudentProgress.class, mongo.collection("student_progress").get(0));
+        assertEquals(4, projected.getTotalTimeSpentMinutes());
+        // Counted once: the projected flush is no longer added
+        assertEquals(5, buffer.withPending(projected).getTotalTimeSpentMinutes());
+    }
+
+    @Test
+    void readsIncludeWhatIsStillBuffered() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new java.util.ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            futures.add(pool.submit(() -> buffer.recordMediaTime("s@x.com", "c1", "Algebra", 60, "VIDEO", "Clip")));
+            if (i % 100 == 0) {
+                futures.add(pool.submit(() -> buffer.flush()));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        projection.apply(eventLog.readAfter(0, 1000));
+
+        StudentProgress stored = mongo.collection("student_progress").isEmpty() ? new StudentProgress()
+            : mongo.converter.read(StudentProgress.class, mongo.collection("student_progress").get(0));
+        stored.setStudentEmail("s@x.com");
+        stored.setCourseId("c1");
+        assertEquals(400, buffer.withPending(stored).getTotalTimeSpentMinutes());
+        assertEquals(400 * 60L, stored.getTopicMastery().get("Algebra").getTimeSpent());
+
+        buffer.flush();
+        projection.apply(eventLog.readAfter(stored.getProjectedSeq(), 1000));
+        assertEquals(400, ((Number) mongo.collection("student_progress").get(0).get("totalTimeSpentMinutes")).intValue());
+    }
+
+    private List<Path> journalSegments() {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.toList();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
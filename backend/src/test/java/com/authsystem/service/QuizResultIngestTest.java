@@ -0,0 +1,297 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class QuizResultIngestTest {
+
+    private static final List<String> READ_MODELS = List.of(StudentProgressProjection.NAME,
+        StudentPerformanceProjection.NAME, QuizAttemptProjection.NAME);
+
+    private InMemoryMongo mongo;
+    private LearningEventLog eventLog;
+    private LearningEventProjector projector;
+    private QuizResultIngest ingest;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        eventLog = new LearningEventLog();
+        ReflectionTestUtils.setField(eventLog, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(eventLog, "eventPublisher", publisher);
+        projector = LearningEventProjectorTest.newProjector(mongo, eventLog, 1_000_000);
+        doAnswer(inv -> {
+            projector.onAppended(inv.getArgument(0));
+            return null;
+        }).when(publisher).publishEvent(any(Object.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ingest != null) {
+            ingest.stop();
+        }
+        projector.stop();
+    }
+
+    private QuizResultIngest newIngest(LearningEventLog log, int capacity) {
+        QuizResultIngest created = new QuizResultIngest();
+        ReflectionTestUtils.setField(created, "eventLog", log);
+        ReflectionTestUtils.setField(created, "queueCapacity", capacity);
+        ReflectionTestUtils.setField(created, "batchSize", 256);
+        ReflectionTestUtils.setField(created, "enqueueTimeoutMs", 20L);
+        ReflectionTestUtils.setField(created, "maxAppendAttempts", 3);
+        created.start();
+        return created;
+    }
+
+    private static LearningEvent result(String email, int score) {
+        return LearningEvent.quizAttempt(LearningEvent.Source.INGEST, email, "c1", "Algebra", null, score, 10, 90,
+            "INTERMEDIATE", "normal");
+    }
+
+    @Test
+    void oneSubmissionReachesAllThreeReadModels() throws Exception {
+        ingest = newIngest(eventLog, 64);
+        List<CompletableFuture<Long>> acks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            acks.add(ingest.submit(result("s" + (i % 4) + "@x.com", 5 + i % 6)));
+        }
+        long last = 0;
+        for (CompletableFuture<Long> ack : acks) {
+            last = Math.max(last, ack.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(40, last);
+        assertTrue(ingest.stats().get("batches") <= 40);
+
+        assertEquals(40, projector.catchUp());
+        assertEquals(4, mongo.collection("student_progress").size());
+        assertEquals(4, mongo.collection("student_performance").size());
+        assertEquals(40, mongo.collection("quiz_attempts").size());
+        for (Document progress : mongo.collection("student_progress")) {
+            assertEquals(10, ((List<?>) progress.get("quizAttempts")).size());
+        }
+        for (Document performance : mongo.collection("student_performance")) {
+            assertEquals(10, performance.getList("quizAttempts", Object.class).size());
+        }
+    }
+
+    @Test
+    void fullQueueRefusesResultsUntilTheWriterCatchesUp() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        LearningEventLog slowLog = mock(LearningEventLog.class);
+        when(slowLog.appendAll(anyList())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return eventLog.appendAll(inv.getArgument(0));
+        });
+        ingest = newIngest(slowLog, 4);
+
+        List<CompletableFuture<Long>> acks = new ArrayList<>();
+        acks.add(ingest.submit(result("s@x.com", 7)));
+        // The writer holds the first result while the log is slow; four more fill the queue
+        Thread.sleep(100);
+        for (int i = 0; i < 4; i++) {
+            acks.add(ingest.submit(result("s@x.com", 7)));
+        }
+        assertNull(ingest.submit(result("s@x.com", 7)));
+        assertEquals(1L, ingest.stats().get("rejected"));
+
+        release.countDown();
+        for (CompletableFuture<Long> ack : acks) {
+            ack.get(5, TimeUnit.SECONDS);
+        }
+        assertNotNull(ingest.submit(result("s@x.com", 7)).get(5, TimeUnit.SECONDS));
+        assertEquals(6L, ingest.stats().get("appended"));
+    }
+
+    @Test
+    void failedAppendsAreRetriedAndOnlyAcknowledgedOnceWritten() throws Exception {
+        LearningEventLog flakyLog = mock(LearningEventLog.class);
+        AtomicInteger calls = new AtomicInteger();
+        when(flakyLog.appendAll(anyList())).thenAnswer(inv -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IllegalStateException("primary stepped down");
+            }
+            return eventLog.appendAll(inv.getArgument(0));
+        });
+        ingest = newIngest(flakyLog, 16);
+
+        assertEquals(1L, ingest.submit(result("s@x.com", 7)).get(5, TimeUnit.SECONDS));
+        assertEquals(1, mongo.collection(LearningEvent.COLLECTION).size());
+
+        // Still failing after max-append-attempts: the submission fails and the client retries
+        calls.set(-10);
+        CompletableFuture<Long> failed = ingest.submit(result("s@x.com", 7));
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, ingest.stats().get("failed"));
+        assertEquals(1, mongo.collection(LearningEvent.COLLECTION).size());
+    }
+
+    /**
+     * Replaces the projector by one whose read models only count the quiz results they are handed:
+     * MappingMongoConverter and Mockito behind InMemoryMongo cost milliseconds per document,
+     * far more than the MongoDB writes they stand in for
+     */
+    private List<CountingProjection> startCountingProjector() {
+        projector.stop();
+        List<CountingProjection> readModels = READ_MODELS.stream().map(CountingProjection::new).toList();
+        projector = new LearningEventProjector();
+        ReflectionTestUtils.setField(projector, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(projector, "eventLog", eventLog);
+        ReflectionTestUtils.setField(projector, "projections", readModels);
+        ReflectionTestUtils.setField(projector, "batchSize", 500);
+        ReflectionTestUtils.setField(projector, "gapTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(projector, "snapshotEvery", 1_000_000L);
+        ReflectionTestUtils.setField(projector, "readYourWritesMs", 5000L);
+        ReflectionTestUtils.setField(projector, "enabled", true);
+        projector.start();
+        return readModels;
+    }
+
+    @Test
+    void concurrentSubmissionsAreEachAcknowledgedOnceAndProjectedLive() throws Exception {
+        List<CountingProjection> readModels = startCountingProjector();
+        ingest = newIngest(eventLog, 1024);
+        int total = 200;
+
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        List<Future<CompletableFuture<Long>>> submitted = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            int n = i;
+            submitted.add(clients.submit(() -> ingest.submit(result("s" + (n % 20) + "@x.com", n % 11))));
+        }
+        Set<Long> seqs = ConcurrentHashMap.newKeySet();
+        for (Future<CompletableFuture<Long>> future : submitted) {
+            seqs.add(future.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+        }
+        clients.shutdown();
+        assertEquals(total, seqs.size());
+
+        // Without catchUp: the projector is woken by the appends themselves
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (readModels.stream().anyMatch(model -> model.applied().get() < total) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        for (CountingProjection model : readModels) {
+            assertEquals(total, model.applied().get(), model.name());
+        }
+    }
+
+    @Test
+    @Tag("perf")
+    void endToEndLatencyAtAThousandResultsPerSecond() throws Exception {
+        // Measures the pipeline itself - queue, group append, log read and fan-out
+        startCountingProjector();
+        ingest = newIngest(eventLog, 8192);
+        int rate = 1000;
+        int total = 3000;
+
+        // Submit time by sequence number, filled in when the result is acknowledged
+        Map<Long, Long> submittedAt = new ConcurrentHashMap<>();
+        long[] ackNanos = new long[total];
+        long[] endToEndNanos = new long[total];
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch acknowledged = new CountDownLatch(total);
+
+        ScheduledExecutorService clients = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        clients.scheduleAtFixedRate(() -> {
+            int i = submitted.getAndIncrement();
+            if (i >= total) {
+                return;
+            }
+            long sent = System.nanoTime();
+            CompletableFuture<Long> ack = ingest.submit(result("s" + (i % 500) + "@x.com", i % 11));
+            if (ack == null) {
+                refused.incrementAndGet();
+                acknowledged.countDown();
+                return;
+            }
+            ack.whenComplete((seq, error) -> {
+                if (seq != null) {
+                    ackNanos[i] = System.nanoTime() - sent;
+                    submittedAt.put(seq, sent);
+                }
+                acknowledged.countDown();
+            });
+        }, 0, 1_000_000_000L / rate, TimeUnit.NANOSECONDS);
+
+        // End to end: until every read model has projected the result
+        int done = 0;
+        long next = 1;
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (done < total && System.currentTimeMillis() < deadline) {
+            long projected = READ_MODELS.stream().mapToLong(projector::checkpoint).min().orElse(0);
+            while (next <= projected) {
+                Long sent = submittedAt.get(next);
+                if (sent == null) {
+                    break;  // Projected before its acknowledgement was seen here
+                }
+                endToEndNanos[done++] = System.nanoTime() - sent;
+                next++;
+            }
+            Thread.sleep(0, 200_000);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdownNow();
+        assertTrue(acknowledged.await(10, TimeUnit.SECONDS));
+
+        Arrays.sort(ackNanos);
+        Arrays.sort(endToEndNanos);
+        Map<String, Long> stats = ingest.stats();
+        System.out.printf("Quiz result ingest, %d results at %d/s: acknowledged p50 %.1f ms p99 %.1f ms, "
+                + "in all three read models p50 %.1f ms p99 %.1f ms (%d log appends, %.1f s)%n",
+            total, rate, percentile(ackNanos, 50), percentile(ackNanos, 99),
+            percentile(endToEndNanos, 50), percentile(endToEndNanos, 99), stats.get("batches"), seconds);
+
+        assertEquals(0, refused.get());
+        assertEquals(total, done);
+        assertTrue(percentile(endToEndNanos, 99) < 500, "p99 " + percentile(endToEndNanos, 99) + " ms");
+    }
+
+    /**
+     * Stands in for a read model and only counts the quiz results it is handed
+     */
+    private record CountingProjection(String name, AtomicInteger applied) implements LearningProjection {
+
+        CountingProjection(String name) {
+            this(name, new AtomicInteger());
+        }
+
+        @Override
+        public String collection() {
+            return "counted_" + name;
+        }
+
+        @Override
+        public void apply(List<LearningEvent> events) {
+            applied.addAndGet(events.size());
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+}
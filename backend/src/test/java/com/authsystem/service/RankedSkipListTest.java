@@ -0,0 +1,86 @@
+package com.authsystem.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedSkipListTest {
+
+    private static final Comparator<RankedSkipList.Entry> BEST_FIRST = Comparator
+        .comparingDouble(RankedSkipList.Entry::score).reversed()
+        .thenComparing(RankedSkipList.Entry::member);
+
+    @Test
+    void ranksAndRangesMatchASortedCopyUnderRandomUpdates() {
+        Random random = new Random(11);
+        RankedSkipList list = new RankedSkipList();
+        Map<String, Double> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            String member = "s" + random.nextInt(2000);
+            if (random.nextInt(10) == 0) {
+                assertEquals(expected.remove(member), list.remove(member));
+            } else {
+                // Few distinct scores, so ties are ordered by member
+                double score = random.nextInt(50) / 2.0;
+                assertEquals(expected.put(member, score), list.put(member, score));
+            }
+        }
+
+        List<RankedSkipList.Entry> sorted = new ArrayList<>();
+        expected.forEach((member, score) -> sorted.add(new RankedSkipList.Entry(member, score)));
+        sorted.sort(BEST_FIRST);
+        assertEquals(sorted.size(), list.size());
+        assertEquals(sorted, list.range(0, Integer.MAX_VALUE));
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i + 1, list.rank(sorted.get(i).member()));
+        }
+        assertEquals(sorted.subList(100, 125), list.range(100, 25));
+        assertEquals(sorted.subList(sorted.size() - 3, sorted.size()), list.range(sorted.size() - 3, 10));
+        assertTrue(list.range(sorted.size(), 10).isEmpty());
+        assertEquals(0, list.rank("nobody"));
+    }
+
+    @Test
+    @Tag("perf")
+    void rankQueriesStaySubMillisecondAtAMillionEntries() {
+        Random random = new Random(5);
+        RankedSkipList list = new RankedSkipList();
+        int size = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            list.put("student" + i + "@example.com", Math.round(random.nextDouble() * 10_000) / 100.0);
+        }
+        double buildMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        int queries = 200_000;
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            checksum += list.rank("student" + random.nextInt(size) + "@example.com");
+        }
+        double rankMicros = (System.nanoTime() - start) / 1000.0 / queries;
+
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            String member = "student" + random.nextInt(size) + "@example.com";
+            list.put(member, Math.round(random.nextDouble() * 10_000) / 100.0);
+        }
+        double updateMicros = (System.nanoTime() - start) / 1000.0 / queries;
+
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            checksum += list.range(random.nextInt(size - 10), 10).size();
+        }
+        double pageMicros = (System.nanoTime() - start) / 1000.0 / 10_000;
+
+        System.out.printf("Ranked skip list with %d entries: built in %.0f ms, rank %.2f µs, update %.2f µs, "
+            + "page of 10 at a random offset %.2f µs%n", size, buildMs, rankMicros, updateMicros, pageMicros);
+        assertTrue(checksum > 0);
+        assertEquals(size, list.size());
+        assertTrue(rankMicros < 1000, rankMicros + " µs per rank query");
+        assertTrue(pageMicros < 1000, pageMicros + " µs per page");
+    }
+}
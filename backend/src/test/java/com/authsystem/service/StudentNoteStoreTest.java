@@ -0,0 +1,149 @@
+package com.authsystem.service;
+
+import com.authsystem.model.StudentProgress;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class StudentNoteStoreTest {
+
+    private static final String[] WORDS = {"the", "equation", "solve", "for", "x", "both", "sides", "remember", "sign",
+        "subtract", "divide", "factor", "quadratic", "root", "check", "answer", "example", "term", "coefficient",
+        "variable", "slope", "graph", "intercept", "formula", "minus", "plus", "times", "is", "a", "of", "and", "to"};
+
+    private InMemoryMongo mongo;
+    private StudentNoteStore store;
+    private StudentNoteMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        mongo.uniqueKeys.put("student_notes", java.util.List.of("studentEmail", "courseId", "topicName", "subtopicName"));
+        store = new StudentNoteStore();
+        ReflectionTestUtils.setField(store, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(store, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(store, "compressThresholdBytes", 1024);
+        ReflectionTestUtils.setField(store, "maxLength", 100_000);
+        migration = new StudentNoteMigration();
+        ReflectionTestUtils.setField(migration, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(migration, "noteStore", store);
+    }
+
+    @Test
+    void largeNotesAreStoredCompressed() {
+        String large = noteText(new Random(1), 6000);
+        store.save("s@x.com", "c1", "Algebra", "Basics", large, null);
+        store.save("s@x.com", "c1", "Algebra", "Signs", "short note", null);
+
+        Document compressed = stored("Basics");
+        assertNull(compressed.get("text"));
+        int packed = ((byte[]) compressed.get("compressedText")).length;
+        System.out.println("6000-character note: " + large.getBytes(java.nio.charset.StandardCharsets.UTF_8).length
+            + " bytes as text, " + packed + " bytes compressed");
+        assertTrue(packed * 2 < large.length());
+        assertEquals(6000, ((Number) compressed.get("length")).intValue());
+        assertEquals("short note", stored("Signs").get("text"));
+
+        assertEquals(large, store.read("s@x.com", "c1", "Algebra", "Basics").text());
+        assertEquals("short note", store.read("s@x.com", "c1", "Algebra", "Signs").text());
+        assertEquals("", store.read("s@x.com", "c1", "Algebra", "Unknown").text());
+    }
+
+    @Test
+    void deltasApplyOnlyToTheRevisionTheyWereMadeFrom() {
+        long first = store.save("s@x.com", "c1", "Algebra", "Basics", "Hello world", 0L);
+        long second = store.applyDelta("s@x.com", "c1", "Algebra", "Basics", first, 6, 5, "there");
+        assertEquals(first + 1, second);
+        assertEquals(new StudentNoteStore.Note("Hello there", second), store.read("s@x.com", "c1", "Algebra", "Basics"));
+
+        // Edits made from an older revision, e.g. in a second tab, are refused rather than merged blindly
+        assertThrows(OptimisticLockingFailureException.class,
+            () -> store.applyDelta("s@x.com", "c1", "Algebra", "Basics", first, 0, 5, "Bye"));
+        assertThrows(OptimisticLockingFailureException.class,
+            () -> store.save("s@x.com", "c1", "Algebra", "Basics", "from scratch", 0L));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.applyDelta("s@x.com", "c1", "Algebra", "Basics", second, 8, 10, "!"));
+
+        // Growing past the threshold switches to the compressed form and back
+        String appended = noteText(new Random(2), 3000);
+        long third = store.applyDelta("s@x.com", "c1", "Algebra", "Basics", second, 11, 0, appended);
+        assertNull(stored("Basics").get("text"));
+        store.applyDelta("s@x.com", "c1", "Algebra", "Basics", third, 11, appended.length(), "");
+        assertNull(stored("Basics").get("compressedText"));
+        assertEquals("Hello there", store.read("s@x.com", "c1", "Algebra", "Basics").text());
+        assertEquals(1, mongo.collection("student_notes").size());
+    }
+
+    @Test
+    void migrationMovesEmbeddedNotesOutOfProgressDocuments() {
+        // A note-heavy student: 12 topics x 6 subtopics of notes inside the progress document
+        Random random = new Random(3);
+        Document notes = new Document();
+        for (int t = 0; t < 12; t++) {
+            Document topic = new Document();
+            for (int s = 0; s < 6; s++) {
+                topic.put("Subtopic " + s, noteText(random, 800 + random.nextInt(2400)));
+            }
+            notes.put("Topic " + t, topic);
+        }
+        StudentProgress progress = new StudentProgress();
+        progress.setStudentEmail("s@x.com");
+        progress.setCourseId("c1");
+        mongo.template.insert(progress);
+        Document legacy = mongo.collection("student_progress").get(0);
+        legacy.put("notes", notes);
+        int before = CourseUpdateServiceTest.bsonSize(legacy);
+        String embedded = notes.get("Topic 4", Document.class).getString("Subtopic 2");
+
+        // Not migrated yet: reads fall back to the embedded map
+        assertEquals(new StudentNoteStore.Note(embedded, 0), store.read("s@x.com", "c1", "Topic 4", "Subtopic 2"));
+        // Saved after the switch, so newer than the embedded copy
+        store.applyDelta("s@x.com", "c1", "Topic 0", "Subtopic 0", 0, 0, 0, "Updated: ");
+        // Loading everything for the search index sees each subtopic once, the stored version first
+        assertEquals(72, store.loadAll("s@x.com").size());
+        assertTrue(store.loadAll("s@x.com").get(0).text().startsWith("Updated: "));
+
+        assertEquals(1, migration.migrateAll());
+        assertFalse(store.isLegacyDataRemaining());
+
+        Document migrated = mongo.collection("student_progress").get(0);
+        int after = CourseUpdateServiceTest.bsonSize(migrated);
+        int stored = mongo.collection("student_notes").stream().mapToInt(CourseUpdateServiceTest::bsonSize).sum();
+        int largestNote = mongo.collection("student_notes").stream().mapToInt(CourseUpdateServiceTest::bsonSize).max().orElse(0);
+        System.out.printf("Progress document of a note-heavy student: %d bytes with notes, %d bytes without "
+            + "(%.0fx smaller); 72 notes take %d bytes in student_notes, largest single read %d bytes%n",
+            before, after, (double) before / after, stored, largestNote);
+
+        assertFalse(migrated.containsKey("notes"));
+        assertTrue(after * 20 < before);
+        assertTrue(stored < before);
+        assertEquals(72, mongo.collection("student_notes").size());
+        assertEquals(embedded, store.read("s@x.com", "c1", "Topic 4", "Subtopic 2").text());
+        assertEquals("Updated: " + notes.get("Topic 0", Document.class).getString("Subtopic 0"),
+            store.read("s@x.com", "c1", "Topic 0", "Subtopic 0").text());
+    }
+
+    private Document stored(String subtopic) {
+        return mongo.collection("student_notes").stream()
+            .filter(doc -> subtopic.equals(doc.get("subtopicName")))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static String noteText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            text.append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        return text.substring(0, length);
+    }
+}
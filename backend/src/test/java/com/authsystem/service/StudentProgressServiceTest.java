@@ -0,0 +1,223 @@
+package com.authsystem.service;
+
+import com.authsystem.model.LearningEvent;
+import com.authsystem.model.StudentProgress;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StudentProgressServiceTest {
+
+    private static final int ATTEMPTS = 5000;
+
+    private final AtomicLong seq = new AtomicLong();
+    private StudentProgressService service;
+    private InMemoryMongo mongo;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        service = new StudentProgressService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+    }
+
+    @Test
+    @Tag("perf")
+    void quizAttemptsWriteConstantSizeUpdatesOnALongHistory() {
+        // Stored before the running sums existed: 5k attempts and only their average
+        StudentProgress legacy = new StudentProgress();
+        legacy.setStudentEmail("s@x.com");
+        legacy.setCourseId("c1");
+        double sum = 0;
+        for (int i = 0; i < ATTEMPTS; i++) {
+            StudentProgress.QuizAttempt attempt = new StudentProgress.QuizAttempt();
+            attempt.setQuizId("Algebra_" + i);
+            attempt.setQuizTitle("Algebra Quiz");
+            attempt.setScore(i % 11);
+            attempt.setTotalQuestions(10);
+            attempt.setAttemptedAt(LocalDateTime.now());
+            legacy.getQuizAttempts().add(attempt);
+            sum += (i % 11) * 10.0;
+        }
+        legacy.getOverallPerformance().setTotalQuizzes(ATTEMPTS);
+        legacy.getOverallPerformance().setAverageScore(sum / ATTEMPTS);
+        mongo.template.insert(legacy);
+        int fullSave = CourseUpdateServiceTest.bsonSize(mongo.collection("student_progress").get(0));
+
+        int recorded = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < recorded; i++) {
+            service.recordQuizAttempt(quiz("Algebra", 9, 30, "MEDIUM"));
+            sum += 90.0;
+        }
+        double perAttemptMs = (System.nanoTime() - start) / 1_000_000.0 / recorded;
+
+        int lastUpdate = CourseUpdateServiceTest.bsonSize(mongo.writes.get(mongo.writes.size() - 2))
+            + CourseUpdateServiceTest.bsonSize(mongo.writes.get(mongo.writes.size() - 1));
+        System.out.println("Quiz attempt with " + ATTEMPTS + " earlier attempts: full save " + fullSave
+            + " bytes, targeted updates " + lastUpdate + " bytes, " + String.format("%.3f", perAttemptMs)
+            + " ms per attempt (in-memory store)");
+
+        Document stored = mongo.collection("student_progress").get(0);
+        Document overall = stored.get("overallPerformance", Document.class);
+        assertEquals(ATTEMPTS + recorded, ((Number) overall.get("totalQuizzes")).intValue());
+        assertEquals(sum / (ATTEMPTS + recorded), overall.getDouble("averageScore"), 1e-9);
+        assertEquals(overall.getDouble("averageScore"), stored.getDouble("overallScore"), 1e-9);
+        // The first new attempt also trimmed the legacy history
+        assertEquals(StudentProgressService.MAX_RECENT_QUIZ_ATTEMPTS, ((List<?>) stored.get("quizAttempts")).size());
+        assertTrue(lastUpdate * 100 < fullSave, "targeted " + lastUpdate + " vs full " + fullSave);
+    }
+
+    @Test
+    void aUniqueStudentCourseIndexIsCreatedBeforeTheFirstDocument() {
+        service.recordQuizAttempt(quiz("Algebra", 10, 60, "MEDIUM"));
+        service.recordQuizAttempt(quiz("Algebra", 5, 60, "MEDIUM"));
+
+        ArgumentCaptor<IndexDefinition> indexes = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(mongo.template.indexOps(StudentProgress.class), atLeastOnce()).ensureIndex(indexes.capture());
+        IndexDefinition unique = indexes.getAllValues().stream()
+            .filter(index -> Boolean.TRUE.equals(index.getIndexOptions().get("unique")))
+            .findFirst().orElseThrow();
+        assertEquals(new Document("studentEmail", 1).append("courseId", 1), unique.getIndexKeys());
+        assertEquals(1, mongo.collection("student_progress").size());
+    }
+
+    @Test
+    void derivedScoresFollowTheRunningSums() {
+        service.recordQuizAttempt(quiz("Algebra", 10, 60, "MEDIUM"));
+        service.recordQuizAttempt(quiz("Algebra", 5, 60, "MEDIUM"));
+        StudentProgress progress = service.recordQuizAttempt(quiz("Geometry", 9, 120, "HARD"));
+
+        assertEquals(80.0, progress.getOverallScore(), 1e-9);
+        assertEquals("GOOD", progress.getOverallPerformance().getPerformanceLevel());
+        assertEquals(2, progress.getQuizzesPassed());
+        assertEquals(4, progress.getTotalTimeSpentMinutes());
+        assertEquals(75.0, progress.getTopicMastery().get("Algebra").getAverageScore(), 1e-9);
+        assertEquals(15, progress.getTopicMastery().get("Algebra").getCorrectAnswers());
+        assertEquals("HARD", progress.getTopicMastery().get("Geometry").getDifficulty());
+
+        Document stored = mongo.collection("student_progress").get(0);
+        assertEquals("MEDIUM", stored.get("topicMastery", Document.class).get("Algebra", Document.class).get("difficulty"));
+        assertEquals(80.0, stored.getDouble("overallScore"), 1e-9);
+    }
+
+    @Test
+    void activityLogIsCappedNewestFirst() {
+        for (int i = 0; i < 50; i++) {
+            service.markLessonComplete(lesson("lesson-" + i, "Lesson " + i));
+        }
+
+        StudentProgress progress = service.recordQuizAttempt(quiz("Algebra", 7, 60, "MEDIUM"));
+
+        assertEquals(StudentProgressService.MAX_RECENT_ACTIVITIES, progress.getRecentActivities().size());
+        assertEquals("Algebra Quiz", progress.getRecentActivities().get(0).getActivityTitle());
+        assertEquals("Lesson 49", progress.getRecentActivities().get(1).getActivityTitle());
+        assertEquals(50, progress.getLessonsCompleted());
+    }
+
+    @Test
+    void attemptListKeepsTheNewestAttemptsOldestFirst() {
+        int recorded = StudentProgressService.MAX_RECENT_QUIZ_ATTEMPTS + 5;
+        StudentProgress progress = null;
+        for (int i = 0; i < recorded; i++) {
+            progress = service.recordQuizAttempt(quiz("Topic " + i, i % 11, 60, "MEDIUM"));
+        }
+
+        List<StudentProgress.QuizAttempt> attempts = progress.getQuizAttempts();
+        assertEquals(StudentProgressService.MAX_RECENT_QUIZ_ATTEMPTS, attempts.size());
+        assertEquals("Topic 5 Quiz", attempts.get(0).getQuizTitle());
+        assertEquals("Topic " + (recorded - 1) + " Quiz", attempts.get(attempts.size() - 1).getQuizTitle());
+        // Totals still count every attempt
+        assertEquals(recorded, progress.getOverallPerformance().getTotalQuizzes());
+    }
+
+    @Test
+    void replayedEventsChangeNothing() {
+        List<LearningEvent> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            events.add(quiz("Algebra", i % 2 == 0 ? 10 : 4, 0, "MEDIUM"));
+        }
+        events.add(lesson("lesson-1", "Lesson 1"));
+        for (int pass = 0; pass < 2; pass++) {
+            // The second pass is what the projector does after a crash before its checkpoint was saved
+            for (LearningEvent event : events) {
+                switch (event.getType()) {
+                    case QUIZ_ATTEMPT -> service.recordQuizAttempt(event);
+                    default -> service.markLessonComplete(event);
+                }
+            }
+        }
+
+        assertEquals(1, mongo.collection("student_progress").size());
+        Document stored = mongo.collection("student_progress").get(0);
+        Document overall = stored.get("overallPerformance", Document.class);
+        assertEquals(20, ((Number) overall.get("totalQuizzes")).intValue());
+        assertEquals(70.0, overall.getDouble("averageScore"), 1e-9);
+        assertEquals(10, ((Number) stored.get("quizzesPassed")).intValue());
+        assertEquals(1, ((Number) stored.get("lessonsCompleted")).intValue());
+        assertEquals(21, ((Number) stored.get("projectedSeq")).longValue());
+    }
+
+    @Test
+    void lessonIsCompletedOnceEvenWhenReportedRepeatedly() {
+        for (int i = 0; i < 16; i++) {
+            assertNotNull(service.markLessonComplete(lesson("lesson-1", "Lesson 1")));
+        }
+
+        StudentProgress progress = service.markLessonComplete(lesson("lesson-2", "Lesson 2"));
+        assertEquals(2, progress.getLessonsCompleted());
+        assertEquals(2, progress.getLessonProgressList().size());
+        assertEquals(2, progress.getRecentActivities().size());
+        assertEquals(1, mongo.collection("student_progress").size());
+    }
+
+    @Test
+    void mediaRunsAreOneUpdatePerStudent() {
+        List<LearningEvent> first = new ArrayList<>();
+        List<LearningEvent> second = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            first.add(withSeq(LearningEvent.mediaTime("VIDEO", "s@x.com", "c1", "Algebra", "Video " + i, 120)));
+            second.add(withSeq(LearningEvent.mediaTime("PDF", "t@x.com", "c1", "Geometry", "PDF " + i, 60)));
+        }
+        service.recordMediaTime(List.of(first, second));
+        // One create-if-missing upsert and one update per student for 60 events
+        assertEquals(4, mongo.writes.size());
+        service.recordMediaTime(List.of(first, second));
+
+        assertEquals(2, mongo.collection("student_progress").size());
+        Document video = mongo.collection("student_progress").get(0);
+        assertEquals(60, ((Number) video.get("totalTimeSpentMinutes")).intValue());
+        assertEquals(3600L, ((Number) video.get("topicMastery", Document.class).get("Algebra", Document.class).get("timeSpent")).longValue());
+        List<?> activities = (List<?>) video.get("recentActivities");
+        assertEquals(StudentProgressService.MAX_RECENT_ACTIVITIES, activities.size());
+        assertEquals("Video 29", ((Document) activities.get(0)).get("activityTitle"));
+        assertEquals("Watched video for 2 minutes", ((Document) activities.get(0)).get("description"));
+    }
+
+    private LearningEvent quiz(String topic, int score, int seconds, String difficulty) {
+        return withSeq(LearningEvent.quizAttempt(LearningEvent.Source.PROGRESS, "s@x.com", "c1", topic, null,
+            score, 10, seconds, difficulty, "normal"));
+    }
+
+    private LearningEvent lesson(String lessonId, String title) {
+        return withSeq(LearningEvent.lessonComplete("s@x.com", "c1", lessonId, title, 1));
+    }
+
+    private LearningEvent withSeq(LearningEvent event) {
+        event.setSeq(seq.incrementAndGet());
+        return event;
+    }
+}
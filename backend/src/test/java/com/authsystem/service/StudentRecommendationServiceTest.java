@@ -0,0 +1,107 @@
+package com.authsystem.service;
+
+import com.authsystem.model.*;
+import com.authsystem.repository.TopicRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StudentRecommendationServiceTest {
+
+    private StudentRecommendationService service;
+    private TopicRepository topicRepository;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        service = new StudentRecommendationService();
+        topicRepository = mock(TopicRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        ReflectionTestUtils.setField(service, "topicRepository", topicRepository);
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+    }
+
+    private int queryCount() {
+        return mockingDetails(topicRepository).getInvocations().size()
+            + mockingDetails(mongoTemplate).getInvocations().size();
+    }
+
+    private QuizAttempt attempt(String topicName, double score) {
+        QuizAttempt attempt = new QuizAttempt();
+        attempt.setStudentEmail("student@example.com");
+        attempt.setTopicName(topicName);
+        attempt.setScore(score);
+        attempt.setDifficulty("BEGINNER");
+        return attempt;
+    }
+
+    private Topic topic(String id, String name) {
+        Topic topic = new Topic();
+        topic.setId(id);
+        topic.setName(name);
+        return topic;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fiveWeakTopicsCostFiveQueries() {
+        List<QuizAttempt> attempts = new ArrayList<>();
+        List<Topic> topics = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            attempts.add(attempt("Topic " + i, 10 + i * 7));
+            topics.add(topic("t" + i, "Topic " + i));
+        }
+        // Duplicate name - the first match wins, as with findByName(...).get(0)
+        topics.add(topic("dup", "Topic 0"));
+
+        when(mongoTemplate.find(any(Query.class), eq(QuizAttempt.class))).thenReturn(attempts);
+        when(topicRepository.findByNameIn(anyCollection())).thenReturn(topics);
+        when(mongoTemplate.aggregate(any(Aggregation.class), any(Class.class), eq(Document.class))).thenAnswer(inv -> {
+            Class<?> type = inv.getArgument(1);
+            List<Document> rows = new ArrayList<>();
+            if (type == Video.class) {
+                rows.add(new Document("_id", "t0").append("count", 3));
+            } else if (type == MCQ.class) {
+                rows.add(new Document("_id", "t0").append("count", 40));
+                rows.add(new Document("_id", "t4").append("count", 12));
+            }
+            return new AggregationResults<>(rows, new Document());
+        });
+
+        Map<String, Object> result = service.getRecommendations("student@example.com");
+
+        assertEquals(5, queryCount());
+        assertEquals(12, result.get("totalAttempts"));
+        List<Map<String, Object>> recommendations = (List<Map<String, Object>>) result.get("recommendations");
+        assertEquals(5, recommendations.size());
+        Map<String, Object> weakest = recommendations.get(0);
+        assertEquals("t0", weakest.get("topicId"));
+        assertEquals("HIGH", weakest.get("priority"));
+        assertEquals(3, weakest.get("videosAvailable"));
+        assertEquals(0, weakest.get("pdfsAvailable"));
+        assertEquals(40, weakest.get("mcqsAvailable"));
+        assertEquals(12, recommendations.get(4).get("mcqsAvailable"));
+    }
+
+    @Test
+    void noAttemptsStopsAfterOneQuery() {
+        when(mongoTemplate.find(any(Query.class), eq(QuizAttempt.class))).thenReturn(List.of());
+
+        Map<String, Object> result = service.getRecommendations("new@example.com");
+
+        assertEquals(1, queryCount());
+        assertEquals(List.of(), result.get("recommendations"));
+        assertTrue(result.containsKey("message"));
+    }
+}
@@ -0,0 +1,155 @@
+package com.authsystem.service;
+
+import com.authsystem.model.*;
+import com.authsystem.repository.*;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SubjectContentServiceTest {
+
+    private SubjectContentService service;
+    private SubjectRepository subjectRepository;
+    private TopicRepository topicRepository;
+    private VideoRepository videoRepository;
+    private PDFRepository pdfRepository;
+    private MCQRepository mcqRepository;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        service = new SubjectContentService();
+        subjectRepository = mock(SubjectRepository.class);
+        topicRepository = mock(TopicRepository.class);
+        videoRepository = mock(VideoRepository.class);
+        pdfRepository = mock(PDFRepository.class);
+        mcqRepository = mock(MCQRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        ReflectionTestUtils.setField(service, "subjectRepository", subjectRepository);
+        ReflectionTestUtils.setField(service, "topicRepository", topicRepository);
+        ReflectionTestUtils.setField(service, "videoRepository", videoRepository);
+        ReflectionTestUtils.setField(service, "pdfRepository", pdfRepository);
+        ReflectionTestUtils.setField(service, "mcqRepository", mcqRepository);
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+    }
+
+    /**
+     * Every call on a repository or the template is one round trip to Mongo
+     */
+    private int queryCount() {
+        int count = 0;
+        for (Object mock : List.of(subjectRepository, topicRepository, videoRepository, pdfRepository, mcqRepository, mongoTemplate)) {
+            count += mockingDetails(mock).getInvocations().size();
+        }
+        return count;
+    }
+
+    private Subject subject(String id) {
+        Subject subject = new Subject();
+        subject.setId(id);
+        subject.setTitle("Subject " + id);
+        return subject;
+    }
+
+    private List<Topic> topics(int count) {
+        List<Topic> topics = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Topic topic = new Topic();
+            topic.setId("t" + i);
+            topic.setName("Topic " + i);
+            topic.setOrderIndex(i);
+            topics.add(topic);
+        }
+        return topics;
+    }
+
+    private Video video(String id, String topicId) {
+        Video video = new Video();
+        video.setId(id);
+        video.setTopicId(topicId);
+        return video;
+    }
+
+    private MCQ mcq(String id, String topicId) {
+        MCQ mcq = new MCQ();
+        mcq.setId(id);
+        mcq.setTopicId(topicId);
+        return mcq;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void subjectWithFortyTopicsCostsEightQueries() {
+        when(subjectRepository.findById("s1")).thenReturn(Optional.of(subject("s1")));
+        when(topicRepository.findBySubjectIdOrderByOrderIndexAsc("s1")).thenReturn(topics(40));
+        when(videoRepository.findByTopicIdInOrderByOrderIndexAsc(anyCollection()))
+            .thenReturn(List.of(video("v1", "t0"), video("v2", "t0"), video("v3", "t39")));
+        when(pdfRepository.findByTopicIdInOrderByOrderIndexAsc(anyCollection())).thenReturn(List.of());
+        when(mcqRepository.findByTopicIdIn(anyCollection())).thenReturn(List.of(mcq("m1", "t5")));
+        when(videoRepository.countBySubjectId("s1")).thenReturn(3L);
+        when(pdfRepository.countBySubjectId("s1")).thenReturn(0L);
+        when(mcqRepository.countBySubjectId("s1")).thenReturn(1L);
+
+        Map<String, Object> result = service.getCompleteSubjectContent("s1").orElseThrow();
+
+        assertEquals(8, queryCount());
+        List<Map<String, Object>> topics = (List<Map<String, Object>>) result.get("topics");
+        assertEquals(40, topics.size());
+        assertEquals(List.of("v1", "v2"), ((List<Video>) topics.get(0).get("videos")).stream().map(Video::getId).toList());
+        assertEquals(2, topics.get(0).get("videoCount"));
+        assertEquals(1, topics.get(5).get("mcqCount"));
+        assertEquals(1, topics.get(39).get("videoCount"));
+        assertEquals(0, topics.get(20).get("pdfCount"));
+        assertEquals(3L, result.get("totalVideos"));
+    }
+
+    @Test
+    void missingSubjectStopsAfterOneQuery() {
+        when(subjectRepository.findById("nope")).thenReturn(Optional.empty());
+
+        assertTrue(service.getCompleteSubjectContent("nope").isEmpty());
+        assertEquals(1, queryCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void instructorOverviewCostsFiveQueriesForAnyNumberOfSubjects() {
+        List<Subject> subjects = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            subjects.add(subject("s" + i));
+        }
+        when(subjectRepository.findByInstructorEmail("prof@example.com")).thenReturn(subjects);
+        when(mongoTemplate.aggregate(any(Aggregation.class), any(Class.class), eq(Document.class))).thenAnswer(inv -> {
+            Class<?> type = inv.getArgument(1);
+            List<Document> rows = new ArrayList<>();
+            if (type == Topic.class) {
+                rows.add(new Document("_id", "s0").append("count", 4));
+                rows.add(new Document("_id", "s29").append("count", 2));
+            } else if (type == MCQ.class) {
+                rows.add(new Document("_id", "s0").append("count", 25));
+            }
+            return new AggregationResults<>(rows, new Document());
+        });
+
+        Map<String, Object> result = service.getContentByInstructor("prof@example.com");
+
+        assertEquals(5, queryCount());
+        assertEquals(30, result.get("totalSubjects"));
+        assertEquals(6, result.get("totalTopics"));
+        assertEquals(25, result.get("totalMCQs"));
+        Map<String, Object> first = ((List<Map<String, Object>>) result.get("subjectsWithStats")).get(0);
+        assertEquals(4, first.get("topicCount"));
+        assertEquals(0L, first.get("videoCount"));
+        assertEquals(25L, first.get("mcqCount"));
+    }
+}
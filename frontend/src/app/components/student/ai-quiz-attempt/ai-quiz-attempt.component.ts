@@ -1,11 +1,11 @@
 import { Component, OnInit } from '@angular/core';
 import { ActivatedRoute, Router } from '@angular/router';
-import { HttpClient, HttpHeaders } from '@angular/common/http';
-import { environment } from '../../../../environments/environment';
+import { HttpClient } from '@angular/common/http';
 import { AiQuizService } from '../../../services/ai-quiz.service';
 import { AuthService } from '../../../services/auth.service';
 import { CourseService } from '../../../services/course.service';
 import { AdaptiveLearningService } from '../../../services/adaptive-learning.service';
+import { StudentProgressService } from '../../../services/student-progress.service';
 
 interface QuizQuestion {
   id: string;
@@ -55,7 +55,8 @@ export class AiQuizAttemptComponent implements OnInit {
     private aiQuizService: AiQuizService,
     private authService: AuthService,
     private courseService: CourseService,
-    private adaptiveService: AdaptiveLearningService
+    private adaptiveService: AdaptiveLearningService,
+    private progressService: StudentProgressService
   ) {}
 
   ngOnInit(): void {
@@ -228,7 +229,8 @@ export class AiQuizAttemptComponent implements OnInit {
       totalQuestions: this.totalQuestions,
       difficulty: 'INTERMEDIATE',
       timeSpentSeconds: timeTakenSeconds,
-      quizType: 'ai'  // Mark as AI-generated quiz
+      quizType: 'ai',  // Mark as AI-generated quiz
+      quizId: 'AI_QUIZ'
     };
 
     console.log('🤖 Recording AI quiz in progress system:');
@@ -240,25 +242,9 @@ export class AiQuizAttemptComponent implements OnInit {
     console.log('   🤖 Type: AI Quiz');
     console.log('   📦 Full Payload:', progressPayload);
     
-    const token = localStorage.getItem('token');
-    if (!token) {
-      console.error('❌ No auth token found');
-      return;
-    }
-
-    this.http.post('${environment.apiUrl}/progress/quiz-attempt', progressPayload, {
-      headers: new HttpHeaders({
-        'Authorization': `Bearer ${token}`,
-        'Content-Type': 'application/json'
-      })
-    }).subscribe({
-      next: (response: any) => {
-        console.log('✅ AI Quiz tracked successfully!');
-        console.log('   📊 Overall Score:', response.overallScore + '%');
-        console.log('   🎯 Current Level:', response.currentLevel);
-        console.log('   🏆 Quizzes Passed:', response.quizzesPassed);
-        console.log('   ⏱️ Total Time:', response.totalTimeSpentMinutes + 'm');
-        console.log('   📈 Full Response:', response);
+    this.progressService.submitQuizResult(progressPayload).subscribe({
+      next: (response) => {
+        console.log('✅ AI Quiz tracked successfully! Result id:', response.resultId);
       },
       error: (err) => {
         console.error('❌ Failed to track AI quiz:');
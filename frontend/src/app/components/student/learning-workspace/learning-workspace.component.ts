@@ -3,7 +3,6 @@ import { ActivatedRoute, Router } from '@angular/router';
 import { DomSanitizer, SafeResourceUrl } from '@angular/platform-browser';
 import { MCQService, MCQ } from '../../../services/mcq.service';
 import { StudentProgressService } from '../../../services/student-progress.service';
-import { AdaptiveLearningService } from '../../../services/adaptive-learning.service';
 import { AuthService } from '../../../services/auth.service';
 import { HttpClient } from '@angular/common/http';
 import { environment } from '../../../../environments/environment';
@@ -30,6 +29,11 @@ export class LearningWorkspaceComponent implements OnInit, OnDestroy {
   notesLoading: boolean = false;
   notesSaving: boolean = false;
   notesSaveMessage: string = '';
+  // What the server has stored (and its revision), so saves only send the changed part
+  private savedNotes: string = '';
+  private notesRevision: number = 0;
+  private notesSaveTimer: any = null;
+  private readonly notesAutosaveMs = 1500;
   
   currentVideoIndex: number = 0;
   currentPdfIndex: number = 0;
@@ -60,7 +64,6 @@ export class LearningWorkspaceComponent implements OnInit, OnDestroy {
     public sanitizer: DomSanitizer,
     private mcqService: MCQService,
     private progressService: StudentProgressService,
-    private adaptiveService: AdaptiveLearningService,
     private authService: AuthService
   ) {}
 
@@ -111,6 +114,10 @@ export class LearningWorkspaceComponent implements OnInit, OnDestroy {
     // Save all tracked time before leaving
     this.stopTimeTracking();
     this.saveCurrentTabTime();
+    // Don't lose notes typed within the autosave delay
+    if (this.notesSaveTimer) {
+      this.saveNotes();
+    }
   }
 
   private startTimeTracking(): void {
@@ -247,11 +254,30 @@ export class LearningWorkspaceComponent implements OnInit, OnDestroy {
     }
   }
 
-  saveNotes(): void {
+  // Autosave: typing restarts the timer, the notes are saved once the student pauses
+  onNotesChange(): void {
+    clearTimeout(this.notesSaveTimer);
+    this.notesSaveTimer = setTimeout(() => this.saveNotes(), this.notesAutosaveMs);
+  }
+
+  saveNotes(fullText: boolean = false): void {
+    clearTimeout(this.notesSaveTimer);
+    this.notesSaveTimer = null;
     if (!this.studentEmail || !this.courseId || !this.topicName || !this.subtopicName) {
       console.error('Missing required parameters for saving notes');
       return;
     }
+    if (this.notesSaving) {
+      // One save at a time, each delta builds on the revision the previous one returned
+      this.onNotesChange();
+      return;
+    }
+    const text = this.notes;
+    if (!fullText && text === this.savedNotes) {
+      this.notesSaveMessage = '✓ Notes saved!';
+      setTimeout(() => this.notesSaveMessage = '', 3000);
+      return;
+    }
 
     this.notesSaving = true;
     this.notesSaveMessage = '';
@@ -259,27 +285,52 @@ export class LearningWorkspaceComponent implements OnInit, OnDestroy {
     const token = localStorage.getItem('token');
     const headers = { Authorization: `Bearer ${token}` };
 
-    const requestBody = {
+    const requestBody: any = {
       studentEmail: this.studentEmail,
       courseId: this.courseId,
       topicName: this.topicName,
-      subtopicName: this.subtopicName,
-      notes: this.notes
+      subtopicName: this.subtopicName
     };
+    if (fullText) {
+      requestBody.notes = text;
+    } else {
+      // Only the edited region: skip the unchanged start and end of the text
+      const saved = this.savedNotes;
+      let start = 0;
+      while (start < saved.length && start < text.length && saved[start] === text[start]) {
+        start++;
+      }
+      let end = 0;
+      while (end < saved.length - start && end < text.length - start
+             && saved[saved.length - 1 - end] === text[text.length - 1 - end]) {
+        end++;
+      }
+      requestBody.baseRevision = this.notesRevision;
+      requestBody.offset = start;
+      requestBody.removed = saved.length - start - end;
+      requestBody.inserted = text.substring(start, text.length - end);
+    }
 
     const http = (this.progressService as any).http;
     
-    http.post('${environment.apiUrl}/progress/notes/save', requestBody, { headers })
+    http.post(`${environment.apiUrl}/progress/notes/save`, requestBody, { headers })
       .subscribe({
         next: (response: any) => {
           console.log('✅ Notes saved successfully:', response);
+          this.savedNotes = text;
+          this.notesRevision = response.revision;
           this.notesSaving = false;
           this.notesSaveMessage = '✓ Notes saved!';
           setTimeout(() => this.notesSaveMessage = '', 3000);
         },
         error: (err: any) => {
-          console.error('❌ Error saving notes:', err);
           this.notesSaving = false;
+          if (err.status === 409 && !fullText) {
+            // Saved from another tab in the meantime - send the whole text instead
+            this.saveNotes(true);
+            return;
+          }
+          console.error('❌ Error saving notes:', err);
           this.notesSaveMessage = '✗ Failed to save notes';
           setTimeout(() => this.notesSaveMessage = '', 3000);
         }
@@ -302,6 +353,8 @@ export class LearningWorkspaceComponent implements OnInit, OnDestroy {
     http.get(url, { headers }).subscribe({
       next: (response: any) => {
         this.notes = response.notes || '';
+        this.savedNotes = this.notes;
+        this.notesRevision = response.revision || 0;
         this.notesLoading = false;
         console.log('✅ Notes loaded:', this.notes.length, 'characters');
       },
@@ -432,43 +485,19 @@ export class LearningWorkspaceComponent implements OnInit, OnDestroy {
       const now = new Date();
       const seconds = Math.floor((now.getTime() - this.quizStartTime.getTime()) / 1000);
       
-      // Record quiz attempt in BOTH systems for backward compatibility
+      // One submission reaches the progress page, the adaptive engine and the recommendations
       if (this.studentEmail && this.courseId) {
-        // 1. Record in adaptive learning system (NEW - with separate MCQ tracking)
-        const adaptiveRequest = {
+        this.progressService.submitQuizResult({
           studentEmail: this.studentEmail,
           courseId: this.courseId,
           topicName: this.topicName,
           score: this.quizScore,
           totalQuestions: this.mcqQuestions.length,
-          difficulty: 'INTERMEDIATE',
-          timeSpent: seconds
-          // quizId is undefined/null for normal MCQs (not AI_QUIZ)
-        };
-        
-        this.adaptiveService.recordQuizAttempt(adaptiveRequest).subscribe({
-          next: (response) => {
-            console.log('✅ MCQ Quiz tracked in adaptive system:', response);
-            console.log('  - Current Difficulty:', response.currentDifficulty);
-            console.log('  - Recommended Topic:', response.recommendation?.topic);
-          },
-          error: (err) => console.error('❌ Failed to track MCQ in adaptive system:', err)
-        });
-        
-        // 2. Record in old progress system (for backward compatibility)
-        this.progressService.recordQuizAttempt(
-          this.studentEmail,
-          this.courseId,
-          this.topicName,
-          this.quizScore,
-          this.mcqQuestions.length,
-          seconds,
-          'MEDIUM'
-        ).subscribe({
-          next: (progress) => {
-            console.log('✅ Quiz recorded in old system - Overall Score:', progress.overallScore + '%');
-          },
-          error: (err) => console.error('Error recording quiz in old system:', err)
+          timeSpentSeconds: seconds,
+          difficulty: 'INTERMEDIATE'
+        }).subscribe({
+          next: (response) => console.log('✅ Quiz result recorded:', response.resultId),
+          error: (err) => console.error('❌ Failed to record quiz result:', err)
         });
       }
       
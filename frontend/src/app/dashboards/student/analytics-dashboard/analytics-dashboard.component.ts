@@ -264,7 +264,8 @@ export class AnalyticsDashboardComponent implements OnInit {
       
       // Update overall stats
       this.overallScore = Math.max(this.overallScore, progress.overallScore || 0);
-      this.totalQuizzes += progress.quizAttempts?.length || 0;
+      // quizAttempts only holds the most recent attempts
+      this.totalQuizzes += progress.overallPerformance?.totalQuizzes || progress.quizAttempts?.length || 0;
       this.currentLevel = progress.currentLevel || 'BEGINNER';
     });
     
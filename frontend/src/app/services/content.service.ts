@@ -100,6 +100,12 @@ export interface SearchResults {
   videoCount: number;
   pdfCount: number;
   mcqCount: number;
+  // Ranked page across all types, with counts per type and difficulty
+  results?: { type: string; id: string; difficulty: string; score: number; item: any }[];
+  total?: number;
+  page?: number;
+  size?: number;
+  facets?: { type: { [type: string]: number }; difficulty: { [level: string]: number } };
 }
 
 export interface GlobalStats {
@@ -196,9 +202,9 @@ export class ContentService {
    * GET /api/content/search
    * Search across all content types
    */
-  searchContent(query: string): Observable<SearchResults> {
+  searchContent(query: string, page: number = 0, size: number = 20): Observable<SearchResults> {
     return this.http.get<SearchResults>(`${this.apiUrl}/search`, {
-      params: { query },
+      params: { query, page, size },
       headers: this.getHeaders()
     });
   }
@@ -21,6 +21,7 @@ export interface MCQ {
 
 export interface BulkMCQRequest {
   topicId: string;
+  courseId?: string;
   mcqs: {
     question: string;
     options: string[];
@@ -30,6 +31,18 @@ export interface BulkMCQRequest {
   }[];
 }
 
+export interface BulkItemError {
+  index: number;
+  error: string;
+}
+
+export interface BulkMCQResult {
+  created: MCQ[];
+  failed: BulkItemError[];
+  createdCount: number;
+  failedCount: number;
+}
+
 export interface MCQStats {
   totalMCQs: number;
 }
@@ -68,10 +81,10 @@ export class MCQService {
 
   /**
    * POST /api/mcqs/bulk-create
-   * Create multiple MCQs at once
+   * Create multiple MCQs at once; invalid items are listed in failed by their index
    */
-  bulkCreateMCQs(request: BulkMCQRequest): Observable<MCQ[]> {
-    return this.http.post<MCQ[]>(`${this.apiUrl}/bulk-create`, request, {
+  bulkCreateMCQs(request: BulkMCQRequest): Observable<BulkMCQResult> {
+    return this.http.post<BulkMCQResult>(`${this.apiUrl}/bulk-create`, request, {
       headers: this.getHeaders()
     });
   }
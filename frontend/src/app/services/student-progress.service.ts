@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders } from '@angular/common/http';
-import { Observable, BehaviorSubject } from 'rxjs';
-import { tap } from 'rxjs/operators';
+import { Observable, BehaviorSubject, throwError, timer } from 'rxjs';
+import { retry, tap } from 'rxjs/operators';
 import { environment } from '../../environments/environment';
 
 export interface StudentProgress {
@@ -116,7 +116,7 @@ export class StudentProgressService {
     topicName: string,
     timeSpentSeconds: number,
     videoTitle: string
-  ): Observable<StudentProgress> {
+  ): Observable<any> {
     const payload = {
       studentEmail,
       courseId,
@@ -125,14 +125,10 @@ export class StudentProgressService {
       videoTitle
     };
 
-    return this.http.post<StudentProgress>(
+    return this.http.post(
       `${this.apiUrl}/video-watch`,
       payload,
       { headers: this.getHeaders() }
-    ).pipe(
-      tap(progress => {
-        this.progressSubject.next(progress);
-      })
     );
   }
 
@@ -143,7 +139,7 @@ export class StudentProgressService {
     topicName: string,
     timeSpentSeconds: number,
     pdfTitle: string
-  ): Observable<StudentProgress> {
+  ): Observable<any> {
     const payload = {
       studentEmail,
       courseId,
@@ -152,14 +148,35 @@ export class StudentProgressService {
       pdfTitle
     };
 
-    return this.http.post<StudentProgress>(
+    return this.http.post(
       `${this.apiUrl}/pdf-view`,
       payload,
       { headers: this.getHeaders() }
+    );
+  }
+
+  // Record a finished quiz once for the progress page, the adaptive engine and the recommendations.
+  // Answered 202 once stored or queued; a 503 means the server is busy and the same result can be sent again.
+  // Every send of one result carries the same submissionId, so the server records it only once.
+  submitQuizResult(payload: {
+    studentEmail: string;
+    courseId: string;
+    topicName: string;
+    score: number;
+    totalQuestions: number;
+    timeSpentSeconds: number;
+    difficulty?: string;
+    quizType?: string;
+    quizId?: string;
+    submissionId?: string;
+  }): Observable<{ message: string; status: 'recorded' | 'pending'; submissionId: string; resultId?: number }> {
+    const body = { ...payload, submissionId: payload.submissionId ?? crypto.randomUUID() };
+    return this.http.post<{ message: string; status: 'recorded' | 'pending'; submissionId: string; resultId?: number }>(
+      `${environment.apiUrl}/quiz-results`,
+      body,
+      { headers: this.getHeaders() }
     ).pipe(
-      tap(progress => {
-        this.progressSubject.next(progress);
-      })
+      retry({ count: 3, delay: (error, attempt) => error.status === 503 ? timer(1000 * attempt) : throwError(() => error) })
     );
   }
 
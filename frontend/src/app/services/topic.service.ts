@@ -21,6 +21,13 @@ export interface BulkTopicRequest {
   topicNames: string[];
 }
 
+export interface BulkTopicResult {
+  created: Topic[];
+  failed: { index: number; error: string }[];
+  createdCount: number;
+  failedCount: number;
+}
+
 @Injectable({
   providedIn: 'root'
 })
@@ -48,10 +55,10 @@ export class TopicService {
 
   /**
    * POST /api/topics/bulk-create
-   * Create multiple topics at once
+   * Create multiple topics at once; blank or duplicate names are listed in failed by their index
    */
-  bulkCreateTopics(request: BulkTopicRequest): Observable<Topic[]> {
-    return this.http.post<Topic[]>(`${this.apiUrl}/bulk-create`, request, {
+  bulkCreateTopics(request: BulkTopicRequest): Observable<BulkTopicResult> {
+    return this.http.post<BulkTopicResult>(`${this.apiUrl}/bulk-create`, request, {
       headers: this.getHeaders()
     });
   }